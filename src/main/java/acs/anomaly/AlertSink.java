@@ -0,0 +1,11 @@
+package acs.anomaly;
+
+/**
+ * 告警输出（实现为 Spring Bean 即生效，可有多个）
+ *
+ * 在检测线程上调用，应尽快返回；异常只记录，不影响检测。
+ */
+public interface AlertSink {
+
+    void emit(AnomalyAlert alert);
+}
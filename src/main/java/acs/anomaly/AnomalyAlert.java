@@ -0,0 +1,10 @@
+package acs.anomaly;
+
+import java.time.LocalDateTime;
+
+/**
+ * 告警：规则、分组键、时间窗内的统计值，以及触发告警的事件
+ */
+public record AnomalyAlert(String rule, String key, int observed, long windowSeconds, LocalDateTime eventTime,
+                           String badgeId, String resourceId) {
+}
@@ -0,0 +1,156 @@
+package acs.anomaly;
+
+import acs.domain.LogEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AnomalyDetector 在访问事件流上按规则检测异常（AnomalyRule），告警交给 AlertSink
+ *
+ * - offer 只把事件放入有界队列，队列满时丢弃并计数，从不阻塞刷卡路径
+ * - 单个检测线程顺序处理事件，规则状态无需加锁；每个 key 的状态大小只与阈值有关
+ * - key 数超过 acs.anomaly.max-keys-per-rule 时淘汰最久未出现的；每秒移除最后事件已滑出时间窗的 key
+ */
+@Component
+public class AnomalyDetector {
+
+    private static final long SWEEP_MILLIS = 1000;
+
+    private final boolean enabled;
+    private final List<RuleEvaluator> evaluators = new ArrayList<>();
+    private final List<AlertSink> sinks;
+    private final BlockingQueue<LogEntry> queue;
+
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private volatile long processedEvents;
+    private volatile long alerts;
+    private volatile boolean running;
+    private Thread worker;
+    private long lastSweepMillis;
+
+    public AnomalyDetector(AnomalyProperties properties, List<AlertSink> sinks) {
+        this.enabled = properties.isEnabled();
+        for (AnomalyRule rule : properties.getRules()) {
+            evaluators.add(new RuleEvaluator(rule, properties.getMaxKeysPerRule()));
+        }
+        this.sinks = List.copyOf(sinks);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled || evaluators.isEmpty()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::run, "anomaly-detector");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /** 提交一个访问事件（不阻塞） */
+    public void offer(LogEntry log) {
+        if (!enabled || evaluators.isEmpty()) {
+            return;
+        }
+        if (!queue.offer(log)) {
+            droppedEvents.incrementAndGet();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                LogEntry log = queue.poll(SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+                if (log != null) {
+                    process(log);
+                }
+                long now = System.currentTimeMillis();
+                if (now - lastSweepMillis >= SWEEP_MILLIS) {
+                    sweep(now);
+                    lastSweepMillis = now;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("访问异常检测失败: " + e.getMessage());
+            }
+        }
+    }
+
+    // 按各规则处理一个事件（检测线程上执行）
+    void process(LogEntry log) {
+        if (log.getTimestamp() == null) {
+            return;
+        }
+        long millis = log.getTimestamp().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        for (RuleEvaluator evaluator : evaluators) {
+            AnomalyAlert alert = evaluator.evaluate(log, millis);
+            if (alert != null) {
+                alerts++;
+                emit(alert);
+            }
+        }
+        processedEvents++;
+    }
+
+    // 移除各规则下空闲的 key
+    int sweep(long nowMillis) {
+        int removed = 0;
+        for (RuleEvaluator evaluator : evaluators) {
+            removed += evaluator.sweep(nowMillis);
+        }
+        return removed;
+    }
+
+    private void emit(AnomalyAlert alert) {
+        for (AlertSink sink : sinks) {
+            try {
+                sink.emit(alert);
+            } catch (RuntimeException e) {
+                System.err.println("告警输出失败（" + sink.getClass().getSimpleName() + "）: " + e.getMessage());
+            }
+        }
+    }
+
+    public long getProcessedEvents() {
+        return processedEvents;
+    }
+
+    /** 队列满而未检测的事件数 */
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    public long getAlerts() {
+        return alerts;
+    }
+
+    /** 各规则当前保留的 key 数之和 */
+    public int getActiveKeys() {
+        return evaluators.stream().mapToInt(RuleEvaluator::getActiveKeys).sum();
+    }
+
+    /** 因超过 key 数上限被淘汰的 key 数 */
+    public long getEvictedKeys() {
+        return evaluators.stream().mapToLong(RuleEvaluator::getEvictedKeys).sum();
+    }
+}
@@ -0,0 +1,69 @@
+package acs.anomaly;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 访问异常检测配置，例如：
+ *   acs.anomaly.rules[0].name=denied-at-many-doors
+ *   acs.anomaly.rules[0].key=BADGE
+ *   acs.anomaly.rules[0].decision=DENY
+ *   acs.anomaly.rules[0].measure=DISTINCT_RESOURCES
+ *   acs.anomaly.rules[0].threshold=5
+ *   acs.anomaly.rules[0].window-seconds=60
+ *
+ * 配置了 rules 时整体替换默认规则。
+ */
+@Component
+@ConfigurationProperties(prefix = "acs.anomaly")
+public class AnomalyProperties {
+
+    private boolean enabled = true;
+    // 待检测事件队列容量（满时丢弃并计数，不阻塞刷卡）
+    private int queueCapacity = 10_000;
+    // 每条规则最多保留的 key 数（超出时淘汰最久未出现的）
+    private int maxKeysPerRule = 10_000;
+    private List<AnomalyRule> rules = new ArrayList<>(List.of(
+            new AnomalyRule("denied-at-many-doors", List.of(AnomalyRule.KeyField.BADGE), AccessDecision.DENY, null,
+                    AnomalyRule.Measure.DISTINCT_RESOURCES, 5, 60),
+            new AnomalyRule("unknown-badge-burst", List.of(AnomalyRule.KeyField.RESOURCE), null,
+                    ReasonCode.BADGE_NOT_FOUND, AnomalyRule.Measure.COUNT, 10, 60)));
+
+    // Getter和Setter（配置绑定）
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getMaxKeysPerRule() {
+        return maxKeysPerRule;
+    }
+
+    public void setMaxKeysPerRule(int maxKeysPerRule) {
+        this.maxKeysPerRule = maxKeysPerRule;
+    }
+
+    public List<AnomalyRule> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<AnomalyRule> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,183 @@
+package acs.anomaly;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 一条检测规则：按 key 分组，在时间窗内统计满足条件的事件，达到 threshold 即告警
+ *
+ * 例：同一徽章 60 秒内在 5 个不同的门被拒绝
+ *   key=BADGE, decision=DENY, measure=DISTINCT_RESOURCES, threshold=5, window-seconds=60
+ */
+public class AnomalyRule {
+
+    /** 分组字段（可组合，例如 RESOURCE,REASON_CODE） */
+    public enum KeyField {
+        BADGE,
+        EMPLOYEE,
+        RESOURCE,
+        REASON_CODE
+    }
+
+    /** 统计方式 */
+    public enum Measure {
+        /** 事件数 */
+        COUNT,
+        /** 不同资源数 */
+        DISTINCT_RESOURCES
+    }
+
+    /** 时间窗类型 */
+    public enum WindowType {
+        /** 滑动窗口：任意连续 window-seconds 秒内 */
+        SLIDING,
+        /** 固定窗口：按 window-seconds 对齐切分 */
+        TUMBLING
+    }
+
+    private String name;
+    private List<KeyField> key = new ArrayList<>();
+    // 条件（为空表示不限）
+    private AccessDecision decision;
+    private ReasonCode reasonCode;
+    private Measure measure = Measure.COUNT;
+    private WindowType window = WindowType.SLIDING;
+    private long windowSeconds = 60;
+    private int threshold = 10;
+    // 同一 key 告警后的静默时间（为 0 时取 window-seconds）
+    private long cooldownSeconds = 0;
+
+    public AnomalyRule() {
+    }
+
+    public AnomalyRule(String name, List<KeyField> key, AccessDecision decision, ReasonCode reasonCode,
+                       Measure measure, int threshold, long windowSeconds) {
+        this.name = name;
+        this.key = new ArrayList<>(key);
+        this.decision = decision;
+        this.reasonCode = reasonCode;
+        this.measure = measure;
+        this.threshold = threshold;
+        this.windowSeconds = windowSeconds;
+    }
+
+    /** 事件是否满足条件 */
+    public boolean matches(LogEntry log) {
+        return (decision == null || decision == log.getDecision())
+                && (reasonCode == null || reasonCode == log.getReasonCode());
+    }
+
+    /** 事件的分组键（任一分组字段为空时返回 null，不参与该规则） */
+    public String keyOf(LogEntry log) {
+        StringBuilder builder = new StringBuilder();
+        for (KeyField field : key) {
+            String value = switch (field) {
+                case BADGE -> log.getBadgeId();
+                case EMPLOYEE -> log.getEmployeeId();
+                case RESOURCE -> log.getResourceId();
+                case REASON_CODE -> log.getReasonCode() != null ? log.getReasonCode().name() : null;
+            };
+            if (value == null) {
+                return null;
+            }
+            if (builder.length() > 0) {
+                builder.append('|');
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+
+    void validate() {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("异常检测规则缺少名称");
+        }
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("异常检测规则缺少分组字段: " + name);
+        }
+        if (threshold < 1 || windowSeconds < 1) {
+            throw new IllegalArgumentException("异常检测规则的阈值与时间窗必须为正数: " + name);
+        }
+    }
+
+    public long cooldownMillis() {
+        return (cooldownSeconds > 0 ? cooldownSeconds : windowSeconds) * 1000;
+    }
+
+    // Getter和Setter（配置绑定）
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<KeyField> getKey() {
+        return key;
+    }
+
+    public void setKey(List<KeyField> key) {
+        this.key = key;
+    }
+
+    public AccessDecision getDecision() {
+        return decision;
+    }
+
+    public void setDecision(AccessDecision decision) {
+        this.decision = decision;
+    }
+
+    public ReasonCode getReasonCode() {
+        return reasonCode;
+    }
+
+    public void setReasonCode(ReasonCode reasonCode) {
+        this.reasonCode = reasonCode;
+    }
+
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    public void setMeasure(Measure measure) {
+        this.measure = measure;
+    }
+
+    public WindowType getWindow() {
+        return window;
+    }
+
+    public void setWindow(WindowType window) {
+        this.window = window;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(int threshold) {
+        this.threshold = threshold;
+    }
+
+    public long getCooldownSeconds() {
+        return cooldownSeconds;
+    }
+
+    public void setCooldownSeconds(long cooldownSeconds) {
+        this.cooldownSeconds = cooldownSeconds;
+    }
+}
@@ -0,0 +1,17 @@
+package acs.anomaly;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * 默认告警输出：写入错误输出
+ */
+@Component
+public class LoggingAlertSink implements AlertSink {
+
+    @Override
+    public void emit(AnomalyAlert alert) {
+        System.err.println("访问异常告警 [" + alert.rule() + "] " + alert.key() + "：" + alert.windowSeconds()
+                + " 秒内达到 " + alert.observed() + "（徽章 " + alert.badgeId() + "，资源 " + alert.resourceId()
+                + "，时间 " + alert.eventTime() + "）");
+    }
+}
@@ -0,0 +1,100 @@
+package acs.anomaly;
+
+import acs.domain.LogEntry;
+
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一条规则的全部 key 状态（只在检测线程上访问）
+ *
+ * 按访问顺序保存，超过 maxKeys 时淘汰最久未出现的 key；定期移除最后事件已滑出时间窗的 key。
+ */
+final class RuleEvaluator {
+
+    private final AnomalyRule rule;
+    private final LinkedHashMap<String, WindowState> states;
+
+    private volatile int activeKeys;
+    private volatile long evictedKeys;
+
+    RuleEvaluator(AnomalyRule rule, int maxKeys) {
+        rule.validate();
+        this.rule = rule;
+        this.states = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, WindowState> eldest) {
+                if (size() > maxKeys) {
+                    evictedKeys++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * 处理一个事件
+     *
+     * @return 达到阈值且不在静默期时返回告警，否则 null
+     */
+    AnomalyAlert evaluate(LogEntry log, long millis) {
+        if (!rule.matches(log)) {
+            return null;
+        }
+        String key = rule.keyOf(log);
+        if (key == null) {
+            return null;
+        }
+        WindowState state = states.get(key);
+        if (state == null) {
+            state = new WindowState(rule.getThreshold());
+            states.put(key, state);
+            activeKeys = states.size();
+        }
+        int observed = state.observe(rule, millis, log.getResourceId());
+        if (observed < rule.getThreshold() || inCooldown(state, millis)) {
+            return null;
+        }
+        state.lastAlertMillis = millis;
+        LocalDateTime eventTime = log.getTimestamp();
+        return new AnomalyAlert(rule.getName(), key, observed, rule.getWindowSeconds(), eventTime,
+                log.getBadgeId(), log.getResourceId());
+    }
+
+    /**
+     * 移除空闲的 key（从最久未出现的开始，遇到仍活跃的即停止）
+     *
+     * @return 移除的数量
+     */
+    int sweep(long nowMillis) {
+        long windowMillis = rule.getWindowSeconds() * 1000;
+        int removed = 0;
+        Iterator<WindowState> iterator = states.values().iterator();
+        while (iterator.hasNext()) {
+            WindowState state = iterator.next();
+            if (!state.isIdle(nowMillis, windowMillis) || inCooldown(state, nowMillis)) {
+                break;
+            }
+            iterator.remove();
+            removed++;
+        }
+        activeKeys = states.size();
+        return removed;
+    }
+
+    // 告警后的静默期内（静默期内保留状态，避免 key 被移除后立即重复告警）
+    private boolean inCooldown(WindowState state, long millis) {
+        return state.lastAlertMillis != Long.MIN_VALUE && millis - state.lastAlertMillis < rule.cooldownMillis();
+    }
+
+    int getActiveKeys() {
+        return activeKeys;
+    }
+
+    long getEvictedKeys() {
+        return evictedKeys;
+    }
+}
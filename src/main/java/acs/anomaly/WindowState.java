@@ -0,0 +1,107 @@
+package acs.anomaly;
+
+/**
+ * 一条规则下一个 key 的时间窗状态，占用空间只与规则的阈值有关
+ *
+ * - 滑动计数：最近 threshold 个事件时间的环形数组
+ * - 滑动去重：最多 threshold 个资源及其最后出现时间（过期的先移除）
+ * - 固定窗口：当前窗口起点，以及计数或最多 threshold 个资源
+ */
+final class WindowState {
+
+    private final long[] times;
+    private final String[] values;
+    private int size = 0;
+    private int head = 0;
+    private long windowStart = Long.MIN_VALUE;
+    private int tumblingCount = 0;
+
+    long lastEventMillis;
+    long lastAlertMillis = Long.MIN_VALUE;
+
+    WindowState(int threshold) {
+        this.times = new long[threshold];
+        this.values = new String[threshold];
+    }
+
+    /**
+     * 记录一个事件
+     *
+     * @return 时间窗内的统计值（达到阈值后不再增长）
+     */
+    int observe(AnomalyRule rule, long millis, String resourceId) {
+        lastEventMillis = Math.max(lastEventMillis, millis);
+        long windowMillis = rule.getWindowSeconds() * 1000;
+        boolean distinct = rule.getMeasure() == AnomalyRule.Measure.DISTINCT_RESOURCES;
+        if (distinct && resourceId == null) {
+            return 0;
+        }
+        if (rule.getWindow() == AnomalyRule.WindowType.TUMBLING) {
+            long start = millis - Math.floorMod(millis, windowMillis);
+            if (start != windowStart) {
+                windowStart = start;
+                tumblingCount = 0;
+                size = 0;
+            }
+            if (!distinct) {
+                return ++tumblingCount;
+            }
+            addDistinct(resourceId, millis);
+            return size;
+        }
+        if (!distinct) {
+            times[head] = millis;
+            head = (head + 1) % times.length;
+            size = Math.min(size + 1, times.length);
+            int inWindow = 0;
+            for (int i = 0; i < size; i++) {
+                if (times[i] > millis - windowMillis) {
+                    inWindow++;
+                }
+            }
+            return inWindow;
+        }
+        // 滑动去重：先移除已滑出时间窗的资源
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (times[i] > millis - windowMillis) {
+                times[kept] = times[i];
+                values[kept] = values[i];
+                kept++;
+            }
+        }
+        for (int i = kept; i < size; i++) {
+            values[i] = null;
+        }
+        size = kept;
+        addDistinct(resourceId, millis);
+        return size;
+    }
+
+    /** 最后一个事件已滑出时间窗，状态可以丢弃 */
+    boolean isIdle(long nowMillis, long windowMillis) {
+        return lastEventMillis <= nowMillis - windowMillis;
+    }
+
+    private void addDistinct(String resourceId, long millis) {
+        int oldest = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i].equals(resourceId)) {
+                times[i] = Math.max(times[i], millis);
+                return;
+            }
+            if (times[i] < times[oldest]) {
+                oldest = i;
+            }
+        }
+        if (size < values.length) {
+            values[size] = resourceId;
+            times[size] = millis;
+            size++;
+        } else {
+            // 已达到阈值：替换最早的资源，保持空间不变
+            values[oldest] = resourceId;
+            times[oldest] = millis;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package acs.audit;
+
+import java.util.Set;
+
+/**
+ * “谁能进入”查询：能进入 allOf 中全部资源、且能进入 anyOf 中任一资源（为空表示不限）、
+ * 且不能进入 noneOf 中任何资源的员工。例如“能进 A 但不能进 B”：allOf={A}, noneOf={B}
+ */
+public record AccessAuditQuery(Set<String> allOf, Set<String> anyOf, Set<String> noneOf) {
+
+    public AccessAuditQuery {
+        allOf = allOf != null ? Set.copyOf(allOf) : Set.of();
+        anyOf = anyOf != null ? Set.copyOf(anyOf) : Set.of();
+        noneOf = noneOf != null ? Set.copyOf(noneOf) : Set.of();
+    }
+
+    public static AccessAuditQuery canAccess(String resourceId) {
+        return new AccessAuditQuery(Set.of(resourceId), Set.of(), Set.of());
+    }
+
+    public static AccessAuditQuery canAccessExcept(String resourceId, String exceptResourceId) {
+        return new AccessAuditQuery(Set.of(resourceId), Set.of(), Set.of(exceptResourceId));
+    }
+}
@@ -0,0 +1,7 @@
+package acs.audit;
+
+/**
+ * 审计结果中的一个员工
+ */
+public record AuditedEmployee(String employeeId, String employeeName, String badgeId) {
+}
@@ -0,0 +1,12 @@
+package acs.audit;
+
+import java.util.List;
+
+/**
+ * 审计结果的一页（按员工序号升序）
+ *
+ * nextCursor 为 null 表示已是最后一页；游标是员工序号，序号不复用，翻页期间的变更不会导致重复或跳过未变化的员工。
+ * total 为取这一页时结果集的总数。
+ */
+public record EmployeePage(List<AuditedEmployee> employees, long total, String nextCursor) {
+}
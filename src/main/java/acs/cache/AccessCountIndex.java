@@ -0,0 +1,147 @@
+package acs.cache;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * AccessCountIndex 对缓存中的日志按分钟计数，回答任意时间窗内的访问次数
+ *
+ * - 范围：全局，以及每个资源
+ * - 计数项：每个 AccessDecision、每个 ReasonCode 各一个 MinuteCounter，出现过才分配
+ * - 与日志缓存同步维护：日志进入缓存时加一，被替换 / 清理 / 删除时减一；启动加载日志时随之重建
+ * - 区间计数与直方图的每个桶都是两次前缀和，O(log n)，不扫描日志
+ *
+ * 变更与查询在本对象上串行执行（单次操作只有几次二分与树状数组遍历）。
+ * 缓存中的日志视为不可变：修改日志须以新对象替换，旧对象的计数才能正确减去。
+ */
+public class AccessCountIndex {
+
+    private static final int DECISIONS = AccessDecision.values().length;
+    private static final int SLOTS = DECISIONS + ReasonCode.values().length;
+
+    private final MinuteCounter[] global = new MinuteCounter[SLOTS];
+    private final Map<String, MinuteCounter[]> byResource = new HashMap<>();
+
+    /** [from, to) 内的访问次数（resourceId 为 null 表示全部资源；时间按分钟取整：from 向下、to 向上） */
+    public synchronized long count(String resourceId, AccessDecision decision, LocalDateTime from, LocalDateTime to) {
+        return count(resourceId, decision.ordinal(), from, to);
+    }
+
+    public synchronized long count(String resourceId, ReasonCode reasonCode, LocalDateTime from, LocalDateTime to) {
+        return count(resourceId, DECISIONS + reasonCode.ordinal(), from, to);
+    }
+
+    /** 从 from 起连续 buckets 个长度为 bucketMinutes 分钟的桶内的访问次数 */
+    public synchronized long[] histogram(String resourceId, AccessDecision decision, LocalDateTime from,
+                                         int bucketMinutes, int buckets) {
+        return histogram(resourceId, decision.ordinal(), from, bucketMinutes, buckets);
+    }
+
+    public synchronized long[] histogram(String resourceId, ReasonCode reasonCode, LocalDateTime from,
+                                         int bucketMinutes, int buckets) {
+        return histogram(resourceId, DECISIONS + reasonCode.ordinal(), from, bucketMinutes, buckets);
+    }
+
+    synchronized void add(LogEntry log) {
+        apply(log, 1);
+    }
+
+    synchronized void remove(LogEntry log) {
+        apply(log, -1);
+    }
+
+    synchronized void clear() {
+        Arrays.fill(global, null);
+        byResource.clear();
+    }
+
+    // 移除计数为 0 的分钟与空的计数项（随缓存过期清理执行）
+    synchronized void compact() {
+        compact(global);
+        byResource.values().removeIf(AccessCountIndex::compact);
+    }
+
+    private long count(String resourceId, int slot, LocalDateTime from, LocalDateTime to) {
+        MinuteCounter counter = counter(resourceId, slot);
+        return counter != null ? counter.count(minuteOf(from), ceilMinuteOf(to)) : 0;
+    }
+
+    private long[] histogram(String resourceId, int slot, LocalDateTime from, int bucketMinutes, int buckets) {
+        long[] counts = new long[buckets];
+        MinuteCounter counter = counter(resourceId, slot);
+        if (counter == null) {
+            return counts;
+        }
+        int start = minuteOf(from);
+        long previous = counter.countBefore(start);
+        for (int i = 0; i < buckets; i++) {
+            long current = counter.countBefore(start + (i + 1) * bucketMinutes);
+            counts[i] = current - previous;
+            previous = current;
+        }
+        return counts;
+    }
+
+    private MinuteCounter counter(String resourceId, int slot) {
+        MinuteCounter[] counters = resourceId == null ? global : byResource.get(resourceId);
+        return counters != null ? counters[slot] : null;
+    }
+
+    private void apply(LogEntry log, long delta) {
+        if (log.getTimestamp() == null || log.getDecision() == null) {
+            return;
+        }
+        int minute = minuteOf(log.getTimestamp());
+        apply(global, log, minute, delta);
+        if (log.getResourceId() != null) {
+            apply(byResource.computeIfAbsent(log.getResourceId(), id -> new MinuteCounter[SLOTS]), log, minute, delta);
+        }
+    }
+
+    private static void apply(MinuteCounter[] counters, LogEntry log, int minute, long delta) {
+        counterAt(counters, log.getDecision().ordinal()).add(minute, delta);
+        if (log.getReasonCode() != null) {
+            counterAt(counters, DECISIONS + log.getReasonCode().ordinal()).add(minute, delta);
+        }
+    }
+
+    private static MinuteCounter counterAt(MinuteCounter[] counters, int slot) {
+        if (counters[slot] == null) {
+            counters[slot] = new MinuteCounter();
+        }
+        return counters[slot];
+    }
+
+    // 压缩各计数项，返回是否全部为空
+    private static boolean compact(MinuteCounter[] counters) {
+        boolean empty = true;
+        for (int slot = 0; slot < counters.length; slot++) {
+            if (counters[slot] == null) {
+                continue;
+            }
+            counters[slot].compact();
+            if (counters[slot].isEmpty()) {
+                counters[slot] = null;
+            } else {
+                empty = false;
+            }
+        }
+        return empty;
+    }
+
+    static int minuteOf(LocalDateTime time) {
+        return (int) Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static int ceilMinuteOf(LocalDateTime time) {
+        int minute = minuteOf(time);
+        return time.getSecond() == 0 && time.getNano() == 0 ? minute : minute + 1;
+    }
+}
@@ -0,0 +1,282 @@
+package acs.cache;
+
+import acs.domain.AccessSchedule;
+import acs.domain.BadgeStatus;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * AuthorizationSnapshot 是授权数据的不可变快照（用于“如果这样改会怎样”的模拟）
+ *
+ * - 由 LocalCacheManager.snapshot() 复制当前缓存得到构建器，在构建器上应用拟议的变更后构建
+ * - authorize 按与 AccessControlServiceImpl 相同的顺序检查徽章、员工、资源与权限（含时间表），
+ *   权限判断复用 LocalCacheManager.checkPermission 的同一份逻辑
+ * - 构建后只读，可被多个线程并发查询
+ */
+public final class AuthorizationSnapshot {
+
+    private final Map<String, CachedBadge> badges;
+    private final OrdinalTable<CachedEmployee> employees;
+    private final OrdinalTable<CachedGroup> groups;
+    private final OrdinalTable<CachedResource> resources;
+    private final OrdinalTable<CompiledSchedule> schedules;
+    private final PermissionClosure closure;
+
+    private AuthorizationSnapshot(Builder builder) {
+        this.badges = Map.copyOf(builder.badges);
+        this.employees = builder.employees;
+        this.groups = builder.groups;
+        this.resources = builder.resources;
+        this.schedules = builder.schedules;
+        this.closure = new PermissionClosure(groups, resources);
+        closure.rebuild();
+    }
+
+    /**
+     * 判断一次进入刷卡能否通过授权检查（不含资源状态、封锁、占用与容量等运行时状态）
+     *
+     * @return ALLOW 表示通过授权检查，否则为第一个未通过的检查对应的原因
+     */
+    public ReasonCode authorize(String badgeId, String resourceId, LocalDateTime time) {
+        CachedBadge badge = badgeId != null ? badges.get(badgeId) : null;
+        if (badge == null) {
+            return ReasonCode.BADGE_NOT_FOUND;
+        }
+        if (badge.getStatus() != BadgeStatus.ACTIVE) {
+            return ReasonCode.BADGE_INACTIVE;
+        }
+        CachedEmployee employee = badge.getEmployeeId() != null ? employees.get(badge.getEmployeeId()) : null;
+        if (employee == null) {
+            return ReasonCode.EMPLOYEE_NOT_FOUND;
+        }
+        CachedResource resource = resourceId != null ? resources.get(resourceId) : null;
+        if (resource == null) {
+            return ReasonCode.RESOURCE_NOT_FOUND;
+        }
+        return LocalCacheManager.checkPermission(closure, schedules, employee, resource, time);
+    }
+
+    // 徽章所绑定员工直接所属的组ID（徽章或员工不存在时为空）
+    public List<String> groupIdsOfBadge(String badgeId) {
+        CachedBadge badge = badgeId != null ? badges.get(badgeId) : null;
+        CachedEmployee employee = badge != null && badge.getEmployeeId() != null
+                ? employees.get(badge.getEmployeeId()) : null;
+        if (employee == null) {
+            return List.of();
+        }
+        List<String> groupIds = new ArrayList<>(employee.groupOrdinals().length);
+        for (int ordinal : employee.groupOrdinals()) {
+            CachedGroup group = groups.get(ordinal);
+            if (group != null) {
+                groupIds.add(group.getGroupId());
+            }
+        }
+        return groupIds;
+    }
+
+    /**
+     * 构建器：在复制的授权数据上应用拟议变更，校验规则与 AdminServiceImpl 一致
+     */
+    public static final class Builder {
+
+        private final Map<String, CachedBadge> badges;
+        private final OrdinalTable<CachedEmployee> employees;
+        private final OrdinalTable<CachedGroup> groups;
+        private final OrdinalTable<CachedResource> resources;
+        private final OrdinalTable<CompiledSchedule> schedules;
+        private boolean built;
+
+        Builder(Map<String, CachedBadge> badges, OrdinalTable<CachedEmployee> employees,
+                OrdinalTable<CachedGroup> groups, OrdinalTable<CachedResource> resources,
+                OrdinalTable<CompiledSchedule> schedules) {
+            this.badges = new HashMap<>(badges);
+            this.employees = employees;
+            this.groups = groups;
+            this.resources = resources;
+            this.schedules = schedules;
+        }
+
+        public Builder setBadgeStatus(String badgeId, BadgeStatus status) {
+            CachedBadge badge = badges.get(badgeId);
+            if (badge == null) {
+                throw new IllegalArgumentException("徽章不存在: " + badgeId);
+            }
+            badges.put(badgeId, new CachedBadge(badgeId, status, badge.getEmployeeId()));
+            return this;
+        }
+
+        public Builder assignEmployeeToGroup(String employeeId, String groupId) {
+            CachedEmployee employee = employee(employeeId);
+            int groupOrdinal = group(groupId).getOrdinal();
+            if (!contains(employee.groupOrdinals(), groupOrdinal)) {
+                int[] groupOrdinals = Arrays.copyOf(employee.groupOrdinals(), employee.groupOrdinals().length + 1);
+                groupOrdinals[groupOrdinals.length - 1] = groupOrdinal;
+                employees.set(employee.getOrdinal(), withGroups(employee, groupOrdinals));
+            }
+            return this;
+        }
+
+        public Builder removeEmployeeFromGroup(String employeeId, String groupId) {
+            CachedEmployee employee = employee(employeeId);
+            int groupOrdinal = group(groupId).getOrdinal();
+            int[] groupOrdinals = Arrays.stream(employee.groupOrdinals()).filter(value -> value != groupOrdinal).toArray();
+            employees.set(employee.getOrdinal(), withGroups(employee, groupOrdinals));
+            return this;
+        }
+
+        public Builder grantGroupAccess(String groupId, String resourceId) {
+            CachedGroup group = group(groupId);
+            int resourceOrdinal = resource(resourceId).getOrdinal();
+            if (!group.grants(resourceOrdinal)) {
+                replaceGrants(group, append(group.resourceOrdinals(), resourceOrdinal),
+                        append(schedulesOf(group), CachedGroup.NO_SCHEDULE));
+            }
+            return this;
+        }
+
+        public Builder revokeGroupAccess(String groupId, String resourceId) {
+            CachedGroup group = group(groupId);
+            groups.set(group.getOrdinal(), group.withoutResource(resource(resourceId).getOrdinal()));
+            return this;
+        }
+
+        public Builder attachSchedule(String groupId, String resourceId, String scheduleId) {
+            CachedGroup group = group(groupId);
+            int index = group.grantIndex(resource(resourceId).getOrdinal());
+            if (index < 0) {
+                throw new IllegalStateException("组未被授权访问该资源: " + groupId + " -> " + resourceId);
+            }
+            int scheduleOrdinal = schedules.ordinalOf(scheduleId);
+            if (scheduleOrdinal < 0 || schedules.get(scheduleOrdinal) == null) {
+                throw new IllegalArgumentException("时间表不存在: " + scheduleId);
+            }
+            int[] scheduleOrdinals = schedulesOf(group);
+            scheduleOrdinals[index] = scheduleOrdinal;
+            replaceGrants(group, group.resourceOrdinals(), scheduleOrdinals);
+            return this;
+        }
+
+        public Builder detachSchedule(String groupId, String resourceId) {
+            CachedGroup group = group(groupId);
+            int index = group.grantIndex(resource(resourceId).getOrdinal());
+            if (index >= 0) {
+                int[] scheduleOrdinals = schedulesOf(group);
+                scheduleOrdinals[index] = CachedGroup.NO_SCHEDULE;
+                replaceGrants(group, group.resourceOrdinals(), scheduleOrdinals);
+            }
+            return this;
+        }
+
+        // 新增或替换时间表（拟议的时间段、假日与有效期，未保存的实体即可）
+        public Builder defineSchedule(AccessSchedule schedule) {
+            schedules.set(schedules.assign(schedule.getScheduleId()), CompiledSchedule.compile(schedule));
+            return this;
+        }
+
+        public Builder setGroupParent(String groupId, String parentGroupId) {
+            CachedGroup group = group(groupId);
+            int parentOrdinal = CachedGroup.NO_PARENT;
+            if (parentGroupId != null) {
+                parentOrdinal = group(parentGroupId).getOrdinal();
+                for (int ancestor = parentOrdinal; ancestor != CachedGroup.NO_PARENT; ) {
+                    if (ancestor == group.getOrdinal()) {
+                        throw new IllegalStateException("组层级不能形成环: " + groupId + " -> " + parentGroupId);
+                    }
+                    CachedGroup current = groups.get(ancestor);
+                    ancestor = current != null ? current.getParentOrdinal() : CachedGroup.NO_PARENT;
+                }
+            }
+            groups.set(group.getOrdinal(), group.withParent(parentOrdinal));
+            return this;
+        }
+
+        public Builder setResourceParent(String resourceId, String parentResourceId) {
+            CachedResource resource = resource(resourceId);
+            int parentOrdinal = CachedResource.NO_PARENT;
+            if (parentResourceId != null) {
+                parentOrdinal = resource(parentResourceId).getOrdinal();
+                for (int ancestor = parentOrdinal; ancestor != CachedResource.NO_PARENT; ) {
+                    if (ancestor == resource.getOrdinal()) {
+                        throw new IllegalStateException("资源层级不能形成环: " + resourceId + " -> " + parentResourceId);
+                    }
+                    CachedResource current = resources.get(ancestor);
+                    ancestor = current != null ? current.getParentOrdinal() : CachedResource.NO_PARENT;
+                }
+            }
+            resources.set(resource.getOrdinal(), resource.withParent(parentOrdinal));
+            return this;
+        }
+
+        // 计算有效授权并构建快照（构建器只能使用一次）
+        public AuthorizationSnapshot build() {
+            if (built) {
+                throw new IllegalStateException("授权快照已构建");
+            }
+            built = true;
+            return new AuthorizationSnapshot(this);
+        }
+
+        private CachedEmployee employee(String employeeId) {
+            CachedEmployee employee = employeeId != null ? employees.get(employeeId) : null;
+            if (employee == null) {
+                throw new IllegalArgumentException("员工不存在: " + employeeId);
+            }
+            return employee;
+        }
+
+        private CachedGroup group(String groupId) {
+            CachedGroup group = groupId != null ? groups.get(groupId) : null;
+            if (group == null) {
+                throw new IllegalArgumentException("组不存在: " + groupId);
+            }
+            return group;
+        }
+
+        private CachedResource resource(String resourceId) {
+            CachedResource resource = resourceId != null ? resources.get(resourceId) : null;
+            if (resource == null) {
+                throw new IllegalArgumentException("资源不存在: " + resourceId);
+            }
+            return resource;
+        }
+
+        private void replaceGrants(CachedGroup group, int[] resourceOrdinals, int[] scheduleOrdinals) {
+            groups.set(group.getOrdinal(), new CachedGroup(group.getOrdinal(), group.getGroupId(), group.getName(),
+                    resourceOrdinals, scheduleOrdinals, group.getParentOrdinal()));
+        }
+
+        private static int[] schedulesOf(CachedGroup group) {
+            int[] scheduleOrdinals = new int[group.grantCount()];
+            for (int i = 0; i < scheduleOrdinals.length; i++) {
+                scheduleOrdinals[i] = group.scheduleOrdinalAt(i);
+            }
+            return scheduleOrdinals;
+        }
+
+        private static CachedEmployee withGroups(CachedEmployee employee, int[] groupOrdinals) {
+            return new CachedEmployee(employee.getOrdinal(), employee.getEmployeeId(), employee.getEmployeeName(),
+                    employee.getBadgeId(), groupOrdinals);
+        }
+
+        private static int[] append(int[] values, int value) {
+            int[] appended = Arrays.copyOf(values, values.length + 1);
+            appended[values.length] = value;
+            return appended;
+        }
+
+        private static boolean contains(int[] values, int value) {
+            for (int existing : values) {
+                if (existing == value) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
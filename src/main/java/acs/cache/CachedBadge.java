@@ -0,0 +1,43 @@
+package acs.cache;
+
+import acs.domain.Badge;
+import acs.domain.BadgeStatus;
+
+/**
+ * CachedBadge 是缓存中 Badge 的只读投影
+ *
+ * - 只保存ID与状态序号，不持有任何 JPA 实体或代理
+ * - 不可变：状态变化时整体替换缓存中的对象
+ */
+public final class CachedBadge {
+
+    private static final BadgeStatus[] STATUSES = BadgeStatus.values();
+
+    private final String badgeId;
+    private final byte status;
+    private final String employeeId;  // 绑定的员工ID（可为空）
+
+    public CachedBadge(String badgeId, BadgeStatus status, String employeeId) {
+        this.badgeId = badgeId.intern();
+        this.status = (byte) status.ordinal();
+        this.employeeId = employeeId != null ? employeeId.intern() : null;
+    }
+
+    // 从实体构建投影
+    static CachedBadge of(Badge badge) {
+        String employeeId = badge.getEmployee() != null ? badge.getEmployee().getEmployeeId() : null;
+        return new CachedBadge(badge.getBadgeId(), badge.getStatus(), employeeId);
+    }
+
+    public String getBadgeId() {
+        return badgeId;
+    }
+
+    public BadgeStatus getStatus() {
+        return STATUSES[status];
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+}
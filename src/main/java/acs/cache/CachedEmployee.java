@@ -0,0 +1,45 @@
+package acs.cache;
+
+/**
+ * CachedEmployee 是缓存中 Employee 的只读投影
+ *
+ * - 所属组用组序号数组（int[]）表示，不持有 Group 实体集合
+ * - 不可变：成员关系变化时整体替换缓存中的对象
+ */
+public final class CachedEmployee {
+
+    private final int ordinal;
+    private final String employeeId;
+    private final String employeeName;
+    private final String badgeId;
+    private final int[] groupOrdinals;
+
+    public CachedEmployee(int ordinal, String employeeId, String employeeName, String badgeId, int[] groupOrdinals) {
+        this.ordinal = ordinal;
+        this.employeeId = employeeId.intern();
+        this.employeeName = employeeName != null ? employeeName.intern() : null;
+        this.badgeId = badgeId != null ? badgeId.intern() : null;
+        this.groupOrdinals = groupOrdinals;
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public String getEmployeeName() {
+        return employeeName;
+    }
+
+    public String getBadgeId() {
+        return badgeId;
+    }
+
+    // 所属组序号（调用方不得修改返回的数组）
+    int[] groupOrdinals() {
+        return groupOrdinals;
+    }
+}
@@ -0,0 +1,110 @@
+package acs.cache;
+
+import java.util.Arrays;
+
+/**
+ * CachedGroup 是缓存中 Group 的只读投影
+ *
+ * - 授权资源用已排序的资源序号数组表示，权限判断时二分查找
+ * - scheduleOrdinals 与 resourceOrdinals 一一对应，保存授权所挂时间表的序号（NO_SCHEDULE 表示不限时间）
+ * - parentOrdinal 为父组序号（嵌套组继承父组的授权），NO_PARENT 表示顶层组
+ * - 这里只保存“直接授权”，继承与区域展开后的有效授权见 EffectiveGrants
+ * - 不可变：授权变化时整体替换缓存中的对象
+ */
+public final class CachedGroup {
+
+    /** 授权未挂时间表 */
+    public static final int NO_SCHEDULE = -1;
+
+    /** 没有父组 */
+    public static final int NO_PARENT = -1;
+
+    private final int ordinal;
+    private final String groupId;
+    private final String name;
+    private final int[] resourceOrdinals;  // 已排序
+    private final int[] scheduleOrdinals;  // 与 resourceOrdinals 对应
+    private final int parentOrdinal;
+
+    public CachedGroup(int ordinal, String groupId, String name, int[] resourceOrdinals, int[] scheduleOrdinals,
+                       int parentOrdinal) {
+        this.ordinal = ordinal;
+        this.parentOrdinal = parentOrdinal;
+        this.groupId = groupId.intern();
+        this.name = name != null ? name.intern() : null;
+        // 按资源序号排序，时间表序号随之调整
+        Integer[] order = new Integer[resourceOrdinals.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(resourceOrdinals[a], resourceOrdinals[b]));
+        this.resourceOrdinals = new int[order.length];
+        this.scheduleOrdinals = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.resourceOrdinals[i] = resourceOrdinals[order[i]];
+            this.scheduleOrdinals[i] = scheduleOrdinals[order[i]];
+        }
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getParentOrdinal() {
+        return parentOrdinal;
+    }
+
+    // 直接授权的数量
+    int grantCount() {
+        return resourceOrdinals.length;
+    }
+
+    // 授权资源序号（调用方不得修改返回的数组）
+    int[] resourceOrdinals() {
+        return resourceOrdinals;
+    }
+
+    // 查找对指定资源的授权位置，未授权返回 -1
+    int grantIndex(int resourceOrdinal) {
+        int index = Arrays.binarySearch(resourceOrdinals, resourceOrdinal);
+        return index >= 0 ? index : -1;
+    }
+
+    // 指定授权位置所挂时间表的序号
+    int scheduleOrdinalAt(int grantIndex) {
+        return scheduleOrdinals[grantIndex];
+    }
+
+    // 该组是否被直接授权访问指定序号的资源
+    boolean grants(int resourceOrdinal) {
+        return grantIndex(resourceOrdinal) >= 0;
+    }
+
+    // 去掉对某个资源的授权后的新对象
+    CachedGroup withoutResource(int resourceOrdinal) {
+        int index = grantIndex(resourceOrdinal);
+        if (index < 0) {
+            return this;
+        }
+        int[] resources = new int[resourceOrdinals.length - 1];
+        int[] schedules = new int[resources.length];
+        System.arraycopy(resourceOrdinals, 0, resources, 0, index);
+        System.arraycopy(resourceOrdinals, index + 1, resources, index, resources.length - index);
+        System.arraycopy(scheduleOrdinals, 0, schedules, 0, index);
+        System.arraycopy(scheduleOrdinals, index + 1, schedules, index, schedules.length - index);
+        return new CachedGroup(ordinal, groupId, name, resources, schedules, parentOrdinal);
+    }
+
+    // 更换父组后的新对象
+    CachedGroup withParent(int newParentOrdinal) {
+        return new CachedGroup(ordinal, groupId, name, resourceOrdinals, scheduleOrdinals, newParentOrdinal);
+    }
+}
@@ -0,0 +1,93 @@
+package acs.cache;
+
+import acs.domain.Resource;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+
+/**
+ * CachedResource 是缓存中 Resource 的只读投影
+ *
+ * - 类型与状态以枚举序号保存
+ * - 所属区域（父资源）以序号保存，NO_PARENT 表示顶层
+ * - 容量上限为 UNLIMITED 表示不限人数
+ * - 不可变：状态变化时整体替换缓存中的对象
+ */
+public final class CachedResource {
+
+    /** 没有父资源（顶层区域） */
+    public static final int NO_PARENT = -1;
+
+    /** 不限容量 */
+    public static final int UNLIMITED = 0;
+
+    private static final ResourceType[] TYPES = ResourceType.values();
+    private static final ResourceState[] STATES = ResourceState.values();
+
+    private final int ordinal;
+    private final String resourceId;
+    private final String resourceName;
+    private final byte type;
+    private final byte state;
+    private final int parentOrdinal;
+    private final int capacity;
+
+    public CachedResource(int ordinal, String resourceId, String resourceName, ResourceType type, ResourceState state) {
+        this(ordinal, resourceId, resourceName, type, state, NO_PARENT);
+    }
+
+    public CachedResource(int ordinal, String resourceId, String resourceName, ResourceType type, ResourceState state,
+                          int parentOrdinal) {
+        this(ordinal, resourceId, resourceName, type, state, parentOrdinal, UNLIMITED);
+    }
+
+    public CachedResource(int ordinal, String resourceId, String resourceName, ResourceType type, ResourceState state,
+                          int parentOrdinal, int capacity) {
+        this.ordinal = ordinal;
+        this.parentOrdinal = parentOrdinal;
+        this.capacity = capacity;
+        this.resourceId = resourceId.intern();
+        this.resourceName = resourceName != null ? resourceName.intern() : null;
+        this.type = (byte) type.ordinal();
+        this.state = (byte) state.ordinal();
+    }
+
+    // 从实体构建投影（父资源已解析为序号）
+    static CachedResource of(int ordinal, Resource resource, int parentOrdinal) {
+        return new CachedResource(ordinal, resource.getResourceId(), resource.getResourceName(),
+                resource.getResourceType(), resource.getResourceState(), parentOrdinal,
+                resource.getCapacity() != null ? resource.getCapacity() : UNLIMITED);
+    }
+
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public ResourceType getResourceType() {
+        return TYPES[type];
+    }
+
+    public ResourceState getResourceState() {
+        return STATES[state];
+    }
+
+    public int getParentOrdinal() {
+        return parentOrdinal;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 更换父资源后的新对象
+    CachedResource withParent(int newParentOrdinal) {
+        return new CachedResource(ordinal, resourceId, resourceName, TYPES[type], STATES[state], newParentOrdinal, capacity);
+    }
+}
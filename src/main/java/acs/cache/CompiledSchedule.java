@@ -0,0 +1,106 @@
+package acs.cache;
+
+import acs.domain.AccessSchedule;
+import acs.domain.ScheduleWindow;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * CompiledSchedule 是 AccessSchedule 编译后的查表结构
+ *
+ * 在缓存加载 / 时间表变更时编译一次，判断时只做常数时间的查表：
+ * - 每周 7 * 24 * 60 = 10080 分钟，每分钟一位（long[158]），判断“一周中的第几分钟”是否允许
+ * - 生效日期范围保存为 epochDay 上下界
+ * - 节假日保存为从最早节假日开始的 epochDay 位图
+ */
+public final class CompiledSchedule {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+
+    private final long[] weekMinutes = new long[(MINUTES_PER_WEEK + 63) >>> 6];
+    private final long validFromDay;
+    private final long validUntilDay;
+    private final long holidayBaseDay;
+    private final long[] holidayBits;
+
+    private CompiledSchedule(long validFromDay, long validUntilDay, long holidayBaseDay, long[] holidayBits) {
+        this.validFromDay = validFromDay;
+        this.validUntilDay = validUntilDay;
+        this.holidayBaseDay = holidayBaseDay;
+        this.holidayBits = holidayBits;
+    }
+
+    // 编译时间表
+    public static CompiledSchedule compile(AccessSchedule schedule) {
+        long validFromDay = schedule.getValidFrom() != null ? schedule.getValidFrom().toEpochDay() : Long.MIN_VALUE;
+        long validUntilDay = schedule.getValidUntil() != null ? schedule.getValidUntil().toEpochDay() : Long.MAX_VALUE;
+
+        long holidayBaseDay = 0;
+        long[] holidayBits = new long[0];
+        if (!schedule.getHolidays().isEmpty()) {
+            long minDay = Long.MAX_VALUE;
+            long maxDay = Long.MIN_VALUE;
+            for (LocalDate holiday : schedule.getHolidays()) {
+                minDay = Math.min(minDay, holiday.toEpochDay());
+                maxDay = Math.max(maxDay, holiday.toEpochDay());
+            }
+            holidayBaseDay = minDay;
+            holidayBits = new long[(int) ((maxDay - minDay) >>> 6) + 1];
+            for (LocalDate holiday : schedule.getHolidays()) {
+                int offset = (int) (holiday.toEpochDay() - minDay);
+                holidayBits[offset >>> 6] |= 1L << offset;
+            }
+        }
+
+        CompiledSchedule compiled = new CompiledSchedule(validFromDay, validUntilDay, holidayBaseDay, holidayBits);
+        for (ScheduleWindow window : schedule.getWindows()) {
+            int dayStart = (window.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY;
+            int start = dayStart + window.getStartTime().getHour() * 60 + window.getStartTime().getMinute();
+            int length = window.getEndTime().getHour() * 60 + window.getEndTime().getMinute()
+                    - (start - dayStart);
+            if (length <= 0) {
+                length += MINUTES_PER_DAY;  // 跨越午夜
+            }
+            for (int i = 0; i < length; i++) {
+                int minute = (start + i) % MINUTES_PER_WEEK;  // 周日跨到周一时回绕
+                compiled.weekMinutes[minute >>> 6] |= 1L << minute;
+            }
+        }
+        return compiled;
+    }
+
+    // 给定时间是否在时间表允许范围内
+    public boolean allows(LocalDateTime time) {
+        return allows(time.toLocalDate().toEpochDay(), minuteOfWeek(time));
+    }
+
+    // 给定日期（epochDay）与一周中的分钟是否允许
+    public boolean allows(long epochDay, int minuteOfWeek) {
+        if (epochDay < validFromDay || epochDay > validUntilDay) {
+            return false;
+        }
+        long holidayOffset = epochDay - holidayBaseDay;
+        if (holidayOffset >= 0 && holidayOffset < ((long) holidayBits.length << 6)
+                && (holidayBits[(int) (holidayOffset >>> 6)] & (1L << holidayOffset)) != 0) {
+            return false;
+        }
+        return (weekMinutes[minuteOfWeek >>> 6] & (1L << minuteOfWeek)) != 0;
+    }
+
+    // 编译结果的指纹（内容相同的时间表指纹相同，用于授权快照版本）
+    long fingerprint() {
+        long hash = Arrays.hashCode(weekMinutes);
+        hash = hash * 31 + Long.hashCode(validFromDay);
+        hash = hash * 31 + Long.hashCode(validUntilDay);
+        hash = hash * 31 + Long.hashCode(holidayBaseDay);
+        return hash * 31 + Arrays.hashCode(holidayBits);
+    }
+
+    // 计算一周中的第几分钟（周一 00:00 为 0）
+    public static int minuteOfWeek(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+}
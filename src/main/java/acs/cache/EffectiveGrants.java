@@ -0,0 +1,108 @@
+package acs.cache;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * EffectiveGrants 是一个组的“有效授权”（传递闭包）
+ *
+ * 包含：
+ * - 组自身及所有祖先组的授权（嵌套组继承父组授权）
+ * - 授权资源及其区域子树中的所有资源（授权一个楼层即授权楼层内所有房间/门）
+ *
+ * 查询与层级深度无关：不限时间的授权是一次位图查询，挂时间表的授权是一次二分查找。
+ */
+final class EffectiveGrants {
+
+    /** 不限时间的授权（lookup 的返回值） */
+    static final int[] ALWAYS = new int[0];
+
+    static final EffectiveGrants EMPTY = new Builder(null).build();
+
+    private final long[] always;               // 资源序号位图
+    private final int[] scheduledResources;    // 已排序
+    private final int[][] scheduleOrdinals;    // 与 scheduledResources 对应，任一时间表允许即可
+
+    private EffectiveGrants(long[] always, int[] scheduledResources, int[][] scheduleOrdinals) {
+        this.always = always;
+        this.scheduledResources = scheduledResources;
+        this.scheduleOrdinals = scheduleOrdinals;
+    }
+
+    /**
+     * 查询对资源的有效授权
+     *
+     * @return null - 无授权；ALWAYS - 不限时间；其他 - 所挂时间表的序号（任一允许即可）
+     */
+    int[] lookup(int resourceOrdinal) {
+        int word = resourceOrdinal >>> 6;
+        if (word < always.length && (always[word] & (1L << resourceOrdinal)) != 0) {
+            return ALWAYS;
+        }
+        int index = Arrays.binarySearch(scheduledResources, resourceOrdinal);
+        return index >= 0 ? scheduleOrdinals[index] : null;
+    }
+
+    // 有授权（不限时间或挂时间表）的资源序号集合
+    BitSet resources() {
+        BitSet resources = BitSet.valueOf(always);
+        for (int resourceOrdinal : scheduledResources) {
+            resources.set(resourceOrdinal);
+        }
+        return resources;
+    }
+
+    /**
+     * 构建器：从父组的有效授权出发，逐个叠加授权（已展开为资源子树）
+     */
+    static final class Builder {
+
+        private final BitSet always = new BitSet();
+        private final Map<Integer, int[]> scheduled = new HashMap<>();
+
+        Builder(EffectiveGrants inherited) {
+            if (inherited != null) {
+                always.or(BitSet.valueOf(inherited.always));
+                for (int i = 0; i < inherited.scheduledResources.length; i++) {
+                    scheduled.put(inherited.scheduledResources[i], inherited.scheduleOrdinals[i]);
+                }
+            }
+        }
+
+        // 叠加对单个资源的授权
+        void grant(int resourceOrdinal, int scheduleOrdinal) {
+            if (always.get(resourceOrdinal)) {
+                return;
+            }
+            if (scheduleOrdinal == CachedGroup.NO_SCHEDULE) {
+                always.set(resourceOrdinal);
+                scheduled.remove(resourceOrdinal);
+                return;
+            }
+            int[] existing = scheduled.get(resourceOrdinal);
+            if (existing == null) {
+                scheduled.put(resourceOrdinal, new int[]{scheduleOrdinal});
+            } else if (Arrays.stream(existing).noneMatch(ordinal -> ordinal == scheduleOrdinal)) {
+                int[] merged = Arrays.copyOf(existing, existing.length + 1);
+                merged[existing.length] = scheduleOrdinal;
+                scheduled.put(resourceOrdinal, merged);
+            }
+        }
+
+        EffectiveGrants build() {
+            TreeMap<Integer, int[]> sorted = new TreeMap<>(scheduled);
+            int[] resources = new int[sorted.size()];
+            int[][] schedules = new int[sorted.size()][];
+            int i = 0;
+            for (Map.Entry<Integer, int[]> entry : sorted.entrySet()) {
+                resources[i] = entry.getKey();
+                schedules[i] = entry.getValue();
+                i++;
+            }
+            return new EffectiveGrants(always.toLongArray(), resources, schedules);
+        }
+    }
+}
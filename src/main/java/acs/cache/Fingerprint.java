@@ -0,0 +1,35 @@
+package acs.cache;
+
+/**
+ * 与顺序无关的内容指纹：每个对象的各部分按 FNV-1a 哈希并混合（fmix64）后相加
+ *
+ * 只依赖ID与内容，不依赖序号，不同进程加载相同数据得到相同指纹。
+ */
+final class Fingerprint {
+
+    private long sum;
+
+    // 加入一个对象（各部分依次参与哈希，null 与空字符串区分）
+    void add(Object... parts) {
+        long hash = 0xcbf29ce484222325L;
+        for (Object part : parts) {
+            String value = part != null ? part.toString() : "\u0000";
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            hash ^= 0x1f;  // 分隔符
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        sum += hash;
+    }
+
+    long value() {
+        return sum;
+    }
+}
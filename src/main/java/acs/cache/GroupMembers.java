@@ -0,0 +1,53 @@
+package acs.cache;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * GroupMembers 是组 -> 直接成员（员工序号位图）的反向索引
+ *
+ * 与 PermissionClosure 中 资源 -> 有效授权组 的索引组合，即可回答“谁能进入某个资源”：
+ * 把有效授权组的成员位图按位或，耗时与组数和员工序号上界 / 64 成正比，不遍历员工。
+ * 员工变更时按新旧所属组的差集增量维护。
+ */
+final class GroupMembers {
+
+    private final Map<Integer, BitSet> members = new HashMap<>();
+
+    // 员工新增、删除或所属组变化（previous / current 为空分别表示新增 / 删除）
+    synchronized void employeeChanged(CachedEmployee previous, CachedEmployee current) {
+        if (previous != null) {
+            for (int groupOrdinal : previous.groupOrdinals()) {
+                BitSet groupMembers = members.get(groupOrdinal);
+                if (groupMembers != null) {
+                    groupMembers.clear(previous.getOrdinal());
+                    if (groupMembers.isEmpty()) {
+                        members.remove(groupOrdinal);
+                    }
+                }
+            }
+        }
+        if (current != null) {
+            for (int groupOrdinal : current.groupOrdinals()) {
+                members.computeIfAbsent(groupOrdinal, key -> new BitSet()).set(current.getOrdinal());
+            }
+        }
+    }
+
+    // 各组成员的并集
+    synchronized BitSet union(BitSet groupOrdinals) {
+        BitSet union = new BitSet();
+        for (int group = groupOrdinals.nextSetBit(0); group >= 0; group = groupOrdinals.nextSetBit(group + 1)) {
+            BitSet groupMembers = members.get(group);
+            if (groupMembers != null) {
+                union.or(groupMembers);
+            }
+        }
+        return union;
+    }
+
+    synchronized void clear() {
+        members.clear();
+    }
+}
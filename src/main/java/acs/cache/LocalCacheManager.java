@@ -1,37 +1,63 @@
 package acs.cache;
 
+import acs.domain.AccessSchedule;
 import acs.domain.Badge;
 import acs.domain.Employee;
 import acs.domain.Group;
 import acs.domain.Resource;
 import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.repository.AccessScheduleRepository;
 import acs.repository.BadgeRepository;
 import acs.repository.EmployeeRepository;
 import acs.repository.GroupRepository;
 import acs.repository.ResourceRepository;
 import acs.repository.AccessLogRepository;
+import acs.repository.IdPair;
 import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Collections;
-import java.util.stream.Collectors;
-
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * LocalCacheManager 维护访问判断所需的全部数据的内存副本
+ *
+ * - 缓存中只保存不可变的投影对象（CachedBadge / CachedEmployee / CachedGroup / CachedResource），
+ *   不保存 JPA 实体，判断路径不会触发懒加载
+ * - 关系以 int 序号数组表示（员工 -> 组序号，组 -> 资源序号）
+ * - 授权所挂的时间表在加载 / 变更时编译为 CompiledSchedule，判断时常数时间查表
+ * - 资源区域与嵌套组的授权在 PermissionClosure 中预先展开为每个组的有效授权，判断与层级深度无关
+ * - 反向索引（资源 -> 有效授权组，组 -> 成员位图）随变更增量维护，“谁能进入某个资源”无需遍历员工
+ * - 实体只在加载与 update* 方法中被读取，随即转换为投影
+ * - 缓存中的日志同时按分钟计入 AccessCountIndex，任意时间窗的访问次数无需扫描日志
+ */
 @Component
 public class LocalCacheManager {
 
+    // 全量加载的查询所依赖的结构版本（schema_history，见 SchemaMigrator）；加载涉及的表或列变更时同步提高
+    public static final int SCHEMA_VERSION = 1;
+
     // 缓存存储结构
-    private final Map<String, Badge> badgeCache = new HashMap<>();
-    private final Map<String, Employee> employeeCache = new HashMap<>();
-    private final Map<String, Group> groupCache = new HashMap<>();
-    private final Map<String, Resource> resourceCache = new HashMap<>();
-    private final List<LogEntry> logCache = new ArrayList<>();  // 日志缓存（有序列表）
+    private final Map<String, CachedBadge> badgeCache = new ConcurrentHashMap<>();
+    private final OrdinalTable<CachedEmployee> employeeCache = new OrdinalTable<>();
+    private final OrdinalTable<CachedGroup> groupCache = new OrdinalTable<>();
+    private final OrdinalTable<CachedResource> resourceCache = new OrdinalTable<>();
+    private final OrdinalTable<CompiledSchedule> scheduleCache = new OrdinalTable<>();
+    private final PermissionClosure permissionClosure = new PermissionClosure(groupCache, resourceCache);
+    private final GroupMembers groupMembers = new GroupMembers();
+    // 日志缓存：按 (时间, ID) 有序的跳表，插入 O(log n)，与清理任务并发安全；logKeys 用于按ID定位
+    private final ConcurrentSkipListMap<LogKey, LogEntry> logCache = new ConcurrentSkipListMap<>();
+    private final Map<Long, LogKey> logKeys = new ConcurrentHashMap<>();
+    private final AccessCountIndex accessCounts = new AccessCountIndex();
 
 
     // 依赖的Repository
@@ -39,6 +65,7 @@ public class LocalCacheManager {
     private final EmployeeRepository employeeRepository;
     private final GroupRepository groupRepository;
     private final ResourceRepository resourceRepository;
+    private final AccessScheduleRepository scheduleRepository;
     // 注入日志Repository
     private final AccessLogRepository accessLogRepository;
 
@@ -46,22 +73,20 @@ public class LocalCacheManager {
                             EmployeeRepository employeeRepository,
                             GroupRepository groupRepository,
                             ResourceRepository resourceRepository,
+                            AccessScheduleRepository scheduleRepository,
                             AccessLogRepository accessLogRepository) {
         this.badgeRepository = badgeRepository;
         this.employeeRepository = employeeRepository;
         this.groupRepository = groupRepository;
         this.resourceRepository = resourceRepository;
+        this.scheduleRepository = scheduleRepository;
         this.accessLogRepository = accessLogRepository; // 初始化日志Repository
     }
 
     // 初始化缓存，应用启动时执行
     @PostConstruct
     public void initCache() {
-        loadBadges();
-        loadEmployees();
-        loadGroups();
-        loadResources();
-        loadLogs(); 
+        refreshAllCache();
         // 日志输出
         System.out.println("缓存初始化完成 - 徽章数: " + badgeCache.size() 
             + ", 员工数: " + employeeCache.size()
@@ -70,96 +95,315 @@ public class LocalCacheManager {
             + ", 日志数: " + logCache.size());
     }
 
-    // 从数据库加载所有徽章到缓存
-    private void loadBadges() {
-        badgeCache.clear();
-        badgeRepository.findAll().forEach(badge -> badgeCache.put(badge.getBadgeId(), badge));
+    // 从数据库加载所有资源到缓存
+    private void loadResources() {
+        resourceCache.clear();
+        for (Resource resource : resourceRepository.findAll()) {
+            int ordinal = resourceCache.assign(resource.getResourceId());
+            resourceCache.set(ordinal, CachedResource.of(ordinal, resource, parentOrdinal(resource)));
+        }
     }
 
-    // 从数据库加载所有员工到缓存
-    private void loadEmployees() {
-        employeeCache.clear();
-        employeeRepository.findAll().forEach(employee -> employeeCache.put(employee.getEmployeeId(), employee));
+    // 从数据库加载所有时间表并编译
+    private void loadSchedules() {
+        scheduleCache.clear();
+        for (AccessSchedule schedule : scheduleRepository.findAllWithWindowsAndHolidays()) {
+            scheduleCache.set(scheduleCache.assign(schedule.getScheduleId()), CompiledSchedule.compile(schedule));
+        }
     }
 
-    // 从数据库加载所有组到缓存
+    // 从数据库加载所有组到缓存，组-资源关系直接读取 group_resources（依赖资源、时间表序号，需在其后加载）
     private void loadGroups() {
         groupCache.clear();
-        groupRepository.findAll().forEach(group -> groupCache.put(group.getGroupId(), group));
+        Map<String, List<String>> resourceIdsByGroup = groupPairs(groupRepository.findAllGroupResourceIds());
+        for (Group group : groupRepository.findAllWithResourceSchedules()) {
+            List<String> resourceIds = resourceIdsByGroup.getOrDefault(group.getGroupId(), List.of());
+            groupCache.set(groupCache.assign(group.getGroupId()), toCachedGroup(group, resourceIds));
+        }
+        // 全量计算有效授权（传递闭包）
+        permissionClosure.rebuild();
     }
 
-    // 从数据库加载所有资源到缓存
-    private void loadResources() {
-        resourceCache.clear();
-        resourceRepository.findAll().forEach(resource -> resourceCache.put(resource.getResourceId(), resource));
+    // 从数据库加载所有员工到缓存，员工-组关系直接读取 employee_groups（依赖组序号，需在 loadGroups 之后）
+    private void loadEmployees() {
+        employeeCache.clear();
+        groupMembers.clear();
+        Map<String, List<String>> groupIdsByEmployee = groupPairs(employeeRepository.findAllEmployeeGroupIds());
+        for (Employee employee : employeeRepository.findAllWithBadge()) {
+            int ordinal = employeeCache.assign(employee.getEmployeeId());
+            int[] groupOrdinals = toOrdinals(groupIdsByEmployee.get(employee.getEmployeeId()), groupCache);
+            CachedEmployee cached = toCachedEmployee(ordinal, employee, groupOrdinals);
+            employeeCache.set(ordinal, cached);
+            groupMembers.employeeChanged(null, cached);
+        }
+    }
+
+    // 从数据库加载所有徽章到缓存（徽章与员工一次查询取回）
+    private void loadBadges() {
+        badgeCache.clear();
+        badgeRepository.findAllWithEmployee().forEach(badge -> badgeCache.put(badge.getBadgeId(), CachedBadge.of(badge)));
     }
 
     // 从数据库加载所有日志到本地缓存
     private void loadLogs() {
         logCache.clear();
-        // 从数据库查询所有日志，按创建时间排序后存入缓存
-        List<LogEntry> allLogs = accessLogRepository.findAll();
-        List<LogEntry> sortedLogs = allLogs.stream()
-                .sorted(Comparator.comparing(LogEntry::getTimestamp))  // 按时间升序（从早到晚）
-                .collect(Collectors.toList());
-        logCache.addAll(sortedLogs);
+        logKeys.clear();
+        accessCounts.clear();
+        // 从数据库查询所有日志（只含ID列，已按时间升序）后存入缓存
+        for (LogEntry log : accessLogRepository.findAllByOrderByTimestampAsc()) {
+            cacheLog(log);
+        }
     }
 
     // 缓存操作方法
-    public Badge getBadge(String badgeId) {
+    public CachedBadge getBadge(String badgeId) {
         return badgeCache.get(badgeId);
     }
 
-    public Employee getEmployee(String employeeId) {
+    public CachedEmployee getEmployee(String employeeId) {
         return employeeCache.get(employeeId);
     }
 
-    public Group getGroup(String groupId) {
+    public CachedGroup getGroup(String groupId) {
         return groupCache.get(groupId);
     }
 
-    public Resource getResource(String resourceId) {
+    // 员工当前直接所属的组ID（访问统计按组汇总；员工不在缓存中时为空）
+    public List<String> groupIdsOf(String employeeId) {
+        CachedEmployee employee = employeeId != null ? employeeCache.get(employeeId) : null;
+        if (employee == null) {
+            return List.of();
+        }
+        List<String> groupIds = new ArrayList<>(employee.groupOrdinals().length);
+        for (int ordinal : employee.groupOrdinals()) {
+            CachedGroup group = groupCache.get(ordinal);
+            if (group != null) {
+                groupIds.add(group.getGroupId());
+            }
+        }
+        return groupIds;
+    }
+
+    public CachedResource getResource(String resourceId) {
         return resourceCache.get(resourceId);
     }
 
-    // 获取有序日志列表（返回不可修改集合，防止外部篡改顺序）
+    // 所有资源（遍历序号表，与资源数量成正比）
+    public List<CachedResource> getResources() {
+        List<CachedResource> resources = new ArrayList<>(resourceCache.size());
+        resourceCache.forEach(resources::add);
+        return resources;
+    }
+
+    // 资源及其区域子树（资源不存在返回空集合）
+    public BitSet resourceSubtree(String resourceId) {
+        int ordinal = resourceCache.ordinalOf(resourceId);
+        return ordinal >= 0 ? permissionClosure.subtreeOf(ordinal) : new BitSet();
+    }
+
+    /**
+     * 对资源有有效授权（含父组继承与区域展开，不限时间或挂时间表）的员工序号集合
+     *
+     * 资源不存在时返回空集合；返回的位图可自由修改（与其他资源的结果做交 / 差运算）。
+     */
+    public BitSet employeesWithAccess(String resourceId) {
+        int ordinal = resourceCache.ordinalOf(resourceId);
+        return ordinal >= 0 ? groupMembers.union(permissionClosure.groupsGranting(ordinal)) : new BitSet();
+    }
+
+    // 按员工序号升序取集合中从 fromOrdinal（含）开始的最多 limit 个员工（已删除的员工跳过）
+    public List<CachedEmployee> employeesIn(BitSet employeeOrdinals, int fromOrdinal, int limit) {
+        List<CachedEmployee> employees = new ArrayList<>(Math.min(limit, 1024));
+        for (int ordinal = employeeOrdinals.nextSetBit(Math.max(0, fromOrdinal));
+             ordinal >= 0 && employees.size() < limit; ordinal = employeeOrdinals.nextSetBit(ordinal + 1)) {
+            CachedEmployee employee = employeeCache.get(ordinal);
+            if (employee != null) {
+                employees.add(employee);
+            }
+        }
+        return employees;
+    }
+
+    // 资源层级版本号，层级变化后 resourceSubtree 的结果需要重新计算
+    public long resourceTopologyVersion() {
+        return permissionClosure.topologyVersion();
+    }
+
+    /**
+     * 判断员工所属的任意组在给定时间是否被授权访问该资源（只读取预先计算的有效授权与编译后的时间表）
+     *
+     * 有效授权已包含父组继承与区域展开，耗时只与员工直接所属的组数量有关，与层级深度无关。
+     *
+     * @return ALLOW - 有不限时间的授权，或有授权的时间表允许该时间
+     *         OUTSIDE_SCHEDULE - 有授权，但所有授权的时间表都不允许该时间
+     *         NO_PERMISSION - 没有任何授权
+     */
+    public ReasonCode checkPermission(CachedEmployee employee, CachedResource resource, LocalDateTime time) {
+        return checkPermission(permissionClosure, scheduleCache, employee, resource, time);
+    }
+
+    // 权限判断（也用于授权快照上的模拟，判断逻辑只有这一份）
+    static ReasonCode checkPermission(PermissionClosure permissionClosure, OrdinalTable<CompiledSchedule> scheduleCache,
+                                      CachedEmployee employee, CachedResource resource, LocalDateTime time) {
+        boolean granted = false;
+        long epochDay = 0;
+        int minuteOfWeek = -1;
+        for (int groupOrdinal : employee.groupOrdinals()) {
+            int[] scheduleOrdinals = permissionClosure.of(groupOrdinal).lookup(resource.getOrdinal());
+            if (scheduleOrdinals == null) {
+                continue;
+            }
+            if (scheduleOrdinals == EffectiveGrants.ALWAYS) {
+                return ReasonCode.ALLOW;
+            }
+            granted = true;
+            if (minuteOfWeek < 0) {
+                epochDay = time.toLocalDate().toEpochDay();
+                minuteOfWeek = CompiledSchedule.minuteOfWeek(time);
+            }
+            for (int scheduleOrdinal : scheduleOrdinals) {
+                // 时间表不存在（已被删除）时按不允许处理
+                CompiledSchedule schedule = scheduleCache.get(scheduleOrdinal);
+                if (schedule != null && schedule.allows(epochDay, minuteOfWeek)) {
+                    return ReasonCode.ALLOW;
+                }
+            }
+        }
+        return granted ? ReasonCode.OUTSIDE_SCHEDULE : ReasonCode.NO_PERMISSION;
+    }
+
+    /**
+     * 以当前授权数据（徽章、员工、组、资源、时间表）为起点的快照构建器
+     *
+     * 快照与缓存互不影响：在构建器上应用拟议的变更，得到候选授权状态用于模拟。
+     */
+    public AuthorizationSnapshot.Builder snapshot() {
+        return new AuthorizationSnapshot.Builder(Map.copyOf(badgeCache), employeeCache.copy(), groupCache.copy(),
+                resourceCache.copy(), scheduleCache.copy());
+    }
+
+    /**
+     * 授权数据的内容指纹（快照版本）：徽章、员工所属组、组的授权与父组、资源的状态 / 层级 / 容量、时间表
+     *
+     * 相同数据在不同进程中指纹相同；封锁、占用与租约等运行时状态不包含在内。决策回放据此判断轨迹录制时与
+     * 回放时的授权数据是否一致。耗时与数据量成正比，不在判断路径上调用。
+     */
+    public long authorizationFingerprint() {
+        Fingerprint fingerprint = new Fingerprint();
+        Map<Integer, String> scheduleIds = new HashMap<>();
+        scheduleCache.forEachEntry((scheduleId, schedule) -> {
+            scheduleIds.put(scheduleCache.ordinalOf(scheduleId), scheduleId);
+            fingerprint.add("schedule", scheduleId, schedule.fingerprint());
+        });
+        badgeCache.values().forEach(badge ->
+                fingerprint.add("badge", badge.getBadgeId(), badge.getStatus(), badge.getEmployeeId()));
+        resourceCache.forEach(resource -> {
+            CachedResource parent = resourceCache.get(resource.getParentOrdinal());
+            fingerprint.add("resource", resource.getResourceId(), resource.getResourceType(),
+                    resource.getResourceState(), parent != null ? parent.getResourceId() : null, resource.getCapacity());
+        });
+        groupCache.forEach(group -> {
+            CachedGroup parent = groupCache.get(group.getParentOrdinal());
+            List<String> grants = new ArrayList<>(group.grantCount());
+            int[] resourceOrdinals = group.resourceOrdinals();
+            for (int i = 0; i < resourceOrdinals.length; i++) {
+                CachedResource resource = resourceCache.get(resourceOrdinals[i]);
+                grants.add((resource != null ? resource.getResourceId() : "#" + resourceOrdinals[i]) + "@"
+                        + scheduleIds.get(group.scheduleOrdinalAt(i)));
+            }
+            grants.sort(null);
+            fingerprint.add("group", group.getGroupId(), parent != null ? parent.getGroupId() : null, grants);
+        });
+        employeeCache.forEach(employee -> {
+            List<String> groupIds = new ArrayList<>();
+            for (int groupOrdinal : employee.groupOrdinals()) {
+                CachedGroup group = groupCache.get(groupOrdinal);
+                if (group != null) {
+                    groupIds.add(group.getGroupId());
+                }
+            }
+            groupIds.sort(null);
+            fingerprint.add("employee", employee.getEmployeeId(), employee.getBadgeId(), groupIds);
+        });
+        return fingerprint.value();
+    }
+
+    // 获取有序日志列表（返回不可修改的快照，防止外部篡改顺序）
     public List<LogEntry> getLogs() {
-        return Collections.unmodifiableList(logCache);
+        return List.copyOf(logCache.values());
+    }
+
+    // 缓存中日志的按分钟计数（只读查询）
+    public AccessCountIndex getAccessCounts() {
+        return accessCounts;
+    }
+
+    // 缓存中最早一条日志的时间（缓存为空时返回 null）
+    public LocalDateTime oldestLogTimestamp() {
+        Map.Entry<LogKey, LogEntry> first = logCache.firstEntry();
+        return first != null ? first.getKey().timestamp() : null;
     }
 
     // 更新缓存中的徽章
     public void updateBadge(Badge badge) {
-        badgeCache.put(badge.getBadgeId(), badge);
+        badgeCache.put(badge.getBadgeId(), CachedBadge.of(badge));
         badgeRepository.save(badge);
     }
 
     // 更新缓存中的员工
     public void updateEmployee(Employee employee) {
-        employeeCache.put(employee.getEmployeeId(), employee);
+        int ordinal = employeeCache.assign(employee.getEmployeeId());
+        int[] groupOrdinals = employee.getGroups().stream()
+                .mapToInt(group -> groupCache.assign(group.getGroupId()))
+                .toArray();
+        CachedEmployee previous = employeeCache.get(ordinal);
+        CachedEmployee current = toCachedEmployee(ordinal, employee, groupOrdinals);
+        employeeCache.set(ordinal, current);
+        groupMembers.employeeChanged(previous, current);
         employeeRepository.save(employee);
     }
 
-    // 更新缓存中的组
+    // 更新缓存中的组（只重算该组及其子孙组的有效授权）
     public void updateGroup(Group group) {
-        groupCache.put(group.getGroupId(), group);
+        List<String> resourceIds = group.getResources().stream().map(Resource::getResourceId).toList();
+        int ordinal = groupCache.assign(group.getGroupId());
+        CachedGroup previous = groupCache.get(ordinal);
+        CachedGroup current = toCachedGroup(group, resourceIds);
+        groupCache.set(ordinal, current);
+        permissionClosure.groupChanged(previous, current);
         groupRepository.save(group);
     }
 
-    // 更新缓存中的资源
+    // 更新缓存中的时间表（重新编译）
+    public void updateSchedule(AccessSchedule schedule) {
+        scheduleCache.set(scheduleCache.assign(schedule.getScheduleId()), CompiledSchedule.compile(schedule));
+        scheduleRepository.save(schedule);
+    }
+
+    // 更新缓存中的资源（新增或区域变化时，只重算受影响的组）
     public void updateResource(Resource resource) {
-        resourceCache.put(resource.getResourceId(), resource);
+        int ordinal = resourceCache.assign(resource.getResourceId());
+        CachedResource previous = resourceCache.get(ordinal);
+        CachedResource current = CachedResource.of(ordinal, resource, parentOrdinal(resource));
+        resourceCache.set(ordinal, current);
+        if (previous == null || previous.getParentOrdinal() != current.getParentOrdinal()) {
+            permissionClosure.resourceChanged(previous, current);
+        }
         resourceRepository.save(resource);
     }
 
-    // 更新日志缓存（新增或修改日志后重新排序）
+    // 更新日志缓存（新增或修改日志，按时间有序插入）
     public void updateLog(LogEntry log) {
-        // 先移除旧记录（若存在）
-        logCache.removeIf(existingLog -> existingLog.getId().equals(log.getId()));
-        // 添加新记录并重新排序
-        logCache.add(log);
-        logCache.sort(Comparator.comparing(LogEntry::getTimestamp));  // 保持有序
-        //同步到数据库
+        //同步到数据库（新日志保存后才有ID）
         accessLogRepository.save(log);
+        cacheLog(log);
+    }
+
+    // 只写入缓存（日志已由本地日志回放批量写入数据库）
+    public void cacheLogs(Collection<LogEntry> logs) {
+        for (LogEntry log : logs) {
+            cacheLog(log);
+        }
     }
 
     // 从缓存中删除徽章
@@ -170,51 +414,188 @@ public class LocalCacheManager {
 
     // 从缓存中删除员工
     public void removeEmployee(String employeeId) {
+        CachedEmployee removed = employeeCache.get(employeeId);
         employeeCache.remove(employeeId);
+        if (removed != null) {
+            groupMembers.employeeChanged(removed, null);
+        }
         employeeRepository.deleteById(employeeId);
     }
 
-    // 从缓存中删除组
+    // 从缓存中删除组（同时从成员的组序号中移除，避免同ID的组重建后继承旧成员；子组变为顶层组）
     public void removeGroup(String groupId) {
+        int groupOrdinal = groupCache.ordinalOf(groupId);
+        CachedGroup removed = groupCache.get(groupOrdinal);
         groupCache.remove(groupId);
+        if (removed != null) {
+            permissionClosure.groupChanged(removed, null);
+        }
+        groupCache.forEach(group -> {
+            if (group.getParentOrdinal() == groupOrdinal) {
+                CachedGroup orphan = group.withParent(CachedGroup.NO_PARENT);
+                groupCache.set(group.getOrdinal(), orphan);
+                permissionClosure.groupChanged(group, orphan);
+            }
+        });
+        employeeCache.forEach(employee -> {
+            if (contains(employee.groupOrdinals(), groupOrdinal)) {
+                CachedEmployee updated = new CachedEmployee(employee.getOrdinal(),
+                        employee.getEmployeeId(), employee.getEmployeeName(), employee.getBadgeId(),
+                        without(employee.groupOrdinals(), groupOrdinal));
+                employeeCache.set(employee.getOrdinal(), updated);
+                groupMembers.employeeChanged(employee, updated);
+            }
+        });
         groupRepository.deleteById(groupId);
     }
 
-    // 从缓存中删除资源
+    // 从缓存中删除资源（同时从各组的授权中移除，避免同ID的资源重建后继承旧授权；子资源变为顶层资源）
     public void removeResource(String resourceId) {
+        int resourceOrdinal = resourceCache.ordinalOf(resourceId);
+        CachedResource removed = resourceCache.get(resourceOrdinal);
         resourceCache.remove(resourceId);
+        if (removed != null) {
+            permissionClosure.resourceChanged(removed, null);
+        }
+        resourceCache.forEach(resource -> {
+            if (resource.getParentOrdinal() == resourceOrdinal) {
+                CachedResource orphan = resource.withParent(CachedResource.NO_PARENT);
+                resourceCache.set(resource.getOrdinal(), orphan);
+                permissionClosure.resourceChanged(resource, orphan);
+            }
+        });
+        groupCache.forEach(group -> {
+            if (group.grants(resourceOrdinal)) {
+                CachedGroup updated = group.withoutResource(resourceOrdinal);
+                groupCache.set(group.getOrdinal(), updated);
+                permissionClosure.groupChanged(group, updated);
+            }
+        });
         resourceRepository.deleteById(resourceId);
     }
 
     // 从缓存中删除日志
     public void removeLog(Long logId) {
-        logCache.removeIf(log -> log.getId().equals(logId));
+        evictLogs(List.of(logId));
         accessLogRepository.deleteById(logId);
     }
 
-    @Transactional 
-    // 清理缓存中过期的日志（7天前）
-    public int clearExpiredLogs(LocalDateTime sevenDaysAgo) {
-        // 记录清理前的数量
-        int initialSize = logCache.size();
-        // 删除所有时间在7天前的日志
-        logCache.removeIf(log -> log.getTimestamp().isBefore(sevenDaysAgo));
-        // 删除的数量
-        int cacheDeletedCount = initialSize - logCache.size();
-
-        // 同步清理数据库中的过期日志
-        accessLogRepository.deleteByTimestampBefore(sevenDaysAgo);
+    // 只从缓存中移除指定日志（数据库已由清理任务删除）
+    public void evictLogs(Collection<Long> logIds) {
+        for (Long logId : logIds) {
+            LogKey key = logKeys.remove(logId);
+            if (key != null) {
+                uncount(logCache.remove(key));
+            }
+        }
+    }
 
+    // 清理缓存中过期的日志（数据库中的过期日志由 LogPartitionManager 按分区删除）
+    public int clearExpiredLogs(LocalDateTime sevenDaysAgo) {
+        // 有序跳表的头部即为过期日志，耗时与删除数量成正比
+        Map<LogKey, LogEntry> expired = logCache.headMap(new LogKey(sevenDaysAgo, Long.MIN_VALUE));
+        int cacheDeletedCount = 0;
+        for (LogKey key : new ArrayList<>(expired.keySet())) {
+            LogEntry removed = logCache.remove(key);
+            if (removed != null) {
+                logKeys.remove(key.id(), key);
+                accessCounts.remove(removed);
+                cacheDeletedCount++;
+            }
+        }
+        accessCounts.compact();
         // 返回实际从缓存中删除的数量
         return cacheDeletedCount;
     }
 
-    // 强制刷新所有缓存（从数据库重新加载）
+    private void cacheLog(LogEntry log) {
+        LogKey key = new LogKey(log.getTimestamp(), log.getId() != null ? log.getId() : 0L);
+        LogKey previous = logKeys.put(key.id(), key);
+        if (previous != null && !previous.equals(key)) {
+            uncount(logCache.remove(previous));
+        }
+        uncount(logCache.put(key, log));
+        accessCounts.add(log);
+    }
+
+    private void uncount(LogEntry removed) {
+        if (removed != null) {
+            accessCounts.remove(removed);
+        }
+    }
+
+    // 日志在缓存中的排序键：先按时间，再按ID
+    private record LogKey(LocalDateTime timestamp, long id) implements Comparable<LogKey> {
+        @Override
+        public int compareTo(LogKey other) {
+            int byTime = timestamp.compareTo(other.timestamp);
+            return byTime != 0 ? byTime : Long.compare(id, other.id);
+        }
+    }
+
+    // 把员工实体转换为投影
+    private static CachedEmployee toCachedEmployee(int ordinal, Employee employee, int[] groupOrdinals) {
+        String badgeId = employee.getBadge() != null ? employee.getBadge().getBadgeId() : null;
+        return new CachedEmployee(ordinal, employee.getEmployeeId(), employee.getEmployeeName(), badgeId, groupOrdinals);
+    }
+
+    // 把组实体（及其授权资源ID）转换为投影，授权所挂时间表解析为时间表序号
+    private CachedGroup toCachedGroup(Group group, List<String> resourceIds) {
+        int[] resourceOrdinals = new int[resourceIds.size()];
+        int[] scheduleOrdinals = new int[resourceIds.size()];
+        for (int i = 0; i < resourceIds.size(); i++) {
+            resourceOrdinals[i] = resourceCache.assign(resourceIds.get(i));
+            String scheduleId = group.getResourceSchedules().get(resourceIds.get(i));
+            scheduleOrdinals[i] = scheduleId != null ? scheduleCache.assign(scheduleId) : CachedGroup.NO_SCHEDULE;
+        }
+        int parentOrdinal = group.getParentGroupId() != null
+                ? groupCache.assign(group.getParentGroupId()) : CachedGroup.NO_PARENT;
+        return new CachedGroup(groupCache.assign(group.getGroupId()), group.getGroupId(), group.getName(),
+                resourceOrdinals, scheduleOrdinals, parentOrdinal);
+    }
+
+    // 资源所属区域的序号
+    private int parentOrdinal(Resource resource) {
+        return resource.getParentId() != null ? resourceCache.assign(resource.getParentId()) : CachedResource.NO_PARENT;
+    }
+
+    // 把关联表的 (leftId, rightId) 行按 leftId 分组
+    private static Map<String, List<String>> groupPairs(List<IdPair> pairs) {
+        Map<String, List<String>> grouped = new HashMap<>();
+        for (IdPair pair : pairs) {
+            grouped.computeIfAbsent(pair.leftId(), id -> new ArrayList<>()).add(pair.rightId());
+        }
+        return grouped;
+    }
+
+    // 把ID列表转换为序号数组
+    private static int[] toOrdinals(List<String> ids, OrdinalTable<?> table) {
+        if (ids == null) {
+            return new int[0];
+        }
+        return ids.stream().mapToInt(table::assign).toArray();
+    }
+
+    private static boolean contains(int[] ordinals, int ordinal) {
+        for (int value : ordinals) {
+            if (value == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] without(int[] ordinals, int ordinal) {
+        return Arrays.stream(ordinals).filter(value -> value != ordinal).toArray();
+    }
+
+    // 强制刷新所有缓存（从数据库重新加载，资源/时间表 -> 组 -> 员工 -> 徽章 的顺序保证序号可解析）
     public void refreshAllCache() {
-        loadBadges();
-        loadEmployees();
-        loadGroups();
         loadResources();
+        loadSchedules();
+        loadGroups();
+        loadEmployees();
+        loadBadges();
         loadLogs();
     }
-}
\ No newline at end of file
+}
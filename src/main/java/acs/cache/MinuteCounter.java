@@ -0,0 +1,141 @@
+package acs.cache;
+
+import java.util.Arrays;
+
+/**
+ * MinuteCounter 按分钟计数，支持 O(log n) 的区间求和
+ *
+ * 只为有计数的分钟分配位置：minutes 升序保存这些分钟，tree 是按位置建立的树状数组（Fenwick，下标从 1 开始）。
+ * - 日志基本按时间到达，新分钟追加在末尾，O(log n)
+ * - 已有分钟的增减 O(log n)
+ * - 少见的乱序新分钟需要整体重建，O(n)
+ * 计数减为 0 的位置保留到 compact（随缓存过期清理执行）。非线程安全，由 AccessCountIndex 串行访问。
+ */
+final class MinuteCounter {
+
+    private int[] minutes = new int[16];
+    private long[] tree = new long[17];
+    private int size = 0;
+
+    void add(int minute, long delta) {
+        int index = Arrays.binarySearch(minutes, 0, size, minute);
+        if (index >= 0) {
+            for (int position = index + 1; position <= size; position += position & -position) {
+                tree[position] += delta;
+            }
+            return;
+        }
+        int insertAt = -index - 1;
+        if (insertAt == size) {
+            append(minute, delta);
+        } else {
+            insert(insertAt, minute, delta);
+        }
+    }
+
+    /** [fromMinute, toMinute) 内的计数 */
+    long count(int fromMinute, int toMinute) {
+        if (fromMinute >= toMinute) {
+            return 0;
+        }
+        return prefix(lowerBound(toMinute)) - prefix(lowerBound(fromMinute));
+    }
+
+    /** 早于 minute 的计数 */
+    long countBefore(int minute) {
+        return prefix(lowerBound(minute));
+    }
+
+    /** 移除计数为 0 的位置，O(n) */
+    void compact() {
+        long[] values = values();
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (values[i + 1] != 0) {
+                minutes[kept] = minutes[i];
+                values[kept + 1] = values[i + 1];
+                kept++;
+            }
+        }
+        size = kept;
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, kept)) << 1);
+        if (capacity < minutes.length) {
+            minutes = Arrays.copyOf(minutes, capacity);
+        }
+        tree = Arrays.copyOf(values, minutes.length + 1);
+        build();
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // 新位置覆盖 (position - lowbit, position]，其中除自身外的部分由前缀和得到
+    private void append(int minute, long delta) {
+        ensureCapacity(size + 1);
+        int position = size + 1;
+        tree[position] = delta + prefix(position - 1) - prefix(position - (position & -position));
+        minutes[size] = minute;
+        size++;
+    }
+
+    private void insert(int insertAt, int minute, long delta) {
+        ensureCapacity(size + 1);
+        long[] values = values();
+        System.arraycopy(minutes, insertAt, minutes, insertAt + 1, size - insertAt);
+        System.arraycopy(values, insertAt + 1, values, insertAt + 2, size - insertAt);
+        minutes[insertAt] = minute;
+        values[insertAt + 1] = delta;
+        size++;
+        tree = values;
+        build();
+    }
+
+    private long prefix(int position) {
+        long sum = 0;
+        for (; position > 0; position -= position & -position) {
+            sum += tree[position];
+        }
+        return sum;
+    }
+
+    // 第一个不早于 minute 的位置（0 起）
+    private int lowerBound(int minute) {
+        int index = Arrays.binarySearch(minutes, 0, size, minute);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    // 树状数组还原为各位置的计数（下标从 1 开始），O(n)
+    private long[] values() {
+        long[] values = tree.clone();
+        for (int i = size; i > 0; i--) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                values[parent] -= values[i];
+            }
+        }
+        return values;
+    }
+
+    // 由 tree 中的各位置计数原地建树，O(n)
+    private void build() {
+        Arrays.fill(tree, size + 1, tree.length, 0);
+        for (int i = 1; i <= size; i++) {
+            int parent = i + (i & -i);
+            if (parent <= size) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+
+    private void ensureCapacity(int required) {
+        if (required > minutes.length) {
+            minutes = Arrays.copyOf(minutes, minutes.length * 2);
+            tree = Arrays.copyOf(tree, minutes.length + 1);
+        }
+    }
+}
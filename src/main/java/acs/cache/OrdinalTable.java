@@ -0,0 +1,118 @@
+package acs.cache;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * OrdinalTable 为缓存中的对象分配紧凑的整数序号（ordinal）
+ *
+ * - 关系用 int[] 序号数组表示，而不是 Set<实体>
+ * - 序号一经分配不再复用（删除只是把槽位置空），读线程拿到的旧序号始终安全
+ * - 读操作无锁：values 数组是 volatile 引用，扩容时整体替换
+ */
+final class OrdinalTable<T> {
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile Object[] values = new Object[64];
+    private int nextOrdinal = 0;
+
+    // 查询ID对应的序号，不存在返回 -1
+    int ordinalOf(String id) {
+        Integer ordinal = ordinals.get(id);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    // 查询或分配ID对应的序号
+    int assign(String id) {
+        Integer ordinal = ordinals.get(id);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (this) {
+            return ordinals.computeIfAbsent(id, key -> nextOrdinal++);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int ordinal) {
+        Object[] current = values;
+        return ordinal >= 0 && ordinal < current.length ? (T) current[ordinal] : null;
+    }
+
+    T get(String id) {
+        return get(ordinalOf(id));
+    }
+
+    synchronized void set(int ordinal, T value) {
+        Object[] current = values;
+        if (ordinal >= current.length) {
+            current = Arrays.copyOf(current, Math.max(ordinal + 1, current.length * 2));
+        }
+        current[ordinal] = value;
+        values = current;
+    }
+
+    // 删除对象（保留序号，不复用）；与 set 一样通过 volatile 引用重新发布，无锁读线程随后即可看到
+    synchronized void remove(String id) {
+        int ordinal = ordinalOf(id);
+        Object[] current = values;
+        if (ordinal >= 0 && ordinal < current.length) {
+            current[ordinal] = null;
+            values = current;
+        }
+    }
+
+    // 当前已分配的序号上界（不含）
+    synchronized int capacity() {
+        return nextOrdinal;
+    }
+
+    // 遍历所有非空对象
+    @SuppressWarnings("unchecked")
+    void forEach(Consumer<T> action) {
+        for (Object value : values) {
+            if (value != null) {
+                action.accept((T) value);
+            }
+        }
+    }
+
+    // 遍历所有非空对象及其ID
+    void forEachEntry(BiConsumer<String, T> action) {
+        ordinals.forEach((id, ordinal) -> {
+            T value = get(ordinal);
+            if (value != null) {
+                action.accept(id, value);
+            }
+        });
+    }
+
+    // 非空对象数量
+    int size() {
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 独立副本（序号与原表一致，之后的修改互不影响）
+    synchronized OrdinalTable<T> copy() {
+        OrdinalTable<T> copy = new OrdinalTable<>();
+        copy.ordinals.putAll(ordinals);
+        copy.values = values.clone();
+        copy.nextOrdinal = nextOrdinal;
+        return copy;
+    }
+
+    synchronized void clear() {
+        ordinals.clear();
+        values = new Object[64];
+        nextOrdinal = 0;
+    }
+}
@@ -0,0 +1,249 @@
+package acs.cache;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PermissionClosure 维护每个组的有效授权（EffectiveGrants）
+ *
+ * 两个层级：
+ * - 资源区域：building -> floor -> room -> door，授权一个区域即授权其子树
+ * - 嵌套组：子组继承父组的全部授权
+ *
+ * 全量构建在缓存加载时完成；之后的变更只重算受影响的组子树：
+ * - 组的授权 / 父组变化：重算该组及其所有子孙组
+ * - 资源的父资源变化：重算对该资源新旧祖先有直接授权的组及其子孙组
+ *
+ * 读取无锁（EffectiveGrants 不可变，按组序号整体替换）；变更方法串行执行。
+ * 同时维护反向索引：资源 -> 有效授权包含该资源的组（审计“谁能进入”时使用），随组的重算按差集更新。
+ */
+final class PermissionClosure {
+
+    private final OrdinalTable<CachedGroup> groups;
+    private final OrdinalTable<CachedResource> resources;
+    private final OrdinalTable<EffectiveGrants> effective = new OrdinalTable<>();
+
+    // 层级与反向索引（只在变更时使用）
+    private final Map<Integer, Set<Integer>> resourceChildren = new HashMap<>();
+    private final Map<Integer, Set<Integer>> groupChildren = new HashMap<>();
+    private final Map<Integer, Set<Integer>> directGrantees = new HashMap<>();  // 资源 -> 直接授权的组
+    private final Map<Integer, BitSet> effectiveGrantees = new HashMap<>();     // 资源 -> 有效授权的组
+
+    // 累计重算的组数量（用于观察增量维护的范围）
+    private long recomputedGroups = 0;
+
+    // 资源层级的版本号（资源新增 / 删除 / 移动时递增），依赖资源子树的缓存据此失效
+    private volatile long topologyVersion = 0;
+
+    PermissionClosure(OrdinalTable<CachedGroup> groups, OrdinalTable<CachedResource> resources) {
+        this.groups = groups;
+        this.resources = resources;
+    }
+
+    // 查询组的有效授权（组不存在返回 EMPTY）
+    EffectiveGrants of(int groupOrdinal) {
+        EffectiveGrants grants = effective.get(groupOrdinal);
+        return grants != null ? grants : EffectiveGrants.EMPTY;
+    }
+
+    // 全量构建
+    synchronized void rebuild() {
+        resourceChildren.clear();
+        groupChildren.clear();
+        directGrantees.clear();
+        effectiveGrantees.clear();
+        effective.clear();
+        topologyVersion++;
+        resources.forEach(resource -> link(resourceChildren, resource.getParentOrdinal(), resource.getOrdinal()));
+        groups.forEach(group -> {
+            link(groupChildren, group.getParentOrdinal(), group.getOrdinal());
+            indexGrants(group, true);
+        });
+        // 从顶层组（无父组或父组不存在）开始自上而下计算
+        groups.forEach(group -> {
+            if (group.getParentOrdinal() == CachedGroup.NO_PARENT || groups.get(group.getParentOrdinal()) == null) {
+                recomputeSubtree(group.getOrdinal());
+            }
+        });
+    }
+
+    // 组的直接授权或父组发生变化（previous / current 为空分别表示新增 / 删除）
+    synchronized void groupChanged(CachedGroup previous, CachedGroup current) {
+        int ordinal = previous != null ? previous.getOrdinal() : current.getOrdinal();
+        if (previous != null) {
+            unlink(groupChildren, previous.getParentOrdinal(), ordinal);
+            indexGrants(previous, false);
+        }
+        if (current != null) {
+            link(groupChildren, current.getParentOrdinal(), ordinal);
+            indexGrants(current, true);
+        }
+        recomputeSubtree(ordinal);
+    }
+
+    // 资源新增、删除或父资源变化
+    synchronized void resourceChanged(CachedResource previous, CachedResource current) {
+        int ordinal = previous != null ? previous.getOrdinal() : current.getOrdinal();
+        topologyVersion++;
+        Set<Integer> affectedGroups = new HashSet<>();
+        if (previous != null) {
+            collectGrantees(ordinal, previous.getParentOrdinal(), affectedGroups);
+            unlink(resourceChildren, previous.getParentOrdinal(), ordinal);
+        }
+        if (current != null) {
+            link(resourceChildren, current.getParentOrdinal(), ordinal);
+            collectGrantees(ordinal, current.getParentOrdinal(), affectedGroups);
+        }
+        for (int groupOrdinal : affectedGroups) {
+            recomputeSubtree(groupOrdinal);
+        }
+    }
+
+    synchronized long recomputedGroups() {
+        return recomputedGroups;
+    }
+
+    long topologyVersion() {
+        return topologyVersion;
+    }
+
+    // 有效授权包含该资源的组序号集合（返回副本）
+    synchronized BitSet groupsGranting(int resourceOrdinal) {
+        BitSet groupOrdinals = effectiveGrantees.get(resourceOrdinal);
+        return groupOrdinals != null ? (BitSet) groupOrdinals.clone() : new BitSet();
+    }
+
+    // 资源及其整个区域子树的序号集合
+    synchronized BitSet subtreeOf(int resourceOrdinal) {
+        BitSet subtree = new BitSet();
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(resourceOrdinal);
+        while (!stack.isEmpty()) {
+            int ordinal = stack.pop();
+            if (subtree.get(ordinal) || resources.get(ordinal) == null) {
+                continue;
+            }
+            subtree.set(ordinal);
+            stack.addAll(resourceChildren.getOrDefault(ordinal, Set.of()));
+        }
+        return subtree;
+    }
+
+    // 收集对资源自身及其祖先链有直接授权的组
+    private void collectGrantees(int resourceOrdinal, int parentOrdinal, Set<Integer> result) {
+        result.addAll(directGrantees.getOrDefault(resourceOrdinal, Set.of()));
+        BitSet visited = new BitSet();
+        for (int ancestor = parentOrdinal; ancestor >= 0 && !visited.get(ancestor); ) {
+            visited.set(ancestor);
+            result.addAll(directGrantees.getOrDefault(ancestor, Set.of()));
+            CachedResource resource = resources.get(ancestor);
+            ancestor = resource != null ? resource.getParentOrdinal() : CachedResource.NO_PARENT;
+        }
+    }
+
+    // 自上而下重算一个组及其全部子孙组
+    private void recomputeSubtree(int rootOrdinal) {
+        Deque<Integer> queue = new ArrayDeque<>();
+        BitSet visited = new BitSet();
+        queue.add(rootOrdinal);
+        while (!queue.isEmpty()) {
+            int ordinal = queue.poll();
+            if (visited.get(ordinal)) {
+                continue;  // 防御：层级中出现环时不死循环
+            }
+            visited.set(ordinal);
+            recompute(ordinal);
+            queue.addAll(groupChildren.getOrDefault(ordinal, Set.of()));
+        }
+    }
+
+    // 有效授权 = 父组有效授权 + 自身直接授权（展开为资源子树）
+    private void recompute(int ordinal) {
+        recomputedGroups++;
+        EffectiveGrants previous = effective.get(ordinal);
+        CachedGroup group = groups.get(ordinal);
+        if (group == null) {
+            effective.set(ordinal, null);
+            reindex(ordinal, previous, null);
+            return;
+        }
+        EffectiveGrants inherited = group.getParentOrdinal() != CachedGroup.NO_PARENT
+                ? effective.get(group.getParentOrdinal()) : null;
+        EffectiveGrants.Builder builder = new EffectiveGrants.Builder(inherited);
+        int[] resourceOrdinals = group.resourceOrdinals();
+        for (int i = 0; i < resourceOrdinals.length; i++) {
+            expand(resourceOrdinals[i], group.scheduleOrdinalAt(i), builder);
+        }
+        EffectiveGrants current = builder.build();
+        effective.set(ordinal, current);
+        reindex(ordinal, previous, current);
+    }
+
+    // 按新旧有效授权的差集更新资源 -> 组的反向索引
+    private void reindex(int groupOrdinal, EffectiveGrants previous, EffectiveGrants current) {
+        BitSet before = previous != null ? previous.resources() : new BitSet();
+        BitSet after = current != null ? current.resources() : new BitSet();
+        BitSet removed = (BitSet) before.clone();
+        removed.andNot(after);
+        after.andNot(before);
+        for (int resource = removed.nextSetBit(0); resource >= 0; resource = removed.nextSetBit(resource + 1)) {
+            BitSet groupOrdinals = effectiveGrantees.get(resource);
+            if (groupOrdinals != null) {
+                groupOrdinals.clear(groupOrdinal);
+                if (groupOrdinals.isEmpty()) {
+                    effectiveGrantees.remove(resource);
+                }
+            }
+        }
+        for (int resource = after.nextSetBit(0); resource >= 0; resource = after.nextSetBit(resource + 1)) {
+            effectiveGrantees.computeIfAbsent(resource, key -> new BitSet()).set(groupOrdinal);
+        }
+    }
+
+    // 把对一个资源的授权展开到其整个区域子树
+    private void expand(int rootResource, int scheduleOrdinal, EffectiveGrants.Builder builder) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        BitSet visited = new BitSet();
+        stack.push(rootResource);
+        while (!stack.isEmpty()) {
+            int ordinal = stack.pop();
+            if (visited.get(ordinal) || resources.get(ordinal) == null) {
+                continue;
+            }
+            visited.set(ordinal);
+            builder.grant(ordinal, scheduleOrdinal);
+            stack.addAll(resourceChildren.getOrDefault(ordinal, Set.of()));
+        }
+    }
+
+    private void indexGrants(CachedGroup group, boolean add) {
+        for (int resourceOrdinal : group.resourceOrdinals()) {
+            if (add) {
+                link(directGrantees, resourceOrdinal, group.getOrdinal());
+            } else {
+                unlink(directGrantees, resourceOrdinal, group.getOrdinal());
+            }
+        }
+    }
+
+    private static void link(Map<Integer, Set<Integer>> index, int key, int value) {
+        if (key >= 0) {
+            index.computeIfAbsent(key, k -> new HashSet<>()).add(value);
+        }
+    }
+
+    private static void unlink(Map<Integer, Set<Integer>> index, int key, int value) {
+        Set<Integer> values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package acs.controller;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.stream.AccessEventBroadcaster;
+import acs.stream.AccessEventFilter;
+import acs.stream.SlowConsumerPolicy;
+import acs.stream.SseEventChannel;
+import acs.stream.StreamProperties;
+import acs.stream.Subscription;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/**
+ * 访问事件实时订阅（SSE），例如：
+ *   GET /api/events?resource=R001&decision=DENY&policy=SAMPLE
+ * 断线重连时浏览器自动带上 Last-Event-ID，从断点续传
+ */
+@RestController
+@RequestMapping("/api/events")
+public class AccessEventController {
+
+    private final AccessEventBroadcaster broadcaster;
+    private final StreamProperties properties;
+
+    public AccessEventController(AccessEventBroadcaster broadcaster, StreamProperties properties) {
+        this.broadcaster = broadcaster;
+        this.properties = properties;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(name = "resource", required = false) Set<String> resourceIds,
+                                @RequestParam(name = "badge", required = false) Set<String> badgeIds,
+                                @RequestParam(name = "decision", required = false) Set<AccessDecision> decisions,
+                                @RequestParam(name = "reason", required = false) Set<ReasonCode> reasonCodes,
+                                @RequestParam(required = false) SlowConsumerPolicy policy,
+                                @RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+        SseEmitter emitter = new SseEmitter(properties.getTimeoutMillis());
+        Subscription subscription;
+        try {
+            subscription = broadcaster.subscribe(new AccessEventFilter(resourceIds, badgeIds, decisions, reasonCodes),
+                    policy, lastEventId, new SseEventChannel(emitter));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+        }
+        emitter.onCompletion(() -> broadcaster.unsubscribe(subscription));
+        emitter.onTimeout(() -> broadcaster.unsubscribe(subscription));
+        emitter.onError(error -> broadcaster.unsubscribe(subscription));
+        return emitter;
+    }
+}
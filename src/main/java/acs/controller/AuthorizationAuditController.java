@@ -0,0 +1,94 @@
+package acs.controller;
+
+import acs.audit.AccessAuditQuery;
+import acs.audit.EmployeePage;
+import acs.service.AuthorizationAuditService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 授权审计：谁能进入某个资源，例如：
+ *   GET /api/audit/access?resource=SERVER_ROOM
+ *   GET /api/audit/access?resource=A&except=B&cursor=...&limit=1000
+ *   GET /api/audit/access/export?resource=SERVER_ROOM（CSV，逐页流式输出）
+ */
+@RestController
+@RequestMapping("/api/audit/access")
+public class AuthorizationAuditController {
+
+    private final AuthorizationAuditService auditService;
+
+    public AuthorizationAuditController(AuthorizationAuditService auditService) {
+        this.auditService = auditService;
+    }
+
+    @GetMapping
+    public EmployeePage find(@RequestParam(name = "resource", required = false) Set<String> allOf,
+                             @RequestParam(name = "any", required = false) Set<String> anyOf,
+                             @RequestParam(name = "except", required = false) Set<String> noneOf,
+                             @RequestParam(required = false) String cursor,
+                             @RequestParam(defaultValue = "1000") int limit) {
+        return auditService.find(new AccessAuditQuery(allOf, anyOf, noneOf), cursor, limit);
+    }
+
+    @GetMapping("/count")
+    public long count(@RequestParam(name = "resource", required = false) Set<String> allOf,
+                      @RequestParam(name = "any", required = false) Set<String> anyOf,
+                      @RequestParam(name = "except", required = false) Set<String> noneOf) {
+        return auditService.count(new AccessAuditQuery(allOf, anyOf, noneOf));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(name = "resource", required = false) Set<String> allOf,
+            @RequestParam(name = "any", required = false) Set<String> anyOf,
+            @RequestParam(name = "except", required = false) Set<String> noneOf) {
+        AccessAuditQuery query = new AccessAuditQuery(allOf, anyOf, noneOf);
+        // 先校验查询（资源不存在等错误在开始输出前返回）
+        auditService.count(query);
+        StreamingResponseBody body = output -> {
+            BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            writer.write("employee_id,employee_name,badge_id\n");
+            try {
+                auditService.export(query, employee -> {
+                    try {
+                        writer.write(csv(employee.employeeId()) + "," + csv(employee.employeeName()) + ","
+                                + csv(employee.badgeId()) + "\n");
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"access-audit.csv\"")
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .body(body);
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+}
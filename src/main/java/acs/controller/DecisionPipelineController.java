@@ -0,0 +1,29 @@
+package acs.controller;
+
+import acs.decision.DecisionPipeline;
+import acs.decision.StageStats;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 访问判断流水线的阶段统计（调整检查顺序时参考）
+ */
+@RestController
+@RequestMapping("/api/decision")
+public class DecisionPipelineController {
+
+    private final DecisionPipeline pipeline;
+
+    public DecisionPipelineController(DecisionPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
+    // 各阶段的执行次数、拒绝次数、作为最终原因的次数、平均耗时与当前执行位置
+    @GetMapping("/stages")
+    public List<StageStats> stages() {
+        return pipeline.stats();
+    }
+}
@@ -0,0 +1,26 @@
+package acs.controller;
+
+import acs.log.LogRetentionJob;
+import acs.log.LogRetentionProgress;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 日志清理任务的进度查询
+ */
+@RestController
+@RequestMapping("/api/logs/retention")
+public class LogRetentionController {
+
+    private final LogRetentionJob retentionJob;
+
+    public LogRetentionController(LogRetentionJob retentionJob) {
+        this.retentionJob = retentionJob;
+    }
+
+    @GetMapping
+    public LogRetentionProgress progress() {
+        return retentionJob.progress();
+    }
+}
@@ -0,0 +1,43 @@
+package acs.controller;
+
+import acs.domain.ResourceType;
+import acs.occupancy.OccupancySnapshot;
+import acs.occupancy.OccupancyTracker;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 实时在内人数查询（疏散时使用）
+ */
+@RestController
+@RequestMapping("/api/occupancy")
+public class OccupancyController {
+
+    private final OccupancyTracker occupancyTracker;
+
+    public OccupancyController(OccupancyTracker occupancyTracker) {
+        this.occupancyTracker = occupancyTracker;
+    }
+
+    // 所有资源的在内人数，可按类型过滤（如 ?type=ROOM）
+    @GetMapping
+    public List<OccupancySnapshot> snapshot(@RequestParam(required = false) ResourceType type) {
+        List<OccupancySnapshot> snapshots = occupancyTracker.snapshot();
+        if (type == null) {
+            return snapshots;
+        }
+        return snapshots.stream().filter(snapshot -> snapshot.getResourceType() == type).toList();
+    }
+
+    // 某个资源当前在内的徽章
+    @GetMapping("/{resourceId}/badges")
+    public Set<String> badgesIn(@PathVariable String resourceId) {
+        return occupancyTracker.badgesIn(resourceId);
+    }
+}
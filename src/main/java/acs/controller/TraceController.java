@@ -0,0 +1,36 @@
+package acs.controller;
+
+import acs.trace.DecisionTracer;
+import acs.trace.SlowTrace;
+import acs.trace.StageLatency;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 访问判断路径的分阶段耗时（排查刷卡延迟抖动时使用）
+ */
+@RestController
+@RequestMapping("/api/trace")
+public class TraceController {
+
+    private final DecisionTracer tracer;
+
+    public TraceController(DecisionTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    // 各阶段（检查、占用、写本地日志、异常检测、推送、日志回放）的耗时分布
+    @GetMapping("/stages")
+    public List<StageLatency> stages() {
+        return tracer.stages();
+    }
+
+    // 最近超过阈值的慢请求及其每个阶段的耗时，最新的在前
+    @GetMapping("/slow")
+    public List<SlowTrace> slow() {
+        return tracer.slowTraces();
+    }
+}
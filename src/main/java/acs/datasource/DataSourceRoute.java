@@ -0,0 +1,9 @@
+package acs.datasource;
+
+/**
+ * 一次数据库访问实际使用的数据源
+ */
+public enum DataSourceRoute {
+    PRIMARY,   // 主库：所有写入、读写事务与不满足只读条件的查询
+    REPLICA    // 只读副本：只读事务，且副本延迟在允许范围内
+}
@@ -0,0 +1,45 @@
+package acs.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * 启用只读副本时，把自动配置的主库连接池包装为读写路由数据源
+ *
+ * 先于按工作负载划分配额的包装执行，配额同时约束主库与副本连接。
+ */
+@Configuration
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    public static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaRouting> routing) {
+        return new RoutingPostProcessor(routing);
+    }
+
+    private static class RoutingPostProcessor implements BeanPostProcessor, Ordered {
+
+        private final ObjectProvider<ReplicaRouting> routing;
+
+        RoutingPostProcessor(ObjectProvider<ReplicaRouting> routing) {
+            this.routing = routing;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return routing.getObject().route(dataSource);
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
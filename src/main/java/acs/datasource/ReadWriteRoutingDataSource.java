@@ -0,0 +1,72 @@
+package acs.datasource;
+
+import acs.resilience.WorkloadContext;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 按事务属性在主库与副本之间选择连接
+ *
+ * 外层由 LazyConnectionDataSourceProxy 包装，真正取连接发生在第一条语句执行时，
+ * 此时事务是否只读已经确定。副本取连接失败时标记副本不可用并改用主库。
+ */
+class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaRouting routing;
+
+    ReadWriteRoutingDataSource(DataSource primary, DataSource replica, ReplicaRouting routing) {
+        this.primary = primary;
+        this.replica = replica;
+        this.routing = routing;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (selectRoute() == DataSourceRoute.REPLICA) {
+            try {
+                Connection connection = replica.getConnection();
+                routing.served(DataSourceRoute.REPLICA);
+                return connection;
+            } catch (SQLException e) {
+                routing.replicaFailed(e);
+            }
+        }
+        Connection connection = primary.getConnection();
+        routing.served(DataSourceRoute.PRIMARY);
+        return connection;
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // 显式指定账号的连接只用于管理操作，始终走主库
+        Connection connection = primary.getConnection(username, password);
+        routing.served(DataSourceRoute.PRIMARY);
+        return connection;
+    }
+
+    // 连接池指标等按主库连接池解包
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : primary.unwrap(iface);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || primary.isWrapperFor(iface);
+    }
+
+    DataSource getPrimary() {
+        return primary;
+    }
+
+    private DataSourceRoute selectRoute() {
+        return routing.select(TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+                WorkloadContext.current(), System.currentTimeMillis());
+    }
+}
@@ -0,0 +1,108 @@
+package acs.datasource;
+
+import acs.resilience.Workload;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * 只读副本配置，例如：
+ *   acs.datasource.replica.enabled=true
+ *   acs.datasource.replica.url=jdbc:mysql://replica:3306/access_control_db
+ *   acs.datasource.replica.max-lag-millis=5000
+ *
+ * 未启用时所有访问都走主库。
+ */
+@Component
+@ConfigurationProperties(prefix = "acs.datasource.replica")
+public class ReplicaProperties {
+
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private int maximumPoolSize = 4;
+
+    // 副本落后主库超过该值时只读查询改走主库
+    private long maxLagMillis = 5000;
+    // 心跳写入 / 读取间隔
+    private long heartbeatMillis = 1000;
+    // 哪些工作负载的只读事务可以走副本（刷卡与清理始终走主库）
+    private Set<Workload> workloads = EnumSet.of(Workload.QUERY, Workload.ADMIN);
+
+    // Getter和Setter（配置绑定）
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getDriverClassName() {
+        return driverClassName;
+    }
+
+    public void setDriverClassName(String driverClassName) {
+        this.driverClassName = driverClassName;
+    }
+
+    public int getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public void setMaxLagMillis(long maxLagMillis) {
+        this.maxLagMillis = maxLagMillis;
+    }
+
+    public long getHeartbeatMillis() {
+        return heartbeatMillis;
+    }
+
+    public void setHeartbeatMillis(long heartbeatMillis) {
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    public Set<Workload> getWorkloads() {
+        return workloads;
+    }
+
+    public void setWorkloads(Set<Workload> workloads) {
+        this.workloads = workloads;
+    }
+}
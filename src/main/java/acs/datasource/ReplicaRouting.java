@@ -0,0 +1,192 @@
+package acs.datasource;
+
+import acs.resilience.Workload;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * ReplicaRouting 决定只读查询是否走副本
+ *
+ * - 只读事务、工作负载在 acs.datasource.replica.workloads 中、且副本延迟不超过 maxLagMillis 时走副本
+ * - 写入、读写事务（包括管理操作）、刷卡与清理始终走主库
+ * - 延迟用心跳表测量：主库定时写入当前时间，从副本读回，差值即为延迟（含一个心跳间隔，偏保守）；
+ *   副本读不到心跳（不可达、未同步或心跳表不存在）时视为不可用
+ *
+ * 本地测试时两个库（或同一实例的两个 schema）即可分别充当主库与副本，副本的心跳行由测试自行写入。
+ */
+@Component
+public class ReplicaRouting {
+
+    private static final String CREATE_HEARTBEAT =
+            "CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_millis BIGINT NOT NULL)";
+
+    // 当前线程最近一次取连接时使用的数据源
+    private static final ThreadLocal<DataSourceRoute> LAST_SERVED = new ThreadLocal<>();
+
+    private final ReplicaProperties properties;
+    private final Map<DataSourceRoute, LongAdder> served = new EnumMap<>(DataSourceRoute.class);
+
+    private volatile DataSource primary;
+    private volatile DataSource replica;
+    private volatile boolean heartbeatTableReady;
+    private volatile long replicaBeatMillis = -1;
+    private volatile String lastReplicaError;
+
+    public ReplicaRouting(ReplicaProperties properties) {
+        this.properties = properties;
+        for (DataSourceRoute route : DataSourceRoute.values()) {
+            served.put(route, new LongAdder());
+        }
+    }
+
+    /**
+     * 为主库包装读写路由（未启用副本时原样返回）
+     */
+    public DataSource route(DataSource primaryDataSource) {
+        if (!properties.isEnabled()) {
+            return primaryDataSource;
+        }
+        if (properties.getUrl() == null || properties.getUrl().isBlank()) {
+            throw new IllegalStateException("已启用只读副本，但未配置 acs.datasource.replica.url");
+        }
+        HikariDataSource replicaPool = new HikariDataSource();
+        replicaPool.setPoolName("replica");
+        replicaPool.setJdbcUrl(properties.getUrl());
+        replicaPool.setUsername(properties.getUsername());
+        replicaPool.setPassword(properties.getPassword());
+        if (properties.getDriverClassName() != null) {
+            replicaPool.setDriverClassName(properties.getDriverClassName());
+        }
+        replicaPool.setMaximumPoolSize(properties.getMaximumPoolSize());
+        replicaPool.setReadOnly(true);
+        return route(primaryDataSource, replicaPool);
+    }
+
+    // 测试中直接传入两个数据源
+    DataSource route(DataSource primaryDataSource, DataSource replicaDataSource) {
+        this.primary = primaryDataSource;
+        this.replica = replicaDataSource;
+        return new LazyConnectionDataSourceProxy(
+                new ReadWriteRoutingDataSource(primaryDataSource, replicaDataSource, this));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (replica instanceof HikariDataSource pool) {
+            pool.close();
+        }
+    }
+
+    /**
+     * 选择数据源
+     *
+     * @param readOnly 当前事务是否只读（无事务时为 false）
+     */
+    DataSourceRoute select(boolean readOnly, Workload workload, long nowMillis) {
+        if (replica != null && readOnly && properties.getWorkloads().contains(workload)
+                && isReplicaUsable(nowMillis)) {
+            return DataSourceRoute.REPLICA;
+        }
+        return DataSourceRoute.PRIMARY;
+    }
+
+    void served(DataSourceRoute route) {
+        served.get(route).increment();
+        LAST_SERVED.set(route);
+    }
+
+    // 副本取连接失败：在下一次心跳读到新数据之前不再使用
+    void replicaFailed(SQLException e) {
+        replicaBeatMillis = -1;
+        lastReplicaError = e.getMessage();
+        System.err.println("只读副本不可用，改用主库: " + e.getMessage());
+    }
+
+    /**
+     * 执行一次数据库访问，并返回实际使用的数据源（访问必须在当前线程上完成）
+     */
+    public static <T> Routed<T> track(Supplier<T> action) {
+        LAST_SERVED.remove();
+        try {
+            T result = action.get();
+            DataSourceRoute route = LAST_SERVED.get();
+            // 未经过路由数据源（未启用副本）时都是主库
+            return new Routed<>(result, route != null ? route : DataSourceRoute.PRIMARY);
+        } finally {
+            LAST_SERVED.remove();
+        }
+    }
+
+    // 主库写心跳，副本读心跳
+    @Scheduled(fixedDelayString = "${acs.datasource.replica.heartbeat-millis:1000}")
+    public void heartbeat() {
+        if (replica == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        try {
+            JdbcTemplate primaryJdbc = new JdbcTemplate(primary);
+            if (!heartbeatTableReady) {
+                primaryJdbc.execute(CREATE_HEARTBEAT);
+                heartbeatTableReady = true;
+            }
+            if (primaryJdbc.update("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1", now) == 0) {
+                primaryJdbc.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", now);
+            }
+        } catch (DataAccessException e) {
+            System.err.println("写入副本心跳失败: " + e.getMessage());
+        }
+        try {
+            List<Long> beats = new JdbcTemplate(replica)
+                    .queryForList("SELECT beat_millis FROM replica_heartbeat WHERE id = 1", Long.class);
+            onReplicaBeat(beats.isEmpty() ? -1 : beats.get(0));
+        } catch (DataAccessException e) {
+            replicaBeatMillis = -1;
+            lastReplicaError = e.getMessage();
+        }
+    }
+
+    void onReplicaBeat(long beatMillis) {
+        replicaBeatMillis = beatMillis;
+        if (beatMillis >= 0) {
+            lastReplicaError = null;
+        }
+    }
+
+    /** 副本当前延迟（毫秒），未知时为 -1 */
+    public long getLagMillis(long nowMillis) {
+        long beat = replicaBeatMillis;
+        return beat < 0 ? -1 : Math.max(0, nowMillis - beat);
+    }
+
+    public boolean isReplicaUsable(long nowMillis) {
+        long lag = getLagMillis(nowMillis);
+        return lag >= 0 && lag <= properties.getMaxLagMillis();
+    }
+
+    public boolean isEnabled() {
+        return replica != null;
+    }
+
+    /** 各数据源累计提供的连接数 */
+    public long getServed(DataSourceRoute route) {
+        return served.get(route).sum();
+    }
+
+    public String getLastReplicaError() {
+        return lastReplicaError;
+    }
+}
@@ -0,0 +1,7 @@
+package acs.datasource;
+
+/**
+ * 查询结果及其所用的数据源
+ */
+public record Routed<T>(T result, DataSourceRoute route) {
+}
@@ -0,0 +1,34 @@
+package acs.decision;
+
+import acs.domain.ReasonCode;
+
+/**
+ * 可插拔的访问检查阶段（Spring Bean 自动加入判断流水线）
+ *
+ * - 检查必须没有副作用：流水线会按观测到的耗时与拒绝率调整执行顺序，拒绝后仍可能执行优先级更高的检查
+ * - 所需的徽章 / 员工 / 资源缺失时应直接通过：缺失由优先级更高的内置检查报告
+ * - 优先级决定多个检查同时拒绝时采用哪个原因码，内置检查的优先级见 BuiltinCheck
+ */
+public interface AccessCheck {
+
+    /** 唯一名称（用于统计） */
+    String name();
+
+    /** 优先级：数值越小越优先，不能与其他检查相同 */
+    int precedence();
+
+    /** 离开（EXIT）时是否也执行，默认只检查进入 */
+    default boolean appliesToExit() {
+        return false;
+    }
+
+    /** 拒绝时返回给调用方的提示信息 */
+    String denyMessage();
+
+    /**
+     * 执行检查
+     *
+     * @return 拒绝原因；通过时返回 null
+     */
+    ReasonCode check(DecisionContext context);
+}
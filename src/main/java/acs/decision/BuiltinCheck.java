@@ -0,0 +1,39 @@
+package acs.decision;
+
+/**
+ * 内置检查阶段，按原因码优先级从高到低声明（与改造前 processAccess 的判断顺序一致）
+ *
+ * 占用租约与容量会修改运行时状态，不属于检查阶段，由 AccessControlServiceImpl 在所有检查通过后按固定顺序执行。
+ */
+public enum BuiltinCheck {
+    /** 请求参数 -> INVALID_REQUEST */
+    REQUEST(100, true),
+    /** 徽章存在 -> BADGE_NOT_FOUND */
+    BADGE(200, true),
+    /** 徽章状态 -> BADGE_INACTIVE */
+    BADGE_STATUS(300, true),
+    /** 员工存在 -> EMPLOYEE_NOT_FOUND */
+    EMPLOYEE(400, true),
+    /** 资源存在 -> RESOURCE_NOT_FOUND */
+    RESOURCE(500, true),
+    /** 授权与时间表 -> NO_PERMISSION / OUTSIDE_SCHEDULE */
+    PERMISSION(600, false),
+    /** 资源锁定与紧急封锁 -> RESOURCE_LOCKED */
+    RESOURCE_LOCKED(700, false);
+
+    private final int precedence;
+    private final boolean appliesToExit;
+
+    BuiltinCheck(int precedence, boolean appliesToExit) {
+        this.precedence = precedence;
+        this.appliesToExit = appliesToExit;
+    }
+
+    public int precedence() {
+        return precedence;
+    }
+
+    public boolean appliesToExit() {
+        return appliesToExit;
+    }
+}
@@ -0,0 +1,85 @@
+package acs.decision;
+
+import acs.cache.CachedBadge;
+import acs.cache.CachedEmployee;
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDirection;
+import acs.domain.AccessRequest;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 一次访问判断的上下文：徽章、员工与资源在第一次使用时从缓存解析并复用
+ *
+ * 只在处理该请求的线程上使用。检查的执行顺序可能变化，因此所有对象都按需解析，不依赖哪个检查先执行。
+ */
+public final class DecisionContext {
+
+    private final AccessRequest request;
+    private final LocalCacheManager cacheManager;
+
+    private CachedBadge badge;
+    private CachedEmployee employee;
+    private CachedResource resource;
+    private LocalDateTime time;
+    private boolean badgeResolved;
+    private boolean employeeResolved;
+    private boolean resourceResolved;
+
+    public DecisionContext(AccessRequest request, LocalCacheManager cacheManager) {
+        this.request = request;
+        this.cacheManager = cacheManager;
+    }
+
+    public AccessRequest request() {
+        return request;
+    }
+
+    public boolean isExit() {
+        return request.getDirection() == AccessDirection.EXIT;
+    }
+
+    /** 请求参数是否完整（徽章、资源、时间） */
+    public boolean isValidRequest() {
+        return request.getBadgeId() != null && !request.getBadgeId().trim().isEmpty()
+                && request.getResourceId() != null && !request.getResourceId().trim().isEmpty()
+                && request.getTimestamp() != null;
+    }
+
+    /** 请求时间（本地时区）；请求没有时间时为 null */
+    public LocalDateTime time() {
+        if (time == null && request.getTimestamp() != null) {
+            time = LocalDateTime.ofInstant(request.getTimestamp(), ZoneId.systemDefault());
+        }
+        return time;
+    }
+
+    public CachedBadge badge() {
+        if (!badgeResolved) {
+            badge = request.getBadgeId() != null ? cacheManager.getBadge(request.getBadgeId()) : null;
+            badgeResolved = true;
+        }
+        return badge;
+    }
+
+    /** 徽章绑定的员工；徽章不存在或未绑定时为 null */
+    public CachedEmployee employee() {
+        if (!employeeResolved) {
+            CachedBadge current = badge();
+            employee = current != null && current.getEmployeeId() != null
+                    ? cacheManager.getEmployee(current.getEmployeeId()) : null;
+            employeeResolved = true;
+        }
+        return employee;
+    }
+
+    public CachedResource resource() {
+        if (!resourceResolved) {
+            resource = request.getResourceId() != null ? cacheManager.getResource(request.getResourceId()) : null;
+            resourceResolved = true;
+        }
+        return resource;
+    }
+}
@@ -0,0 +1,286 @@
+package acs.decision;
+
+import acs.cache.CachedBadge;
+import acs.cache.CachedEmployee;
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.BadgeStatus;
+import acs.domain.ReasonCode;
+import acs.domain.ResourceState;
+import acs.lockdown.LockdownManager;
+import acs.trace.DecisionTracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * DecisionPipeline 把访问判断的检查阶段（内置检查 + AccessCheck 插件）编译为一个扁平的执行顺序
+ *
+ * - 启动时为每个阶段分配整数ID；内置检查通过 switch 直接调用，插件检查共用一个接口调用点，
+ *   判断路径上没有按阶段变化的虚调用（插件只有一两个实现时 JIT 仍可内联）
+ * - 执行顺序可按观测到的耗时与拒绝率调整（耗时 / 拒绝率 越小越靠前：便宜且常拒绝的先执行）；
+ *   某个阶段拒绝后只再执行优先级更高的阶段，最终采用优先级最高的拒绝，原因码与按优先级顺序执行完全一致
+ * - 每个阶段统计执行次数、拒绝次数与作为最终原因的次数；耗时按 1/timingSample 的比例抽样计时
+ *   （徽章 / 员工 / 资源的查找开销计入第一个使用该对象的阶段）
+ * - 每个执行的阶段结束时通知 DecisionTracer（阶段名为 CHECK_ + 检查名称），用于逐请求的耗时跟踪
+ */
+@Component
+public class DecisionPipeline {
+
+    private static final BuiltinCheck[] BUILTINS = BuiltinCheck.values();
+
+    private final LocalCacheManager cacheManager;
+    private final LockdownManager lockdownManager;
+    private final DecisionTracer tracer;
+    private final AccessCheck[] plugins;
+    private final boolean adaptive;
+    private final long minSamples;
+    private final int timingSample;
+
+    // 按阶段ID索引（0..BUILTINS.length-1 为内置检查，其后为插件）
+    private final String[] names;
+    private final int[] precedence;
+    private final boolean[] appliesToExit;
+    private final int[] traceStages;
+    private final LongAdder[] invocations;
+    private final LongAdder[] denies;
+    private final LongAdder[] decisive;
+    private final LongAdder[] timedNanos;
+    private final LongAdder[] timedSamples;
+
+    // 当前执行顺序（阶段ID），整体替换
+    private volatile int[] order;
+
+    @Autowired
+    public DecisionPipeline(LocalCacheManager cacheManager,
+                            LockdownManager lockdownManager,
+                            DecisionTracer tracer,
+                            ObjectProvider<AccessCheck> plugins,
+                            @Value("${acs.decision.adaptive:true}") boolean adaptive,
+                            @Value("${acs.decision.min-samples:10000}") long minSamples,
+                            @Value("${acs.decision.timing-sample:16}") int timingSample) {
+        this(cacheManager, lockdownManager, tracer, plugins.orderedStream().toList(), adaptive, minSamples,
+                timingSample);
+    }
+
+    /** 只有内置检查、按优先级顺序执行、不计时（测试与决策回放使用） */
+    public DecisionPipeline(LocalCacheManager cacheManager, LockdownManager lockdownManager) {
+        this(cacheManager, lockdownManager, DecisionTracer.disabled());
+    }
+
+    /** 只有内置检查、按优先级顺序执行 */
+    public DecisionPipeline(LocalCacheManager cacheManager, LockdownManager lockdownManager, DecisionTracer tracer) {
+        this(cacheManager, lockdownManager, tracer, List.of(), false, 10_000, 16);
+    }
+
+    DecisionPipeline(LocalCacheManager cacheManager, LockdownManager lockdownManager, DecisionTracer tracer,
+                     List<AccessCheck> plugins, boolean adaptive, long minSamples, int timingSample) {
+        this.cacheManager = cacheManager;
+        this.lockdownManager = lockdownManager;
+        this.tracer = tracer;
+        this.plugins = plugins.toArray(new AccessCheck[0]);
+        this.adaptive = adaptive;
+        this.minSamples = minSamples;
+        this.timingSample = Math.max(1, timingSample);
+
+        int stages = BUILTINS.length + this.plugins.length;
+        names = new String[stages];
+        precedence = new int[stages];
+        appliesToExit = new boolean[stages];
+        traceStages = new int[stages];
+        Set<String> seenNames = new HashSet<>();
+        Set<Integer> seenPrecedence = new HashSet<>();
+        for (int stage = 0; stage < stages; stage++) {
+            if (stage < BUILTINS.length) {
+                names[stage] = BUILTINS[stage].name();
+                precedence[stage] = BUILTINS[stage].precedence();
+                appliesToExit[stage] = BUILTINS[stage].appliesToExit();
+            } else {
+                AccessCheck plugin = this.plugins[stage - BUILTINS.length];
+                names[stage] = plugin.name();
+                precedence[stage] = plugin.precedence();
+                appliesToExit[stage] = plugin.appliesToExit();
+            }
+            if (!seenNames.add(names[stage])) {
+                throw new IllegalStateException("检查阶段名称重复: " + names[stage]);
+            }
+            if (!seenPrecedence.add(precedence[stage])) {
+                throw new IllegalStateException("检查阶段优先级重复: " + names[stage] + " (" + precedence[stage] + ")");
+            }
+            traceStages[stage] = tracer.stage("CHECK_" + names[stage]);
+        }
+        invocations = adders(stages);
+        denies = adders(stages);
+        decisive = adders(stages);
+        timedNanos = adders(stages);
+        timedSamples = adders(stages);
+        order = IntStream.range(0, stages).boxed()
+                .sorted(Comparator.comparingInt(stage -> precedence[stage]))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 执行所有检查阶段
+     *
+     * @return 优先级最高的拒绝；全部通过时返回 null
+     */
+    public Denial evaluate(DecisionContext context) {
+        int[] current = order;
+        boolean exit = context.isExit();
+        boolean timed = timingSample == 1 || ThreadLocalRandom.current().nextInt(timingSample) == 0;
+        int winner = -1;
+        int best = Integer.MAX_VALUE;
+        ReasonCode reason = null;
+        for (int stage : current) {
+            if (precedence[stage] >= best || (exit && !appliesToExit[stage])) {
+                continue;
+            }
+            long start = timed ? System.nanoTime() : 0;
+            ReasonCode denied = stage < BUILTINS.length
+                    ? checkBuiltin(stage, context)
+                    : plugins[stage - BUILTINS.length].check(context);
+            if (timed) {
+                timedNanos[stage].add(System.nanoTime() - start);
+                timedSamples[stage].increment();
+            }
+            tracer.mark(traceStages[stage]);
+            invocations[stage].increment();
+            if (denied != null) {
+                denies[stage].increment();
+                winner = stage;
+                best = precedence[stage];
+                reason = denied;
+            }
+        }
+        if (winner < 0) {
+            return null;
+        }
+        decisive[winner].increment();
+        return new Denial(reason, messageOf(winner, reason), best);
+    }
+
+    // 内置检查（阶段ID即 BuiltinCheck 序号）；所需对象缺失时通过，由优先级更高的检查报告
+    private ReasonCode checkBuiltin(int stage, DecisionContext context) {
+        return switch (BUILTINS[stage]) {
+            case REQUEST -> context.isValidRequest() ? null : ReasonCode.INVALID_REQUEST;
+            case BADGE -> context.badge() != null ? null : ReasonCode.BADGE_NOT_FOUND;
+            case BADGE_STATUS -> {
+                CachedBadge badge = context.badge();
+                yield badge == null || badge.getStatus() == BadgeStatus.ACTIVE ? null : ReasonCode.BADGE_INACTIVE;
+            }
+            case EMPLOYEE -> context.badge() == null || context.employee() != null ? null : ReasonCode.EMPLOYEE_NOT_FOUND;
+            case RESOURCE -> context.resource() != null ? null : ReasonCode.RESOURCE_NOT_FOUND;
+            case PERMISSION -> checkPermission(context);
+            case RESOURCE_LOCKED -> {
+                CachedResource resource = context.resource();
+                yield resource == null || (resource.getResourceState() != ResourceState.LOCKED
+                        && !lockdownManager.isLocked(resource)) ? null : ReasonCode.RESOURCE_LOCKED;
+            }
+        };
+    }
+
+    private ReasonCode checkPermission(DecisionContext context) {
+        CachedEmployee employee = context.employee();
+        CachedResource resource = context.resource();
+        LocalDateTime time = context.time();
+        if (employee == null || resource == null || time == null) {
+            return null;
+        }
+        ReasonCode permission = cacheManager.checkPermission(employee, resource, time);
+        return permission == ReasonCode.NO_PERMISSION || permission == ReasonCode.OUTSIDE_SCHEDULE ? permission : null;
+    }
+
+    private String messageOf(int stage, ReasonCode reason) {
+        if (stage >= BUILTINS.length) {
+            return plugins[stage - BUILTINS.length].denyMessage();
+        }
+        return switch (reason) {
+            case INVALID_REQUEST -> "无效的访问请求参数";
+            case BADGE_NOT_FOUND -> "徽章不存在";
+            case BADGE_INACTIVE -> "徽章不可用（已禁用或挂失）";
+            case EMPLOYEE_NOT_FOUND -> "徽章未绑定有效员工";
+            case RESOURCE_NOT_FOUND -> "访问的资源不存在";
+            case NO_PERMISSION -> "没有访问该资源的权限";
+            case OUTSIDE_SCHEDULE -> "当前时间不在授权时间范围内";
+            case RESOURCE_LOCKED -> "资源已被锁定";
+            default -> "访问被拒绝";
+        };
+    }
+
+    @Scheduled(fixedDelayString = "${acs.decision.reorder-millis:60000}")
+    public void reorder() {
+        if (adaptive) {
+            reorder(minSamples);
+        }
+    }
+
+    /**
+     * 按统计调整执行顺序：每个阶段至少执行 minSamples 次且有计时样本后才调整
+     *
+     * @return 执行顺序是否变化
+     */
+    synchronized boolean reorder(long minSamples) {
+        int stages = names.length;
+        double[] score = new double[stages];
+        for (int stage = 0; stage < stages; stage++) {
+            long runs = invocations[stage].sum();
+            long samples = timedSamples[stage].sum();
+            if (runs < minSamples || samples == 0) {
+                return false;
+            }
+            double meanNanos = (double) timedNanos[stage].sum() / samples;
+            double denyRate = Math.max((double) denies[stage].sum() / runs, 1e-6);
+            score[stage] = meanNanos / denyRate;
+        }
+        int[] tuned = IntStream.range(0, stages).boxed()
+                .sorted(Comparator.<Integer>comparingDouble(stage -> score[stage])
+                        .thenComparingInt(stage -> precedence[stage]))
+                .mapToInt(Integer::intValue).toArray();
+        if (Arrays.equals(tuned, order)) {
+            return false;
+        }
+        order = tuned;
+        return true;
+    }
+
+    /** 当前执行顺序（阶段名称） */
+    public List<String> order() {
+        return Arrays.stream(order).mapToObj(stage -> names[stage]).toList();
+    }
+
+    /** 各阶段统计，按优先级排列 */
+    public List<StageStats> stats() {
+        int[] current = order;
+        List<StageStats> stats = new ArrayList<>(names.length);
+        for (int position = 0; position < current.length; position++) {
+            int stage = current[position];
+            long samples = timedSamples[stage].sum();
+            stats.add(new StageStats(names[stage], precedence[stage], position, invocations[stage].sum(),
+                    denies[stage].sum(), decisive[stage].sum(),
+                    samples > 0 ? (double) timedNanos[stage].sum() / samples : 0, samples));
+        }
+        stats.sort(Comparator.comparingInt(StageStats::precedence));
+        return stats;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
@@ -0,0 +1,11 @@
+package acs.decision;
+
+import acs.domain.ReasonCode;
+
+/**
+ * 流水线的拒绝结果：所有拒绝的检查中优先级最高的那个
+ *
+ * @param precedence 做出拒绝的检查的优先级（决定日志中记录哪些已解析的对象）
+ */
+public record Denial(ReasonCode reasonCode, String message, int precedence) {
+}
@@ -0,0 +1,20 @@
+package acs.decision;
+
+/**
+ * 一个检查阶段的运行统计
+ *
+ * @param position      当前执行顺序中的位置（从 0 开始）
+ * @param invocations   执行次数
+ * @param denies        拒绝次数
+ * @param decisive      作为最终拒绝原因的次数（其后优先级更低的检查被短路）
+ * @param meanNanos     抽样计时的平均耗时
+ * @param timedSamples  计时样本数
+ */
+public record StageStats(String name, int precedence, int position, long invocations, long denies, long decisive,
+                         double meanNanos, long timedSamples) {
+
+    /** 执行时的拒绝率 */
+    public double denyRate() {
+        return invocations > 0 ? (double) denies / invocations : 0;
+    }
+}
@@ -0,0 +1,13 @@
+package acs.domain;
+
+/**
+ * 刷卡方向（进入 / 离开）
+ */
+public enum AccessDirection {
+
+    /** 进入资源（默认） */
+    ENTRY,
+
+    /** 离开资源 */
+    EXIT
+}
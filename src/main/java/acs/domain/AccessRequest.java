@@ -40,6 +40,12 @@ public class AccessRequest {
      */
     private Instant timestamp;
 
+    /**
+     * 刷卡方向（进入 / 离开），默认为进入
+     * 用于维护资源内的实时人数
+     */
+    private AccessDirection direction = AccessDirection.ENTRY;
+
     /**
      * 构造一个访问请求
      *
@@ -91,4 +97,12 @@ public class AccessRequest {
         this.timestamp = timestamp;
     }
 
+    public AccessDirection getDirection() {
+        return direction;
+    }
+
+    public void setDirection(AccessDirection direction) {
+        this.direction = direction;
+    }
+
 }
@@ -0,0 +1,101 @@
+package acs.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * AccessSchedule 表示一个可复用的访问时间表
+ *
+ * 时间表挂在“组 -> 资源”的授权上（见 Group.resourceSchedules）：
+ * - windows：每周的允许时间段
+ * - holidays：节假日当天全天不允许
+ * - validFrom / validUntil：生效日期范围（含首尾，可为空表示不限）
+ *
+ * 未挂时间表的授权任何时间都有效。
+ */
+@Entity
+@Table(name = "access_schedules")
+public class AccessSchedule {
+
+    @Id
+    @Column(name = "schedule_id", nullable = false, length = 50)
+    private String scheduleId;
+
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    @Column(name = "valid_from")
+    private LocalDate validFrom;
+
+    @Column(name = "valid_until")
+    private LocalDate validUntil;
+
+    @ElementCollection
+    @CollectionTable(name = "schedule_windows", joinColumns = @JoinColumn(name = "schedule_id"))
+    private Set<ScheduleWindow> windows = new HashSet<>();
+
+    @ElementCollection
+    @CollectionTable(name = "schedule_holidays", joinColumns = @JoinColumn(name = "schedule_id"))
+    @Column(name = "holiday_date", nullable = false)
+    private Set<LocalDate> holidays = new HashSet<>();
+
+    // 无参构造器（JPA必需）
+    public AccessSchedule() {}
+
+    // 全参构造器
+    public AccessSchedule(String scheduleId, String name) {
+        this.scheduleId = scheduleId;
+        this.name = name;
+    }
+
+    // Getter和Setter
+    public String getScheduleId() {
+        return scheduleId;
+    }
+
+    public void setScheduleId(String scheduleId) {
+        this.scheduleId = scheduleId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public LocalDate getValidFrom() {
+        return validFrom;
+    }
+
+    public void setValidFrom(LocalDate validFrom) {
+        this.validFrom = validFrom;
+    }
+
+    public LocalDate getValidUntil() {
+        return validUntil;
+    }
+
+    public void setValidUntil(LocalDate validUntil) {
+        this.validUntil = validUntil;
+    }
+
+    public Set<ScheduleWindow> getWindows() {
+        return windows;
+    }
+
+    public void setWindows(Set<ScheduleWindow> windows) {
+        this.windows = windows;
+    }
+
+    public Set<LocalDate> getHolidays() {
+        return holidays;
+    }
+
+    public void setHolidays(Set<LocalDate> holidays) {
+        this.holidays = holidays;
+    }
+}
@@ -1,7 +1,9 @@
 package acs.domain;
 
 import jakarta.persistence.*;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -14,6 +16,11 @@ import java.util.Set;
  * 优点：
  * - 逻辑清晰，答辩好讲
  * - 数据驱动，配置权限只需改 Group 的授权列表
+ *
+ * 组可以嵌套（parentGroupId）：子组成员同时拥有父组（及更上层）的全部授权。
+ *
+ * 授权可以附加时间表（resourceSchedules：resourceId -> scheduleId），
+ * 没有附加时间表的授权任何时间都有效。
  */
 
 @Entity
@@ -27,6 +34,9 @@ public class Group {
     @Column(name = "name", nullable = false, length = 100)
     private String name;
 
+    @Column(name = "parent_group_id", length = 50)
+    private String parentGroupId;
+
     @ManyToMany(mappedBy = "groups")
     private Set<Employee> employees = new HashSet<>();
 
@@ -38,6 +48,12 @@ public class Group {
     )
     private Set<Resource> resources = new HashSet<>();
 
+    @ElementCollection
+    @CollectionTable(name = "group_resource_schedules", joinColumns = @JoinColumn(name = "group_id"))
+    @MapKeyColumn(name = "resource_id", length = 50)
+    @Column(name = "schedule_id", nullable = false, length = 50)
+    private Map<String, String> resourceSchedules = new HashMap<>();
+
     // 无参构造器（JPA必需）
     public Group() {}
 
@@ -64,6 +80,14 @@ public class Group {
         this.name = name;
     }
 
+    public String getParentGroupId() {
+        return parentGroupId;
+    }
+
+    public void setParentGroupId(String parentGroupId) {
+        this.parentGroupId = parentGroupId;
+    }
+
     public Set<Employee> getEmployees() {
         return employees;
     }
@@ -79,4 +103,12 @@ public class Group {
     public void setResources(Set<Resource> resources) {
         this.resources = resources;
     }
+
+    public Map<String, String> getResourceSchedules() {
+        return resourceSchedules;
+    }
+
+    public void setResourceSchedules(Map<String, String> resourceSchedules) {
+        this.resourceSchedules = resourceSchedules;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,75 @@
+package acs.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Lockdown 表示一条生效中的紧急封锁
+ *
+ * - 行存在即生效，解除即删除：启用 / 解除各只需一次写入
+ * - 不修改任何 Resource 的状态，封锁在内存中作为覆盖层参与访问判断
+ * - activatedAt 用于统计各节点从下令到生效的传播延迟
+ */
+@Entity
+@Table(name = "lockdowns")
+public class Lockdown {
+
+    @Id
+    @Column(name = "lockdown_id", nullable = false, length = 50)
+    private String lockdownId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "scope", nullable = false)
+    private LockdownScope scope;
+
+    // TYPE：资源类型名称；ZONE：区域资源ID；ALL：为空
+    @Column(name = "target", length = 50)
+    private String target;
+
+    @Column(name = "activated_at", nullable = false)
+    private LocalDateTime activatedAt;
+
+    // 无参构造器（JPA必需）
+    public Lockdown() {}
+
+    // 全参构造器
+    public Lockdown(String lockdownId, LockdownScope scope, String target, LocalDateTime activatedAt) {
+        this.lockdownId = lockdownId;
+        this.scope = scope;
+        this.target = target;
+        this.activatedAt = activatedAt;
+    }
+
+    // Getter和Setter
+    public String getLockdownId() {
+        return lockdownId;
+    }
+
+    public void setLockdownId(String lockdownId) {
+        this.lockdownId = lockdownId;
+    }
+
+    public LockdownScope getScope() {
+        return scope;
+    }
+
+    public void setScope(LockdownScope scope) {
+        this.scope = scope;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public void setTarget(String target) {
+        this.target = target;
+    }
+
+    public LocalDateTime getActivatedAt() {
+        return activatedAt;
+    }
+
+    public void setActivatedAt(LocalDateTime activatedAt) {
+        this.activatedAt = activatedAt;
+    }
+}
@@ -0,0 +1,16 @@
+package acs.domain;
+
+/**
+ * 封锁范围
+ */
+public enum LockdownScope {
+
+    /** 全部资源 */
+    ALL,
+
+    /** 某一类资源（target 为 ResourceType 名称） */
+    TYPE,
+
+    /** 某个区域及其下所有资源（target 为区域的资源ID） */
+    ZONE
+}
@@ -9,10 +9,21 @@ import java.time.LocalDateTime;
  * 
  * - 每一次访问（无论成功还是失败）都必须生成一条 LogEntry
  * - 日志是企业级访问控制系统的核心组成部分
+ * - badgeId / employeeId / resourceId 直接映射外键列，写日志和按ID过滤都不需要加载实体；
+ *   badge / employee / resource 关联只读且懒加载，按需访问
+ * - access_logs 按天分区，分区表不支持外键，关联不生成外键约束
+ * - eventId 在刷卡时生成，本地日志回放时据此去重
  */
 
 @Entity
-@Table(name = "access_logs")
+@Table(name = "access_logs", indexes = {
+        // 每个查询都是“ID 等值 + 时间范围”：复合索引上为一次范围扫描，而不是按单列索引回表再过滤时间
+        @Index(name = "idx_log_badge_time", columnList = "badge_id, timestamp"),
+        @Index(name = "idx_log_employee_time", columnList = "employee_id, timestamp"),
+        @Index(name = "idx_log_resource_time", columnList = "resource_id, timestamp"),
+        @Index(name = "idx_log_decision_time", columnList = "decision, timestamp"),
+        @Index(name = "idx_log_timestamp", columnList = "timestamp")
+})
 public class LogEntry {
 
     @Id
@@ -22,16 +33,32 @@ public class LogEntry {
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
-    @ManyToOne
-    @JoinColumn(name = "badge_id", referencedColumnName = "badge_id")
+    // 事件ID（早期日志为空）
+    @Column(name = "event_id", length = 36)
+    private String eventId;
+
+    @Column(name = "badge_id", length = 50)
+    private String badgeId;
+
+    @Column(name = "employee_id", length = 50)
+    private String employeeId;
+
+    @Column(name = "resource_id", length = 50)
+    private String resourceId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "badge_id", referencedColumnName = "badge_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Badge badge;
 
-    @ManyToOne
-    @JoinColumn(name = "employee_id", referencedColumnName = "employee_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "employee_id", referencedColumnName = "employee_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Employee employee;
 
-    @ManyToOne
-    @JoinColumn(name = "resource_id", referencedColumnName = "resource_id")
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "resource_id", referencedColumnName = "resource_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Resource resource;
 
     @Enumerated(EnumType.STRING)
@@ -42,6 +69,11 @@ public class LogEntry {
     @Column(name = "reason_code", nullable = false)
     private ReasonCode reasonCode;
 
+    // 刷卡方向（早期日志为空）
+    @Enumerated(EnumType.STRING)
+    @Column(name = "direction")
+    private AccessDirection direction;
+
     // 无参构造器（JPA必需）
     public LogEntry() {
         this.decision = AccessDecision.PENDING;
@@ -51,9 +83,19 @@ public class LogEntry {
     // 全参构造器
     public LogEntry(LocalDateTime timestamp, Badge badge, Employee employee, Resource resource, AccessDecision decision, ReasonCode reasonCode) {
         this.timestamp = timestamp;
-        this.badge = badge;
-        this.employee = employee;
-        this.resource = resource;
+        setBadge(badge);
+        setEmployee(employee);
+        setResource(resource);
+        this.decision = decision;
+        this.reasonCode = reasonCode;
+    }
+
+    // 只含ID的构造器（访问判断路径使用，不需要任何实体）
+    public LogEntry(LocalDateTime timestamp, String badgeId, String employeeId, String resourceId, AccessDecision decision, ReasonCode reasonCode) {
+        this.timestamp = timestamp;
+        this.badgeId = badgeId;
+        this.employeeId = employeeId;
+        this.resourceId = resourceId;
         this.decision = decision;
         this.reasonCode = reasonCode;
     }
@@ -75,12 +117,29 @@ public class LogEntry {
         this.timestamp = timestamp;
     }
 
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
     public Badge getBadge() {
         return badge;
     }
 
     public void setBadge(Badge badge) {
         this.badge = badge;
+        this.badgeId = badge != null ? badge.getBadgeId() : null;
+    }
+
+    public String getBadgeId() {
+        return badgeId;
+    }
+
+    public void setBadgeId(String badgeId) {
+        this.badgeId = badgeId;
     }
 
     public Employee getEmployee() {
@@ -89,6 +148,15 @@ public class LogEntry {
 
     public void setEmployee(Employee employee) {
         this.employee = employee;
+        this.employeeId = employee != null ? employee.getEmployeeId() : null;
+    }
+
+    public String getEmployeeId() {
+        return employeeId;
+    }
+
+    public void setEmployeeId(String employeeId) {
+        this.employeeId = employeeId;
     }
 
     public Resource getResource() {
@@ -97,6 +165,15 @@ public class LogEntry {
 
     public void setResource(Resource resource) {
         this.resource = resource;
+        this.resourceId = resource != null ? resource.getResourceId() : null;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public void setResourceId(String resourceId) {
+        this.resourceId = resourceId;
     }
 
     public AccessDecision getDecision() {
@@ -114,4 +191,12 @@ public class LogEntry {
     public void setReasonCode(ReasonCode reasonCode) {
         this.reasonCode = reasonCode;
     }
-}
\ No newline at end of file
+
+    public AccessDirection getDirection() {
+        return direction;
+    }
+
+    public void setDirection(AccessDirection direction) {
+        this.direction = direction;
+    }
+}
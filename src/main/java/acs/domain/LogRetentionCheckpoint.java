@@ -0,0 +1,80 @@
+package acs.domain;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * LogRetentionCheckpoint 记录日志清理任务的进度
+ *
+ * - 每处理完一个主键分块，与该分块的删除在同一事务中推进 cursorId
+ * - completedAt 为空表示上一次运行中断，下次从 cursorId 继续，并沿用 runStartedAt 计算过期时间
+ */
+@Entity
+@Table(name = "log_retention_checkpoints")
+public class LogRetentionCheckpoint {
+
+    @Id
+    @Column(name = "job_name", nullable = false, length = 50)
+    private String jobName;
+
+    @Column(name = "cursor_id", nullable = false)
+    private long cursorId;
+
+    @Column(name = "run_started_at", nullable = false)
+    private LocalDateTime runStartedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(name = "deleted_count", nullable = false)
+    private long deletedCount;
+
+    // 无参构造器（JPA必需）
+    public LogRetentionCheckpoint() {}
+
+    public LogRetentionCheckpoint(String jobName, LocalDateTime runStartedAt) {
+        this.jobName = jobName;
+        this.runStartedAt = runStartedAt;
+    }
+
+    // Getter和Setter
+    public String getJobName() {
+        return jobName;
+    }
+
+    public void setJobName(String jobName) {
+        this.jobName = jobName;
+    }
+
+    public long getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(long cursorId) {
+        this.cursorId = cursorId;
+    }
+
+    public LocalDateTime getRunStartedAt() {
+        return runStartedAt;
+    }
+
+    public void setRunStartedAt(LocalDateTime runStartedAt) {
+        this.runStartedAt = runStartedAt;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    public void setDeletedCount(long deletedCount) {
+        this.deletedCount = deletedCount;
+    }
+}
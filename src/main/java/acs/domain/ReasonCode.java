@@ -33,9 +33,15 @@ public enum ReasonCode {
     /** 资源当前被占用 */
     RESOURCE_OCCUPIED,
 
+    /** 资源内人数已达容量上限 */
+    CAPACITY_EXCEEDED,
+
     /** 员工所属组没有访问权限 */
     NO_PERMISSION,
 
+    /** 有授权，但不在授权时间表允许的时间内 */
+    OUTSIDE_SCHEDULE,
+
     /** 请求本身非法（参数缺失等） */
     INVALID_REQUEST,
 
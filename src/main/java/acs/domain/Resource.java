@@ -1,6 +1,7 @@
 package acs.domain;
 
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -11,6 +12,8 @@ import java.util.Set;
  * - ResourceType 描述资源类型（DOOR/PRINTER/...）
  * - ResourceState 描述资源状态（AVAILABLE/OCCUPIED/LOCKED/OFFLINE）
  * - 权限不直接写在 Resource 中（我们选择由 Group 管理授权列表）
+ * - parentId 指向所属区域（building -> floor -> room -> door），授权一个区域即授权其下所有资源
+ * - 独占设备（打印机/电脑）的占用以租约表示，leaseHolder / leaseExpiresAt 由 LeaseManager 异步写回
  */ 
 
 @Entity
@@ -32,6 +35,19 @@ public class Resource {
     @Column(name = "resource_state", nullable = false)
     private ResourceState resourceState;
 
+    @Column(name = "parent_id", length = 50)
+    private String parentId;
+
+    // 容量上限（同时在内人数），为空表示不限
+    @Column(name = "capacity")
+    private Integer capacity;
+
+    @Column(name = "lease_holder", length = 50)
+    private String leaseHolder;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
     @ManyToMany(mappedBy = "resources")
     private Set<Group> groups = new HashSet<>();
 
@@ -89,4 +105,36 @@ public class Resource {
     public void setGroups(Set<Group> groups) {
         this.groups = groups;
     }
-}
\ No newline at end of file
+
+    public String getParentId() {
+        return parentId;
+    }
+
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
+    public String getLeaseHolder() {
+        return leaseHolder;
+    }
+
+    public void setLeaseHolder(String leaseHolder) {
+        this.leaseHolder = leaseHolder;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public Integer getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(Integer capacity) {
+        this.capacity = capacity;
+    }
+}
@@ -5,6 +5,8 @@ package acs.domain;
  */
 public enum ResourceType {
     PENDING,
+    BUILDING,
+    FLOOR,
     DOOR,
     PRINTER,
     COMPUTER,
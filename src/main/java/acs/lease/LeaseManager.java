@@ -0,0 +1,170 @@
+package acs.lease;
+
+import acs.domain.Resource;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import acs.repository.ResourceRepository;
+import acs.resilience.Workload;
+import acs.resilience.WorkloadContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * LeaseManager 管理独占设备（打印机 / 电脑）的占用租约
+ *
+ * 房间按容量由 OccupancyTracker 计数，可以同时有多人在内，不使用独占租约。
+ *
+ * - 获取 / 续期 / 释放只在内存中做 CAS（ConcurrentHashMap 的 putIfAbsent / replace / remove），
+ *   同一空闲资源的并发刷卡只有一个成功，访问判断路径上没有数据库操作
+ * - 到期由哈希时间轮驱动，每秒推进一次
+ * - 状态变化只标记资源为“待写回”，由定时任务读取当时的内存状态写入数据库（同一资源的多次变化合并为一次写）
+ * - 启动时从数据库恢复未到期的租约
+ */
+@Component
+public class LeaseManager {
+
+    private static final Set<ResourceType> LEASABLE_TYPES =
+            EnumSet.of(ResourceType.PRINTER, ResourceType.COMPUTER);
+
+    private final ResourceRepository resourceRepository;
+    private final long leaseMillis;
+
+    private final ConcurrentHashMap<String, ResourceLease> leases = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final LeaseTimerWheel timerWheel = new LeaseTimerWheel(1000, 512, System.currentTimeMillis());
+
+    public LeaseManager(ResourceRepository resourceRepository,
+                        @Value("${acs.lease.duration-minutes:30}") long leaseMinutes) {
+        this.resourceRepository = resourceRepository;
+        this.leaseMillis = leaseMinutes * 60_000;
+    }
+
+    // 启动时恢复租约；已到期的租约标记为待写回，由下一次写回清除
+    @PostConstruct
+    public void restoreLeases() {
+        long now = System.currentTimeMillis();
+        for (Resource resource : resourceRepository.findByLeaseHolderIsNotNull()) {
+            long expiresAt = resource.getLeaseExpiresAt() != null
+                    ? resource.getLeaseExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0;
+            if (expiresAt > now) {
+                ResourceLease lease = new ResourceLease(resource.getResourceId(), resource.getLeaseHolder(), expiresAt);
+                leases.put(lease.getResourceId(), lease);
+                timerWheel.schedule(lease);
+            } else {
+                dirty.add(resource.getResourceId());
+            }
+        }
+    }
+
+    /** 该类型的资源是否按租约管理占用状态 */
+    public boolean isLeasable(ResourceType type) {
+        return LEASABLE_TYPES.contains(type);
+    }
+
+    /**
+     * 尝试为 holderId 获取资源的租约
+     *
+     * 资源空闲或租约已到期时获取成功；持有者本人再次刷卡视为续期。
+     *
+     * @return 是否获得（或续期）租约
+     */
+    public boolean tryAcquire(String resourceId, String holderId) {
+        return tryAcquire(resourceId, holderId, System.currentTimeMillis());
+    }
+
+    boolean tryAcquire(String resourceId, String holderId, long nowMillis) {
+        ResourceLease acquired = new ResourceLease(resourceId, holderId, nowMillis + leaseMillis);
+        ResourceLease current = leases.putIfAbsent(resourceId, acquired);
+        while (current != null) {
+            if (!current.isExpired(nowMillis) && !current.getHolderId().equals(holderId)) {
+                return false;  // 被其他人占用
+            }
+            if (leases.replace(resourceId, current, acquired)) {
+                break;
+            }
+            // CAS 失败：租约已被并发释放或替换，重新读取
+            current = leases.putIfAbsent(resourceId, acquired);
+        }
+        timerWheel.schedule(acquired);
+        dirty.add(resourceId);
+        return true;
+    }
+
+    /**
+     * 释放 holderId 持有的租约（主动离开 / 归还）
+     *
+     * @return 是否确实持有并释放了租约
+     */
+    public boolean release(String resourceId, String holderId) {
+        ResourceLease current = leases.get(resourceId);
+        if (current == null || !current.getHolderId().equals(holderId) || !leases.remove(resourceId, current)) {
+            return false;
+        }
+        dirty.add(resourceId);
+        return true;
+    }
+
+    /** 当前持有者（无租约或已到期返回 null） */
+    public String holderOf(String resourceId) {
+        ResourceLease lease = leases.get(resourceId);
+        return lease != null && !lease.isExpired(System.currentTimeMillis()) ? lease.getHolderId() : null;
+    }
+
+    // 推进时间轮，移除到期租约（已续期 / 已释放的旧条目因对象不同而被忽略）
+    @Scheduled(fixedRate = 1000)
+    public void expireLeases() {
+        expireLeases(System.currentTimeMillis());
+    }
+
+    void expireLeases(long nowMillis) {
+        timerWheel.advance(nowMillis, lease -> {
+            if (leases.remove(lease.getResourceId(), lease)) {
+                dirty.add(lease.getResourceId());
+            }
+        });
+    }
+
+    // 异步写回：按写回时刻的内存状态持久化，旧状态不会覆盖新状态（使用 DECISION 的连接配额）
+    @Scheduled(fixedDelay = 1000)
+    public void flushLeaseStates() {
+        WorkloadContext.run(Workload.DECISION, this::flushDirty);
+    }
+
+    private void flushDirty() {
+        List<String> failed = new ArrayList<>();
+        for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+            String resourceId = it.next();
+            it.remove();
+            ResourceLease lease = leases.get(resourceId);
+            try {
+                if (lease != null) {
+                    resourceRepository.updateLease(resourceId, ResourceState.OCCUPIED, lease.getHolderId(),
+                            LocalDateTime.ofInstant(Instant.ofEpochMilli(lease.getExpiresAtMillis()), ZoneId.systemDefault()));
+                } else {
+                    resourceRepository.updateLease(resourceId, ResourceState.AVAILABLE, null, null);
+                }
+            } catch (RuntimeException e) {
+                failed.add(resourceId);
+                System.err.println("租约状态写回失败: " + resourceId + " - " + e.getMessage());
+            }
+        }
+        // 写回失败的资源重新标记，下次重试
+        dirty.addAll(failed);
+    }
+
+    int pendingWrites() {
+        return dirty.size();
+    }
+}
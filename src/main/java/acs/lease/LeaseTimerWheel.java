@@ -0,0 +1,63 @@
+package acs.lease;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * LeaseTimerWheel 是一个哈希时间轮，用于租约到期
+ *
+ * - 按到期时刻放入 (到期 tick % 槽数) 的槽，登记是 O(1) 的无锁入队
+ * - 每次推进只扫描经过的槽；到期时间超过一圈的条目留在槽中等待下一圈
+ * - 不支持取消：续期 / 释放后旧条目照常到期，由 LeaseManager 按对象身份忽略
+ */
+final class LeaseTimerWheel {
+
+    private final long tickMillis;
+    private final List<Queue<ResourceLease>> slots;
+    private final int mask;
+    private volatile long currentTick;
+
+    LeaseTimerWheel(long tickMillis, int slotCount, long startMillis) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("槽数必须是2的幂: " + slotCount);
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.mask = slotCount - 1;
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    // 登记一个租约（可在任意线程调用）
+    void schedule(ResourceLease lease) {
+        long tick = Math.max(lease.getExpiresAtMillis() / tickMillis, currentTick);
+        slots.get((int) (tick & mask)).add(lease);
+    }
+
+    // 推进到 nowMillis，对每个到期条目调用 onExpire（只由一个线程调用）
+    synchronized void advance(long nowMillis, Consumer<ResourceLease> onExpire) {
+        long targetTick = nowMillis / tickMillis;
+        // 落后超过一圈时每个槽只需扫描一次
+        long fromTick = Math.max(currentTick, targetTick - mask);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Queue<ResourceLease> slot = slots.get((int) (tick & mask));
+            for (int remaining = slot.size(); remaining > 0; remaining--) {
+                ResourceLease lease = slot.poll();
+                if (lease == null) {
+                    break;
+                }
+                if (lease.isExpired(nowMillis)) {
+                    onExpire.accept(lease);
+                } else {
+                    slot.add(lease);  // 未到期（下一圈或本 tick 稍后），放回
+                }
+            }
+        }
+        currentTick = targetTick;
+    }
+}
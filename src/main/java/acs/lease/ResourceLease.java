@@ -0,0 +1,36 @@
+package acs.lease;
+
+/**
+ * ResourceLease 表示某个员工对共享资源的一次限时占用
+ *
+ * - 不可变：续期时整体替换，LeaseManager 依靠对象身份做 CAS
+ * - 不重写 equals / hashCode，ConcurrentHashMap.replace / remove 按引用比较
+ */
+public final class ResourceLease {
+
+    private final String resourceId;
+    private final String holderId;
+    private final long expiresAtMillis;
+
+    ResourceLease(String resourceId, String holderId, long expiresAtMillis) {
+        this.resourceId = resourceId;
+        this.holderId = holderId;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getHolderId() {
+        return holderId;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    boolean isExpired(long nowMillis) {
+        return expiresAtMillis <= nowMillis;
+    }
+}
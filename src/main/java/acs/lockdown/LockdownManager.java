@@ -0,0 +1,168 @@
+package acs.lockdown;
+
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.Lockdown;
+import acs.domain.LockdownScope;
+import acs.domain.ResourceType;
+import acs.repository.LockdownRepository;
+import acs.resilience.Workload;
+import acs.resilience.WorkloadContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * LockdownManager 管理紧急封锁
+ *
+ * - 启用 / 解除各写一次 lockdowns 表，本节点立即替换内存覆盖层
+ * - 其他节点每 acs.lockdown.poll-millis（默认 500ms）读取 lockdowns 表，发现变化后替换覆盖层；
+ *   从下令到所有节点拒绝访问的时间上界约为一个轮询周期加一次查询
+ * - 每个节点记录观察到新封锁时的传播延迟（now - activatedAt，受节点间时钟偏差影响）
+ * - processAccess 只读取原子引用并做常数次位运算；数据库读写都不在任何锁内，
+ *   新状态在内存中构建后以 CAS 发布，扫卡路径不会阻塞在数据库往返上
+ */
+@Component
+public class LockdownManager {
+
+    private final LocalCacheManager cacheManager;
+    private final LockdownRepository lockdownRepository;
+
+    // 生效的封锁列表与覆盖层在同一个不可变对象中，整体以 CAS 替换
+    private final AtomicReference<LockdownState> state = new AtomicReference<>(LockdownState.NONE);
+
+    private final AtomicLong lastPropagationLagMillis = new AtomicLong();
+    private final AtomicLong maxPropagationLagMillis = new AtomicLong();
+
+    public LockdownManager(LocalCacheManager cacheManager, LockdownRepository lockdownRepository) {
+        this.cacheManager = cacheManager;
+        this.lockdownRepository = lockdownRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    /** 资源是否处于封锁中 */
+    public boolean isLocked(CachedResource resource) {
+        LockdownState current = state.get();
+        if (current != LockdownState.NONE && current.topologyVersion() != cacheManager.resourceTopologyVersion()) {
+            // 资源层级变化（例如封锁区域内新增了门），无锁地从当前快照重新展开区域；CAS 失败说明已有更新的状态
+            LockdownState rebuilt = build(current.lockdowns());
+            state.compareAndSet(current, rebuilt);
+            current = rebuilt;
+        }
+        return current.isLocked(resource);
+    }
+
+    /**
+     * 启用封锁（一次写入）
+     *
+     * @return 封锁ID（解除时使用）
+     */
+    public String activate(LockdownScope scope, String target) {
+        Lockdown lockdown = new Lockdown(UUID.randomUUID().toString(), scope,
+                scope == LockdownScope.ALL ? null : target, LocalDateTime.now());
+        lockdownRepository.save(lockdown);
+        LockdownState current;
+        LockdownState updated;
+        do {
+            current = state.get();
+            if (current.lockdownIds().contains(lockdown.getLockdownId())) {
+                // 并发的 refresh 已经从数据库读到了这条封锁
+                break;
+            }
+            List<Lockdown> lockdowns = new ArrayList<>(current.lockdowns());
+            lockdowns.add(lockdown);
+            updated = build(lockdowns);
+        } while (!state.compareAndSet(current, updated));
+        return lockdown.getLockdownId();
+    }
+
+    /** 解除封锁（一次写入） */
+    public void deactivate(String lockdownId) {
+        lockdownRepository.deleteById(lockdownId);
+        LockdownState current;
+        LockdownState updated;
+        do {
+            current = state.get();
+            updated = build(current.lockdowns().stream()
+                    .filter(lockdown -> !lockdown.getLockdownId().equals(lockdownId)).toList());
+        } while (!state.compareAndSet(current, updated));
+    }
+
+    /** 当前生效的封锁 */
+    public List<Lockdown> activeLockdowns() {
+        return state.get().lockdowns();
+    }
+
+    // 从数据库同步其他节点下达的封锁 / 解除；查询前记下当前状态，查询期间本节点有启用 / 解除时 CAS 失败，
+    // 放弃这次可能过旧的读取结果，由下一次轮询同步
+    @Scheduled(fixedDelayString = "${acs.lockdown.poll-millis:500}")
+    public void refresh() {
+        LockdownState current = state.get();
+        // 使用 DECISION 的连接配额，管理 / 查询负载占满连接时封锁仍能及时同步
+        List<Lockdown> persisted = WorkloadContext.call(Workload.DECISION, lockdownRepository::findAll);
+        Set<String> ids = new HashSet<>();
+        for (Lockdown lockdown : persisted) {
+            ids.add(lockdown.getLockdownId());
+        }
+        Set<String> known = current.lockdownIds();
+        if (ids.equals(known) || !state.compareAndSet(current, build(persisted))) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (Lockdown lockdown : persisted) {
+            if (!known.contains(lockdown.getLockdownId())) {
+                recordLag(Duration.between(lockdown.getActivatedAt(), now).toMillis());
+            }
+        }
+    }
+
+    /** 最近一次观察到新封锁的传播延迟（毫秒） */
+    public long lastPropagationLagMillis() {
+        return lastPropagationLagMillis.get();
+    }
+
+    /** 观察到的最大传播延迟（毫秒） */
+    public long maxPropagationLagMillis() {
+        return maxPropagationLagMillis.get();
+    }
+
+    private void recordLag(long lagMillis) {
+        long lag = Math.max(lagMillis, 0);
+        lastPropagationLagMillis.set(lag);
+        maxPropagationLagMillis.accumulateAndGet(lag, Math::max);
+    }
+
+    // 合并所有封锁为新的覆盖层（只读取内存中的资源层级，不做数据库访问）
+    private LockdownState build(List<Lockdown> lockdowns) {
+        long topologyVersion = cacheManager.resourceTopologyVersion();
+        Set<String> ids = new HashSet<>();
+        boolean all = false;
+        long typeMask = 0L;
+        BitSet zoneResources = new BitSet();
+        for (Lockdown lockdown : lockdowns) {
+            ids.add(lockdown.getLockdownId());
+            switch (lockdown.getScope()) {
+                case ALL -> all = true;
+                case TYPE -> typeMask |= 1L << ResourceType.valueOf(lockdown.getTarget()).ordinal();
+                case ZONE -> zoneResources.or(cacheManager.resourceSubtree(lockdown.getTarget()));
+            }
+        }
+        return ids.isEmpty() ? LockdownState.NONE
+                : new LockdownState(List.copyOf(lockdowns), Set.copyOf(ids), all, typeMask, zoneResources, topologyVersion);
+    }
+}
@@ -0,0 +1,57 @@
+package acs.lockdown;
+
+import acs.cache.CachedResource;
+import acs.domain.Lockdown;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * LockdownState 是当前所有生效封锁合并后的不可变覆盖层
+ *
+ * - 全部封锁：一个布尔值
+ * - 按类型封锁：按 ResourceType 序号的位掩码
+ * - 按区域封锁：区域子树已展开为资源序号位图
+ *
+ * isLocked 只做常数次位运算；生效的封锁列表也保存在其中，任何变化都构建新对象后整体替换。
+ */
+final class LockdownState {
+
+    static final LockdownState NONE = new LockdownState(List.of(), Set.of(), false, 0L, new BitSet(), -1);
+
+    private final List<Lockdown> lockdowns;
+    private final Set<String> lockdownIds;
+    private final boolean all;
+    private final long typeMask;
+    private final BitSet zoneResources;
+    private final long topologyVersion;   // 展开区域时的资源层级版本号
+
+    LockdownState(List<Lockdown> lockdowns, Set<String> lockdownIds, boolean all, long typeMask, BitSet zoneResources,
+                  long topologyVersion) {
+        this.lockdowns = lockdowns;
+        this.lockdownIds = lockdownIds;
+        this.all = all;
+        this.typeMask = typeMask;
+        this.zoneResources = zoneResources;
+        this.topologyVersion = topologyVersion;
+    }
+
+    boolean isLocked(CachedResource resource) {
+        return all
+                || (typeMask & (1L << resource.getResourceType().ordinal())) != 0
+                || zoneResources.get(resource.getOrdinal());
+    }
+
+    List<Lockdown> lockdowns() {
+        return lockdowns;
+    }
+
+    Set<String> lockdownIds() {
+        return lockdownIds;
+    }
+
+    long topologyVersion() {
+        return topologyVersion;
+    }
+}
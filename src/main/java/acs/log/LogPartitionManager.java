@@ -0,0 +1,129 @@
+package acs.log;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * LogPartitionManager 维护 access_logs 的按天分区
+ *
+ * access_logs 按 RANGE (TO_DAYS(timestamp)) 分区，每天一个分区 pYYYYMMDD，最后是兜底分区 pmax：
+ * - 预建：把空的 pmax 拆分出今天起 acs.log.partition.days-ahead 天的分区（只改元数据）
+ * - 过期：DROP PARTITION 删除整天都早于截止时间的分区，耗时与分区内行数无关
+ *
+ * 保留粒度为天：截止时间所在当天的日志保留到下一次清理。
+ * 表未分区（旧库或测试库）时不做任何操作，由 LogRetentionJob 分块删除。
+ */
+@Component
+public class LogPartitionManager {
+
+    // MySQL TO_DAYS('1970-01-01')
+    private static final long TO_DAYS_EPOCH = 719528;
+    private static final String MAX_PARTITION = "pmax";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int daysAhead;
+
+    public LogPartitionManager(JdbcTemplate jdbcTemplate,
+                               @Value("${acs.log.partition.days-ahead:7}") int daysAhead) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.daysAhead = daysAhead;
+    }
+
+    /**
+     * 预建今天起 daysAhead 天的分区
+     *
+     * @return 新建的分区数量（表未分区时为 0）
+     */
+    public int createFuturePartitions(LocalDate today) {
+        List<LogPartition> partitions = listPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        // 已有按天分区的最大上界（不含 pmax）
+        LocalDate upperBound = partitions.stream()
+                .filter(partition -> partition.upperBound != null)
+                .map(partition -> partition.upperBound)
+                .max(LocalDate::compareTo)
+                .orElse(today);
+        LocalDate last = today.plusDays(daysAhead);
+        if (!upperBound.isBefore(last.plusDays(1))) {
+            return 0;
+        }
+
+        List<String> definitions = new ArrayList<>();
+        // 停机造成的空档合并成一个分区，避免一次建出大量空分区
+        if (upperBound.isBefore(today)) {
+            definitions.add(definition(today.minusDays(1), today));
+            upperBound = today;
+        }
+        for (LocalDate day = upperBound; !day.isAfter(last); day = day.plusDays(1)) {
+            definitions.add(definition(day, day.plusDays(1)));
+        }
+        definitions.add("PARTITION " + MAX_PARTITION + " VALUES LESS THAN MAXVALUE");
+        jdbcTemplate.execute("ALTER TABLE access_logs REORGANIZE PARTITION " + MAX_PARTITION
+                + " INTO (" + String.join(", ", definitions) + ")");
+        return definitions.size() - 1;
+    }
+
+    /**
+     * 删除整天早于 cutoff 的分区
+     *
+     * @return 删除的分区数量（表未分区时为 0）
+     */
+    public int dropExpired(LocalDateTime cutoff) {
+        List<LogPartition> partitions = listPartitions();
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        LocalDate cutoffDay = cutoff.toLocalDate();
+        List<String> expired = partitions.stream()
+                .filter(partition -> partition.upperBound != null && !partition.upperBound.isAfter(cutoffDay))
+                .map(partition -> partition.name)
+                .collect(Collectors.toList());
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE access_logs DROP PARTITION " + String.join(", ", expired));
+        }
+        return expired.size();
+    }
+
+    // 读取 access_logs 的分区（数据库不支持或表未分区时返回空）
+    List<LogPartition> listPartitions() {
+        try {
+            return jdbcTemplate.query(
+                    "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'access_logs' AND PARTITION_NAME IS NOT NULL",
+                    (rs, rowNum) -> new LogPartition(rs.getString(1), toUpperBound(rs.getString(2))));
+        } catch (DataAccessException e) {
+            return List.of();
+        }
+    }
+
+    private static String definition(LocalDate day, LocalDate upperBound) {
+        return "PARTITION " + day.format(NAME_FORMAT) + " VALUES LESS THAN (" + toDays(upperBound) + ")";
+    }
+
+    static long toDays(LocalDate date) {
+        return date.toEpochDay() + TO_DAYS_EPOCH;
+    }
+
+    // 分区上界（不含）；MAXVALUE 返回 null
+    static LocalDate toUpperBound(String description) {
+        if (description == null || description.equalsIgnoreCase("MAXVALUE")) {
+            return null;
+        }
+        return LocalDate.ofEpochDay(Long.parseLong(description.trim()) - TO_DAYS_EPOCH);
+    }
+
+    record LogPartition(String name, LocalDate upperBound) {
+    }
+}
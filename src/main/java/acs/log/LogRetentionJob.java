@@ -0,0 +1,194 @@
+package acs.log;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.LogEntry;
+import acs.domain.LogRetentionCheckpoint;
+import acs.log.archive.LogArchive;
+import acs.repository.AccessLogRepository;
+import acs.repository.LogRetentionCheckpointRepository;
+import acs.repository.LogRetentionRow;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LogRetentionJob 按保留策略分块删除过期日志
+ *
+ * - 按主键顺序每次读取 chunkSize 行，只删除其中按策略已过期的行，每个分块一个短事务，
+ *   分块之间暂停 pauseMillis，不长时间持锁，实时刷卡的插入不受影响
+ * - 每个分块的删除与检查点（cursorId）在同一事务中提交；中断后下次运行从检查点继续
+ * - 只读取比“最短保留期”更早的日志，一直走到主键范围末尾；不假设主键顺序与时间顺序一致
+ *   （数据库中断期间的日志由本地日志回放补写，时间更早但主键更大）
+ * - 每个分块提交后从内存缓存中移除同一批日志
+ * - 启用归档时，过期日志先写入归档段（攒满 segmentRows 行或本次运行结束时封存），
+ *   段落盘后才删除对应的分块并推进检查点；封存前中断不会丢失日志，只会在下次运行重新归档
+ */
+@Component
+public class LogRetentionJob {
+
+    static final String JOB_NAME = "access_logs";
+
+    private final AccessLogRepository accessLogRepository;
+    private final LogRetentionCheckpointRepository checkpointRepository;
+    private final LocalCacheManager cacheManager;
+    private final LogRetentionPolicy policy;
+    private final LogArchive archive;
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // 进度指标（最近一次运行）
+    private volatile LocalDateTime runStartedAt;
+    private volatile long cursorId;
+    private volatile long scannedRows;
+    private volatile long deletedRows;
+    private volatile long chunks;
+    private volatile long lastChunkMillis;
+
+    public LogRetentionJob(AccessLogRepository accessLogRepository,
+                           LogRetentionCheckpointRepository checkpointRepository,
+                           LocalCacheManager cacheManager,
+                           LogRetentionPolicy policy,
+                           LogArchive archive,
+                           PlatformTransactionManager transactionManager) {
+        this.accessLogRepository = accessLogRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.cacheManager = cacheManager;
+        this.policy = policy;
+        this.archive = archive;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 执行一次清理（上一次中断时继续上一次）
+     *
+     * @return 本次删除的行数；已有清理在运行时返回 0
+     */
+    public long run(LocalDateTime now) {
+        if (!running.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            LogRetentionCheckpoint checkpoint = checkpointRepository.findById(JOB_NAME)
+                    .filter(existing -> existing.getCompletedAt() == null)
+                    .orElseGet(() -> new LogRetentionCheckpoint(JOB_NAME, now));
+            startMetrics(checkpoint);
+            // 中断后继续时沿用原来的开始时间，过期判断保持一致
+            LocalDateTime startedAt = checkpoint.getRunStartedAt();
+            LocalDateTime newestExpirable = startedAt.minusDays(policy.minDays());
+            long deletedThisRun = 0;
+            // 已扫描、等待归档段封存后再删除的分块
+            List<PendingChunk> pending = new ArrayList<>();
+            List<LogEntry> toArchive = new ArrayList<>();
+            long lastId = checkpoint.getCursorId();
+
+            while (true) {
+                long chunkStart = System.nanoTime();
+                List<LogRetentionRow> rows = accessLogRepository.findRetentionChunk(
+                        lastId, newestExpirable, PageRequest.of(0, policy.getChunkSize()));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                // 仍在保留期内的行（按决策 / 原因保留更久）跳过，继续向后扫描
+                List<Long> expired = new ArrayList<>();
+                for (LogRetentionRow row : rows) {
+                    if (policy.isExpired(row.timestamp(), row.decision(), row.reasonCode(), startedAt)) {
+                        expired.add(row.id());
+                    }
+                }
+                lastId = rows.get(rows.size() - 1).id();
+                if (archive.isEnabled() && !expired.isEmpty()) {
+                    toArchive.addAll(accessLogRepository.findAllById(expired));
+                }
+                pending.add(new PendingChunk(expired, lastId, rows.size(), System.nanoTime() - chunkStart));
+
+                if (!archive.isEnabled() || toArchive.size() >= archive.getSegmentRows()) {
+                    deletedThisRun += flush(checkpoint, pending, toArchive);
+                }
+                if (rows.size() < policy.getChunkSize()) {
+                    break;
+                }
+                pause();
+            }
+            deletedThisRun += flush(checkpoint, pending, toArchive);
+
+            checkpoint.setCompletedAt(LocalDateTime.now());
+            checkpointRepository.save(checkpoint);
+            return deletedThisRun;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /** 当前（或最近一次）运行的进度 */
+    public LogRetentionProgress progress() {
+        return new LogRetentionProgress(running.get(), runStartedAt, cursorId, scannedRows, deletedRows, chunks,
+                lastChunkMillis);
+    }
+
+    // 封存归档段（如有），再逐个分块删除并推进检查点
+    private long flush(LogRetentionCheckpoint checkpoint, List<PendingChunk> pending, List<LogEntry> toArchive) {
+        if (!toArchive.isEmpty()) {
+            archive.write(List.copyOf(toArchive));
+            toArchive.clear();
+        }
+        long deletedTotal = 0;
+        for (PendingChunk chunk : pending) {
+            long deleteStart = System.nanoTime();
+            int deleted = deleteChunk(checkpoint, chunk.expiredIds(), chunk.lastId());
+            cacheManager.evictLogs(chunk.expiredIds());
+            deletedTotal += deleted;
+            recordChunk(chunk.scanned(), deleted, chunk.lastId(), chunk.scanNanos() + System.nanoTime() - deleteStart);
+        }
+        pending.clear();
+        return deletedTotal;
+    }
+
+    // 删除一个分块并推进检查点（同一事务）
+    private int deleteChunk(LogRetentionCheckpoint checkpoint, List<Long> expired, long lastId) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            int count = expired.isEmpty() ? 0 : accessLogRepository.deleteByIdIn(expired);
+            checkpoint.setCursorId(lastId);
+            checkpoint.setDeletedCount(checkpoint.getDeletedCount() + count);
+            checkpointRepository.save(checkpoint);
+            return count;
+        });
+        return deleted != null ? deleted : 0;
+    }
+
+    private void startMetrics(LogRetentionCheckpoint checkpoint) {
+        runStartedAt = checkpoint.getRunStartedAt();
+        cursorId = checkpoint.getCursorId();
+        scannedRows = 0;
+        deletedRows = checkpoint.getDeletedCount();
+        chunks = 0;
+        lastChunkMillis = 0;
+    }
+
+    private void recordChunk(int scanned, int deleted, long lastId, long elapsedNanos) {
+        cursorId = lastId;
+        scannedRows += scanned;
+        deletedRows += deleted;
+        chunks++;
+        lastChunkMillis = elapsedNanos / 1_000_000;
+    }
+
+    private record PendingChunk(List<Long> expiredIds, long lastId, int scanned, long scanNanos) {
+    }
+
+    private void pause() {
+        if (policy.getPauseMillis() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(policy.getPauseMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
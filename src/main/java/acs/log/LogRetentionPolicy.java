@@ -0,0 +1,103 @@
+package acs.log;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * LogRetentionPolicy 描述日志保留多少天
+ *
+ * 优先级：按 ReasonCode 配置 > 按 AccessDecision 配置 > 默认天数，例如：
+ *   acs.log.retention.default-days=7
+ *   acs.log.retention.decision-days.DENY=30
+ *   acs.log.retention.reason-days.SYSTEM_ERROR=90
+ *
+ * 同时包含清理任务的分块大小与分块之间的暂停时间。
+ */
+@Component
+@ConfigurationProperties(prefix = "acs.log.retention")
+public class LogRetentionPolicy {
+
+    private int defaultDays = 7;
+    private Map<AccessDecision, Integer> decisionDays = new EnumMap<>(AccessDecision.class);
+    private Map<ReasonCode, Integer> reasonDays = new EnumMap<>(ReasonCode.class);
+    private int chunkSize = 1000;
+    private long pauseMillis = 50;
+
+    /** 某一类日志的保留天数 */
+    public int retentionDays(AccessDecision decision, ReasonCode reasonCode) {
+        Integer days = reasonDays.get(reasonCode);
+        if (days == null) {
+            days = decisionDays.get(decision);
+        }
+        return days != null ? days : defaultDays;
+    }
+
+    /** 相对 now 是否已过期 */
+    public boolean isExpired(LocalDateTime timestamp, AccessDecision decision, ReasonCode reasonCode, LocalDateTime now) {
+        return timestamp.isBefore(now.minusDays(retentionDays(decision, reasonCode)));
+    }
+
+    /** 最短保留天数：比 now - minDays 更新的日志在任何规则下都未过期 */
+    public int minDays() {
+        return allDays().min().orElse(defaultDays);
+    }
+
+    /** 最长保留天数：比 now - maxDays 更早的日志在任何规则下都已过期 */
+    public int maxDays() {
+        return allDays().max().orElse(defaultDays);
+    }
+
+    private IntStream allDays() {
+        return IntStream.concat(IntStream.of(defaultDays),
+                IntStream.concat(decisionDays.values().stream().mapToInt(Integer::intValue),
+                        reasonDays.values().stream().mapToInt(Integer::intValue)));
+    }
+
+    // Getter和Setter（配置绑定）
+    public int getDefaultDays() {
+        return defaultDays;
+    }
+
+    public void setDefaultDays(int defaultDays) {
+        this.defaultDays = defaultDays;
+    }
+
+    public Map<AccessDecision, Integer> getDecisionDays() {
+        return decisionDays;
+    }
+
+    public void setDecisionDays(Map<AccessDecision, Integer> decisionDays) {
+        this.decisionDays = decisionDays;
+    }
+
+    public Map<ReasonCode, Integer> getReasonDays() {
+        return reasonDays;
+    }
+
+    public void setReasonDays(Map<ReasonCode, Integer> reasonDays) {
+        this.reasonDays = reasonDays;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getPauseMillis() {
+        return pauseMillis;
+    }
+
+    public void setPauseMillis(long pauseMillis) {
+        this.pauseMillis = pauseMillis;
+    }
+}
@@ -0,0 +1,56 @@
+package acs.log;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日志清理任务的进度快照（只读 DTO）
+ */
+public class LogRetentionProgress {
+
+    private final boolean running;
+    private final LocalDateTime runStartedAt;
+    private final long cursorId;
+    private final long scannedRows;
+    private final long deletedRows;
+    private final long chunks;
+    private final long lastChunkMillis;
+
+    public LogRetentionProgress(boolean running, LocalDateTime runStartedAt, long cursorId,
+                                long scannedRows, long deletedRows, long chunks, long lastChunkMillis) {
+        this.running = running;
+        this.runStartedAt = runStartedAt;
+        this.cursorId = cursorId;
+        this.scannedRows = scannedRows;
+        this.deletedRows = deletedRows;
+        this.chunks = chunks;
+        this.lastChunkMillis = lastChunkMillis;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public LocalDateTime getRunStartedAt() {
+        return runStartedAt;
+    }
+
+    public long getCursorId() {
+        return cursorId;
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public long getDeletedRows() {
+        return deletedRows;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public long getLastChunkMillis() {
+        return lastChunkMillis;
+    }
+}
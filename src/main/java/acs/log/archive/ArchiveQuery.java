@@ -0,0 +1,29 @@
+package acs.log.archive;
+
+import acs.domain.AccessDecision;
+
+import java.time.LocalDateTime;
+
+/**
+ * 归档日志的查询条件：时间范围（闭区间）+ 一个等值条件
+ *
+ * field 为 null 时只按时间范围过滤。
+ */
+public record ArchiveQuery(LocalDateTime start, LocalDateTime end, LogColumn field, String value) {
+
+    public static ArchiveQuery byBadge(String badgeId, LocalDateTime start, LocalDateTime end) {
+        return new ArchiveQuery(start, end, LogColumn.BADGE, badgeId);
+    }
+
+    public static ArchiveQuery byEmployee(String employeeId, LocalDateTime start, LocalDateTime end) {
+        return new ArchiveQuery(start, end, LogColumn.EMPLOYEE, employeeId);
+    }
+
+    public static ArchiveQuery byResource(String resourceId, LocalDateTime start, LocalDateTime end) {
+        return new ArchiveQuery(start, end, LogColumn.RESOURCE, resourceId);
+    }
+
+    public static ArchiveQuery byDecision(AccessDecision decision, LocalDateTime start, LocalDateTime end) {
+        return new ArchiveQuery(start, end, LogColumn.DECISION, decision.name());
+    }
+}
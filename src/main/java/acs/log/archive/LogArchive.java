@@ -0,0 +1,198 @@
+package acs.log.archive;
+
+import acs.domain.LogEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * LogArchive 是访问日志的冷存储层：本地磁盘上的不可变列式压缩段
+ *
+ * - 日志清理任务把过期日志写成段（每段最多 segmentRows 行）后才从数据库删除
+ * - 查询先按段头（时间范围 / 布隆过滤器）跳过不可能匹配的段，其余段并行扫描
+ * - 段超过 acs.log.archive.retention-days 后整段删除
+ *
+ * 同一条日志可能因清理中断而被归档两次，查询方按日志ID去重。
+ */
+@Component
+public class LogArchive {
+
+    private final Path directory;
+    private final boolean enabled;
+    private final int segmentRows;
+    private final int retentionDays;
+    private final ExecutorService scanExecutor;
+
+    // 按最小时间排序的已封存段（写少读多）
+    private final CopyOnWriteArrayList<LogSegment> segments = new CopyOnWriteArrayList<>();
+
+    public LogArchive(@Value("${acs.log.archive.dir:data/log-archive}") String directory,
+                      @Value("${acs.log.archive.enabled:true}") boolean enabled,
+                      @Value("${acs.log.archive.segment-rows:50000}") int segmentRows,
+                      @Value("${acs.log.archive.retention-days:365}") int retentionDays,
+                      @Value("${acs.log.archive.scan-threads:4}") int scanThreads) {
+        this.directory = Paths.get(directory);
+        this.enabled = enabled;
+        this.segmentRows = segmentRows;
+        this.retentionDays = retentionDays;
+        this.scanExecutor = Executors.newFixedThreadPool(scanThreads, runnable -> {
+            Thread thread = new Thread(runnable, "log-archive-scan");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 启动时读取已有段的段头；写了一半的临时文件直接删除
+    @PostConstruct
+    public void open() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return;
+        }
+        List<LogSegment> opened = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(LogSegmentWriter.SUFFIX)) {
+                    try {
+                        opened.add(LogSegment.open(file));
+                    } catch (IOException | RuntimeException e) {
+                        System.err.println("跳过无法读取的日志归档段: " + file + " - " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取日志归档目录失败: " + directory, e);
+        }
+        opened.sort(Comparator.comparing(LogSegment::getMinTime));
+        segments.clear();
+        segments.addAll(opened);
+    }
+
+    @PreDestroy
+    public void close() {
+        scanExecutor.shutdownNow();
+    }
+
+    /**
+     * 把一批日志写成一个新段（写入并落盘后才可见）
+     */
+    public LogSegment write(List<LogEntry> entries) {
+        try {
+            LogSegment segment = LogSegmentWriter.write(directory, entries);
+            addSorted(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入日志归档段失败", e);
+        }
+    }
+
+    /**
+     * 在归档中查询（按时间升序）
+     */
+    public List<LogEntry> query(ArchiveQuery query) {
+        List<LogSegment> candidates = new ArrayList<>();
+        for (LogSegment segment : segments) {
+            if (segment.mightMatch(query)) {
+                candidates.add(segment);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<LogEntry> result = new ArrayList<>();
+        if (candidates.size() == 1) {
+            result.addAll(scan(candidates.get(0), query));
+            return result;
+        }
+        List<Future<List<LogEntry>>> futures = new ArrayList<>(candidates.size());
+        for (LogSegment segment : candidates) {
+            futures.add(scanExecutor.submit(() -> scan(segment, query)));
+        }
+        try {
+            for (Future<List<LogEntry>> future : futures) {
+                result.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("日志归档查询被中断", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("日志归档查询失败", e.getCause());
+        }
+        result.sort(Comparator.comparing(LogEntry::getTimestamp));
+        return result;
+    }
+
+    /**
+     * 删除最新日志早于 cutoff 的段
+     *
+     * @return 删除的段数量
+     */
+    public int dropExpired(LocalDateTime cutoff) {
+        int dropped = 0;
+        for (LogSegment segment : segments) {
+            if (segment.getMaxTime().isBefore(cutoff) && segments.remove(segment)) {
+                try {
+                    Files.deleteIfExists(segment.getPath());
+                    dropped++;
+                } catch (IOException e) {
+                    System.err.println("删除日志归档段失败: " + segment.getPath() + " - " + e.getMessage());
+                }
+            }
+        }
+        return dropped;
+    }
+
+    /** 当前所有段（按最小时间排序） */
+    public List<LogSegment> getSegments() {
+        return List.copyOf(segments);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getSegmentRows() {
+        return segmentRows;
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    private List<LogEntry> scan(LogSegment segment, ArchiveQuery query) {
+        try {
+            return segment.scan(query);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized void addSorted(LogSegment segment) {
+        int index = 0;
+        while (index < segments.size() && !segments.get(index).getMinTime().isAfter(segment.getMinTime())) {
+            index++;
+        }
+        segments.add(index, segment);
+    }
+}
@@ -0,0 +1,15 @@
+package acs.log.archive;
+
+/**
+ * 段文件中的列（按此顺序存放，每列单独压缩）
+ */
+public enum LogColumn {
+    ID,
+    TIMESTAMP,
+    BADGE,
+    EMPLOYEE,
+    RESOURCE,
+    DECISION,
+    REASON,
+    DIRECTION
+}
@@ -0,0 +1,301 @@
+package acs.log.archive;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * LogSegment 是一个已封存的归档段（不可变）
+ *
+ * 段头（时间范围、拒绝条数、布隆过滤器、列目录）打开时读入内存，用于在不读文件的情况下跳过不可能匹配的段；
+ * 扫描时以内存映射方式读取文件，先解码时间列二分出时间范围，再只解码过滤列，有匹配时才解码其余列。
+ * 格式见 LogSegmentWriter。
+ */
+public final class LogSegment {
+
+    private final Path path;
+    private final int rowCount;
+    private final LocalDateTime minTime;
+    private final LocalDateTime maxTime;
+    private final int deniedCount;
+    private final BloomFilter badgeFilter;
+    private final BloomFilter resourceFilter;
+    private final long[] columnOffsets;
+    private final int[] rawLengths;
+    private final int[] compressedLengths;
+    private final long sizeBytes;
+
+    private LogSegment(Path path, ByteBuffer header, long sizeBytes) {
+        this.path = path;
+        this.sizeBytes = sizeBytes;
+        if (header.getInt() != LogSegmentWriter.MAGIC || header.getInt() != LogSegmentWriter.VERSION) {
+            throw new IllegalStateException("不是有效的日志归档段: " + path);
+        }
+        this.rowCount = header.getInt();
+        this.minTime = fromMicros(header.getLong());
+        this.maxTime = fromMicros(header.getLong());
+        this.deniedCount = header.getInt();
+        this.badgeFilter = BloomFilter.readFrom(header);
+        this.resourceFilter = BloomFilter.readFrom(header);
+
+        int columns = LogColumn.values().length;
+        this.rawLengths = new int[columns];
+        this.compressedLengths = new int[columns];
+        this.columnOffsets = new long[columns];
+        for (int i = 0; i < columns; i++) {
+            rawLengths[i] = header.getInt();
+            compressedLengths[i] = header.getInt();
+        }
+        long offset = header.position();
+        for (int i = 0; i < columns; i++) {
+            columnOffsets[i] = offset;
+            offset += compressedLengths[i];
+        }
+        if (offset != sizeBytes) {
+            throw new IllegalStateException("日志归档段长度不符: " + path);
+        }
+    }
+
+    /** 打开段文件（只读取段头） */
+    public static LogSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LogSegment(path, buffer, channel.size());
+        }
+    }
+
+    /** 仅凭段头判断是否可能包含匹配的日志（false 表示一定不包含） */
+    public boolean mightMatch(ArchiveQuery query) {
+        if (maxTime.isBefore(query.start()) || minTime.isAfter(query.end())) {
+            return false;
+        }
+        if (query.field() == null) {
+            return true;
+        }
+        switch (query.field()) {
+            case BADGE:
+                return badgeFilter.mightContain(query.value());
+            case RESOURCE:
+                return resourceFilter.mightContain(query.value());
+            case DECISION:
+                return !AccessDecision.DENY.name().equals(query.value()) || deniedCount > 0;
+            default:
+                return true;
+        }
+    }
+
+    /** 扫描段内匹配的日志（按时间升序） */
+    public List<LogEntry> scan(ArchiveQuery query) throws IOException {
+        if (!mightMatch(query)) {
+            return List.of();
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, sizeBytes);
+
+            long[] times = decodeTimes(column(buffer, LogColumn.TIMESTAMP));
+            int from = lowerBound(times, toMicros(query.start()));
+            int to = lowerBound(times, toMicros(query.end()) + 1);
+            if (from >= to) {
+                return List.of();
+            }
+
+            int[] matches = new int[to - from];
+            int matched = 0;
+            if (query.field() == null) {
+                for (int row = from; row < to; row++) {
+                    matches[matched++] = row;
+                }
+            } else {
+                StringColumn filter = decodeStrings(column(buffer, query.field()));
+                int code = filter.codeOf(query.value());
+                if (code < 0) {
+                    return List.of();  // 布隆过滤器误判
+                }
+                for (int row = from; row < to; row++) {
+                    if (filter.codes[row] == code) {
+                        matches[matched++] = row;
+                    }
+                }
+            }
+            if (matched == 0) {
+                return List.of();
+            }
+            return materialize(buffer, times, matches, matched);
+        }
+    }
+
+    private List<LogEntry> materialize(ByteBuffer buffer, long[] times, int[] matches, int matched) throws IOException {
+        long[] ids = decodeIds(column(buffer, LogColumn.ID));
+        StringColumn badges = decodeStrings(column(buffer, LogColumn.BADGE));
+        StringColumn employees = decodeStrings(column(buffer, LogColumn.EMPLOYEE));
+        StringColumn resources = decodeStrings(column(buffer, LogColumn.RESOURCE));
+        StringColumn decisions = decodeStrings(column(buffer, LogColumn.DECISION));
+        StringColumn reasons = decodeStrings(column(buffer, LogColumn.REASON));
+        StringColumn directions = decodeStrings(column(buffer, LogColumn.DIRECTION));
+
+        List<LogEntry> result = new ArrayList<>(matched);
+        for (int i = 0; i < matched; i++) {
+            int row = matches[i];
+            String decision = decisions.get(row);
+            String reason = reasons.get(row);
+            String direction = directions.get(row);
+            LogEntry log = new LogEntry(fromMicros(times[row]), badges.get(row), employees.get(row), resources.get(row),
+                    decision != null ? AccessDecision.valueOf(decision) : null,
+                    reason != null ? ReasonCode.valueOf(reason) : null);
+            log.setId(ids[row] != 0 ? ids[row] : null);
+            log.setDirection(direction != null ? AccessDirection.valueOf(direction) : null);
+            result.add(log);
+        }
+        return result;
+    }
+
+    // 解压一列
+    private ByteBuffer column(ByteBuffer buffer, LogColumn column) throws IOException {
+        int index = column.ordinal();
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) columnOffsets[index], compressedLengths[index]));
+            byte[] raw = new byte[rawLengths[index]];
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                length += inflater.inflate(raw, length, raw.length - length);
+                if (inflater.needsInput()) {
+                    break;
+                }
+            }
+            if (length != raw.length) {
+                throw new IOException("日志归档段列数据损坏: " + path + " " + column);
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("日志归档段列数据损坏: " + path + " " + column, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private long[] decodeIds(ByteBuffer in) {
+        long[] ids = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long zigzag = readVarLong(in);
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            ids[i] = previous;
+        }
+        return ids;
+    }
+
+    private long[] decodeTimes(ByteBuffer in) {
+        long[] times = new long[rowCount];
+        long previous = toMicros(minTime);
+        for (int i = 0; i < rowCount; i++) {
+            previous += readVarLong(in);
+            times[i] = previous;
+        }
+        return times;
+    }
+
+    private StringColumn decodeStrings(ByteBuffer in) {
+        String[] dictionary = new String[(int) readVarLong(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.get(bytes);
+            dictionary[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        int[] codes = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            codes[i] = (int) readVarLong(in);
+        }
+        return new StringColumn(dictionary, codes);
+    }
+
+    // 第一个 >= key 的下标
+    private static int lowerBound(long[] values, long key) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    // Getter
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public LocalDateTime getMinTime() {
+        return minTime;
+    }
+
+    public LocalDateTime getMaxTime() {
+        return maxTime;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    // 字典编码的一列：codes[row] 为 0 表示空，否则为 dictionary 下标 + 1
+    private record StringColumn(String[] dictionary, int[] codes) {
+
+        String get(int row) {
+            int code = codes[row];
+            return code == 0 ? null : dictionary[code - 1];
+        }
+
+        int codeOf(String value) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    return i + 1;
+                }
+            }
+            return -1;
+        }
+    }
+}
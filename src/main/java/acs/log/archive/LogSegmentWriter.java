@@ -0,0 +1,200 @@
+package acs.log.archive;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.zip.Deflater;
+
+/**
+ * LogSegmentWriter 把一批日志写成一个不可变的列式段文件
+ *
+ * 文件布局（大端）：
+ *   魔数 / 版本 / 行数 / 最小、最大时间（微秒）/ 拒绝条数
+ *   徽章布隆过滤器 / 资源布隆过滤器
+ *   列目录：每列的原始长度、压缩后长度
+ *   各列数据（Deflate 压缩）：
+ *     - ID：与上一行之差的 zigzag 变长整数
+ *     - TIMESTAMP：与上一行之差的变长整数（行按时间升序）
+ *     - 其余列：字典（变长长度 + UTF-8）+ 每行的字典编号（0 表示空）
+ *
+ * 先写临时文件并落盘，再原子重命名为 .seg，读取方不会看到写了一半的段。
+ */
+final class LogSegmentWriter {
+
+    static final int MAGIC = 0x4143534C;  // "ACSL"
+    static final int VERSION = 1;
+    static final String SUFFIX = ".seg";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private LogSegmentWriter() {
+    }
+
+    static LogSegment write(Path directory, List<LogEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            throw new IllegalArgumentException("不能写入空的日志段");
+        }
+        List<LogEntry> rows = new ArrayList<>(entries);
+        rows.sort(Comparator.comparing(LogEntry::getTimestamp)
+                .thenComparing(LogEntry::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        byte[][] columns = new byte[LogColumn.values().length][];
+        columns[LogColumn.ID.ordinal()] = encodeIds(rows);
+        columns[LogColumn.TIMESTAMP.ordinal()] = encodeTimes(rows);
+        columns[LogColumn.BADGE.ordinal()] = encodeStrings(rows, LogEntry::getBadgeId);
+        columns[LogColumn.EMPLOYEE.ordinal()] = encodeStrings(rows, LogEntry::getEmployeeId);
+        columns[LogColumn.RESOURCE.ordinal()] = encodeStrings(rows, LogEntry::getResourceId);
+        columns[LogColumn.DECISION.ordinal()] = encodeStrings(rows, log -> nameOf(log.getDecision()));
+        columns[LogColumn.REASON.ordinal()] = encodeStrings(rows, log -> nameOf(log.getReasonCode()));
+        columns[LogColumn.DIRECTION.ordinal()] = encodeStrings(rows, log -> nameOf(log.getDirection()));
+
+        Files.createDirectories(directory);
+        String prefix = "segment-" + rows.get(0).getTimestamp().format(NAME_FORMAT) + "-";
+        Path temp = Files.createTempFile(directory, prefix, ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            writeHeader(out, rows);
+            byte[][] compressed = new byte[columns.length][];
+            for (int i = 0; i < columns.length; i++) {
+                compressed[i] = deflate(columns[i]);
+                out.writeInt(columns[i].length);
+                out.writeInt(compressed[i].length);
+            }
+            for (byte[] column : compressed) {
+                out.write(column);
+            }
+            out.flush();
+            channel.force(true);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+
+        String name = temp.getFileName().toString();
+        Path target = temp.resolveSibling(name.substring(0, name.length() - ".tmp".length()) + SUFFIX);
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        return LogSegment.open(target);
+    }
+
+    private static void writeHeader(DataOutputStream out, List<LogEntry> rows) throws IOException {
+        Set<String> badges = new HashSet<>();
+        Set<String> resources = new HashSet<>();
+        int denied = 0;
+        for (LogEntry log : rows) {
+            if (log.getBadgeId() != null) {
+                badges.add(log.getBadgeId());
+            }
+            if (log.getResourceId() != null) {
+                resources.add(log.getResourceId());
+            }
+            if (log.getDecision() == AccessDecision.DENY) {
+                denied++;
+            }
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(rows.size());
+        out.writeLong(LogSegment.toMicros(rows.get(0).getTimestamp()));
+        out.writeLong(LogSegment.toMicros(rows.get(rows.size() - 1).getTimestamp()));
+        out.writeInt(denied);
+        BloomFilter.of(badges).writeTo(out);
+        BloomFilter.of(resources).writeTo(out);
+    }
+
+    private static byte[] encodeIds(List<LogEntry> rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() * 2);
+        long previous = 0;
+        for (LogEntry log : rows) {
+            long id = log.getId() != null ? log.getId() : 0L;
+            long delta = id - previous;
+            writeVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = id;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeTimes(List<LogEntry> rows) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() * 3);
+        long previous = LogSegment.toMicros(rows.get(0).getTimestamp());
+        for (LogEntry log : rows) {
+            long micros = LogSegment.toMicros(log.getTimestamp());
+            writeVarLong(out, micros - previous);
+            previous = micros;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] encodeStrings(List<LogEntry> rows, Function<LogEntry, String> getter) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> values = new ArrayList<>();
+        int[] codes = new int[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            String value = getter.apply(rows.get(i));
+            if (value != null) {
+                codes[i] = dictionary.computeIfAbsent(value, key -> {
+                    values.add(key);
+                    return values.size();
+                });
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(rows.size() + values.size() * 8);
+        writeVarLong(out, values.size());
+        for (String value : values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.writeBytes(bytes);
+        }
+        for (int code : codes) {
+            writeVarLong(out, code);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+}
@@ -1,27 +1,41 @@
 package acs.log.impl;
 
+import acs.anomaly.AnomalyDetector;
 import acs.domain.LogEntry;
 import acs.log.LogService;
-import acs.cache.LocalCacheManager;
-import acs.repository.AccessLogRepository;
+import acs.log.journal.LogJournal;
+import acs.stream.AccessEventBroadcaster;
+import acs.trace.DecisionTracer;
+import acs.trace.TraceStage;
 import org.springframework.stereotype.Service;
 
 @Service
 public class LogServiceImpl implements LogService {
 
-    private final AccessLogRepository accessLogRepository;
-    private final LocalCacheManager cacheManager;
+    private final LogJournal journal;
+    private final AnomalyDetector anomalyDetector;
+    private final AccessEventBroadcaster broadcaster;
+    private final DecisionTracer tracer;
 
-    public LogServiceImpl(AccessLogRepository accessLogRepository, LocalCacheManager cacheManager) {
-        this.accessLogRepository = accessLogRepository;
-        this.cacheManager = cacheManager;
+    public LogServiceImpl(LogJournal journal, AnomalyDetector anomalyDetector,
+                          AccessEventBroadcaster broadcaster, DecisionTracer tracer) {
+        this.journal = journal;
+        this.anomalyDetector = anomalyDetector;
+        this.broadcaster = broadcaster;
+        this.tracer = tracer;
     }
 
     @Override
     public void record(LogEntry entry) {
-        // 1. 保存到数据库
-        LogEntry savedEntry = accessLogRepository.save(entry);
-        // 2. 同步到本地缓存（确保缓存与数据库一致）
-        cacheManager.updateLog(savedEntry);
+        // 1. 写入本地日志（落盘后返回，不依赖数据库）
+        // 2. 由 LogJournalReplayer 批量写入数据库并同步到本地缓存
+        // 3. 交给异常检测与实时推送（只入队，不等待检测与发送）
+        // 各步骤结束时计入当前请求的跟踪（不在请求中时忽略）
+        journal.append(entry);
+        tracer.mark(TraceStage.JOURNAL_APPEND);
+        anomalyDetector.offer(entry);
+        tracer.mark(TraceStage.ANOMALY_OFFER);
+        broadcaster.publish(entry);
+        tracer.mark(TraceStage.EVENT_PUBLISH);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,11 @@
+package acs.log.journal;
+
+import acs.domain.LogEntry;
+
+import java.util.List;
+
+/**
+ * 从本地日志读出的一批记录，以及紧随其后的位置（回放成功后提交为检查点）
+ */
+public record JournalBatch(List<LogEntry> entries, JournalPosition next) {
+}
@@ -0,0 +1,13 @@
+package acs.log.journal;
+
+/**
+ * 本地日志中的位置：段序号 + 段内偏移
+ */
+public record JournalPosition(long segment, long offset) implements Comparable<JournalPosition> {
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int bySegment = Long.compare(segment, other.segment);
+        return bySegment != 0 ? bySegment : Long.compare(offset, other.offset);
+    }
+}
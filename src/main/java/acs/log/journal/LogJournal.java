@@ -0,0 +1,497 @@
+package acs.log.journal;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * LogJournal 是访问日志的本地预写日志（只追加，分段，批量落盘）
+ *
+ * - append 在记录落盘后才返回；并发的 append 由单个写线程合并为一次 write + fsync（组提交），
+ *   吞吐取决于每次 fsync 能合并多少条记录，而不是每条记录一次 fsync
+ * - 记录格式：长度(int) + CRC32(int) + 内容；读取时遇到长度非法或 CRC 不符即视为段尾（崩溃时写了一半）
+ * - 段超过 acs.log.journal.segment-bytes 后切换到新段；每次启动都从新段开始写，旧段只读
+ * - 写入或落盘失败时截断回上次落盘的位置（截断失败则封存当前段、切换到新段），后续批次不会接在半条记录之后
+ * - 等待队列有上限（acs.log.journal.queue-capacity）；等待超时的记录在写线程取走之前撤销，不会在调用方收到失败后才落盘
+ * - 回放进度（检查点）保存在 checkpoint 文件中，检查点之前的整段删除
+ */
+@Component
+public class LogJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+    private static final int READ_WINDOW_BYTES = 1024 * 1024;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final int maxBatch;
+    private final long syncTimeoutMillis;
+
+    private final LinkedBlockingQueue<PendingAppend> queue;
+    private final ConcurrentSkipListSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final AtomicLong appendedRecords = new AtomicLong();
+    private final AtomicLong syncs = new AtomicLong();
+
+    // 以下字段只由写线程修改
+    private FileChannel channel;
+    private long currentSegment;
+    private long currentSize;
+    // 已落盘的位置（读取方不会越过）
+    private volatile JournalPosition durable;
+    private volatile JournalPosition checkpoint;
+    private volatile boolean closed;
+    private Thread writer;
+
+    public LogJournal(@Value("${acs.log.journal.dir:data/log-journal}") String directory,
+                      @Value("${acs.log.journal.segment-bytes:67108864}") long segmentBytes,
+                      @Value("${acs.log.journal.max-batch:1024}") int maxBatch,
+                      @Value("${acs.log.journal.sync-timeout-millis:5000}") long syncTimeoutMillis,
+                      @Value("${acs.log.journal.queue-capacity:16384}") int queueCapacity) {
+        this.directory = Paths.get(directory);
+        this.segmentBytes = segmentBytes;
+        this.maxBatch = maxBatch;
+        this.syncTimeoutMillis = syncTimeoutMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    // 读取已有的段与检查点，打开一个新段并启动写线程
+    @PostConstruct
+    public void open() {
+        try {
+            Files.createDirectories(directory);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    segments.add(segmentNumber(file));
+                }
+            }
+            checkpoint = readCheckpoint();
+            currentSegment = segments.isEmpty() ? 1 : segments.last() + 1;
+            openSegment(currentSegment);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开本地访问日志失败: " + directory, e);
+        }
+        closed = false;
+        writer = new Thread(this::writeLoop, "log-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(syncTimeoutMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        List<PendingAppend> rejected = new ArrayList<>();
+        queue.drainTo(rejected);
+        rejected.forEach(pending -> pending.done.completeExceptionally(new IllegalStateException("本地访问日志已关闭")));
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("关闭本地访问日志失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 追加一条访问日志，落盘后返回（没有事件ID时生成一个）
+     *
+     * 超时时记录若仍在队列中则撤销（不会再落盘）；已被写线程取走的记录等待这次写入的结果，
+     * 保证调用方收到失败时记录一定没有落盘
+     *
+     * @throws IllegalStateException 写入失败、超时、队列已满或已关闭
+     */
+    public void append(LogEntry entry) {
+        if (entry.getEventId() == null) {
+            entry.setEventId(UUID.randomUUID().toString());
+        }
+        if (closed) {
+            throw new IllegalStateException("本地访问日志已关闭");
+        }
+        PendingAppend pending = new PendingAppend(encode(entry));
+        if (!queue.offer(pending)) {
+            throw new IllegalStateException("本地访问日志写入队列已满");
+        }
+        try {
+            try {
+                pending.done.get(syncTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (pending.cancel()) {
+                    throw new IllegalStateException("写入本地访问日志超时", e);
+                }
+                // 写线程已取走，写入正在进行
+                pending.done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("写入本地访问日志被中断", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("写入本地访问日志失败", e.getCause());
+        }
+    }
+
+    /**
+     * 从 from 开始读取最多 max 条已落盘的记录
+     */
+    public JournalBatch read(JournalPosition from, int max) {
+        JournalPosition durableNow = durable;
+        List<LogEntry> entries = new ArrayList<>();
+        JournalPosition position = from;
+        try {
+            while (entries.size() < max) {
+                Long segment = segments.ceiling(position.segment());
+                if (segment == null || segment > durableNow.segment()) {
+                    break;
+                }
+                if (segment != position.segment()) {
+                    position = new JournalPosition(segment, 0);
+                }
+                boolean sealed = segment < durableNow.segment();
+                long limit = sealed ? Files.size(segmentPath(segment)) : durableNow.offset();
+                long offset = readSegment(segment, position.offset(), limit, max - entries.size(), entries);
+                position = new JournalPosition(segment, offset);
+                if (entries.size() >= max) {
+                    break;
+                }
+                if (!sealed) {
+                    break;  // 当前段已读到落盘位置
+                }
+                if (offset < limit) {
+                    // 旧段的尾部在崩溃时只写了一半，跳过
+                    System.err.println("本地访问日志段尾部不完整，已跳过: " + segmentPath(segment) + " @" + offset);
+                }
+                position = new JournalPosition(segment + 1, 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取本地访问日志失败", e);
+        }
+        return new JournalBatch(entries, position);
+    }
+
+    /** 当前检查点（已回放到的位置） */
+    public JournalPosition checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * 提交回放进度；检查点之前的整段删除
+     */
+    public void commit(JournalPosition position) {
+        try {
+            Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.writeString(temp, position.segment() + " " + position.offset());
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = position;
+            for (Long segment : segments.headSet(Math.min(position.segment(), durable.segment()))) {
+                Files.deleteIfExists(segmentPath(segment));
+                segments.remove(segment);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("保存本地访问日志检查点失败", e);
+        }
+    }
+
+    /** 是否还有未回放的记录 */
+    public boolean hasBacklog() {
+        return checkpoint.compareTo(durable) < 0 && !read(checkpoint, 1).entries().isEmpty();
+    }
+
+    long appendedRecords() {
+        return appendedRecords.get();
+    }
+
+    long syncs() {
+        return syncs.get();
+    }
+
+    // 写线程：取出当前排队的所有记录（跳过已超时撤销的），一次写入、一次落盘，再通知所有等待者
+    private void writeLoop() {
+        List<PendingAppend> drained = new ArrayList<>(maxBatch);
+        List<PendingAppend> batch = new ArrayList<>(maxBatch);
+        while (!closed) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                queue.drainTo(drained, maxBatch - 1);
+                for (PendingAppend pending : drained) {
+                    if (pending.claim()) {
+                        batch.add(pending);
+                    }
+                }
+                drained.clear();
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                writeBatch(batch);
+                batch.forEach(pending -> pending.done.complete(null));
+            } catch (InterruptedException e) {
+                batch.forEach(pending -> pending.done.completeExceptionally(e));
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                System.err.println("写入本地访问日志失败: " + e.getMessage());
+                batch.forEach(pending -> pending.done.completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+
+    private void writeBatch(List<PendingAppend> batch) throws IOException {
+        if (currentSize >= segmentBytes) {
+            channel.close();
+            openSegment(currentSegment + 1);
+        }
+        int bytes = 0;
+        for (PendingAppend pending : batch) {
+            bytes += pending.record.length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        for (PendingAppend pending : batch) {
+            buffer.put(pending.record);
+        }
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            discardPartialWrite();
+            throw e;
+        }
+        currentSize += bytes;
+        durable = new JournalPosition(currentSegment, currentSize);
+        appendedRecords.addAndGet(batch.size());
+        syncs.incrementAndGet();
+    }
+
+    // 写入失败后丢弃本批已写出的部分：截断回上次落盘的位置；截断失败则封存当前段（读取时跳过不完整的段尾），改写新段
+    private void discardPartialWrite() {
+        try {
+            channel.truncate(currentSize);
+            channel.position(currentSize);
+            channel.force(false);
+            return;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("截断本地访问日志失败，切换到新段: " + e.getMessage());
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("关闭本地访问日志段失败: " + e.getMessage());
+        }
+        try {
+            openSegment(currentSegment + 1);
+        } catch (IOException e) {
+            // 下一批写入时（通道已关闭）再次失败并重试切换
+            System.err.println("打开新的本地访问日志段失败: " + e.getMessage());
+        }
+    }
+
+    private void openSegment(long segment) throws IOException {
+        channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        currentSegment = segment;
+        currentSize = 0;
+        segments.add(segment);
+        durable = new JournalPosition(segment, 0);
+    }
+
+    // 读取一个段中 [offset, limit) 的记录，返回读到的位置
+    private long readSegment(long segment, long offset, long limit, int max, List<LogEntry> entries) throws IOException {
+        try (FileChannel in = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            while (offset < limit && max > 0) {
+                ByteBuffer window = ByteBuffer.allocate((int) Math.min(limit - offset, READ_WINDOW_BYTES));
+                int read;
+                do {
+                    read = in.read(window, offset + window.position());
+                } while (read > 0 && window.hasRemaining());
+                window.flip();
+                int consumed = 0;
+                while (max > 0 && window.remaining() >= HEADER_BYTES) {
+                    int start = window.position();
+                    int length = window.getInt();
+                    int crc = window.getInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES || window.remaining() < length) {
+                        window.position(start);
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    window.get(payload);
+                    if (crc != crc32(payload)) {
+                        return offset + start;  // 内容损坏，视为段尾
+                    }
+                    entries.add(decode(payload));
+                    consumed = window.position();
+                    max--;
+                }
+                if (consumed == 0) {
+                    break;  // 不完整的记录
+                }
+                offset += consumed;
+            }
+            return offset;
+        }
+    }
+
+    private JournalPosition readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new JournalPosition(0, 0);
+        }
+        String[] parts = Files.readString(file).trim().split(" ");
+        return new JournalPosition(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    // 编码为 长度 + CRC32 + 内容
+    static byte[] encode(LogEntry entry) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeUTF(entry.getEventId());
+            out.writeLong(entry.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(entry.getTimestamp().getNano());
+            writeNullable(out, entry.getBadgeId());
+            writeNullable(out, entry.getEmployeeId());
+            writeNullable(out, entry.getResourceId());
+            writeNullable(out, nameOf(entry.getDecision()));
+            writeNullable(out, nameOf(entry.getReasonCode()));
+            writeNullable(out, nameOf(entry.getDirection()));
+            byte[] record = bytes.toByteArray();
+            int length = record.length - HEADER_BYTES;
+            if (length > MAX_RECORD_BYTES) {
+                throw new IllegalArgumentException("访问日志记录过大: " + length);
+            }
+            ByteBuffer.wrap(record).putInt(length).putInt(crc32(ByteBuffer.wrap(record, HEADER_BYTES, length)));
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static LogEntry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        String eventId = in.readUTF();
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+        String badgeId = readNullable(in);
+        String employeeId = readNullable(in);
+        String resourceId = readNullable(in);
+        String decision = readNullable(in);
+        String reason = readNullable(in);
+        String direction = readNullable(in);
+        LogEntry entry = new LogEntry(timestamp, badgeId, employeeId, resourceId,
+                decision != null ? AccessDecision.valueOf(decision) : null,
+                reason != null ? ReasonCode.valueOf(reason) : null);
+        entry.setEventId(eventId);
+        entry.setDirection(direction != null ? AccessDirection.valueOf(direction) : null);
+        return entry;
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String nameOf(Enum<?> value) {
+        return value != null ? value.name() : null;
+    }
+
+    private static int crc32(byte[] payload) {
+        return crc32(ByteBuffer.wrap(payload));
+    }
+
+    private static int crc32(ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // 等待落盘的一条记录
+    private static final class PendingAppend {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final byte[] record;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private PendingAppend(byte[] record) {
+            this.record = record;
+        }
+
+        // 写线程取走记录；已撤销时返回 false
+        private boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        // 等待方撤销记录；写线程已取走时返回 false
+        private boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package acs.log.journal;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.LogEntry;
+import acs.repository.AccessLogRepository;
+import acs.resilience.Bulkheads;
+import acs.resilience.Workload;
+import acs.stats.AccessSketches;
+import acs.stats.AccessStatsRollup;
+import acs.trace.DecisionTracer;
+import acs.trace.TraceStage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * LogJournalReplayer 把本地日志中的访问日志批量写入 access_logs
+ *
+ * - 每批一个事务：先查询该批事件ID中已存在的（上次回放写入成功但检查点未提交），只插入其余的
+ * - 批次提交后写入缓存与访问草图，再提交检查点
+ * - 数据库不可用时停止本轮，按指数退避（最长 maxBackoffMillis）重试；期间刷卡只写本地日志，访问判断不受影响
+ * - 数据库访问属于 DECISION 工作负载：使用该类的连接配额，熔断打开时直接进入退避（降级为只写本地日志）
+ * - 访问统计汇总与日志在同一事务内累加，去重后的日志只计一次
+ * - 每批写入数据库与写入缓存的耗时计入 DecisionTracer（LOG_DB_BATCH / LOG_CACHE_UPDATE）
+ */
+@Component
+public class LogJournalReplayer {
+
+    private final LogJournal journal;
+    private final AccessLogRepository accessLogRepository;
+    private final LocalCacheManager cacheManager;
+    private final Bulkheads bulkheads;
+    private final AccessStatsRollup statsRollup;
+    private final AccessSketches sketches;
+    private final DecisionTracer tracer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long maxBackoffMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile boolean databaseAvailable = true;
+    private volatile long nextAttemptAt;
+    private volatile long backoffMillis;
+    private volatile long replayedRecords;
+    private volatile long duplicateRecords;
+    private volatile String lastError;
+
+    public LogJournalReplayer(LogJournal journal,
+                              AccessLogRepository accessLogRepository,
+                              LocalCacheManager cacheManager,
+                              Bulkheads bulkheads,
+                              AccessStatsRollup statsRollup,
+                              AccessSketches sketches,
+                              DecisionTracer tracer,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${acs.log.journal.replay-batch:500}") int batchSize,
+                              @Value("${acs.log.journal.max-backoff-millis:30000}") long maxBackoffMillis) {
+        this.journal = journal;
+        this.accessLogRepository = accessLogRepository;
+        this.cacheManager = cacheManager;
+        this.bulkheads = bulkheads;
+        this.statsRollup = statsRollup;
+        this.sketches = sketches;
+        this.tracer = tracer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${acs.log.journal.replay-millis:200}")
+    public void replay() {
+        replay(System.currentTimeMillis());
+    }
+
+    /**
+     * 回放到当前落盘位置（数据库不可用时处于退避期则直接返回）
+     *
+     * @return 本轮写入数据库的记录数
+     */
+    long replay(long nowMillis) {
+        if (nowMillis < nextAttemptAt || !running.compareAndSet(false, true)) {
+            return 0;
+        }
+        long inserted = 0;
+        try {
+            while (true) {
+                JournalPosition from = journal.checkpoint();
+                JournalBatch batch = journal.read(from, batchSize);
+                if (batch.entries().isEmpty()) {
+                    if (!batch.next().equals(from)) {
+                        journal.commit(batch.next());  // 跳过了损坏的段尾
+                    }
+                    break;
+                }
+                long start = System.nanoTime();
+                List<LogEntry> saved = bulkheads.call(Workload.DECISION, () -> insertBatch(batch.entries()));
+                long inDatabase = System.nanoTime();
+                cacheManager.cacheLogs(saved);
+                tracer.record(TraceStage.LOG_DB_BATCH, inDatabase - start);
+                tracer.record(TraceStage.LOG_CACHE_UPDATE, System.nanoTime() - inDatabase);
+                sketches.record(saved);
+                journal.commit(batch.next());
+                inserted += saved.size();
+                replayedRecords += saved.size();
+                duplicateRecords += batch.entries().size() - saved.size();
+            }
+            databaseAvailable = true;
+            backoffMillis = 0;
+            nextAttemptAt = 0;
+        } catch (RuntimeException e) {
+            databaseAvailable = false;
+            lastError = e.getMessage();
+            backoffMillis = backoffMillis == 0 ? 500 : Math.min(backoffMillis * 2, maxBackoffMillis);
+            nextAttemptAt = nowMillis + backoffMillis;
+            System.err.println("访问日志回放失败，" + backoffMillis + "ms 后重试: " + e.getMessage());
+        } finally {
+            running.set(false);
+        }
+        return inserted;
+    }
+
+    // 一个事务内去重、插入并累加统计
+    private List<LogEntry> insertBatch(List<LogEntry> entries) {
+        return transactionTemplate.execute(status -> {
+            // 同一事件重放时时间戳不变，按批次的时间范围查询即可覆盖所有可能的重复
+            LocalDateTime start = entries.stream().map(LogEntry::getTimestamp).min(Comparator.naturalOrder()).orElseThrow();
+            LocalDateTime end = entries.stream().map(LogEntry::getTimestamp).max(Comparator.naturalOrder()).orElseThrow();
+            Set<String> existing = new HashSet<>(accessLogRepository.findExistingEventIds(
+                    entries.stream().map(LogEntry::getEventId).collect(Collectors.toList()), start, end));
+            List<LogEntry> fresh = entries.stream()
+                    .filter(entry -> !existing.contains(entry.getEventId()))
+                    .collect(Collectors.toList());
+            if (fresh.isEmpty()) {
+                return List.of();
+            }
+            List<LogEntry> saved = accessLogRepository.saveAll(fresh);
+            statsRollup.record(saved);
+            return saved;
+        });
+    }
+
+    /** 最近一次回放时数据库是否可用 */
+    public boolean isDatabaseAvailable() {
+        return databaseAvailable;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    public long getDuplicateRecords() {
+        return duplicateRecords;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+}
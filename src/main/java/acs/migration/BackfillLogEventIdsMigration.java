@@ -0,0 +1,30 @@
+package acs.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * V4：为早期没有事件ID的访问日志回填 legacy-{id}，此后每条日志都可以按事件ID去重
+ *
+ * 按主键分块回填，不阻塞新日志写入（新日志在刷卡时已带事件ID，不在回填范围内）。
+ */
+@Component
+public class BackfillLogEventIdsMigration implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 4;
+    }
+
+    @Override
+    public String getDescription() {
+        return "backfill legacy access log event ids";
+    }
+
+    @Override
+    public void migrate(MigrationContext context) {
+        long updated = context.backfill("access_logs", "id", "event_id = CONCAT('legacy-', id)", "event_id IS NULL");
+        if (updated > 0) {
+            System.out.println("已回填 " + updated + " 条早期访问日志的事件ID");
+        }
+    }
+}
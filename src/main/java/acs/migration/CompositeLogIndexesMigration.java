@@ -0,0 +1,34 @@
+package acs.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * V3：access_logs 的“ID + 时间”复合索引（在线建立），随后删除被其前缀覆盖的单列索引
+ */
+@Component
+public class CompositeLogIndexesMigration implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 3;
+    }
+
+    @Override
+    public String getDescription() {
+        return "composite id and timestamp indexes on access_logs";
+    }
+
+    @Override
+    public void migrate(MigrationContext context) {
+        // 先建后删：任何时刻查询都有可用的索引
+        context.createIndexOnline("access_logs", "idx_log_badge_time", "badge_id, timestamp");
+        context.createIndexOnline("access_logs", "idx_log_employee_time", "employee_id, timestamp");
+        context.createIndexOnline("access_logs", "idx_log_resource_time", "resource_id, timestamp");
+        context.createIndexOnline("access_logs", "idx_log_decision_time", "decision, timestamp");
+
+        context.dropIndexOnline("access_logs", "idx_log_badge");
+        context.dropIndexOnline("access_logs", "idx_log_employee");
+        context.dropIndexOnline("access_logs", "idx_log_resource");
+        context.dropIndexOnline("access_logs", "idx_log_decision");
+    }
+}
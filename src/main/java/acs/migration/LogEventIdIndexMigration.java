@@ -0,0 +1,32 @@
+package acs.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * V7：access_logs 的“事件ID + 时间”索引，本地日志回放按事件ID去重时使用
+ *
+ * 新库由 V1 的 uk_log_event 提供；记为基线的旧库由 Hibernate 建表，只有 event_id 列而没有该键，
+ * 回放的每一批去重都会全表扫描。已有以 event_id 开头的索引时跳过，重复执行无副作用。
+ */
+@Component
+public class LogEventIdIndexMigration implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 7;
+    }
+
+    @Override
+    public String getDescription() {
+        return "event id index on access_logs";
+    }
+
+    @Override
+    public void migrate(MigrationContext context) {
+        if (context.indexLeadingWith("access_logs", "event_id")) {
+            return;
+        }
+        // 非唯一索引：旧库中可能已有重复的事件ID，唯一键无法在线建立
+        context.createIndexOnline("access_logs", "idx_log_event_time", "event_id, timestamp");
+    }
+}
@@ -0,0 +1,22 @@
+package acs.migration;
+
+/**
+ * 一个版本化的结构迁移
+ *
+ * 版本号全局唯一、按升序执行，执行成功后记录在 schema_history 中，不会重复执行。
+ * SQL 迁移放在 classpath:db/migration/V{版本}__{描述}.sql；需要按数据库区分写法、
+ * 在线建索引或分块回填的迁移实现本接口并注册为 Spring Bean。
+ */
+public interface Migration {
+
+    int getVersion();
+
+    String getDescription();
+
+    void migrate(MigrationContext context);
+
+    /** 内容校验和（SQL 迁移用于发现已执行脚本被修改；Java 迁移为 null） */
+    default Integer getChecksum() {
+        return null;
+    }
+}
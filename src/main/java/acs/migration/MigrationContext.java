@@ -0,0 +1,206 @@
+package acs.migration;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+
+/**
+ * 迁移执行环境：一个专用连接（自动提交），以及按数据库区分的在线变更工具
+ *
+ * - 建 / 删索引：MySQL 使用 ALGORITHM=INPLACE, LOCK=NONE，变更期间 access_logs 照常写入
+ * - 回填：按主键区间分块 UPDATE，每块单独提交、块间暂停，行锁只在一块内短暂持有；
+ *   回填条件只匹配未回填的行，中断后重新执行即从头跳过已完成的部分
+ */
+public class MigrationContext {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean mySql;
+    private final int chunkSize;
+    private final long pauseMillis;
+
+    public MigrationContext(JdbcTemplate jdbcTemplate, int chunkSize, long pauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                connection.getMetaData().getDatabaseProductName());
+        this.mySql = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    public JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    /** 是否为 MySQL（否则按嵌入式测试库处理） */
+    public boolean isMySql() {
+        return mySql;
+    }
+
+    public void execute(String sql) {
+        jdbcTemplate.execute(sql);
+    }
+
+    public boolean tableExists(String table) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, identifier(metaData, table),
+                    new String[]{"TABLE"})) {
+                return rs.next();
+            }
+        });
+    }
+
+    public boolean columnExists(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getColumns(connection.getCatalog(), null,
+                    identifier(metaData, table), identifier(metaData, column))) {
+                return rs.next();
+            }
+        });
+    }
+
+    public boolean indexExists(String table, String index) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null,
+                    identifier(metaData, table), false, false)) {
+                while (rs.next()) {
+                    if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /** 是否已有以 column 为第一列的索引（含主键、唯一键） */
+    public boolean indexLeadingWith(String table, String column) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null,
+                    identifier(metaData, table), false, false)) {
+                while (rs.next()) {
+                    if (rs.getShort("ORDINAL_POSITION") == 1 && column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+        });
+    }
+
+    /**
+     * 在线建索引（已存在则跳过）
+     */
+    public void createIndexOnline(String table, String index, String columns) {
+        if (indexExists(table, index)) {
+            return;
+        }
+        if (mySql) {
+            execute("ALTER TABLE " + table + " ADD INDEX " + index + " (" + columns + "), ALGORITHM=INPLACE, LOCK=NONE");
+        } else {
+            execute("CREATE INDEX " + index + " ON " + table + " (" + columns + ")");
+        }
+    }
+
+    /**
+     * 在线删索引（不存在则跳过）
+     */
+    public void dropIndexOnline(String table, String index) {
+        if (!indexExists(table, index)) {
+            return;
+        }
+        if (mySql) {
+            execute("ALTER TABLE " + table + " DROP INDEX " + index + ", ALGORITHM=INPLACE, LOCK=NONE");
+        } else {
+            execute("DROP INDEX " + index);
+        }
+    }
+
+    /**
+     * 按主键区间分块回填
+     *
+     * @param assignment   SET 子句，例如 "event_id = CONCAT('legacy-', id)"
+     * @param pendingWhere 未回填的行，例如 "event_id IS NULL"
+     * @return 回填的行数
+     */
+    public long backfill(String table, String keyColumn, String assignment, String pendingWhere) {
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(" + keyColumn + ") FROM " + table
+                + " WHERE " + pendingWhere, Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + keyColumn + ") FROM " + table
+                + " WHERE " + pendingWhere, Long.class);
+        if (min == null || max == null) {
+            return 0;
+        }
+        String update = "UPDATE " + table + " SET " + assignment + " WHERE " + keyColumn + " >= ? AND "
+                + keyColumn + " < ? AND (" + pendingWhere + ")";
+        long updated = 0;
+        for (long from = min; from <= max; from += chunkSize) {
+            updated += jdbcTemplate.update(update, from, from + chunkSize);
+            pause();
+        }
+        return updated;
+    }
+
+    /**
+     * 按主键区间分块读取（块间暂停），用于需要在 Java 中计算的回填
+     *
+     * @return 读取的行数
+     */
+    public <T> long scan(String table, String keyColumn, String columns, RowMapper<T> mapper,
+                         Consumer<List<T>> chunkConsumer) {
+        Long min = jdbcTemplate.queryForObject("SELECT MIN(" + keyColumn + ") FROM " + table, Long.class);
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(" + keyColumn + ") FROM " + table, Long.class);
+        if (min == null || max == null) {
+            return 0;
+        }
+        String select = "SELECT " + columns + " FROM " + table + " WHERE " + keyColumn + " >= ? AND "
+                + keyColumn + " < ?";
+        long scanned = 0;
+        for (long from = min; from <= max; from += chunkSize) {
+            List<T> chunk = jdbcTemplate.query(select, mapper, from, from + chunkSize);
+            if (!chunk.isEmpty()) {
+                chunkConsumer.accept(chunk);
+                scanned += chunk.size();
+            }
+            pause();
+        }
+        return scanned;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    private void pause() {
+        if (pauseMillis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("回填被中断", e);
+        }
+    }
+
+    // 元数据查询按数据库的标识符大小写约定
+    private static String identifier(DatabaseMetaData metaData, String name) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return name.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return name.toLowerCase(Locale.ROOT);
+        }
+        return name;
+    }
+}
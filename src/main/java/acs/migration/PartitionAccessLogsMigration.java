@@ -0,0 +1,43 @@
+package acs.migration;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * V2：access_logs 改为按天范围分区（MySQL），过期日志以 DROP PARTITION 删除，见 LogPartitionManager
+ *
+ * 只对空表执行（新库，只改元数据）；已有数据的未分区表重新分区需要整表复制，不能在线完成，
+ * 此时跳过，日志清理退回到 LogRetentionJob 的分块删除。
+ */
+@Component
+public class PartitionAccessLogsMigration implements Migration {
+
+    @Override
+    public int getVersion() {
+        return 2;
+    }
+
+    @Override
+    public String getDescription() {
+        return "partition access_logs by day";
+    }
+
+    @Override
+    public void migrate(MigrationContext context) {
+        if (!context.isMySql()) {
+            return;
+        }
+        Integer partitions = context.getJdbcTemplate().queryForObject(
+                "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() "
+                        + "AND TABLE_NAME = 'access_logs' AND PARTITION_NAME IS NOT NULL", Integer.class);
+        if (partitions != null && partitions > 0) {
+            return;
+        }
+        if (!context.getJdbcTemplate().queryForList("SELECT id FROM access_logs LIMIT 1").isEmpty()) {
+            System.err.println("access_logs 已有数据且未分区，跳过在线分区（过期日志按主键分块删除）");
+            return;
+        }
+        // 初始只有兜底分区，应用启动时从 pmax 拆分出按天的分区
+        context.execute("ALTER TABLE access_logs PARTITION BY RANGE (TO_DAYS(timestamp)) "
+                + "(PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+}
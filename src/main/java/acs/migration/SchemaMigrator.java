@@ -0,0 +1,220 @@
+package acs.migration;
+
+import acs.cache.LocalCacheManager;
+import acs.resilience.Workload;
+import acs.resilience.WorkloadContext;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * SchemaMigrator 在应用启动时按版本执行结构迁移（先于 JPA 与其他访问数据库的组件，
+ * 见 SchemaMigratorDatabaseInitializerDetector）
+ *
+ * - 已执行的版本记录在 schema_history（版本、描述、类型、校验和、耗时、是否成功）
+ * - 已有数据库（存在 access_logs 但没有迁移记录）记为基线 V1，从 V2 开始执行
+ * - 已执行的 SQL 脚本被修改、版本重复或上次迁移失败时拒绝启动
+ * - MySQL 上以 GET_LOCK 互斥，多个节点同时启动时只有一个执行迁移
+ * - 迁移完成后检查结构版本不低于 LocalCacheManager.SCHEMA_VERSION
+ */
+@Component
+public class SchemaMigrator {
+
+    static final String HISTORY_TABLE = "schema_history";
+    private static final int BASELINE_VERSION = 1;
+    private static final String LOCK_NAME = "acs_schema_migration";
+
+    private final DataSource dataSource;
+    private final List<Migration> javaMigrations;
+    private final boolean enabled;
+    private final String locations;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final int lockTimeoutSeconds;
+
+    private volatile int currentVersion;
+
+    public SchemaMigrator(DataSource dataSource,
+                          List<Migration> javaMigrations,
+                          @Value("${acs.migration.enabled:true}") boolean enabled,
+                          @Value("${acs.migration.locations:classpath*:db/migration/V*__*.sql}") String locations,
+                          @Value("${acs.migration.chunk-size:5000}") int chunkSize,
+                          @Value("${acs.migration.pause-millis:50}") long pauseMillis,
+                          @Value("${acs.migration.lock-timeout-seconds:60}") int lockTimeoutSeconds) {
+        this.dataSource = dataSource;
+        this.javaMigrations = javaMigrations;
+        this.enabled = enabled;
+        this.locations = locations;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.lockTimeoutSeconds = lockTimeoutSeconds;
+    }
+
+    @PostConstruct
+    public void migrate() {
+        WorkloadContext.run(Workload.MAINTENANCE, () -> {
+            try (Connection connection = dataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                MigrationContext context = new MigrationContext(
+                        new JdbcTemplate(new SingleConnectionDataSource(connection, true)), chunkSize, pauseMillis);
+                if (!enabled) {
+                    currentVersion = context.tableExists(HISTORY_TABLE) ? readCurrentVersion(context) : 0;
+                    return;
+                }
+                lock(context);
+                try {
+                    migrate(context);
+                } finally {
+                    unlock(context);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException("获取迁移连接失败", e);
+            }
+        });
+        if (enabled && currentVersion < LocalCacheManager.SCHEMA_VERSION) {
+            throw new IllegalStateException("数据库结构版本 " + currentVersion
+                    + " 低于缓存加载所需的版本 " + LocalCacheManager.SCHEMA_VERSION);
+        }
+    }
+
+    /** 当前数据库结构版本（已成功执行的最高版本） */
+    public int getCurrentVersion() {
+        return currentVersion;
+    }
+
+    private void migrate(MigrationContext context) {
+        boolean existingSchema = !context.tableExists(HISTORY_TABLE) && context.tableExists("access_logs");
+        context.execute("CREATE TABLE IF NOT EXISTS " + HISTORY_TABLE + " ("
+                + "version INT NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(200) NOT NULL, "
+                + "type VARCHAR(10) NOT NULL, "
+                + "checksum INT, "
+                + "installed_at TIMESTAMP NOT NULL, "
+                + "execution_millis BIGINT NOT NULL, "
+                + "success BOOLEAN NOT NULL)");
+        if (existingSchema) {
+            record(context, BASELINE_VERSION, "baseline", "BASELINE", null, 0, true);
+            System.out.println("已有数据库记为结构基线 V" + BASELINE_VERSION);
+        }
+
+        List<Migration> migrations = loadMigrations();
+        Map<Integer, Integer> appliedChecksums = validate(context, migrations);
+        currentVersion = appliedChecksums.keySet().stream().max(Integer::compare).orElse(0);
+
+        for (Migration migration : migrations) {
+            if (appliedChecksums.containsKey(migration.getVersion())) {
+                continue;
+            }
+            if (migration.getVersion() < currentVersion) {
+                throw new IllegalStateException("迁移 V" + migration.getVersion()
+                        + " 低于当前结构版本 V" + currentVersion + " 且未执行");
+            }
+            apply(context, migration);
+            currentVersion = migration.getVersion();
+        }
+    }
+
+    private void apply(MigrationContext context, Migration migration) {
+        String type = migration instanceof SqlMigration ? "SQL" : "JAVA";
+        long start = System.currentTimeMillis();
+        try {
+            migration.migrate(context);
+        } catch (RuntimeException e) {
+            // MySQL 的 DDL 不能回滚：记录失败，修复后删除该记录再启动
+            record(context, migration.getVersion(), migration.getDescription(), type, migration.getChecksum(),
+                    System.currentTimeMillis() - start, false);
+            throw new IllegalStateException("迁移 V" + migration.getVersion() + " 失败: " + e.getMessage(), e);
+        }
+        long elapsed = System.currentTimeMillis() - start;
+        record(context, migration.getVersion(), migration.getDescription(), type, migration.getChecksum(), elapsed, true);
+        System.out.println("已执行结构迁移 V" + migration.getVersion() + " " + migration.getDescription()
+                + "（" + elapsed + "ms）");
+    }
+
+    // 校验迁移记录，返回已成功执行的版本 -> 校验和
+    private Map<Integer, Integer> validate(MigrationContext context, List<Migration> migrations) {
+        Map<Integer, Migration> byVersion = new HashMap<>();
+        for (Migration migration : migrations) {
+            if (byVersion.put(migration.getVersion(), migration) != null) {
+                throw new IllegalStateException("迁移版本重复: V" + migration.getVersion());
+            }
+        }
+        Map<Integer, Integer> applied = new HashMap<>();
+        context.getJdbcTemplate().query("SELECT version, type, checksum, success FROM " + HISTORY_TABLE, rs -> {
+            int version = rs.getInt("version");
+            if (!rs.getBoolean("success")) {
+                throw new IllegalStateException("迁移 V" + version
+                        + " 上次执行失败，修复数据库后删除 " + HISTORY_TABLE + " 中该记录再启动");
+            }
+            Integer checksum = (Integer) rs.getObject("checksum");
+            Migration migration = byVersion.get(version);
+            if ("SQL".equals(rs.getString("type")) && migration != null
+                    && !Objects.equals(checksum, migration.getChecksum())) {
+                throw new IllegalStateException("已执行的迁移脚本被修改: V" + version);
+            }
+            applied.put(version, checksum);
+        });
+        return applied;
+    }
+
+    private List<Migration> loadMigrations() {
+        List<Migration> migrations = new ArrayList<>(javaMigrations);
+        try {
+            for (Resource resource : new PathMatchingResourcePatternResolver().getResources(locations)) {
+                migrations.add(SqlMigration.load(resource));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取迁移脚本失败: " + locations, e);
+        }
+        migrations.sort(Comparator.comparingInt(Migration::getVersion));
+        return migrations;
+    }
+
+    private static int readCurrentVersion(MigrationContext context) {
+        Integer version = context.getJdbcTemplate().queryForObject(
+                "SELECT MAX(version) FROM " + HISTORY_TABLE + " WHERE success = TRUE", Integer.class);
+        return version != null ? version : 0;
+    }
+
+    private static void record(MigrationContext context, int version, String description, String type,
+                               Integer checksum, long executionMillis, boolean success) {
+        context.getJdbcTemplate().update("INSERT INTO " + HISTORY_TABLE
+                        + " (version, description, type, checksum, installed_at, execution_millis, success) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                version, description, type, checksum, new Timestamp(System.currentTimeMillis()), executionMillis, success);
+    }
+
+    private void lock(MigrationContext context) {
+        if (!context.isMySql()) {
+            return;
+        }
+        Integer locked = context.getJdbcTemplate().queryForObject("SELECT GET_LOCK(?, ?)", Integer.class,
+                LOCK_NAME, lockTimeoutSeconds);
+        if (locked == null || locked != 1) {
+            throw new IllegalStateException("等待其他节点完成结构迁移超时（" + lockTimeoutSeconds + "s）");
+        }
+    }
+
+    private static void unlock(MigrationContext context) {
+        if (context.isMySql()) {
+            context.getJdbcTemplate().queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, LOCK_NAME);
+        }
+    }
+}
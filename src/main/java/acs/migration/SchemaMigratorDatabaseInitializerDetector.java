@@ -0,0 +1,23 @@
+package acs.migration;
+
+import org.springframework.boot.sql.init.dependency.AbstractBeansOfTypeDatabaseInitializerDetector;
+
+import java.util.Set;
+
+/**
+ * 把 SchemaMigrator 登记为数据库初始化器：JPA、JdbcTemplate 等依赖数据库的组件在迁移完成后才创建，
+ * spring.sql.init 的数据脚本也在迁移之后执行
+ */
+public class SchemaMigratorDatabaseInitializerDetector extends AbstractBeansOfTypeDatabaseInitializerDetector {
+
+    @Override
+    protected Set<Class<?>> getDatabaseInitializerBeanTypes() {
+        return Set.of(SchemaMigrator.class);
+    }
+
+    // 与 Flyway 相同，先于 spring.sql.init 脚本
+    @Override
+    public int getOrder() {
+        return 1;
+    }
+}
@@ -0,0 +1,101 @@
+package acs.migration;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 来自 classpath 的 SQL 迁移脚本：V{版本}__{描述}.sql，语句以分号结尾
+ */
+class SqlMigration implements Migration {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final int version;
+    private final String description;
+    private final String script;
+
+    SqlMigration(int version, String description, String script) {
+        this.version = version;
+        this.description = description;
+        this.script = script;
+    }
+
+    static SqlMigration load(Resource resource) {
+        Matcher matcher = FILE_NAME.matcher(resource.getFilename() != null ? resource.getFilename() : "");
+        if (!matcher.matches()) {
+            throw new IllegalStateException("迁移脚本命名应为 V{版本}__{描述}.sql: " + resource.getFilename());
+        }
+        try {
+            String script = new String(resource.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            return new SqlMigration(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '), script);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取迁移脚本失败: " + resource.getFilename(), e);
+        }
+    }
+
+    @Override
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public void migrate(MigrationContext context) {
+        for (String statement : statements(script)) {
+            context.execute(statement);
+        }
+    }
+
+    // 忽略换行符差异
+    @Override
+    public Integer getChecksum() {
+        CRC32 crc = new CRC32();
+        crc.update(script.replace("\r\n", "\n").getBytes(StandardCharsets.UTF_8));
+        return (int) crc.getValue();
+    }
+
+    // 按分号拆分语句，去掉 -- 注释（引号内的内容原样保留）
+    static List<String> statements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < script.length(); i++) {
+            char c = script.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && c == '-' && i + 1 < script.length() && script.charAt(i + 1) == '-') {
+                while (i < script.length() && script.charAt(i) != '\n') {
+                    i++;
+                }
+                current.append('\n');
+                continue;
+            } else if (!quoted && c == ';') {
+                addStatement(statements, current);
+                continue;
+            }
+            current.append(c);
+        }
+        addStatement(statements, current);
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current) {
+        String statement = current.toString().strip();
+        if (!statement.isEmpty()) {
+            statements.add(statement);
+        }
+        current.setLength(0);
+    }
+}
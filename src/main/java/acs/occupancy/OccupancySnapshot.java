@@ -0,0 +1,43 @@
+package acs.occupancy;
+
+import acs.domain.ResourceType;
+
+/**
+ * OccupancySnapshot 是某一时刻单个资源的在内人数（只读 DTO）
+ */
+public class OccupancySnapshot {
+
+    private final String resourceId;
+    private final String resourceName;
+    private final ResourceType resourceType;
+    private final long occupants;
+    private final int capacity;   // 0 表示不限
+
+    public OccupancySnapshot(String resourceId, String resourceName, ResourceType resourceType, long occupants, int capacity) {
+        this.resourceId = resourceId;
+        this.resourceName = resourceName;
+        this.resourceType = resourceType;
+        this.occupants = occupants;
+        this.capacity = capacity;
+    }
+
+    public String getResourceId() {
+        return resourceId;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public ResourceType getResourceType() {
+        return resourceType;
+    }
+
+    public long getOccupants() {
+        return occupants;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,152 @@
+package acs.occupancy;
+
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.log.journal.JournalBatch;
+import acs.log.journal.JournalPosition;
+import acs.log.journal.LogJournal;
+import acs.repository.AccessLogRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OccupancyTracker 维护每个资源的实时在内人数
+ *
+ * - 每次 ALLOW 的进入 / 离开刷卡更新内存状态，不查询日志
+ * - 快照遍历资源表，耗时与资源数量成正比，与日志数量无关
+ * - 重启时按时间顺序重放最近一段时间内带方向的 ALLOW 日志重建状态（重放不受容量限制）；
+ *   日志先写本地日志、再异步写入数据库，上次运行留下的、尚未回放到数据库的尾部也一并重放（按事件ID去重）
+ * - 运行期间定期清理超过 reconcileHours 仍未离开的徽章，与重启重建的口径一致，
+ *   只有进入读卡器的门不会无限累积
+ */
+@Component
+public class OccupancyTracker {
+
+    private final LocalCacheManager cacheManager;
+    private final AccessLogRepository accessLogRepository;
+    private final LogJournal journal;
+    private final long reconcileHours;
+
+    private final ConcurrentHashMap<String, ResourceOccupancy> occupancies = new ConcurrentHashMap<>();
+
+    public OccupancyTracker(LocalCacheManager cacheManager, AccessLogRepository accessLogRepository, LogJournal journal,
+                            @Value("${acs.occupancy.reconcile-hours:24}") long reconcileHours) {
+        this.cacheManager = cacheManager;
+        this.accessLogRepository = accessLogRepository;
+        this.journal = journal;
+        this.reconcileHours = reconcileHours;
+    }
+
+    // 从日志重建在内人数（超过 reconcileHours 仍未刷卡离开的记录视为已离开）
+    @PostConstruct
+    public void reconcileFromLogs() {
+        occupancies.clear();
+        LocalDateTime since = LocalDateTime.now().minusHours(reconcileHours);
+        List<LogEntry> logs = new ArrayList<>(accessLogRepository
+                .findByDecisionAndDirectionIsNotNullAndTimestampAfterOrderByTimestampAsc(AccessDecision.ALLOW, since));
+        Set<String> eventIds = new HashSet<>();
+        for (LogEntry log : logs) {
+            eventIds.add(log.getEventId());
+        }
+        // 本地日志中尚未回放的部分（检查点之后，可能与数据库中已写入的重叠）
+        JournalPosition position = journal.checkpoint();
+        while (true) {
+            JournalBatch batch = journal.read(position, 1000);
+            if (batch.entries().isEmpty()) {
+                break;
+            }
+            for (LogEntry log : batch.entries()) {
+                if (log.getDecision() == AccessDecision.ALLOW && log.getDirection() != null
+                        && log.getTimestamp().isAfter(since) && eventIds.add(log.getEventId())) {
+                    logs.add(log);
+                }
+            }
+            position = batch.next();
+        }
+        logs.sort(Comparator.comparing(LogEntry::getTimestamp));
+
+        for (LogEntry log : logs) {
+            if (log.getResourceId() == null || log.getBadgeId() == null) {
+                continue;
+            }
+            if (log.getDirection() == AccessDirection.ENTRY) {
+                occupancyOf(log.getResourceId()).enter(log.getBadgeId(), CachedResource.UNLIMITED, log.getTimestamp());
+            } else {
+                occupancyOf(log.getResourceId()).exit(log.getBadgeId());
+            }
+        }
+    }
+
+    /**
+     * 记录进入
+     *
+     * @param capacity 资源容量上限（CachedResource.UNLIMITED 表示不限）
+     * @return 是否允许进入（已在内的徽章重复进入总是允许）
+     */
+    public boolean enter(String resourceId, String badgeId, int capacity) {
+        return occupancyOf(resourceId).enter(badgeId, capacity, LocalDateTime.now());
+    }
+
+    /** 记录离开 */
+    public void exit(String resourceId, String badgeId) {
+        ResourceOccupancy occupancy = occupancies.get(resourceId);
+        if (occupancy != null) {
+            occupancy.exit(badgeId);
+        }
+    }
+
+    // 清理超过 reconcileHours 仍未刷卡离开的记录
+    @Scheduled(fixedDelayString = "${acs.occupancy.sweep-millis:60000}")
+    public void expireStale() {
+        expireEnteredBefore(LocalDateTime.now().minusHours(reconcileHours));
+    }
+
+    // 返回清理的记录数
+    int expireEnteredBefore(LocalDateTime cutoff) {
+        int expired = 0;
+        for (ResourceOccupancy occupancy : occupancies.values()) {
+            expired += occupancy.expireEnteredBefore(cutoff);
+        }
+        return expired;
+    }
+
+    /** 资源当前在内人数 */
+    public long occupantsOf(String resourceId) {
+        ResourceOccupancy occupancy = occupancies.get(resourceId);
+        return occupancy != null ? occupancy.count() : 0;
+    }
+
+    /** 资源当前在内的徽章（疏散时核对人员） */
+    public Set<String> badgesIn(String resourceId) {
+        ResourceOccupancy occupancy = occupancies.get(resourceId);
+        return occupancy != null ? occupancy.presentBadges() : Set.of();
+    }
+
+    /** 所有资源的在内人数快照 */
+    public List<OccupancySnapshot> snapshot() {
+        List<CachedResource> resources = cacheManager.getResources();
+        List<OccupancySnapshot> snapshots = new ArrayList<>(resources.size());
+        for (CachedResource resource : resources) {
+            snapshots.add(new OccupancySnapshot(resource.getResourceId(), resource.getResourceName(),
+                    resource.getResourceType(), occupantsOf(resource.getResourceId()), resource.getCapacity()));
+        }
+        return snapshots;
+    }
+
+    private ResourceOccupancy occupancyOf(String resourceId) {
+        return occupancies.computeIfAbsent(resourceId, id -> new ResourceOccupancy());
+    }
+}
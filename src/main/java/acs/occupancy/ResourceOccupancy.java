@@ -0,0 +1,71 @@
+package acs.occupancy;
+
+import acs.cache.CachedResource;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ResourceOccupancy 是单个资源的实时在内状态
+ *
+ * - present：当前在内的徽章及最近一次进入时间（同一徽章重复进入不重复计数，只刷新时间）
+ * - count：在内人数，LongAdder 分段计数，读取不与写入争用
+ * - 有容量上限时，进入的“检查 + 计数”在本对象上串行，保证不超过上限；不限容量时完全无锁
+ */
+final class ResourceOccupancy {
+
+    private final ConcurrentHashMap<String, LocalDateTime> present = new ConcurrentHashMap<>();
+    private final LongAdder count = new LongAdder();
+
+    // 进入；超过容量返回 false（已在内的徽章总是返回 true）
+    boolean enter(String badgeId, int capacity, LocalDateTime enteredAt) {
+        if (capacity == CachedResource.UNLIMITED) {
+            if (present.put(badgeId, enteredAt) == null) {
+                count.increment();
+            }
+            return true;
+        }
+        synchronized (this) {
+            if (present.replace(badgeId, enteredAt) != null) {
+                return true;
+            }
+            if (count.sum() >= capacity) {
+                return false;
+            }
+            present.put(badgeId, enteredAt);
+            count.increment();
+            return true;
+        }
+    }
+
+    // 离开（不在内的徽章忽略）
+    void exit(String badgeId) {
+        if (present.remove(badgeId) != null) {
+            count.decrement();
+        }
+    }
+
+    // 移除 cutoff 之前进入、之后未再进入的徽章，返回移除数
+    int expireEnteredBefore(LocalDateTime cutoff) {
+        int expired = 0;
+        for (Map.Entry<String, LocalDateTime> entry : present.entrySet()) {
+            // 按值移除：期间重新进入（时间已刷新）或已离开的不受影响
+            if (entry.getValue().isBefore(cutoff) && present.remove(entry.getKey(), entry.getValue())) {
+                count.decrement();
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    Set<String> presentBadges() {
+        return Set.copyOf(present.keySet());
+    }
+}
@@ -0,0 +1,126 @@
+package acs.replay;
+
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import acs.service.AccessControlService;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * DecisionReplayer 把轨迹逐条回放到任意 AccessControlService 实现上
+ *
+ * - 单线程按轨迹顺序调用：占用、租约与在内人数依赖先后顺序，并发回放的结果不可重现
+ * - 比对每条结果的决策与原因码（即轨迹中编码的那个字节），提示信息不参与比对
+ * - 每次调用单独计时，报告吞吐与延迟分布；预热记录只比对不计时
+ *
+ * 结果可重现的前提：
+ * - 目标加载的授权数据与录制时一致（快照版本相同）
+ * - 目标的运行时状态（封锁、占用、租约、在内人数）与录制开始时一致，通常是新建的空状态
+ * - 目标不应写入生产日志：回放用的实例应注入丢弃日志的 LogService
+ */
+public class DecisionReplayer {
+
+    /**
+     * 回放一条轨迹
+     *
+     * @param trace  轨迹（从当前位置读到结束）
+     * @param target 回放目标
+     */
+    public ReplayReport replay(TraceReader trace, AccessControlService target, ReplayOptions options)
+            throws IOException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<ReplayMismatch> samples = new ArrayList<>();
+        long replayed = 0;
+        long unchecked = 0;
+        long mismatches = 0;
+        long maxLagNanos = 0;
+
+        Instant firstTimestamp = null;
+        long paceStart = 0;
+        long measuredStart = System.nanoTime();
+        long measuredEnd = measuredStart;
+
+        for (TraceRecord record = trace.next(); record != null; record = trace.next()) {
+            if (options.pace() == ReplayPace.RECORDED) {
+                if (firstTimestamp == null) {
+                    firstTimestamp = record.timestamp();
+                    paceStart = System.nanoTime();
+                }
+                long offset = Duration.between(firstTimestamp, record.timestamp()).toNanos();
+                long due = paceStart + (long) (offset / options.speed());
+                long lag = waitUntil(due);
+                maxLagNanos = Math.max(maxLagNanos, lag);
+            }
+            if (replayed == options.warmup()) {
+                measuredStart = System.nanoTime();
+            }
+
+            long start = System.nanoTime();
+            AccessResult result = invoke(target, record);
+            long end = System.nanoTime();
+            if (replayed >= options.warmup()) {
+                histogram.record(end - start);
+                measuredEnd = end;
+            }
+
+            if (!record.hasExpectation()) {
+                unchecked++;
+            } else if (!record.matches(result)) {
+                mismatches++;
+                if (samples.size() < options.mismatchSamples()) {
+                    samples.add(new ReplayMismatch(replayed, record,
+                            result != null ? result.getDecision() : null,
+                            result != null ? result.getReasonCode() : null));
+                }
+            }
+            replayed++;
+        }
+
+        LatencySummary latency = histogram.summary();
+        long elapsedNanos = latency.count() > 0 ? measuredEnd - measuredStart : 0;
+        double throughput = elapsedNanos > 0 ? latency.count() * 1_000_000_000.0 / elapsedNanos : 0;
+        return new ReplayReport(trace.header().snapshotVersion(), options.targetSnapshotVersion(), replayed, unchecked,
+                mismatches, List.copyOf(samples), elapsedNanos, throughput, latency, maxLagNanos);
+    }
+
+    /**
+     * 以参考实现的结果作为期望结果重写轨迹（合成轨迹或只有请求的轨迹先经过这一步）
+     *
+     * @return 写出的记录数
+     */
+    public long recordExpectations(TraceReader trace, AccessControlService reference, TraceWriter out)
+            throws IOException {
+        long written = 0;
+        for (TraceRecord record = trace.next(); record != null; record = trace.next()) {
+            AccessResult result = invoke(reference, record);
+            out.write(result != null ? record.withExpectation(result) : record);
+            written++;
+        }
+        out.flush();
+        return written;
+    }
+
+    static AccessResult invoke(AccessControlService target, TraceRecord record) {
+        AccessRequest request = record.toRequest();
+        return record.operation() == TraceOperation.RELEASE
+                ? target.releaseAccess(request)
+                : target.processAccess(request);
+    }
+
+    // 等到计划时间；返回晚于计划的纳秒数
+    private static long waitUntil(long dueNanos) {
+        long remaining;
+        while ((remaining = dueNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                throw new IllegalStateException("回放被中断");
+            }
+        }
+        return -remaining;
+    }
+}
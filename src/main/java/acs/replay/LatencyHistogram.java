@@ -0,0 +1,63 @@
+package acs.replay;
+
+/**
+ * 对数线性的延迟直方图：每个 2 的幂区间分为 32 个桶，相对误差不超过约 3%，内存固定
+ *
+ * 只在回放线程上使用，不做同步。
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    LatencySummary summary() {
+        if (count == 0) {
+            return LatencySummary.EMPTY;
+        }
+        return new LatencySummary(count, sum / count, percentile(0.50), percentile(0.90), percentile(0.99),
+                percentile(0.999), max);
+    }
+
+    // 第 q 分位所在桶的下界（不超过最大值）
+    private long percentile(double q) {
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(lowerBound(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int highest = 63 - Long.numberOfLeadingZeros(value);
+        int group = highest - SUB_BITS + 1;
+        return group * SUB_BUCKETS + (int) (value >>> (group - 1)) - SUB_BUCKETS;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int group = bucket / SUB_BUCKETS;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << (group - 1);
+    }
+}
@@ -0,0 +1,10 @@
+package acs.replay;
+
+/**
+ * 一次回放的单次调用延迟分布（纳秒；分位数为直方图桶下界，相对误差约 3%）
+ */
+public record LatencySummary(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                             long p999Nanos, long maxNanos) {
+
+    static final LatencySummary EMPTY = new LatencySummary(0, 0, 0, 0, 0, 0, 0);
+}
@@ -0,0 +1,12 @@
+package acs.replay;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+
+/**
+ * 回放结果与期望不一致的一条记录
+ *
+ * @param index 记录在轨迹中的序号（从 0 开始）
+ */
+public record ReplayMismatch(long index, TraceRecord record, AccessDecision actualDecision, ReasonCode actualReason) {
+}
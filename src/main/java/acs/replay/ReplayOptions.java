@@ -0,0 +1,42 @@
+package acs.replay;
+
+/**
+ * 回放参数
+ *
+ * @param pace                  回放节奏
+ * @param speed                 RECORDED 节奏下的倍速（2 表示以两倍速度回放）
+ * @param warmup                前若干条只比对结果，不计入延迟与吞吐（预热）
+ * @param mismatchSamples       报告中保留的不一致样例数
+ * @param targetSnapshotVersion 回放目标的授权数据指纹；为 null 时不检查快照版本
+ */
+public record ReplayOptions(ReplayPace pace, double speed, int warmup, int mismatchSamples,
+                            Long targetSnapshotVersion) {
+
+    public ReplayOptions {
+        if (pace == null) {
+            throw new IllegalArgumentException("回放节奏不能为空");
+        }
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("回放倍速必须大于 0");
+        }
+        if (warmup < 0 || mismatchSamples < 0) {
+            throw new IllegalArgumentException("预热条数与样例数不能为负数");
+        }
+    }
+
+    public static ReplayOptions fullSpeed() {
+        return new ReplayOptions(ReplayPace.FULL_SPEED, 1, 0, 100, null);
+    }
+
+    public static ReplayOptions recordedPace(double speed) {
+        return new ReplayOptions(ReplayPace.RECORDED, speed, 0, 100, null);
+    }
+
+    public ReplayOptions withWarmup(int warmup) {
+        return new ReplayOptions(pace, speed, warmup, mismatchSamples, targetSnapshotVersion);
+    }
+
+    public ReplayOptions withTargetSnapshot(long snapshotVersion) {
+        return new ReplayOptions(pace, speed, warmup, mismatchSamples, snapshotVersion);
+    }
+}
@@ -0,0 +1,11 @@
+package acs.replay;
+
+/**
+ * 回放节奏
+ */
+public enum ReplayPace {
+    /** 不等待，逐条连续调用（测吞吐） */
+    FULL_SPEED,
+    /** 按录制时请求之间的时间间隔（可按倍速缩放）发出请求 */
+    RECORDED
+}
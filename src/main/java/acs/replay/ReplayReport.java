@@ -0,0 +1,32 @@
+package acs.replay;
+
+import java.util.List;
+
+/**
+ * 一次回放的结果
+ *
+ * @param traceSnapshotVersion  轨迹录制时的快照版本
+ * @param targetSnapshotVersion 回放目标的快照版本（未提供时为 null）
+ * @param replayed              回放的记录数
+ * @param unchecked             没有期望结果、只计时的记录数
+ * @param mismatches            决策或原因码与期望不一致的记录数
+ * @param samples               不一致样例（最多 ReplayOptions.mismatchSamples 条）
+ * @param elapsedNanos          计时区间（不含预热）的耗时
+ * @param throughputPerSecond   计时区间的每秒请求数
+ * @param latency               计时区间的单次调用延迟分布
+ * @param maxLagNanos           RECORDED 节奏下请求晚于计划发出时间的最大值（目标跟不上录制节奏时变大）
+ */
+public record ReplayReport(long traceSnapshotVersion, Long targetSnapshotVersion, long replayed, long unchecked,
+                           long mismatches, List<ReplayMismatch> samples, long elapsedNanos,
+                           double throughputPerSecond, LatencySummary latency, long maxLagNanos) {
+
+    /** 快照版本是否一致（未提供目标版本时视为一致） */
+    public boolean snapshotMatches() {
+        return targetSnapshotVersion == null || targetSnapshotVersion == traceSnapshotVersion;
+    }
+
+    /** 快照版本一致且所有有期望结果的记录都与期望一致 */
+    public boolean identical() {
+        return snapshotMatches() && mismatches == 0;
+    }
+}
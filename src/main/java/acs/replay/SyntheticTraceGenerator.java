@@ -0,0 +1,90 @@
+package acs.replay;
+
+import acs.domain.AccessDirection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * SyntheticTraceGenerator 按固定种子生成合成刷卡轨迹（只有请求，期望结果由 DecisionReplayer.recordExpectations 补齐）
+ *
+ * - 请求间隔服从指数分布（平均 meanInterval）
+ * - 徽章与资源的选择偏向列表前部（少数热门徽章 / 资源占大部分刷卡）
+ * - 已进入某资源的徽章有 exitRatio 的概率离开该资源；unknownRatio 的请求使用不存在的徽章
+ *
+ * 相同的种子与参数生成完全相同的轨迹。
+ */
+public class SyntheticTraceGenerator {
+
+    private final long seed;
+    private final List<String> badgeIds;
+    private final List<String> resourceIds;
+    private double exitRatio = 0.3;
+    private double unknownRatio = 0.01;
+
+    public SyntheticTraceGenerator(long seed, List<String> badgeIds, List<String> resourceIds) {
+        if (badgeIds.isEmpty() || resourceIds.isEmpty()) {
+            throw new IllegalArgumentException("生成轨迹需要至少一个徽章与一个资源");
+        }
+        this.seed = seed;
+        this.badgeIds = List.copyOf(badgeIds);
+        this.resourceIds = List.copyOf(resourceIds);
+    }
+
+    public SyntheticTraceGenerator exitRatio(double exitRatio) {
+        this.exitRatio = exitRatio;
+        return this;
+    }
+
+    public SyntheticTraceGenerator unknownRatio(double unknownRatio) {
+        this.unknownRatio = unknownRatio;
+        return this;
+    }
+
+    /**
+     * 生成 count 条请求写入 writer
+     *
+     * @param start 第一条请求的时间
+     */
+    public void generate(Instant start, int count, Duration meanInterval, TraceWriter writer) throws IOException {
+        if (count < 0 || meanInterval.isNegative()) {
+            throw new IllegalArgumentException("请求数与平均间隔不能为负数");
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        Map<String, String> inside = new HashMap<>();  // 徽章 -> 所在资源
+        double meanMicros = meanInterval.toNanos() / 1_000.0;
+        Instant time = start;
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                time = time.plusNanos((long) (-Math.log(1 - random.nextDouble()) * meanMicros) * 1_000);
+            }
+            if (random.nextDouble() < unknownRatio) {
+                writer.write(TraceRecord.request(time, TraceOperation.PROCESS, "SYN-UNKNOWN-" + random.nextInt(1000),
+                        pick(resourceIds, random), AccessDirection.ENTRY));
+                continue;
+            }
+            String badgeId = pick(badgeIds, random);
+            String current = inside.get(badgeId);
+            if (current != null && random.nextDouble() < exitRatio) {
+                inside.remove(badgeId);
+                writer.write(TraceRecord.request(time, TraceOperation.PROCESS, badgeId, current, AccessDirection.EXIT));
+                continue;
+            }
+            String resourceId = pick(resourceIds, random);
+            inside.put(badgeId, resourceId);
+            writer.write(TraceRecord.request(time, TraceOperation.PROCESS, badgeId, resourceId, AccessDirection.ENTRY));
+        }
+        writer.flush();
+    }
+
+    // 平方分布：列表前部被选中的概率更高
+    private static String pick(List<String> ids, SplittableRandom random) {
+        double u = random.nextDouble();
+        return ids.get((int) (u * u * ids.size()));
+    }
+}
@@ -0,0 +1,12 @@
+package acs.replay;
+
+import java.time.Instant;
+
+/**
+ * 轨迹文件头
+ *
+ * @param snapshotVersion 录制时的授权数据指纹（LocalCacheManager.authorizationFingerprint）
+ * @param recordedAt      录制（导出 / 生成）时间
+ */
+public record TraceHeader(long snapshotVersion, Instant recordedAt) {
+}
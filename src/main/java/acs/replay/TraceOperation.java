@@ -0,0 +1,11 @@
+package acs.replay;
+
+/**
+ * 轨迹中一条请求调用的入口
+ */
+public enum TraceOperation {
+    /** AccessControlService.processAccess */
+    PROCESS,
+    /** AccessControlService.releaseAccess */
+    RELEASE
+}
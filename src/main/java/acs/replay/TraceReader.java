@@ -0,0 +1,155 @@
+package acs.replay;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.ReasonCode;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * TraceReader 顺序读取 TraceWriter 写出的轨迹
+ *
+ * 文件头不合法时抛出 IllegalStateException；记录中途遇到文件末尾（录制中断）视为轨迹结束。
+ * 期望结果按文件头中的名称表映射，录制时的枚举序号与当前版本不同也能正确读出；
+ * 名称表中有当前版本已删除的常量时映射为 null，用到时抛出 IllegalStateException。
+ */
+public class TraceReader implements Closeable {
+
+    private final DataInputStream in;
+    private final TraceHeader header;
+    // 录制时的序号 -> 当前版本的枚举
+    private final AccessDecision[] decisions;
+    private final ReasonCode[] reasons;
+    private final List<String> dictionary = new ArrayList<>();
+    private long previousMicros;
+    private boolean truncated;
+
+    public TraceReader(InputStream input) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(input, 64 * 1024));
+        try {
+            if (in.readInt() != TraceWriter.MAGIC) {
+                throw new IllegalStateException("不是决策回放轨迹文件");
+            }
+            int version = in.readInt();
+            if (version != TraceWriter.VERSION) {
+                throw new IllegalStateException("不支持的轨迹版本: " + version);
+            }
+            this.header = new TraceHeader(in.readLong(), Instant.ofEpochMilli(in.readLong()));
+            this.decisions = readNames(AccessDecision.class, AccessDecision[]::new);
+            this.reasons = readNames(ReasonCode.class, ReasonCode[]::new);
+        } catch (EOFException e) {
+            throw new IllegalStateException("轨迹文件头不完整", e);
+        }
+    }
+
+    public TraceHeader header() {
+        return header;
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 下一条记录；轨迹结束时返回 null
+     */
+    public TraceRecord next() throws IOException {
+        int flags = in.read();
+        if (flags < 0) {
+            return null;
+        }
+        try {
+            long zigzag = readVarLong();
+            previousMicros += zigzag >>> 1 ^ -(zigzag & 1);
+            String badgeId = readId();
+            String resourceId = readId();
+            AccessDecision decision = null;
+            ReasonCode reason = null;
+            if ((flags & TraceWriter.FLAG_EXPECTED) != 0) {
+                int expectation = in.readUnsignedByte();
+                decision = decisions[expectation & 0x3];
+                reason = reasons[expectation >>> 2];
+                if (decision == null || reason == null) {
+                    throw new IllegalStateException("轨迹中的期望结果在当前版本中不存在: " + expectation);
+                }
+            }
+            return new TraceRecord(
+                    Instant.ofEpochSecond(Math.floorDiv(previousMicros, 1_000_000L),
+                            Math.floorMod(previousMicros, 1_000_000L) * 1_000),
+                    (flags & TraceWriter.FLAG_RELEASE) != 0 ? TraceOperation.RELEASE : TraceOperation.PROCESS,
+                    badgeId, resourceId,
+                    (flags & TraceWriter.FLAG_EXIT) != 0 ? AccessDirection.EXIT : AccessDirection.ENTRY,
+                    decision, reason);
+        } catch (EOFException e) {
+            truncated = true;
+            return null;
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalStateException("轨迹记录已损坏", e);
+        }
+    }
+
+    /** 最后一条记录是否不完整（录制中断） */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private <E extends Enum<E>> E[] readNames(Class<E> type, IntFunction<E[]> newArray) throws IOException {
+        long count = readVarLong();
+        if (count > 64) {
+            throw new IllegalStateException("轨迹文件头已损坏: 名称表长度 " + count);
+        }
+        E[] table = newArray.apply((int) count);
+        for (int i = 0; i < table.length; i++) {
+            String name = in.readUTF();
+            try {
+                table[i] = Enum.valueOf(type, name);
+            } catch (IllegalArgumentException e) {
+                table[i] = null;  // 当前版本已删除的常量
+            }
+        }
+        return table;
+    }
+
+    private String readId() throws IOException {
+        int index = (int) readVarLong();
+        if (index == 0) {
+            return null;
+        }
+        if (index <= dictionary.size()) {
+            return dictionary.get(index - 1);
+        }
+        if (index != dictionary.size() + 1) {
+            throw new IllegalStateException("轨迹记录已损坏: 字典序号 " + index);
+        }
+        byte[] bytes = new byte[(int) readVarLong()];
+        in.readFully(bytes);
+        String id = new String(bytes, StandardCharsets.UTF_8);
+        dictionary.add(id);
+        return id;
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalStateException("轨迹记录已损坏: varint 过长");
+    }
+}
@@ -0,0 +1,57 @@
+package acs.replay;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import acs.domain.ReasonCode;
+
+import java.time.Instant;
+
+/**
+ * 轨迹中的一条请求及其期望结果（期望结果为空表示尚未录制，回放时只计时不比对）
+ */
+public record TraceRecord(Instant timestamp, TraceOperation operation, String badgeId, String resourceId,
+                          AccessDirection direction, AccessDecision expectedDecision, ReasonCode expectedReason) {
+
+    public TraceRecord {
+        if (timestamp == null || operation == null || direction == null) {
+            throw new IllegalArgumentException("轨迹记录缺少时间、入口或方向");
+        }
+        if ((expectedDecision == null) != (expectedReason == null)) {
+            throw new IllegalArgumentException("期望的决策与原因码必须同时存在");
+        }
+    }
+
+    /** 没有期望结果的请求 */
+    public static TraceRecord request(Instant timestamp, TraceOperation operation, String badgeId, String resourceId,
+                                      AccessDirection direction) {
+        return new TraceRecord(timestamp, operation, badgeId, resourceId, direction, null, null);
+    }
+
+    public boolean hasExpectation() {
+        return expectedDecision != null;
+    }
+
+    /** 以实际结果作为期望结果 */
+    public TraceRecord withExpectation(AccessResult result) {
+        return new TraceRecord(timestamp, operation, badgeId, resourceId, direction,
+                result.getDecision(), result.getReasonCode());
+    }
+
+    /** 实际结果的决策与原因码是否与期望一致 */
+    public boolean matches(AccessResult result) {
+        return result != null && result.getDecision() == expectedDecision && result.getReasonCode() == expectedReason;
+    }
+
+    public AccessRequest toRequest() {
+        AccessRequest request = new AccessRequest(badgeId, resourceId, timestamp);
+        request.setDirection(direction);
+        return request;
+    }
+
+    public static TraceRecord of(TraceOperation operation, AccessRequest request) {
+        return request(request.getTimestamp(), operation, request.getBadgeId(), request.getResourceId(),
+                request.getDirection() != null ? request.getDirection() : AccessDirection.ENTRY);
+    }
+}
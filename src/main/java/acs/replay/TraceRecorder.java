@@ -0,0 +1,84 @@
+package acs.replay;
+
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import acs.service.AccessControlService;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * TraceRecorder 包装一个 AccessControlService，把经过的请求与结果写入轨迹
+ *
+ * 与被包装的服务一样不抛出异常：写轨迹失败时记录错误并停止录制，访问判断不受影响。
+ * 没有时间戳的请求无法按时间回放，不录制（仍然转发）。关闭后继续转发请求，不再录制。
+ */
+public class TraceRecorder implements AccessControlService, Closeable {
+
+    private final AccessControlService delegate;
+    private final TraceWriter writer;
+    private volatile boolean failed;
+    private boolean closed;
+    private long skipped;
+
+    public TraceRecorder(AccessControlService delegate, TraceWriter writer) {
+        this.delegate = delegate;
+        this.writer = writer;
+    }
+
+    @Override
+    public AccessResult processAccess(AccessRequest request) {
+        AccessResult result = delegate.processAccess(request);
+        record(TraceOperation.PROCESS, request, result);
+        return result;
+    }
+
+    @Override
+    public AccessResult releaseAccess(AccessRequest request) {
+        AccessResult result = delegate.releaseAccess(request);
+        record(TraceOperation.RELEASE, request, result);
+        return result;
+    }
+
+    // 轨迹顺序即调用完成的顺序
+    private synchronized void record(TraceOperation operation, AccessRequest request, AccessResult result) {
+        if (failed || closed) {
+            return;
+        }
+        if (request == null || request.getTimestamp() == null || result == null
+                || result.getDecision() == null || result.getReasonCode() == null) {
+            skipped++;
+            return;
+        }
+        try {
+            writer.write(TraceRecord.of(operation, request).withExpectation(result));
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            System.err.println("写入决策回放轨迹失败，停止录制: " + e.getMessage());
+        }
+    }
+
+    /** 停止录制并关闭轨迹（写出缓冲中的记录） */
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            writer.close();
+        }
+    }
+
+    /** 录制是否因写入失败而停止 */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /** 未录制的请求数 */
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    /** 已录制的记录数 */
+    public synchronized long getRecorded() {
+        return writer.records();
+    }
+}
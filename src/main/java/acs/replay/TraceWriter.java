@@ -0,0 +1,140 @@
+package acs.replay;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.ReasonCode;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * TraceWriter 以紧凑的二进制格式写出决策回放轨迹
+ *
+ * 文件格式：
+ * - 文件头：magic（"ACST"）、版本、快照版本（long）、录制时间（epoch 毫秒）、
+ *   决策与原因码的名称表（数量 + 各枚举名，序号即表中位置）
+ * - 记录：标志字节（EXIT / RELEASE / 有期望结果）、与上一条的时间差（微秒，zigzag varint）、
+ *   徽章ID与资源ID（字典编码的 varint：0 为 null，首次出现的ID紧跟 UTF-8 长度与字节）、
+ *   有期望结果时再写一个字节（原因码在名称表中的序号 << 2 | 决策在名称表中的序号）
+ * - 没有记录数与结尾标记，读到文件末尾即结束（录制中断时已写出的记录仍可读取）
+ *
+ * 徽章与资源ID只在首次出现时写出，秒级间隔的刷卡一条记录通常不到 10 个字节。
+ * 读取时按名称表映射到当前版本的枚举，枚举增删常量后旧轨迹仍能正确读出期望结果。
+ */
+public class TraceWriter implements Closeable {
+
+    static final int MAGIC = 0x41435354;  // "ACST"
+    static final int VERSION = 2;
+
+    static final int FLAG_EXIT = 1;
+    static final int FLAG_RELEASE = 1 << 1;
+    static final int FLAG_EXPECTED = 1 << 2;
+
+    private final DataOutputStream out;
+    private final TraceHeader header;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private long previousMicros;
+    private long records;
+
+    public TraceWriter(OutputStream output, TraceHeader header) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(output, 64 * 1024));
+        this.header = header;
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(header.snapshotVersion());
+        out.writeLong(header.recordedAt().toEpochMilli());
+        writeNames(AccessDecision.values());
+        writeNames(ReasonCode.values());
+    }
+
+    public void write(TraceRecord record) throws IOException {
+        int flags = 0;
+        if (record.direction() == AccessDirection.EXIT) {
+            flags |= FLAG_EXIT;
+        }
+        if (record.operation() == TraceOperation.RELEASE) {
+            flags |= FLAG_RELEASE;
+        }
+        if (record.hasExpectation()) {
+            flags |= FLAG_EXPECTED;
+        }
+        out.writeByte(flags);
+
+        long micros = toMicros(record);
+        writeVarLong((micros - previousMicros) << 1 ^ (micros - previousMicros) >> 63);
+        previousMicros = micros;
+
+        writeId(record.badgeId());
+        writeId(record.resourceId());
+        if (record.hasExpectation()) {
+            out.writeByte(encodeExpectation(record.expectedDecision(), record.expectedReason()));
+        }
+        records++;
+    }
+
+    public TraceHeader header() {
+        return header;
+    }
+
+    /** 已写出的记录数 */
+    public long records() {
+        return records;
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    static int encodeExpectation(AccessDecision decision, ReasonCode reason) {
+        return reason.ordinal() << 2 | decision.ordinal();
+    }
+
+    private static long toMicros(TraceRecord record) {
+        return Math.addExact(Math.multiplyExact(record.timestamp().getEpochSecond(), 1_000_000L),
+                record.timestamp().getNano() / 1_000);
+    }
+
+    private void writeNames(Enum<?>[] values) throws IOException {
+        writeVarLong(values.length);
+        for (Enum<?> value : values) {
+            out.writeUTF(value.name());
+        }
+    }
+
+    private void writeId(String id) throws IOException {
+        if (id == null) {
+            writeVarLong(0);
+            return;
+        }
+        Integer index = dictionary.get(id);
+        if (index != null) {
+            writeVarLong(index);
+            return;
+        }
+        index = dictionary.size() + 1;
+        dictionary.put(id, index);
+        writeVarLong(index);
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -1,26 +1,59 @@
 package acs.repository;
 
+import acs.domain.AccessDecision;
 import acs.domain.LogEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface AccessLogRepository extends JpaRepository<LogEntry, Long> {
 
+    // 以下查询都以 timestamp 范围为条件，分区表上只扫描范围内的日分区（分区裁剪）；ID 条件直接使用外键列
+    // 只读事务：启用只读副本时可由副本提供（见 ReplicaRouting）
+
     // 按徽章ID和时间范围查询
-    List<LogEntry> findByBadgeBadgeIdAndTimestampBetween(String badgeId, LocalDateTime start, LocalDateTime end);
+    @Transactional(readOnly = true)
+    List<LogEntry> findByBadgeIdAndTimestampBetween(String badgeId, LocalDateTime start, LocalDateTime end);
 
     // 按员工ID和时间范围查询
-    List<LogEntry> findByEmployeeEmployeeIdAndTimestampBetween(String employeeId, LocalDateTime start, LocalDateTime end);
+    @Transactional(readOnly = true)
+    List<LogEntry> findByEmployeeIdAndTimestampBetween(String employeeId, LocalDateTime start, LocalDateTime end);
 
     // 按资源ID和时间范围查询
-    List<LogEntry> findByResourceResourceIdAndTimestampBetween(String resourceId, LocalDateTime start, LocalDateTime end);
+    @Transactional(readOnly = true)
+    List<LogEntry> findByResourceIdAndTimestampBetween(String resourceId, LocalDateTime start, LocalDateTime end);
 
     // 按决策（DENY）和时间范围查询
-    List<LogEntry> findByDecisionAndTimestampBetween(String decision, LocalDateTime start, LocalDateTime end);
+    @Transactional(readOnly = true)
+    List<LogEntry> findByDecisionAndTimestampBetween(AccessDecision decision, LocalDateTime start, LocalDateTime end);
+
+    // 按时间升序加载所有日志（关联实体为懒加载，只读取ID列）
+    List<LogEntry> findAllByOrderByTimestampAsc();
+
+    // 按时间升序加载指定时间之后带方向的日志（重启时重建在内人数）
+    List<LogEntry> findByDecisionAndDirectionIsNotNullAndTimestampAfterOrderByTimestampAsc(AccessDecision decision, LocalDateTime after);
+
+    // 本地日志回放：已写入数据库的事件ID（去重）；批次的时间范围用于分区裁剪，只探测覆盖到的日分区
+    @Query("select l.eventId from LogEntry l where l.eventId in :eventIds and l.timestamp between :start and :end")
+    List<String> findExistingEventIds(@Param("eventIds") Collection<String> eventIds,
+                                      @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    // 日志清理：按主键顺序读取 afterId 之后、早于 before 的一个分块（只读取判断过期所需的列）
+    @Query("select new acs.repository.LogRetentionRow(l.id, l.timestamp, l.decision, l.reasonCode) " +
+            "from LogEntry l where l.id > :afterId and l.timestamp < :before order by l.id")
+    List<LogRetentionRow> findRetentionChunk(@Param("afterId") long afterId, @Param("before") LocalDateTime before,
+                                             Pageable pageable);
 
-    // 删除指定时间之前的日志
-    long deleteByTimestampBefore(LocalDateTime timestamp);
-}
\ No newline at end of file
+    // 日志清理：按主键删除一个分块
+    @Modifying
+    @Query("delete from LogEntry l where l.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
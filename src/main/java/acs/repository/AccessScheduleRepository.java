@@ -0,0 +1,16 @@
+package acs.repository;
+
+import acs.domain.AccessSchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AccessScheduleRepository extends JpaRepository<AccessSchedule, String> {
+
+    // 一次查询加载所有时间表及其时间段、节假日
+    @Query("select distinct s from AccessSchedule s left join fetch s.windows left join fetch s.holidays")
+    List<AccessSchedule> findAllWithWindowsAndHolidays();
+}
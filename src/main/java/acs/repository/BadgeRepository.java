@@ -2,9 +2,11 @@ package acs.repository;
 
 import acs.domain.Badge;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 // 泛型参数：第一个是对应实体类Badge，第二个是Badge主键的类型（需和Badge实体的主键类型一致）
@@ -14,4 +16,8 @@ public interface BadgeRepository extends JpaRepository<Badge, String> {
     Optional<Badge> findById(String badgeId);
     Optional<Badge> findByEmployeeEmployeeId(String employeeId);
 
+    // 一次查询加载所有徽章及其绑定员工（避免逐个徽章查询员工）
+    @Query("select b from Badge b left join fetch b.employee")
+    List<Badge> findAllWithEmployee();
+
 }
@@ -2,13 +2,23 @@ package acs.repository;
 
 import acs.domain.Employee;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface EmployeeRepository extends JpaRepository<Employee, String> {
 
     Optional<Employee> findByEmployeeNameContaining(String name);
+
+    // 一次查询加载所有员工及其徽章（避免逐个员工查询徽章）
+    @Query("select e from Employee e left join fetch e.badge")
+    List<Employee> findAllWithBadge();
+
+    // 直接读取 employee_groups 关联关系：(employeeId, groupId)
+    @Query("select new acs.repository.IdPair(e.employeeId, g.groupId) from Employee e join e.groups g")
+    List<IdPair> findAllEmployeeGroupIds();
 }
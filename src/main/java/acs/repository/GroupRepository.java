@@ -2,10 +2,21 @@ package acs.repository;
 
 import acs.domain.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface GroupRepository extends JpaRepository<Group, String> {
     // 默认的findById、save、delete等CRUD方法由JpaRepository提供，无需手动声明
     // 如需自定义查询（如按组名查询），可在此添加规范的方法签名（如Optional<Group> findByGroupName(String groupName)）
-}
\ No newline at end of file
+
+    // 一次查询加载所有组及其授权时间表（resourceId -> scheduleId）
+    @Query("select distinct g from Group g left join fetch g.resourceSchedules")
+    List<Group> findAllWithResourceSchedules();
+
+    // 直接读取 group_resources 关联关系：(groupId, resourceId)
+    @Query("select new acs.repository.IdPair(g.groupId, r.resourceId) from Group g join g.resources r")
+    List<IdPair> findAllGroupResourceIds();
+}
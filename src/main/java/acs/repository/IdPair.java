@@ -0,0 +1,11 @@
+package acs.repository;
+
+/**
+ * IdPair 表示关联表中的一行（两个ID），用于批量读取多对多关系
+ *
+ * 例如：
+ * - employee_groups：(employeeId, groupId)
+ * - group_resources：(groupId, resourceId)
+ */
+public record IdPair(String leftId, String rightId) {
+}
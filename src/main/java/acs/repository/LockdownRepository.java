@@ -0,0 +1,9 @@
+package acs.repository;
+
+import acs.domain.Lockdown;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LockdownRepository extends JpaRepository<Lockdown, String> {
+}
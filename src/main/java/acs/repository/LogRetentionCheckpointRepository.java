@@ -0,0 +1,9 @@
+package acs.repository;
+
+import acs.domain.LogRetentionCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LogRetentionCheckpointRepository extends JpaRepository<LogRetentionCheckpoint, String> {
+}
@@ -0,0 +1,12 @@
+package acs.repository;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 日志清理扫描时读取的列（不加载完整实体）
+ */
+public record LogRetentionRow(Long id, LocalDateTime timestamp, AccessDecision decision, ReasonCode reasonCode) {
+}
@@ -2,9 +2,29 @@ package acs.repository;
 
 import acs.domain.Resource;
 
+import acs.domain.ResourceState;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 public interface ResourceRepository extends JpaRepository<Resource, String> {
     // 默认的findById、save、delete等CRUD方法由JpaRepository提供，无需手动声明
     // 如需自定义查询（如按资源名查询），可在此添加规范的方法签名（如Optional<Resource> findByResourceName(String resourceName)）
+
+    // 启动时恢复仍持有租约的资源
+    List<Resource> findByLeaseHolderIsNotNull();
+
+    // 写回租约状态（只覆盖 AVAILABLE / OCCUPIED，不覆盖管理员设置的 LOCKED / OFFLINE）
+    @Modifying
+    @Transactional
+    @Query("update Resource r set r.resourceState = :state, r.leaseHolder = :holder, r.leaseExpiresAt = :expiresAt " +
+            "where r.resourceId = :resourceId " +
+            "and r.resourceState in (acs.domain.ResourceState.AVAILABLE, acs.domain.ResourceState.OCCUPIED)")
+    int updateLease(@Param("resourceId") String resourceId, @Param("state") ResourceState state,
+                    @Param("holder") String holder, @Param("expiresAt") LocalDateTime expiresAt);
 }
@@ -0,0 +1,148 @@
+package acs.resilience;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Bulkheads 按工作负载隔离数据库访问
+ *
+ * - call：在调用线程上执行，经过该类的熔断器，执行期间线程被标记为该工作负载（连接从该类的配额中获取）
+ * - execute / submit：在该类独立的有界线程池上执行，队列满时立即拒绝，不会占用调用方线程
+ * - 只有数据库 / 事务类异常与慢调用计入熔断，业务校验异常不计入
+ */
+@Component
+public class Bulkheads {
+
+    private final WorkloadProperties properties;
+    private final Map<Workload, CircuitBreaker> breakers = new EnumMap<>(Workload.class);
+    private final Map<Workload, ThreadPoolExecutor> executors = new EnumMap<>(Workload.class);
+
+    public Bulkheads(WorkloadProperties properties) {
+        this.properties = properties;
+        for (Workload workload : Workload.values()) {
+            WorkloadProperties.Limits limits = properties.limits(workload);
+            breakers.put(workload, new CircuitBreaker(workload, limits));
+            AtomicInteger threadNumber = new AtomicInteger();
+            int threads = Math.max(1, limits.getThreads());
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(Math.max(1, limits.getQueueCapacity())), runnable -> {
+                        Thread thread = new Thread(runnable,
+                                "workload-" + workload.name().toLowerCase() + "-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            executors.put(workload, executor);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executors.values().forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    /**
+     * 在当前线程上以指定工作负载执行
+     *
+     * @throws WorkloadRejectedException 熔断器打开
+     */
+    public <T> T call(Workload workload, Supplier<T> action) {
+        CircuitBreaker breaker = breakers.get(workload);
+        if (!breaker.tryAcquire(System.currentTimeMillis())) {
+            throw new WorkloadRejectedException(workload, "数据库访问已熔断: " + workload);
+        }
+        long start = System.nanoTime();
+        boolean failure = false;
+        try {
+            return WorkloadContext.call(workload, action);
+        } catch (RuntimeException e) {
+            failure = isInfrastructureFailure(e);
+            throw e;
+        } finally {
+            breaker.onResult((System.nanoTime() - start) / 1_000_000, failure, System.currentTimeMillis());
+        }
+    }
+
+    public void run(Workload workload, Runnable action) {
+        call(workload, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在该工作负载的线程池上执行并等待结果（最长 timeoutMillis）
+     *
+     * @throws WorkloadRejectedException 熔断器打开、线程池已满或超时
+     */
+    public <T> T execute(Workload workload, Supplier<T> action) {
+        Future<T> future = submit(workload, action);
+        try {
+            return future.get(properties.limits(workload).getTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new WorkloadRejectedException(workload, "等待数据库访问被中断: " + workload, e);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new WorkloadRejectedException(workload, "数据库访问超时: " + workload, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 提交到该工作负载的线程池异步执行
+     *
+     * @throws WorkloadRejectedException 线程池与队列已满
+     */
+    public <T> Future<T> submit(Workload workload, Supplier<T> action) {
+        try {
+            return executors.get(workload).submit(() -> call(workload, action));
+        } catch (RejectedExecutionException e) {
+            throw new WorkloadRejectedException(workload, "数据库访问繁忙: " + workload, e);
+        }
+    }
+
+    public CircuitBreaker.State state(Workload workload) {
+        return breakers.get(workload).getState();
+    }
+
+    CircuitBreaker breaker(Workload workload) {
+        return breakers.get(workload);
+    }
+
+    // 连接失败、超时、死锁等基础设施问题计入熔断；约束冲突、用法错误与业务异常不计入
+    static boolean isInfrastructureFailure(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DataIntegrityViolationException || cause instanceof InvalidDataAccessApiUsageException) {
+                return false;
+            }
+            if (cause instanceof DataAccessException || cause instanceof TransactionException
+                    || cause instanceof SQLException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
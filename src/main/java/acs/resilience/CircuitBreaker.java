@@ -0,0 +1,121 @@
+package acs.resilience;
+
+/**
+ * CircuitBreaker 按最近 N 次调用的失败率 / 慢调用率熔断
+ *
+ * - CLOSED：正常放行，记录每次调用的结果；窗口内调用数达到 minimumCalls 且
+ *   失败率或慢调用率达到阈值时转为 OPEN
+ * - OPEN：拒绝所有调用，openMillis 后转为 HALF_OPEN
+ * - HALF_OPEN：只放行一次试探调用，成功（且不慢）则关闭并清空窗口，否则重新打开
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final Workload workload;
+    private final WorkloadProperties.Limits limits;
+
+    // 环形窗口：每次调用是否失败 / 是否慢
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+    private long rejectedCalls;
+
+    public CircuitBreaker(Workload workload, WorkloadProperties.Limits limits) {
+        this.workload = workload;
+        this.limits = limits;
+        this.failed = new boolean[limits.getWindowSize()];
+        this.slow = new boolean[limits.getWindowSize()];
+    }
+
+    /**
+     * 申请执行一次调用
+     *
+     * @return false 表示熔断中，调用方应走降级路径
+     */
+    public synchronized boolean tryAcquire(long nowMillis) {
+        if (state == State.OPEN && nowMillis - openedAt >= limits.getOpenMillis()) {
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !probeInFlight) {
+            probeInFlight = true;
+            return true;
+        }
+        rejectedCalls++;
+        return false;
+    }
+
+    /** 记录一次调用的结果 */
+    public synchronized void onResult(long durationMillis, boolean failure, long nowMillis) {
+        boolean slowCall = durationMillis >= limits.getSlowCallMillis();
+        if (state == State.HALF_OPEN) {
+            if (failure || slowCall) {
+                open(nowMillis);
+            } else {
+                state = State.CLOSED;
+                resetWindow();
+            }
+            probeInFlight = false;
+            return;
+        }
+        if (state != State.CLOSED) {
+            return;
+        }
+        if (recorded == failed.length) {
+            failures -= failed[next] ? 1 : 0;
+            slowCalls -= slow[next] ? 1 : 0;
+        } else {
+            recorded++;
+        }
+        failed[next] = failure;
+        slow[next] = slowCall;
+        failures += failure ? 1 : 0;
+        slowCalls += slowCall ? 1 : 0;
+        next = (next + 1) % failed.length;
+
+        if (recorded >= limits.getMinimumCalls()
+                && (failures * 100 >= limits.getFailureRateThreshold() * recorded
+                || slowCalls * 100 >= limits.getSlowCallRateThreshold() * recorded)) {
+            open(nowMillis);
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized long getRejectedCalls() {
+        return rejectedCalls;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    private void open(long nowMillis) {
+        state = State.OPEN;
+        openedAt = nowMillis;
+        resetWindow();
+        System.err.println("数据库熔断打开: " + workload);
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+}
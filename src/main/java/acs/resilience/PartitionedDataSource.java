@@ -0,0 +1,128 @@
+package acs.resilience;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * PartitionedDataSource 把一个连接池按工作负载划分配额
+ *
+ * 获取连接时按当前线程的工作负载（WorkloadContext）占用该类的一个许可，连接关闭时归还；
+ * 某一类用满配额时只有该类等待（最长 connectionTimeoutMillis 后失败），其他类不受影响。
+ * JPA 只能绑定一个 EntityManagerFactory，因此用配额划分同一个物理连接池，而不是建多个连接池。
+ */
+public class PartitionedDataSource extends DelegatingDataSource {
+
+    private final Supplier<WorkloadProperties> propertiesSupplier;
+    private volatile Map<Workload, Semaphore> permits;
+    private volatile WorkloadProperties properties;
+
+    public PartitionedDataSource(DataSource target, Supplier<WorkloadProperties> propertiesSupplier) {
+        super(target);
+        this.propertiesSupplier = propertiesSupplier;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return partitioned(() -> super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return partitioned(() -> super.getConnection(username, password));
+    }
+
+    /** 该工作负载当前占用的连接数 */
+    public int inUse(Workload workload) {
+        initialize();
+        return properties.limits(workload).getConnections() - permits.get(workload).availablePermits();
+    }
+
+    private Connection partitioned(ConnectionSource source) throws SQLException {
+        initialize();
+        Workload workload = WorkloadContext.current();
+        Semaphore semaphore = permits.get(workload);
+        long timeoutMillis = properties.limits(workload).getConnectionTimeoutMillis();
+        try {
+            if (!semaphore.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "数据库连接配额已用尽: " + workload + "（等待 " + timeoutMillis + "ms）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("等待数据库连接被中断: " + workload, e);
+        }
+        try {
+            return releasing(source.get(), semaphore);
+        } catch (SQLException | RuntimeException e) {
+            semaphore.release();
+            throw e;
+        }
+    }
+
+    // 代理连接：close 时归还许可（重复 close 不再转发）
+    private static Connection releasing(Connection connection, Semaphore semaphore) {
+        AtomicBoolean released = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        if (!released.compareAndSet(false, true)) {
+                            return null;
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        } finally {
+                            semaphore.release();
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    // 配额在第一次获取连接时初始化（此时配置已绑定）
+    private void initialize() {
+        if (permits != null) {
+            return;
+        }
+        synchronized (this) {
+            if (permits != null) {
+                return;
+            }
+            WorkloadProperties loaded = propertiesSupplier.get();
+            Map<Workload, Semaphore> created = new EnumMap<>(Workload.class);
+            for (Workload workload : Workload.values()) {
+                created.put(workload, new Semaphore(Math.max(1, loaded.limits(workload).getConnections()), true));
+            }
+            if (getTargetDataSource() instanceof HikariDataSource hikari
+                    && loaded.totalConnections() > hikari.getMaximumPoolSize()) {
+                System.err.println("各工作负载连接配额之和 " + loaded.totalConnections()
+                        + " 超过连接池大小 " + hikari.getMaximumPoolSize() + "，配额之间不再完全隔离");
+            }
+            properties = loaded;
+            permits = created;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+}
@@ -0,0 +1,29 @@
+package acs.resilience;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 把自动配置的连接池包装为按工作负载划分配额的 PartitionedDataSource
+ */
+@Configuration
+public class ResilienceConfiguration {
+
+    // 静态方法：BeanPostProcessor 需要尽早创建，配置通过 ObjectProvider 延迟获取
+    @Bean
+    public static BeanPostProcessor partitionedDataSourcePostProcessor(ObjectProvider<WorkloadProperties> properties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof PartitionedDataSource)) {
+                    return new PartitionedDataSource(dataSource, properties::getObject);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,15 @@
+package acs.resilience;
+
+/**
+ * 访问数据库的工作负载类别，每类有独立的连接配额、线程池与熔断器
+ */
+public enum Workload {
+    /** 访问判断的支撑写入：日志回放、租约写回、封锁轮询 */
+    DECISION,
+    /** 管理操作（未标记工作负载的线程默认归入此类） */
+    ADMIN,
+    /** 日志查询（审计导出等） */
+    QUERY,
+    /** 后台维护：日志清理、归档 */
+    MAINTENANCE
+}
@@ -0,0 +1,43 @@
+package acs.resilience;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程所属的工作负载（PartitionedDataSource 据此选择连接配额）
+ *
+ * 未标记的线程（Web 请求、UI、启动加载）归入 ADMIN。
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static Workload current() {
+        Workload workload = CURRENT.get();
+        return workload != null ? workload : Workload.ADMIN;
+    }
+
+    /** 以指定工作负载执行（结束后恢复原来的标记） */
+    public static <T> T call(Workload workload, Supplier<T> action) {
+        Workload previous = CURRENT.get();
+        CURRENT.set(workload);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void run(Workload workload, Runnable action) {
+        call(workload, () -> {
+            action.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,195 @@
+package acs.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 各工作负载的隔离配置，例如：
+ *   acs.workload.query.connections=3
+ *   acs.workload.query.threads=2
+ *   acs.workload.decision.slow-call-millis=500
+ *
+ * 各类 connections 之和不应超过连接池大小（spring.datasource.hikari.maximum-pool-size），
+ * 这样任何一类用满配额时，其他类仍有连接可用。
+ */
+@Component
+@ConfigurationProperties(prefix = "acs.workload")
+public class WorkloadProperties {
+
+    private Limits decision = new Limits(4, 1, 100);
+    private Limits admin = new Limits(3, 2, 50);
+    private Limits query = new Limits(3, 2, 20);
+    private Limits maintenance = new Limits(2, 1, 4);
+
+    public Limits limits(Workload workload) {
+        switch (workload) {
+            case DECISION:
+                return decision;
+            case ADMIN:
+                return admin;
+            case QUERY:
+                return query;
+            default:
+                return maintenance;
+        }
+    }
+
+    public int totalConnections() {
+        int total = 0;
+        for (Workload workload : Workload.values()) {
+            total += limits(workload).getConnections();
+        }
+        return total;
+    }
+
+    // Getter和Setter（配置绑定）
+    public Limits getDecision() {
+        return decision;
+    }
+
+    public void setDecision(Limits decision) {
+        this.decision = decision;
+    }
+
+    public Limits getAdmin() {
+        return admin;
+    }
+
+    public void setAdmin(Limits admin) {
+        this.admin = admin;
+    }
+
+    public Limits getQuery() {
+        return query;
+    }
+
+    public void setQuery(Limits query) {
+        this.query = query;
+    }
+
+    public Limits getMaintenance() {
+        return maintenance;
+    }
+
+    public void setMaintenance(Limits maintenance) {
+        this.maintenance = maintenance;
+    }
+
+    /**
+     * 一类工作负载的配额与熔断阈值
+     */
+    public static class Limits {
+
+        // 连接配额与获取连接的最长等待
+        private int connections;
+        private long connectionTimeoutMillis = 2000;
+        // 独立线程池（异步执行时使用）
+        private int threads;
+        private int queueCapacity;
+        private long timeoutMillis = 30_000;
+        // 熔断：最近 windowSize 次调用中失败或慢调用比例达到阈值（百分比）即打开，openMillis 后放行一次试探
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private int failureRateThreshold = 50;
+        private long slowCallMillis = 1000;
+        private int slowCallRateThreshold = 80;
+        private long openMillis = 5000;
+
+        public Limits() {
+        }
+
+        public Limits(int connections, int threads, int queueCapacity) {
+            this.connections = connections;
+            this.threads = threads;
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getConnections() {
+            return connections;
+        }
+
+        public void setConnections(int connections) {
+            this.connections = connections;
+        }
+
+        public long getConnectionTimeoutMillis() {
+            return connectionTimeoutMillis;
+        }
+
+        public void setConnectionTimeoutMillis(long connectionTimeoutMillis) {
+            this.connectionTimeoutMillis = connectionTimeoutMillis;
+        }
+
+        public int getThreads() {
+            return threads;
+        }
+
+        public void setThreads(int threads) {
+            this.threads = threads;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public int getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public long getSlowCallMillis() {
+            return slowCallMillis;
+        }
+
+        public void setSlowCallMillis(long slowCallMillis) {
+            this.slowCallMillis = slowCallMillis;
+        }
+
+        public int getSlowCallRateThreshold() {
+            return slowCallRateThreshold;
+        }
+
+        public void setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+        }
+
+        public long getOpenMillis() {
+            return openMillis;
+        }
+
+        public void setOpenMillis(long openMillis) {
+            this.openMillis = openMillis;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package acs.resilience;
+
+/**
+ * 工作负载被拒绝：熔断器打开、线程池已满或等待超时
+ */
+public class WorkloadRejectedException extends IllegalStateException {
+
+    private final Workload workload;
+
+    public WorkloadRejectedException(Workload workload, String message) {
+        super(message);
+        this.workload = workload;
+    }
+
+    public WorkloadRejectedException(Workload workload, String message, Throwable cause) {
+        super(message, cause);
+        this.workload = workload;
+    }
+
+    public Workload getWorkload() {
+        return workload;
+    }
+}
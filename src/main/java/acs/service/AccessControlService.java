@@ -24,4 +24,15 @@ public interface AccessControlService {
      * @return 访问结果
      */
     AccessResult processAccess(AccessRequest request);
+
+    /**
+     * 主动释放独占设备（打印机 / 电脑）的占用租约（离开 / 归还）
+     *
+     * 与 processAccess 相同：不抛出异常，并产生一条访问日志。
+     * 只有当前租约的持有者可以释放；否则返回 DENY。
+     *
+     * @param request 释放请求（徽章 + 资源）
+     * @return 释放结果
+     */
+    AccessResult releaseAccess(AccessRequest request);
 }
@@ -0,0 +1,25 @@
+package acs.service;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.stats.AccessHistogram;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * AccessCountService 回答保留期内任意时间窗的访问次数（例如某扇门 08:12 到 09:47 被拒绝的次数）
+ *
+ * 基于日志缓存的按分钟计数（AccessCountIndex），不扫描日志；精度为分钟，区间为 [from, to)。
+ * resourceId 为 null 表示全部资源。更早的时间段使用 StatisticsService。
+ */
+public interface AccessCountService {
+
+    long count(String resourceId, AccessDecision decision, Instant from, Instant to);
+
+    long count(String resourceId, ReasonCode reasonCode, Instant from, Instant to);
+
+    AccessHistogram histogram(String resourceId, AccessDecision decision, Instant from, Instant to, Duration bucket);
+
+    AccessHistogram histogram(String resourceId, ReasonCode reasonCode, Instant from, Instant to, Duration bucket);
+}
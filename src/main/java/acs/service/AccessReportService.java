@@ -0,0 +1,32 @@
+package acs.service;
+
+import acs.domain.ReasonCode;
+import acs.stats.sketch.CardinalityEstimate;
+import acs.stats.sketch.FrequencyEstimate;
+import acs.stats.sketch.TopK;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * AccessReportService 基于按天的访问草图回答报表问题（日期区间含两端），不扫描日志
+ *
+ * 结果均带误差界：高频项的 [count - error, count]，次数估计的最大高估量与置信度，去重计数的相对标准误差。
+ */
+public interface AccessReportService {
+
+    /** 访问次数最多的徽章（deniedOnly 时只统计被拒绝的访问） */
+    TopK topBadges(LocalDate from, LocalDate to, boolean deniedOnly, int k);
+
+    /** 访问次数最多的资源 */
+    TopK topResources(LocalDate from, LocalDate to, boolean deniedOnly, int k);
+
+    /** 某个徽章的访问次数 */
+    FrequencyEstimate badgeCount(String badgeId, LocalDate from, LocalDate to, boolean deniedOnly);
+
+    /** 不同徽章数（resourceId 为 null 表示全部资源） */
+    CardinalityEstimate distinctBadges(String resourceId, LocalDate from, LocalDate to);
+
+    /** 各原因的访问次数（精确值） */
+    Map<ReasonCode, Long> reasonCounts(LocalDate from, LocalDate to);
+}
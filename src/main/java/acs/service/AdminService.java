@@ -1,9 +1,14 @@
 package acs.service;
 
 import acs.domain.BadgeStatus;
+import acs.domain.LockdownScope;
 import acs.domain.ResourceState;
 import acs.domain.ResourceType;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 /**
  * AdminService 提供系统管理功能
  *
@@ -40,9 +45,47 @@ public interface AdminService {
     /** 设置资源当前状态 */
     void setResourceState(String resourceId, ResourceState state);
 
+    /** 设置资源的容量上限（同时在内人数，null 表示不限） */
+    void setResourceCapacity(String resourceId, Integer capacity);
+
+    /** 设置资源所属的区域（父资源，null 表示顶层），对区域的授权覆盖其子树 */
+    void setResourceParent(String resourceId, String parentResourceId);
+
+    /** 设置组的父组（null 表示顶层），子组继承父组的全部授权 */
+    void setGroupParent(String groupId, String parentGroupId);
+
     /** 授权某个组访问某个资源 */
     void grantGroupAccessToResource(String groupId, String resourceId);
 
     /** 撤销某个组对资源的访问权限 */
     void revokeGroupAccessToResource(String groupId, String resourceId);
+
+    /** 创建一个访问时间表（创建后没有任何时间段，需要再添加） */
+    void createSchedule(String scheduleId, String name);
+
+    /** 给时间表添加每周的允许时间段（end 不晚于 start 表示跨越午夜） */
+    void addScheduleWindow(String scheduleId, DayOfWeek dayOfWeek, LocalTime start, LocalTime end);
+
+    /** 给时间表添加节假日（当天全天不允许） */
+    void addScheduleHoliday(String scheduleId, LocalDate holiday);
+
+    /** 设置时间表的生效日期范围（含首尾，null 表示不限） */
+    void setScheduleValidity(String scheduleId, LocalDate validFrom, LocalDate validUntil);
+
+    /** 给某个组对资源的授权挂上时间表 */
+    void attachScheduleToGrant(String groupId, String resourceId, String scheduleId);
+
+    /** 取消授权上的时间表（恢复为任何时间有效） */
+    void detachScheduleFromGrant(String groupId, String resourceId);
+
+    /**
+     * 启用紧急封锁（不修改资源状态，立即对本节点生效，其他节点在一个轮询周期内生效）
+     *
+     * @param target TYPE 时为资源类型名称，ZONE 时为区域资源ID，ALL 时忽略
+     * @return 封锁ID
+     */
+    String activateLockdown(LockdownScope scope, String target);
+
+    /** 解除紧急封锁 */
+    void liftLockdown(String lockdownId);
 }
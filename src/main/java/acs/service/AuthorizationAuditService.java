@@ -0,0 +1,24 @@
+package acs.service;
+
+import acs.audit.AccessAuditQuery;
+import acs.audit.AuditedEmployee;
+import acs.audit.EmployeePage;
+
+import java.util.function.Consumer;
+
+/**
+ * AuthorizationAuditService 回答“谁能进入某个资源”（有效授权：含父组继承与区域展开）
+ *
+ * 基于缓存中增量维护的反向索引与员工位图的集合运算，不遍历员工、不查询数据库。
+ */
+public interface AuthorizationAuditService {
+
+    /** 满足查询条件的员工数 */
+    long count(AccessAuditQuery query);
+
+    /** 分页查询（cursor 为 null 表示第一页） */
+    EmployeePage find(AccessAuditQuery query, String cursor, int limit);
+
+    /** 逐页导出全部结果，每页重新计算集合（导出期间的变更按游标语义处理） */
+    void export(AccessAuditQuery query, Consumer<AuditedEmployee> consumer);
+}
@@ -1,36 +1,94 @@
 package acs.service;
 
 import acs.cache.LocalCacheManager;
-import acs.repository.AccessLogRepository;
+import acs.log.LogPartitionManager;
+import acs.log.LogRetentionJob;
+import acs.log.LogRetentionPolicy;
+import acs.log.archive.LogArchive;
+import acs.resilience.Bulkheads;
+import acs.resilience.Workload;
+import acs.stats.AccessStatsRollup;
+import jakarta.annotation.PostConstruct;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Service
 public class LogCleanupService {
 
-    private final AccessLogRepository accessLogRepository;
+    private final LogPartitionManager partitionManager;
+    private final LogRetentionJob retentionJob;
+    private final LogRetentionPolicy retentionPolicy;
     private final LocalCacheManager cacheManager;
+    private final LogArchive archive;
+    private final Bulkheads bulkheads;
+    private final AccessStatsRollup statsRollup;
 
     // 注入依赖
-    public LogCleanupService(AccessLogRepository accessLogRepository, LocalCacheManager cacheManager) {
-        this.accessLogRepository = accessLogRepository;
+    public LogCleanupService(LogPartitionManager partitionManager, LogRetentionJob retentionJob,
+                             LogRetentionPolicy retentionPolicy, LocalCacheManager cacheManager,
+                             LogArchive archive, Bulkheads bulkheads, AccessStatsRollup statsRollup) {
+        this.partitionManager = partitionManager;
+        this.retentionJob = retentionJob;
+        this.retentionPolicy = retentionPolicy;
         this.cacheManager = cacheManager;
+        this.archive = archive;
+        this.bulkheads = bulkheads;
+        this.statsRollup = statsRollup;
     }
-    @Scheduled(cron = "0 0 0 */7 * ?")
-    @Transactional
+
+    // 启动时确保今天及之后几天的日志分区已存在
+    @PostConstruct
+    public void ensurePartitions() {
+        partitionManager.createFuturePartitions(LocalDate.now());
+    }
+
+    // 每天 00:10 执行（交给 MAINTENANCE 工作负载的线程池，不占用定时任务线程）
+    @Scheduled(cron = "0 10 0 * * ?")
     public void cleanExpiredLogs() {
-        // 计算7天前的时间（超过7天的日志将被清理）
-        LocalDateTime sevenDaysAgo = LocalDateTime.now().minusDays(7);
+        LocalDateTime now = LocalDateTime.now();
+        bulkheads.submit(Workload.MAINTENANCE, () -> {
+            clean(now);
+            return null;
+        });
+    }
+
+    // 在当前线程上执行（使用 MAINTENANCE 的连接配额）
+    public void cleanExpiredLogs(LocalDateTime now) {
+        bulkheads.run(Workload.MAINTENANCE, () -> clean(now));
+    }
+
+    private void clean(LocalDateTime now) {
+        // 1. 预建分区（只改元数据）
+        int created = partitionManager.createFuturePartitions(now.toLocalDate());
+        System.out.println("预建日志分区数量：" + created);
+
+        // 2. 启用归档时先按保留策略分块归档并删除，保证日志写入归档段之后才离开数据库
+        if (archive.isEnabled()) {
+            long deletedRows = retentionJob.run(now);
+            System.out.println("归档并清理数据库日志数量：" + deletedRows);
+        }
+
+        // 3. 超过最长保留期的整天日志：删除分区（表未分区时跳过），并同步清理缓存
+        LocalDateTime allExpired = now.minusDays(retentionPolicy.maxDays());
+        int dropped = partitionManager.dropExpired(allExpired);
+        int deletedCacheCount = cacheManager.clearExpiredLogs(allExpired);
+        System.out.println("清理数据库日志分区数量：" + dropped + "，清理缓存日志数量：" + deletedCacheCount);
+
+        // 4. 未启用归档时，其余按保留策略分块删除（缓存同步移除）
+        if (!archive.isEnabled()) {
+            long deletedRows = retentionJob.run(now);
+            System.out.println("分块清理数据库日志数量：" + deletedRows);
+        }
 
-        // 1. 清理数据库中的过期日志
-        long deletedDbCount = accessLogRepository.deleteByTimestampBefore(sevenDaysAgo);
-        System.out.println("清理数据库日志数量：" + deletedDbCount);
+        // 5. 超过归档保留期的归档段整段删除
+        int droppedSegments = archive.dropExpired(now.minusDays(archive.getRetentionDays()));
+        System.out.println("清理日志归档段数量：" + droppedSegments);
 
-        // 2. 清理缓存中的过期日志
-        int deletedCacheCount = cacheManager.clearExpiredLogs(sevenDaysAgo);
-        System.out.println("清理缓存日志数量：" + deletedCacheCount);
+        // 6. 过期的分钟 / 小时统计桶（天桶保留）
+        int purgedStats = statsRollup.purgeExpired(now);
+        System.out.println("清理访问统计汇总数量：" + purgedStats);
     }
-}
\ No newline at end of file
+}
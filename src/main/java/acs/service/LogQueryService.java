@@ -1,5 +1,6 @@
 package acs.service;
 
+import acs.datasource.DataSourceRoute;
 import acs.domain.LogEntry;
 
 import java.time.Instant;
@@ -21,4 +22,9 @@ public interface LogQueryService {
     List<LogEntry> findByResource(String resourceId, Instant from, Instant to);
 
     List<LogEntry> findDenied(Instant from, Instant to);
+
+    /**
+     * 当前线程最近一次查询访问数据库时使用的数据源（只命中缓存与归档时为 null）
+     */
+    DataSourceRoute lastServedBy();
 }
@@ -0,0 +1,17 @@
+package acs.service;
+
+import acs.simulation.SimulatedChange;
+import acs.simulation.SimulationReport;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * SimulationService 在应用授权变更之前评估其影响：把一段时间内的历史刷卡在变更前后的授权下各回放一次，
+ * 按资源、组与原因报告判断结果的差异（不修改任何授权数据）
+ */
+public interface SimulationService {
+
+    /** 在 [from, to) 内的历史刷卡上模拟拟议变更（按给定顺序应用） */
+    SimulationReport simulate(List<SimulatedChange> changes, Instant from, Instant to);
+}
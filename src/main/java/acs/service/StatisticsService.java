@@ -0,0 +1,30 @@
+package acs.service;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.stats.RollupGranularity;
+import acs.stats.StatDimension;
+import acs.stats.StatSeries;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * StatisticsService 基于预汇总表提供访问统计（仪表盘、报表），不扫描访问日志
+ *
+ * 维度：ALL（dimensionId 为 "*"）、RESOURCE（资源ID）、GROUP（组ID，按员工刷卡时所属的组计入）
+ */
+public interface StatisticsService {
+
+    /**
+     * 按桶的访问次数；桶数超过上限或所需粒度已过保留期时改用更粗的粒度（见返回值中的粒度）
+     */
+    StatSeries series(StatDimension dimension, String dimensionId, Instant from, Instant to,
+                      RollupGranularity granularity);
+
+    /** [from, to) 内各决策的访问次数 */
+    Map<AccessDecision, Long> decisionTotals(StatDimension dimension, String dimensionId, Instant from, Instant to);
+
+    /** [from, to) 内各原因的访问次数 */
+    Map<ReasonCode, Long> reasonTotals(StatDimension dimension, String dimensionId, Instant from, Instant to);
+}
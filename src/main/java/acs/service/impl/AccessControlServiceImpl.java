@@ -1,20 +1,27 @@
 package acs.service.impl;
 
+import acs.decision.BuiltinCheck;
+import acs.decision.DecisionContext;
+import acs.decision.DecisionPipeline;
+import acs.decision.Denial;
 import acs.domain.AccessRequest;
 import acs.domain.AccessResult;
+import acs.cache.CachedBadge;
+import acs.cache.CachedEmployee;
+import acs.cache.CachedResource;
 import acs.cache.LocalCacheManager;
 import acs.domain.AccessDecision;
-import acs.domain.Badge;
-import acs.domain.BadgeStatus;
-import acs.domain.Employee;
+import acs.domain.AccessDirection;
 import acs.domain.LogEntry;
 import acs.domain.ReasonCode;
-import acs.domain.Resource;
 import acs.domain.ResourceState;
+import acs.lease.LeaseManager;
 import acs.log.LogService;
+import acs.occupancy.OccupancyTracker;
 import acs.service.AccessControlService;
+import acs.trace.DecisionTracer;
+import acs.trace.TraceStage;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -25,106 +32,193 @@ public class AccessControlServiceImpl implements AccessControlService {
     private final LogService logService;
     // 在类中注入LocalCacheManager
     private final LocalCacheManager cacheManager;
+    private final LeaseManager leaseManager;
+    private final OccupancyTracker occupancyTracker;
+    private final DecisionPipeline pipeline;
+    private final DecisionTracer tracer;
 
     public AccessControlServiceImpl(
                                 LogService logService,
-                                LocalCacheManager cacheManager) {
+                                LocalCacheManager cacheManager,
+                                LeaseManager leaseManager,
+                                OccupancyTracker occupancyTracker,
+                                DecisionPipeline pipeline,
+                                DecisionTracer tracer) {
         this.logService = logService;
         this.cacheManager = cacheManager;
+        this.leaseManager = leaseManager;
+        this.occupancyTracker = occupancyTracker;
+        this.pipeline = pipeline;
+        this.tracer = tracer;
     }
 
-    // 修改processAccess方法中的数据访问部分，使用缓存
     @Override
-    @Transactional
     public AccessResult processAccess(AccessRequest request) {
-        // 1. 验证请求参数
-        if (request.getBadgeId() == null || request.getBadgeId().trim().isEmpty() ||
-                request.getResourceId() == null || request.getResourceId().trim().isEmpty() ||
-                request.getTimestamp() == null) {
-            AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.INVALID_REQUEST, "无效的访问请求参数");
-            recordLog(null, null, null, result, request);
+        tracer.begin();
+        AccessResult result = null;
+        try {
+            result = decide(request);
             return result;
+        } finally {
+            tracer.end(request, result);
         }
+    }
+
+    @Override
+    public AccessResult releaseAccess(AccessRequest request) {
+        tracer.begin();
+        AccessResult result = null;
+        try {
+            result = release(request);
+            return result;
+        } finally {
+            tracer.end(request, result);
+        }
+    }
 
+    // 检查阶段由判断流水线执行（只读取缓存中的不可变投影，不访问 JPA 实体），占用与容量在全部检查通过后按固定顺序处理
+    private AccessResult decide(AccessRequest request) {
+        DecisionContext context = new DecisionContext(request, cacheManager);
+        // 本次请求已获取、尚未提交完成的占用（租约持有人 / 计入人数的徽章），异常时回滚
+        String heldResourceId = null;
+        String leaseHolder = null;
+        String occupant = null;
         try {
-            // 2. 验证徽章存在性 - 从缓存获取
-            Badge badge = cacheManager.getBadge(request.getBadgeId());
-            if (badge == null) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.BADGE_NOT_FOUND, "徽章不存在");
-                recordLog(null, null, null, result, request);
+            // 1. 检查阶段：请求参数、徽章、员工、资源、权限与时间表、资源锁定及插件检查，多个拒绝时按原因码优先级取最高者
+            Denial denial = pipeline.evaluate(context);
+            if (denial != null) {
+                AccessResult result = new AccessResult(AccessDecision.DENY, denial.reasonCode(), denial.message());
+                recordLog(denial, context, result, request);
                 return result;
             }
-
-            // 3. 验证徽章状态
-            if (badge.getStatus() != BadgeStatus.ACTIVE) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.BADGE_INACTIVE, "徽章不可用（已禁用或挂失）");
-                recordLog(badge, null, null, result, request);
+            CachedBadge badge = context.badge();
+            CachedEmployee employee = context.employee();
+            CachedResource resource = context.resource();
+
+            // 离开：不检查权限和资源状态（任何时候都允许离开），更新在内人数并释放本人的占用
+            if (request.getDirection() == AccessDirection.EXIT) {
+                occupancyTracker.exit(resource.getResourceId(), badge.getBadgeId());
+                leaseManager.release(resource.getResourceId(), employee.getEmployeeId());
+                AccessResult result = new AccessResult(AccessDecision.ALLOW, ReasonCode.ALLOW, "允许离开");
+                recordLog(badge, employee, resource, result, request);
                 return result;
             }
 
-            // 4. 验证员工存在性 - 从缓存获取
-            Employee employee = badge.getEmployee() != null ? 
-                cacheManager.getEmployee(badge.getEmployee().getEmployeeId()) : null;
-            if (employee == null) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.EMPLOYEE_NOT_FOUND, "徽章未绑定有效员工");
-                recordLog(badge, null, null, result, request);
+            // 2. 占用（独占设备的租约 / 其他资源的占用状态）
+            if (leaseManager.isLeasable(resource.getResourceType())) {
+                // 独占设备：原子获取限时租约（只操作内存，占用状态异步写回数据库）
+                if (!leaseManager.tryAcquire(resource.getResourceId(), employee.getEmployeeId())) {
+                    AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.RESOURCE_OCCUPIED, "资源当前被占用");
+                    recordLog(badge, employee, resource, result, request);
+                    return result;
+                }
+                heldResourceId = resource.getResourceId();
+                leaseHolder = employee.getEmployeeId();
+            } else if (resource.getResourceState() == ResourceState.OCCUPIED) {
+                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.RESOURCE_OCCUPIED, "资源当前被占用");
+                recordLog(badge, employee, resource, result, request);
                 return result;
             }
 
-            // 5. 验证资源存在性 - 从缓存获取
-            Resource resource = cacheManager.getResource(request.getResourceId());
-            if (resource == null) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.RESOURCE_NOT_FOUND, "访问的资源不存在");
-                recordLog(badge, employee, null, result, request);
+            // 3. 验证容量（同一徽章重复进入不重复计数）
+            if (!occupancyTracker.enter(resource.getResourceId(), badge.getBadgeId(), resource.getCapacity())) {
+                if (leaseHolder != null) {
+                    leaseManager.release(heldResourceId, leaseHolder);
+                    leaseHolder = null;
+                }
+                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.CAPACITY_EXCEEDED, "资源内人数已达上限");
+                recordLog(badge, employee, resource, result, request);
                 return result;
             }
 
-            // 6. 验证权限（员工所属组是否有权限访问该资源）
-            boolean hasPermission = employee.getGroups().stream()
-                    .flatMap(group -> group.getResources().stream())
-                    .anyMatch(r -> r.getResourceId().equals(resource.getResourceId()));
+            heldResourceId = resource.getResourceId();
+            occupant = badge.getBadgeId();
 
-            if (!hasPermission) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.NO_PERMISSION, "没有访问该资源的权限");
-                recordLog(badge, employee, resource, result, request);
-                return result;
+            // 4. 所有验证通过，允许访问
+            AccessResult result = new AccessResult(AccessDecision.ALLOW, ReasonCode.ALLOW, "允许访问");
+            recordLog(badge, employee, resource, result, request);
+            return result;
+
+        } catch (Exception e) {
+            // 处理系统异常：先撤销本次已获取的占用，否则租约和在内人数会一直保留到过期或对账
+            rollback(heldResourceId, leaseHolder, occupant);
+            AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.SYSTEM_ERROR, "系统内部错误");
+            recordLog(null, null, null, result, request);
+            return result;
+        }
+    }
+
+    private void rollback(String resourceId, String leaseHolder, String occupant) {
+        try {
+            if (occupant != null) {
+                occupancyTracker.exit(resourceId, occupant);
             }
+            if (leaseHolder != null) {
+                leaseManager.release(resourceId, leaseHolder);
+            }
+        } catch (Exception e) {
+            System.err.println("回滚占用失败: " + resourceId + ", " + e.getMessage());
+        }
+    }
 
-            // 7. 验证资源状态
-            if (resource.getResourceState() == ResourceState.LOCKED) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.RESOURCE_LOCKED, "资源已被锁定");
+    private AccessResult release(AccessRequest request) {
+        if (request.getBadgeId() == null || request.getBadgeId().trim().isEmpty() ||
+                request.getResourceId() == null || request.getResourceId().trim().isEmpty() ||
+                request.getTimestamp() == null) {
+            AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.INVALID_REQUEST, "无效的访问请求参数");
+            recordLog(null, null, null, result, request);
+            return result;
+        }
+
+        try {
+            CachedBadge badge = cacheManager.getBadge(request.getBadgeId());
+            CachedEmployee employee = badge != null && badge.getEmployeeId() != null ?
+                cacheManager.getEmployee(badge.getEmployeeId()) : null;
+            CachedResource resource = cacheManager.getResource(request.getResourceId());
+            if (employee == null || resource == null) {
+                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.INVALID_REQUEST, "徽章或资源无效");
                 recordLog(badge, employee, resource, result, request);
                 return result;
             }
-            if (resource.getResourceState() == ResourceState.OCCUPIED) {
-                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.RESOURCE_OCCUPIED, "资源当前被占用");
+
+            // 只有持有者可以释放
+            if (!leaseManager.release(resource.getResourceId(), employee.getEmployeeId())) {
+                AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.INVALID_REQUEST, "未持有该资源的占用");
                 recordLog(badge, employee, resource, result, request);
                 return result;
             }
 
-            // 8. 所有验证通过，允许访问
-            AccessResult result = new AccessResult(AccessDecision.ALLOW, ReasonCode.ALLOW, "允许访问");
+            AccessResult result = new AccessResult(AccessDecision.ALLOW, ReasonCode.ALLOW, "已释放资源");
             recordLog(badge, employee, resource, result, request);
             return result;
 
         } catch (Exception e) {
-            // 处理系统异常
             AccessResult result = new AccessResult(AccessDecision.DENY, ReasonCode.SYSTEM_ERROR, "系统内部错误");
             recordLog(null, null, null, result, request);
             return result;
         }
     }
 
+    // 记录被检查阶段拒绝的访问：只记录优先级高于拒绝阶段、已确认存在的对象（与按顺序判断时一致）
+    private void recordLog(Denial denial, DecisionContext context, AccessResult result, AccessRequest request) {
+        CachedBadge badge = denial.precedence() >= BuiltinCheck.BADGE_STATUS.precedence() ? context.badge() : null;
+        CachedEmployee employee = denial.precedence() > BuiltinCheck.EMPLOYEE.precedence() ? context.employee() : null;
+        CachedResource resource = denial.precedence() > BuiltinCheck.RESOURCE.precedence() ? context.resource() : null;
+        recordLog(badge, employee, resource, result, request);
+    }
+
     // 记录访问日志
-    private void recordLog(Badge badge, Employee employee, Resource resource, AccessResult result, AccessRequest request) {
+    private void recordLog(CachedBadge badge, CachedEmployee employee, CachedResource resource, AccessResult result, AccessRequest request) {
+        tracer.mark(TraceStage.COMMIT);
         LogEntry logEntry = new LogEntry(
                 LocalDateTime.ofInstant(request.getTimestamp(), ZoneId.systemDefault()),
-                badge,
-                employee,
-                resource,
+                badge != null ? badge.getBadgeId() : null,
+                employee != null ? employee.getEmployeeId() : null,
+                resource != null ? resource.getResourceId() : null,
                 result.getDecision(),
                 result.getReasonCode()
         );
+        logEntry.setDirection(request.getDirection());
         logService.record(logEntry);
     }
 }
\ No newline at end of file
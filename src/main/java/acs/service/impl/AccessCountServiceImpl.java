@@ -0,0 +1,113 @@
+package acs.service.impl;
+
+import acs.cache.AccessCountIndex;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.log.LogRetentionPolicy;
+import acs.service.AccessCountService;
+import acs.stats.AccessHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+
+/**
+ * 缓存中的日志按保留策略过期，查询的开始时间不得早于相应计数项的保留期（否则结果会缺少已清理的日志）：
+ * 决策计数取该决策下所有原因中最短的保留期，原因计数取该原因在各决策下最短的保留期。
+ */
+@Service
+public class AccessCountServiceImpl implements AccessCountService {
+
+    private final LocalCacheManager cacheManager;
+    private final LogRetentionPolicy retentionPolicy;
+    private final int maxBuckets;
+
+    public AccessCountServiceImpl(LocalCacheManager cacheManager, LogRetentionPolicy retentionPolicy,
+                                  @Value("${acs.log.count.max-buckets:10000}") int maxBuckets) {
+        this.cacheManager = cacheManager;
+        this.retentionPolicy = retentionPolicy;
+        this.maxBuckets = maxBuckets;
+    }
+
+    @Override
+    public long count(String resourceId, AccessDecision decision, Instant from, Instant to) {
+        validate(from, to, retentionDays(decision));
+        return counts().count(resourceId, decision, toLocal(from), toLocal(to));
+    }
+
+    @Override
+    public long count(String resourceId, ReasonCode reasonCode, Instant from, Instant to) {
+        validate(from, to, retentionDays(reasonCode));
+        return counts().count(resourceId, reasonCode, toLocal(from), toLocal(to));
+    }
+
+    @Override
+    public AccessHistogram histogram(String resourceId, AccessDecision decision, Instant from, Instant to,
+                                     Duration bucket) {
+        validate(from, to, retentionDays(decision));
+        int bucketMinutes = bucketMinutes(bucket);
+        long[] counts = counts().histogram(resourceId, decision, toLocal(from), bucketMinutes,
+                buckets(from, to, bucketMinutes));
+        return new AccessHistogram(from, bucket, Arrays.stream(counts).boxed().toList());
+    }
+
+    @Override
+    public AccessHistogram histogram(String resourceId, ReasonCode reasonCode, Instant from, Instant to,
+                                     Duration bucket) {
+        validate(from, to, retentionDays(reasonCode));
+        int bucketMinutes = bucketMinutes(bucket);
+        long[] counts = counts().histogram(resourceId, reasonCode, toLocal(from), bucketMinutes,
+                buckets(from, to, bucketMinutes));
+        return new AccessHistogram(from, bucket, Arrays.stream(counts).boxed().toList());
+    }
+
+    private AccessCountIndex counts() {
+        return cacheManager.getAccessCounts();
+    }
+
+    private int retentionDays(AccessDecision decision) {
+        return Arrays.stream(ReasonCode.values())
+                .mapToInt(reasonCode -> retentionPolicy.retentionDays(decision, reasonCode))
+                .min().orElse(retentionPolicy.getDefaultDays());
+    }
+
+    private int retentionDays(ReasonCode reasonCode) {
+        return Arrays.stream(AccessDecision.values())
+                .mapToInt(decision -> retentionPolicy.retentionDays(decision, reasonCode))
+                .min().orElse(retentionPolicy.getDefaultDays());
+    }
+
+    private static void validate(Instant from, Instant to, int retentionDays) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("查询区间的开始时间必须早于结束时间");
+        }
+        if (toLocal(from).isBefore(LocalDateTime.now().minusDays(retentionDays))) {
+            throw new IllegalArgumentException("开始时间早于日志保留期（" + retentionDays + " 天），请使用访问统计汇总");
+        }
+    }
+
+    private static int bucketMinutes(Duration bucket) {
+        if (bucket.toMinutes() < 1 || !bucket.equals(Duration.ofMinutes(bucket.toMinutes()))) {
+            throw new IllegalArgumentException("直方图的桶长度必须是整分钟: " + bucket);
+        }
+        return Math.toIntExact(bucket.toMinutes());
+    }
+
+    private int buckets(Instant from, Instant to, int bucketMinutes) {
+        long minutes = Duration.between(from, to).plusSeconds(59).toMinutes();
+        long buckets = (minutes + bucketMinutes - 1) / bucketMinutes;
+        if (buckets > maxBuckets) {
+            throw new IllegalArgumentException("直方图的桶数 " + buckets + " 超过上限 " + maxBuckets);
+        }
+        return (int) buckets;
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
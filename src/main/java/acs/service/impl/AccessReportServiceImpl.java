@@ -0,0 +1,73 @@
+package acs.service.impl;
+
+import acs.domain.ReasonCode;
+import acs.service.AccessReportService;
+import acs.stats.AccessSketches;
+import acs.stats.DaySketches;
+import acs.stats.sketch.CardinalityEstimate;
+import acs.stats.sketch.FrequencyEstimate;
+import acs.stats.sketch.TopK;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Service
+public class AccessReportServiceImpl implements AccessReportService {
+
+    private final AccessSketches sketches;
+
+    public AccessReportServiceImpl(AccessSketches sketches) {
+        this.sketches = sketches;
+    }
+
+    @Override
+    public TopK topBadges(LocalDate from, LocalDate to, boolean deniedOnly, int k) {
+        validate(from, to);
+        validateK(k);
+        return sketches.top(DaySketches.Item.BADGE, deniedOnly, from, to, k);
+    }
+
+    @Override
+    public TopK topResources(LocalDate from, LocalDate to, boolean deniedOnly, int k) {
+        validate(from, to);
+        validateK(k);
+        return sketches.top(DaySketches.Item.RESOURCE, deniedOnly, from, to, k);
+    }
+
+    @Override
+    public FrequencyEstimate badgeCount(String badgeId, LocalDate from, LocalDate to, boolean deniedOnly) {
+        validate(from, to);
+        return sketches.badgeCount(badgeId, deniedOnly, from, to);
+    }
+
+    @Override
+    public CardinalityEstimate distinctBadges(String resourceId, LocalDate from, LocalDate to) {
+        validate(from, to);
+        return sketches.distinctBadges(resourceId, from, to);
+    }
+
+    @Override
+    public Map<ReasonCode, Long> reasonCounts(LocalDate from, LocalDate to) {
+        validate(from, to);
+        return sketches.reasonCounts(from, to);
+    }
+
+    // 日期区间有效且在草图保留期内
+    private void validate(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("开始日期不能晚于结束日期");
+        }
+        LocalDate oldest = sketches.oldestRetainedDay(LocalDate.now());
+        if (from.isBefore(oldest)) {
+            throw new IllegalArgumentException("开始日期早于访问草图的保留期（最早 " + oldest + "）");
+        }
+    }
+
+    // 只有跟踪容量以内的前 K 项有误差保证
+    private void validateK(int k) {
+        if (k < 1 || k > sketches.getSettings().topCapacity()) {
+            throw new IllegalArgumentException("K 必须在 1 到 " + sketches.getSettings().topCapacity() + " 之间");
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package acs.service.impl;
 
 import acs.cache.LocalCacheManager;
+import acs.domain.AccessSchedule;
 import acs.domain.Badge;
 import acs.domain.BadgeStatus;
 import acs.domain.Employee;
 import acs.domain.Group;
+import acs.domain.LockdownScope;
 import acs.domain.Resource;
 import acs.domain.ResourceState;
 import acs.domain.ResourceType;
+import acs.domain.ScheduleWindow;
+import acs.lockdown.LockdownManager;
+import acs.repository.AccessScheduleRepository;
 import acs.repository.BadgeRepository;
 import acs.repository.EmployeeRepository;
 import acs.repository.GroupRepository;
@@ -16,6 +21,10 @@ import acs.service.AdminService;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
 @Service
 public class AdminServiceImpl implements AdminService {
 
@@ -25,17 +34,23 @@ public class AdminServiceImpl implements AdminService {
     private final BadgeRepository badgeRepository;
     private final GroupRepository groupRepository;
     private final ResourceRepository resourceRepository;
+    private final AccessScheduleRepository scheduleRepository;
+    private final LockdownManager lockdownManager;
 
     public AdminServiceImpl(EmployeeRepository employeeRepository,
                             BadgeRepository badgeRepository,
                             GroupRepository groupRepository,
                             ResourceRepository resourceRepository,
-                            LocalCacheManager cacheManager) {
+                            AccessScheduleRepository scheduleRepository,
+                            LocalCacheManager cacheManager,
+                            LockdownManager lockdownManager) {
         this.employeeRepository = employeeRepository;
         this.badgeRepository = badgeRepository;
         this.groupRepository = groupRepository;
         this.resourceRepository = resourceRepository;
+        this.scheduleRepository = scheduleRepository;
         this.cacheManager = cacheManager;
+        this.lockdownManager = lockdownManager;
     }
 
     @Override
@@ -154,6 +169,62 @@ public class AdminServiceImpl implements AdminService {
         cacheManager.updateResource(resource);
     }
 
+    @Override
+    @Transactional
+    public void setResourceCapacity(String resourceId, Integer capacity) {
+        if (capacity != null && capacity <= 0) {
+            throw new IllegalArgumentException("容量上限必须大于0: " + capacity);
+        }
+        Resource resource = resourceRepository.findById(resourceId)
+                .orElseThrow(() -> new IllegalArgumentException("资源不存在: " + resourceId));
+        resource.setCapacity(capacity);
+        resourceRepository.save(resource);
+        // 同步缓存
+        cacheManager.updateResource(resource);
+    }
+
+    @Override
+    @Transactional
+    public void setResourceParent(String resourceId, String parentResourceId) {
+        Resource resource = resourceRepository.findById(resourceId)
+                .orElseThrow(() -> new IllegalArgumentException("资源不存在: " + resourceId));
+        // 沿父资源链向上检查，避免形成环
+        for (String ancestorId = parentResourceId; ancestorId != null; ) {
+            if (ancestorId.equals(resourceId)) {
+                throw new IllegalStateException("资源层级不能形成环: " + resourceId + " -> " + parentResourceId);
+            }
+            String currentId = ancestorId;
+            ancestorId = resourceRepository.findById(currentId)
+                    .orElseThrow(() -> new IllegalArgumentException("资源不存在: " + currentId))
+                    .getParentId();
+        }
+        resource.setParentId(parentResourceId);
+        resourceRepository.save(resource);
+        // 同步缓存
+        cacheManager.updateResource(resource);
+    }
+
+    @Override
+    @Transactional
+    public void setGroupParent(String groupId, String parentGroupId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("组不存在: " + groupId));
+        // 沿父组链向上检查，避免形成环
+        for (String ancestorId = parentGroupId; ancestorId != null; ) {
+            if (ancestorId.equals(groupId)) {
+                throw new IllegalStateException("组层级不能形成环: " + groupId + " -> " + parentGroupId);
+            }
+            String currentId = ancestorId;
+            ancestorId = groupRepository.findById(currentId)
+                    .orElseThrow(() -> new IllegalArgumentException("组不存在: " + currentId))
+                    .getParentGroupId();
+        }
+        group.setParentGroupId(parentGroupId);
+        groupRepository.save(group);
+        // 同步缓存
+        cacheManager.updateGroup(group);
+    }
+
     @Override
     @Transactional
     public void grantGroupAccessToResource(String groupId, String resourceId) {
@@ -181,6 +252,7 @@ public class AdminServiceImpl implements AdminService {
                 .orElseThrow(() -> new IllegalArgumentException("资源不存在: " + resourceId));
         
         group.getResources().remove(resource);
+        group.getResourceSchedules().remove(resourceId);
         resource.getGroups().remove(group);
         
         groupRepository.save(group);
@@ -189,4 +261,104 @@ public class AdminServiceImpl implements AdminService {
         cacheManager.updateGroup(group);
         cacheManager.updateResource(resource);
     }
-}
\ No newline at end of file
+
+    @Override
+    @Transactional
+    public void createSchedule(String scheduleId, String name) {
+        if (scheduleRepository.existsById(scheduleId)) {
+            throw new IllegalStateException("时间表ID已存在: " + scheduleId);
+        }
+        AccessSchedule schedule = new AccessSchedule(scheduleId, name);
+        scheduleRepository.save(schedule);
+        // 同步缓存
+        cacheManager.updateSchedule(schedule);
+    }
+
+    @Override
+    @Transactional
+    public void addScheduleWindow(String scheduleId, DayOfWeek dayOfWeek, LocalTime start, LocalTime end) {
+        AccessSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new IllegalArgumentException("时间表不存在: " + scheduleId));
+        schedule.getWindows().add(new ScheduleWindow(dayOfWeek, start, end));
+        scheduleRepository.save(schedule);
+        // 同步缓存（重新编译时间表）
+        cacheManager.updateSchedule(schedule);
+    }
+
+    @Override
+    @Transactional
+    public void addScheduleHoliday(String scheduleId, LocalDate holiday) {
+        AccessSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new IllegalArgumentException("时间表不存在: " + scheduleId));
+        schedule.getHolidays().add(holiday);
+        scheduleRepository.save(schedule);
+        // 同步缓存（重新编译时间表）
+        cacheManager.updateSchedule(schedule);
+    }
+
+    @Override
+    @Transactional
+    public void setScheduleValidity(String scheduleId, LocalDate validFrom, LocalDate validUntil) {
+        if (validFrom != null && validUntil != null && validUntil.isBefore(validFrom)) {
+            throw new IllegalArgumentException("生效结束日期早于开始日期: " + validFrom + " ~ " + validUntil);
+        }
+        AccessSchedule schedule = scheduleRepository.findById(scheduleId)
+                .orElseThrow(() -> new IllegalArgumentException("时间表不存在: " + scheduleId));
+        schedule.setValidFrom(validFrom);
+        schedule.setValidUntil(validUntil);
+        scheduleRepository.save(schedule);
+        // 同步缓存（重新编译时间表）
+        cacheManager.updateSchedule(schedule);
+    }
+
+    @Override
+    @Transactional
+    public void attachScheduleToGrant(String groupId, String resourceId, String scheduleId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("组不存在: " + groupId));
+        if (!scheduleRepository.existsById(scheduleId)) {
+            throw new IllegalArgumentException("时间表不存在: " + scheduleId);
+        }
+        boolean granted = group.getResources().stream()
+                .anyMatch(resource -> resource.getResourceId().equals(resourceId));
+        if (!granted) {
+            throw new IllegalStateException("组未被授权访问该资源: " + groupId + " -> " + resourceId);
+        }
+
+        group.getResourceSchedules().put(resourceId, scheduleId);
+        groupRepository.save(group);
+        // 同步缓存
+        cacheManager.updateGroup(group);
+    }
+
+    @Override
+    @Transactional
+    public void detachScheduleFromGrant(String groupId, String resourceId) {
+        Group group = groupRepository.findById(groupId)
+                .orElseThrow(() -> new IllegalArgumentException("组不存在: " + groupId));
+        group.getResourceSchedules().remove(resourceId);
+        groupRepository.save(group);
+        // 同步缓存
+        cacheManager.updateGroup(group);
+    }
+
+    // 封锁不修改任何资源，只写一次 lockdowns 表（不开启外层事务，写入后立即生效）
+    @Override
+    public String activateLockdown(LockdownScope scope, String target) {
+        if (scope == LockdownScope.TYPE) {
+            try {
+                ResourceType.valueOf(target);
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new IllegalArgumentException("资源类型不存在: " + target);
+            }
+        } else if (scope == LockdownScope.ZONE && (target == null || !resourceRepository.existsById(target))) {
+            throw new IllegalArgumentException("资源不存在: " + target);
+        }
+        return lockdownManager.activate(scope, target);
+    }
+
+    @Override
+    public void liftLockdown(String lockdownId) {
+        lockdownManager.deactivate(lockdownId);
+    }
+}
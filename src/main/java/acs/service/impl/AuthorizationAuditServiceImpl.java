@@ -0,0 +1,120 @@
+package acs.service.impl;
+
+import acs.audit.AccessAuditQuery;
+import acs.audit.AuditedEmployee;
+import acs.audit.EmployeePage;
+import acs.cache.CachedEmployee;
+import acs.cache.LocalCacheManager;
+import acs.service.AuthorizationAuditService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Service
+public class AuthorizationAuditServiceImpl implements AuthorizationAuditService {
+
+    private final LocalCacheManager cacheManager;
+    private final int maxPageSize;
+
+    public AuthorizationAuditServiceImpl(LocalCacheManager cacheManager,
+                                         @Value("${acs.audit.max-page-size:10000}") int maxPageSize) {
+        this.cacheManager = cacheManager;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @Override
+    public long count(AccessAuditQuery query) {
+        return evaluate(query).cardinality();
+    }
+
+    @Override
+    public EmployeePage find(AccessAuditQuery query, String cursor, int limit) {
+        if (limit <= 0 || limit > maxPageSize) {
+            throw new IllegalArgumentException("每页数量必须在 1 到 " + maxPageSize + " 之间: " + limit);
+        }
+        int fromOrdinal = parseCursor(cursor);
+        BitSet result = evaluate(query);
+        return page(result, fromOrdinal, limit);
+    }
+
+    @Override
+    public void export(AccessAuditQuery query, Consumer<AuditedEmployee> consumer) {
+        String cursor = null;
+        do {
+            EmployeePage page = find(query, cursor, maxPageSize);
+            page.employees().forEach(consumer);
+            cursor = page.nextCursor();
+        } while (cursor != null);
+    }
+
+    // 交集(allOf) ∩ 并集(anyOf) − 并集(noneOf)
+    private BitSet evaluate(AccessAuditQuery query) {
+        if (query.allOf().isEmpty() && query.anyOf().isEmpty()) {
+            throw new IllegalArgumentException("至少需要指定一个必须能进入的资源");
+        }
+        BitSet result = null;
+        for (String resourceId : query.allOf()) {
+            BitSet employees = employeesWithAccess(resourceId);
+            if (result == null) {
+                result = employees;
+            } else {
+                result.and(employees);
+            }
+        }
+        if (!query.anyOf().isEmpty()) {
+            BitSet any = new BitSet();
+            for (String resourceId : query.anyOf()) {
+                any.or(employeesWithAccess(resourceId));
+            }
+            if (result == null) {
+                result = any;
+            } else {
+                result.and(any);
+            }
+        }
+        for (String resourceId : query.noneOf()) {
+            result.andNot(employeesWithAccess(resourceId));
+        }
+        return result;
+    }
+
+    private BitSet employeesWithAccess(String resourceId) {
+        if (resourceId == null || cacheManager.getResource(resourceId) == null) {
+            throw new IllegalArgumentException("资源不存在: " + resourceId);
+        }
+        return cacheManager.employeesWithAccess(resourceId);
+    }
+
+    private EmployeePage page(BitSet result, int fromOrdinal, int limit) {
+        // 多取一个判断是否还有下一页
+        List<CachedEmployee> employees = cacheManager.employeesIn(result, fromOrdinal, limit + 1);
+        String nextCursor = null;
+        if (employees.size() > limit) {
+            nextCursor = Integer.toString(employees.get(limit).getOrdinal());
+            employees = employees.subList(0, limit);
+        }
+        List<AuditedEmployee> page = employees.stream()
+                .map(employee -> new AuditedEmployee(employee.getEmployeeId(), employee.getEmployeeName(),
+                        employee.getBadgeId()))
+                .toList();
+        return new EmployeePage(page, result.cardinality(), nextCursor);
+    }
+
+    private static int parseCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            int ordinal = Integer.parseInt(cursor.trim());
+            if (ordinal < 0) {
+                throw new NumberFormatException();
+            }
+            return ordinal;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("无效的分页游标: " + cursor);
+        }
+    }
+}
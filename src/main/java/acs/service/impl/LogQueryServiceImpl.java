@@ -1,6 +1,15 @@
 package acs.service.impl;
 
+import acs.datasource.DataSourceRoute;
+import acs.datasource.ReplicaRouting;
+import acs.datasource.Routed;
+import acs.domain.AccessDecision;
 import acs.domain.LogEntry;
+import acs.log.archive.ArchiveQuery;
+import acs.log.archive.LogArchive;
+import acs.repository.AccessLogRepository;
+import acs.resilience.Bulkheads;
+import acs.resilience.Workload;
 import acs.service.LogQueryService;
 import acs.cache.LocalCacheManager;
 import org.springframework.stereotype.Service;
@@ -8,16 +17,40 @@ import org.springframework.stereotype.Service;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
+/**
+ * 日志查询跨越三层存储：
+ * - 热数据：内存缓存
+ * - 温数据：数据库，只查询早于缓存中最早日志的那一段时间；在 QUERY 工作负载的线程池与连接配额内执行，
+ *   大量审计查询不会占用刷卡路径的连接；启用只读副本且延迟在允许范围内时由副本提供
+ * - 冷数据：归档段，按段头跳过不可能匹配的段
+ *
+ * 结果按日志ID去重（层与层之间可能短暂重叠），按时间升序返回。
+ */
 @Service
 public class LogQueryServiceImpl implements LogQueryService {
 
     private final LocalCacheManager cacheManager;
+    private final AccessLogRepository accessLogRepository;
+    private final LogArchive archive;
+    private final Bulkheads bulkheads;
 
-    public LogQueryServiceImpl(LocalCacheManager cacheManager) {
+    // 每个调用线程最近一次查询所用的数据源
+    private final ThreadLocal<DataSourceRoute> lastServedBy = new ThreadLocal<>();
+
+    public LogQueryServiceImpl(LocalCacheManager cacheManager, AccessLogRepository accessLogRepository,
+                               LogArchive archive, Bulkheads bulkheads) {
         this.cacheManager = cacheManager;
+        this.accessLogRepository = accessLogRepository;
+        this.archive = archive;
+        this.bulkheads = bulkheads;
     }
 
     // 按徽章查询日志
@@ -25,11 +58,9 @@ public class LogQueryServiceImpl implements LogQueryService {
     public List<LogEntry> findByBadge(String badgeId, Instant from, Instant to) {
         LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
         LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
-        // 从缓存过滤
-        return cacheManager.getLogs().stream()
-                .filter(log -> log.getBadge() != null && log.getBadge().getBadgeId().equals(badgeId))
-                .filter(log -> !log.getTimestamp().isBefore(start) && !log.getTimestamp().isAfter(end))
-                .collect(Collectors.toList());
+        return query(log -> badgeId.equals(log.getBadgeId()), start, end,
+                (dbStart, dbEnd) -> accessLogRepository.findByBadgeIdAndTimestampBetween(badgeId, dbStart, dbEnd),
+                ArchiveQuery.byBadge(badgeId, start, end));
     }
 
     // 按员工查询日志
@@ -37,10 +68,9 @@ public class LogQueryServiceImpl implements LogQueryService {
     public List<LogEntry> findByEmployee(String employeeId, Instant from, Instant to) {
         LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
         LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
-        return cacheManager.getLogs().stream()
-                .filter(log -> log.getEmployee() != null && log.getEmployee().getEmployeeId().equals(employeeId))
-                .filter(log -> !log.getTimestamp().isBefore(start) && !log.getTimestamp().isAfter(end))
-                .collect(Collectors.toList());
+        return query(log -> employeeId.equals(log.getEmployeeId()), start, end,
+                (dbStart, dbEnd) -> accessLogRepository.findByEmployeeIdAndTimestampBetween(employeeId, dbStart, dbEnd),
+                ArchiveQuery.byEmployee(employeeId, start, end));
     }
 
     // 按资源查询日志
@@ -48,10 +78,9 @@ public class LogQueryServiceImpl implements LogQueryService {
     public List<LogEntry> findByResource(String resourceId, Instant from, Instant to) {
         LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
         LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
-        return cacheManager.getLogs().stream()
-                .filter(log -> log.getResource() != null && log.getResource().getResourceId().equals(resourceId))
-                .filter(log -> !log.getTimestamp().isBefore(start) && !log.getTimestamp().isAfter(end))
-                .collect(Collectors.toList());
+        return query(log -> resourceId.equals(log.getResourceId()), start, end,
+                (dbStart, dbEnd) -> accessLogRepository.findByResourceIdAndTimestampBetween(resourceId, dbStart, dbEnd),
+                ArchiveQuery.byResource(resourceId, start, end));
     }
 
     // 查询被拒绝的日志
@@ -59,9 +88,59 @@ public class LogQueryServiceImpl implements LogQueryService {
     public List<LogEntry> findDenied(Instant from, Instant to) {
         LocalDateTime start = LocalDateTime.ofInstant(from, ZoneId.systemDefault());
         LocalDateTime end = LocalDateTime.ofInstant(to, ZoneId.systemDefault());
-        return cacheManager.getLogs().stream()
-                .filter(log -> log.getDecision().toString().equals("DENY"))
+        return query(log -> log.getDecision() == AccessDecision.DENY, start, end,
+                (dbStart, dbEnd) -> accessLogRepository.findByDecisionAndTimestampBetween(AccessDecision.DENY, dbStart, dbEnd),
+                ArchiveQuery.byDecision(AccessDecision.DENY, start, end));
+    }
+
+    @Override
+    public DataSourceRoute lastServedBy() {
+        return lastServedBy.get();
+    }
+
+    private List<LogEntry> query(Predicate<LogEntry> filter, LocalDateTime start, LocalDateTime end,
+                                 DatabaseQuery databaseQuery, ArchiveQuery archiveQuery) {
+        // 1. 从缓存过滤
+        List<LogEntry> result = cacheManager.getLogs().stream()
+                .filter(filter)
                 .filter(log -> !log.getTimestamp().isBefore(start) && !log.getTimestamp().isAfter(end))
                 .collect(Collectors.toList());
+
+        // 2. 缓存未覆盖的较早时间段查数据库
+        lastServedBy.remove();
+        LocalDateTime oldestCached = cacheManager.oldestLogTimestamp();
+        if (oldestCached == null || start.isBefore(oldestCached)) {
+            LocalDateTime dbEnd = oldestCached == null || end.isBefore(oldestCached) ? end : oldestCached;
+            Routed<List<LogEntry>> routed = bulkheads.execute(Workload.QUERY,
+                    () -> ReplicaRouting.track(() -> databaseQuery.find(start, dbEnd)));
+            lastServedBy.set(routed.route());
+            result = merge(result, routed.result());
+        }
+
+        // 3. 归档段
+        return merge(result, archive.query(archiveQuery));
+    }
+
+    // 按日志ID去重合并（没有ID的日志全部保留），按时间升序
+    private static List<LogEntry> merge(List<LogEntry> first, List<LogEntry> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        Set<Long> seen = new HashSet<>();
+        List<LogEntry> merged = new ArrayList<>(first.size() + second.size());
+        for (List<LogEntry> part : List.of(first, second)) {
+            for (LogEntry log : part) {
+                if (log.getId() == null || seen.add(log.getId())) {
+                    merged.add(log);
+                }
+            }
+        }
+        merged.sort(Comparator.comparing(LogEntry::getTimestamp));
+        return merged;
+    }
+
+    @FunctionalInterface
+    private interface DatabaseQuery {
+        List<LogEntry> find(LocalDateTime start, LocalDateTime end);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package acs.service.impl;
+
+import acs.service.SimulationService;
+import acs.simulation.PermissionSimulator;
+import acs.simulation.SimulatedChange;
+import acs.simulation.SimulationReport;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+@Service
+public class SimulationServiceImpl implements SimulationService {
+
+    private final PermissionSimulator simulator;
+    private final int maxWindowDays;
+
+    public SimulationServiceImpl(PermissionSimulator simulator,
+                                 @Value("${acs.simulation.max-window-days:93}") int maxWindowDays) {
+        this.simulator = simulator;
+        this.maxWindowDays = maxWindowDays;
+    }
+
+    @Override
+    public SimulationReport simulate(List<SimulatedChange> changes, Instant from, Instant to) {
+        if (changes == null || changes.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一项拟议变更");
+        }
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("模拟时间范围无效: " + from + " ~ " + to);
+        }
+        if (Duration.between(from, to).compareTo(Duration.ofDays(maxWindowDays)) > 0) {
+            throw new IllegalArgumentException("模拟时间范围不能超过 " + maxWindowDays + " 天");
+        }
+        return simulator.simulate(changes, LocalDateTime.ofInstant(from, ZoneId.systemDefault()),
+                LocalDateTime.ofInstant(to, ZoneId.systemDefault()));
+    }
+}
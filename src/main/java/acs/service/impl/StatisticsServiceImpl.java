@@ -0,0 +1,133 @@
+package acs.service.impl;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.service.StatisticsService;
+import acs.stats.AccessStat;
+import acs.stats.AccessStatsRollup;
+import acs.stats.RollupGranularity;
+import acs.stats.StatDimension;
+import acs.stats.StatSeries;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 区间合计把 [from, to) 拆成整天 + 两端的整小时 + 两端的分钟，分别读取天桶、小时桶、分钟桶：
+ * 90 天的区间最多读取约 90 + 2×23 + 2×59 个桶（每个桶按决策 / 原因若干行），与日志量无关。
+ * 分钟桶（或小时桶）已过保留期的一端按所在的整小时（整天）计。
+ */
+@Service
+public class StatisticsServiceImpl implements StatisticsService {
+
+    private final AccessStatsRollup statsRollup;
+    private final int maxBuckets;
+
+    public StatisticsServiceImpl(AccessStatsRollup statsRollup,
+                                 @Value("${acs.stats.max-buckets:2500}") int maxBuckets) {
+        this.statsRollup = statsRollup;
+        this.maxBuckets = maxBuckets;
+    }
+
+    @Override
+    public StatSeries series(StatDimension dimension, String dimensionId, Instant from, Instant to,
+                             RollupGranularity granularity) {
+        LocalDateTime start = toLocal(from);
+        LocalDateTime end = toLocal(to);
+        validate(start, end);
+        LocalDateTime now = LocalDateTime.now();
+        RollupGranularity actual = granularity;
+        while (actual != RollupGranularity.DAY
+                && (actual.buckets(start, end) > maxBuckets || start.isBefore(retainedSince(actual, now)))) {
+            actual = actual.coarser();
+        }
+        return new StatSeries(actual, statsRollup.query(actual, dimension, dimensionId, actual.truncate(start), end));
+    }
+
+    @Override
+    public Map<AccessDecision, Long> decisionTotals(StatDimension dimension, String dimensionId, Instant from, Instant to) {
+        return totals(dimension, dimensionId, from, to, AccessStat::decision, AccessDecision.class);
+    }
+
+    @Override
+    public Map<ReasonCode, Long> reasonTotals(StatDimension dimension, String dimensionId, Instant from, Instant to) {
+        return totals(dimension, dimensionId, from, to, AccessStat::reasonCode, ReasonCode.class);
+    }
+
+    private <K extends Enum<K>> Map<K, Long> totals(StatDimension dimension, String dimensionId, Instant from,
+                                                    Instant to, Function<AccessStat, K> key, Class<K> type) {
+        LocalDateTime start = toLocal(from);
+        LocalDateTime end = toLocal(to);
+        validate(start, end);
+
+        // 过保留期的一端向外取整到仍有数据的粒度
+        LocalDateTime now = LocalDateTime.now();
+        for (RollupGranularity granularity : List.of(RollupGranularity.MINUTE, RollupGranularity.HOUR)) {
+            LocalDateTime retainedSince = retainedSince(granularity, now);
+            RollupGranularity coarser = granularity.coarser();
+            if (start.isBefore(retainedSince)) {
+                start = coarser.truncate(start);
+            }
+            if (end.isBefore(retainedSince)) {
+                end = coarser.ceil(end);
+            }
+        }
+
+        List<AccessStat> stats = new ArrayList<>();
+        collect(dimension, dimensionId, RollupGranularity.MINUTE.truncate(start), RollupGranularity.MINUTE.ceil(end),
+                RollupGranularity.DAY, stats);
+        Map<K, Long> totals = new EnumMap<>(type);
+        for (AccessStat stat : stats) {
+            totals.merge(key.apply(stat), stat.count(), Long::sum);
+        }
+        return totals;
+    }
+
+    // 本粒度的整桶部分读一次，两端剩余部分交给更细的粒度
+    private void collect(StatDimension dimension, String dimensionId, LocalDateTime from, LocalDateTime to,
+                         RollupGranularity granularity, List<AccessStat> out) {
+        if (!from.isBefore(to)) {
+            return;
+        }
+        if (granularity == RollupGranularity.MINUTE) {
+            out.addAll(statsRollup.query(granularity, dimension, dimensionId, from, to));
+            return;
+        }
+        LocalDateTime wholeStart = granularity.ceil(from);
+        LocalDateTime wholeEnd = granularity.truncate(to);
+        if (!wholeStart.isBefore(wholeEnd)) {
+            collect(dimension, dimensionId, from, to, granularity.finer(), out);
+            return;
+        }
+        out.addAll(statsRollup.query(granularity, dimension, dimensionId, wholeStart, wholeEnd));
+        collect(dimension, dimensionId, from, wholeStart, granularity.finer(), out);
+        collect(dimension, dimensionId, wholeEnd, to, granularity.finer(), out);
+    }
+
+    // 该粒度最早仍保留的桶（天桶不过期）
+    private LocalDateTime retainedSince(RollupGranularity granularity, LocalDateTime now) {
+        return switch (granularity) {
+            case MINUTE -> statsRollup.minuteRetainedSince(now);
+            case HOUR -> statsRollup.hourRetainedSince(now);
+            case DAY -> LocalDateTime.MIN;
+        };
+    }
+
+    private static void validate(LocalDateTime start, LocalDateTime end) {
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("统计区间的开始时间必须早于结束时间");
+        }
+    }
+
+    private static LocalDateTime toLocal(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,156 @@
+package acs.simulation;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.log.archive.ArchiveQuery;
+import acs.log.archive.LogArchive;
+import acs.log.archive.LogSegment;
+import acs.resilience.Bulkheads;
+import acs.resilience.Workload;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 从归档段与 access_logs 读取历史刷卡
+ *
+ * - 归档段按段头跳过时间范围外的段，逐段解码读取，同一时刻只持有一个段的匹配行
+ * - 数据库按 timestamp 索引范围逐行读取：设置 fetch-size，并需要连接参数 useCursorFetch=true（MySQL 服务端游标），
+ *   否则驱动会把整个结果集读入内存
+ * - 数据库读取属于 QUERY 工作负载，使用其连接配额，不影响刷卡路径
+ * - 清理中断时同一条日志可能同时在归档与数据库中、或被归档两次：归档行按块到数据库探测，仍在数据库中的
+ *   由数据库扫描提供；重复归档的两份在时间范围重叠的段中，只与仍重叠的段比较日志ID。
+ *   内存占用取决于段大小与重叠段数量，与查询时间窗口长度无关
+ */
+@Component
+public class AccessLogScanSource implements ScanSource {
+
+    private static final String SELECT_SCANS = "SELECT id, timestamp, badge_id, resource_id, decision, reason_code, "
+            + "direction FROM access_logs WHERE timestamp >= ? AND timestamp < ?";
+    private static final int PROBE_CHUNK = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LogArchive archive;
+    private final Bulkheads bulkheads;
+    private final int fetchSize;
+
+    public AccessLogScanSource(JdbcTemplate jdbcTemplate, LogArchive archive, Bulkheads bulkheads,
+                               @Value("${acs.simulation.fetch-size:5000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.archive = archive;
+        this.bulkheads = bulkheads;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void scan(LocalDateTime start, LocalDateTime end, Consumer<HistoricalScan> consumer) {
+        // 1. 归档段（闭区间查询，排除 end）
+        ArchiveQuery query = new ArchiveQuery(start, end.minusNanos(1), null, null);
+        // 时间范围仍与当前段重叠的已读段：最大时间 -> 已输出的日志ID
+        List<Map.Entry<LocalDateTime, Set<Long>>> overlapping = new ArrayList<>();
+        for (LogSegment segment : archive.getSegments()) {
+            if (!segment.mightMatch(query)) {
+                continue;
+            }
+            overlapping.removeIf(previous -> previous.getKey().isBefore(segment.getMinTime()));
+            Set<Long> ids = new HashSet<>();
+            List<LogEntry> rows = new ArrayList<>();
+            for (LogEntry log : scanSegment(segment, query)) {
+                if (!log.getTimestamp().isBefore(end)) {
+                    continue;
+                }
+                if (log.getId() != null && (!ids.add(log.getId()) || archivedEarlier(overlapping, log.getId()))) {
+                    continue;
+                }
+                rows.add(log);
+            }
+            for (int from = 0; from < rows.size(); from += PROBE_CHUNK) {
+                emitArchived(rows.subList(from, Math.min(from + PROBE_CHUNK, rows.size())), consumer);
+            }
+            overlapping.add(Map.entry(segment.getMaxTime(), ids));
+        }
+        // 2. 数据库
+        bulkheads.run(Workload.QUERY, () -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_SCANS);
+            statement.setFetchSize(fetchSize);
+            statement.setTimestamp(1, Timestamp.valueOf(start));
+            statement.setTimestamp(2, Timestamp.valueOf(end));
+            return statement;
+        }, row -> {
+            String direction = row.getString("direction");
+            String reasonCode = row.getString("reason_code");
+            consumer.accept(new HistoricalScan(row.getLong("id"), row.getTimestamp("timestamp").toLocalDateTime(),
+                    row.getString("badge_id"), row.getString("resource_id"),
+                    AccessDecision.valueOf(row.getString("decision")),
+                    reasonCode != null ? ReasonCode.valueOf(reasonCode) : null,
+                    direction != null ? AccessDirection.valueOf(direction) : null));
+        }));
+    }
+
+    private static List<LogEntry> scanSegment(LogSegment segment, ArchiveQuery query) {
+        try {
+            return segment.scan(query);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取日志归档段失败: " + segment.getPath(), e);
+        }
+    }
+
+    private static boolean archivedEarlier(List<Map.Entry<LocalDateTime, Set<Long>>> overlapping, long id) {
+        for (Map.Entry<LocalDateTime, Set<Long>> previous : overlapping) {
+            if (previous.getValue().contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 输出一块归档行，跳过仍在数据库中的（由数据库扫描输出）
+    private void emitArchived(List<LogEntry> chunk, Consumer<HistoricalScan> consumer) {
+        Set<Long> inDatabase = stillInDatabase(chunk);
+        for (LogEntry log : chunk) {
+            if (log.getId() == null || !inDatabase.contains(log.getId())) {
+                consumer.accept(new HistoricalScan(log.getId(), log.getTimestamp(), log.getBadgeId(),
+                        log.getResourceId(), log.getDecision(), log.getReasonCode(), log.getDirection()));
+            }
+        }
+    }
+
+    // 按主键探测，时间条件用于分区裁剪
+    private Set<Long> stillInDatabase(List<LogEntry> chunk) {
+        List<Object> args = new ArrayList<>();
+        LocalDateTime min = null;
+        LocalDateTime max = null;
+        for (LogEntry log : chunk) {
+            if (log.getId() == null) {
+                continue;
+            }
+            args.add(log.getId());
+            min = min == null || log.getTimestamp().isBefore(min) ? log.getTimestamp() : min;
+            max = max == null || log.getTimestamp().isAfter(max) ? log.getTimestamp() : max;
+        }
+        if (args.isEmpty()) {
+            return Set.of();
+        }
+        String sql = "SELECT id FROM access_logs WHERE timestamp >= ? AND timestamp <= ? AND id IN ("
+                + String.join(", ", Collections.nCopies(args.size(), "?")) + ")";
+        args.add(0, Timestamp.valueOf(min));
+        args.add(1, Timestamp.valueOf(max));
+        return new HashSet<>(bulkheads.call(Workload.QUERY,
+                () -> jdbcTemplate.queryForList(sql, Long.class, args.toArray())));
+    }
+}
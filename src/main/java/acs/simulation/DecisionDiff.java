@@ -0,0 +1,13 @@
+package acs.simulation;
+
+/**
+ * 一个维度（资源 / 组）上判断结果变化的刷卡数
+ *
+ * newlyDenied：原来允许、变更后拒绝；newlyAllowed：原来拒绝、变更后允许；reasonChanged：仍被拒绝但原因不同
+ */
+public record DecisionDiff(long newlyDenied, long newlyAllowed, long reasonChanged) {
+
+    public long total() {
+        return newlyDenied + newlyAllowed + reasonChanged;
+    }
+}
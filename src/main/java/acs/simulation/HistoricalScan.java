@@ -0,0 +1,14 @@
+package acs.simulation;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 回放用的一条历史刷卡（access_logs / 归档中的一行，只含判断所需的列）
+ */
+public record HistoricalScan(Long id, LocalDateTime timestamp, String badgeId, String resourceId,
+                             AccessDecision decision, ReasonCode reasonCode, AccessDirection direction) {
+}
@@ -0,0 +1,145 @@
+package acs.simulation;
+
+import acs.cache.AuthorizationSnapshot;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDirection;
+import acs.domain.ReasonCode;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * PermissionSimulator 回答“如果这样改授权，历史上哪些刷卡的结果会不同”
+ *
+ * - 从缓存复制两份授权快照：当前授权（基线）与应用拟议变更后的候选授权，缓存本身不受影响
+ * - 窗口按 acs.simulation.partition-hours 划分为时间分区，在专用 ForkJoinPool 上分治并行：
+ *   每个分区流式读取历史刷卡，在两份快照上各判断一次，只累加差异计数，最后逐级合并
+ * - 只重新判断授权（徽章、员工、资源与权限 / 时间表）；资源状态、封锁、占用与容量等运行时状态无法重现，
+ *   通过授权的刷卡沿用当时记录的结果（当时未通过授权的按允许计）
+ */
+@Component
+public class PermissionSimulator {
+
+    private final LocalCacheManager cacheManager;
+    private final ScanSource scanSource;
+    private final ForkJoinPool pool;
+    private final Duration partition;
+    private final int sampleSize;
+
+    public PermissionSimulator(LocalCacheManager cacheManager, ScanSource scanSource,
+                               @Value("${acs.simulation.parallelism:4}") int parallelism,
+                               @Value("${acs.simulation.partition-hours:24}") int partitionHours,
+                               @Value("${acs.simulation.sample-size:100}") int sampleSize) {
+        if (parallelism <= 0 || partitionHours <= 0) {
+            throw new IllegalArgumentException("模拟的并行度与分区小时数必须大于0");
+        }
+        this.cacheManager = cacheManager;
+        this.scanSource = scanSource;
+        this.pool = new ForkJoinPool(parallelism);
+        this.partition = Duration.ofHours(partitionHours);
+        this.sampleSize = sampleSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * 在 [from, to) 内的历史刷卡上模拟拟议变更
+     *
+     * @throws IllegalArgumentException 变更引用的徽章、员工、组、资源或时间表不存在
+     * @throws IllegalStateException    变更会使组或资源层级形成环
+     */
+    public SimulationReport simulate(List<SimulatedChange> changes, LocalDateTime from, LocalDateTime to) {
+        long start = System.currentTimeMillis();
+        AuthorizationSnapshot baseline = cacheManager.snapshot().build();
+        AuthorizationSnapshot.Builder builder = cacheManager.snapshot();
+        for (SimulatedChange change : changes) {
+            change.applyTo(builder);
+        }
+        AuthorizationSnapshot candidate = builder.build();
+        SimulationTally tally = pool.invoke(new PartitionTask(baseline, candidate, from, to));
+        return tally.toReport(from, to, System.currentTimeMillis() - start);
+    }
+
+    // 在两份快照上回放一条刷卡并累加差异
+    void replay(HistoricalScan scan, AuthorizationSnapshot baseline, AuthorizationSnapshot candidate,
+                SimulationTally tally) {
+        tally.scanned();
+        if (!isReplayable(scan)) {
+            return;
+        }
+        ReasonCode before = outcome(baseline, scan);
+        ReasonCode after = outcome(candidate, scan);
+        tally.replayed(before == scan.reasonCode());
+        if (before != after) {
+            Set<String> groupIds = new LinkedHashSet<>(baseline.groupIdsOfBadge(scan.badgeId()));
+            groupIds.addAll(candidate.groupIdsOfBadge(scan.badgeId()));
+            tally.changed(scan, before, after, new ArrayList<>(groupIds));
+        }
+    }
+
+    // 离开不检查权限；非法请求与系统错误无法重现
+    static boolean isReplayable(HistoricalScan scan) {
+        return scan.direction() != AccessDirection.EXIT && scan.badgeId() != null && scan.resourceId() != null
+                && scan.timestamp() != null && scan.reasonCode() != null
+                && scan.reasonCode() != ReasonCode.PENDING && scan.reasonCode() != ReasonCode.INVALID_REQUEST
+                && scan.reasonCode() != ReasonCode.SYSTEM_ERROR;
+    }
+
+    // 快照上的判断结果：未通过授权为对应原因，通过授权时沿用当时授权之后各检查的结果
+    static ReasonCode outcome(AuthorizationSnapshot snapshot, HistoricalScan scan) {
+        ReasonCode authorization = snapshot.authorize(scan.badgeId(), scan.resourceId(), scan.timestamp());
+        if (authorization != ReasonCode.ALLOW) {
+            return authorization;
+        }
+        return switch (scan.reasonCode()) {
+            case RESOURCE_LOCKED, RESOURCE_OCCUPIED, CAPACITY_EXCEEDED -> scan.reasonCode();
+            default -> ReasonCode.ALLOW;
+        };
+    }
+
+    // 时间分区上的分治任务：超过一个分区时按分区边界对半拆分
+    private final class PartitionTask extends RecursiveTask<SimulationTally> {
+
+        private final AuthorizationSnapshot baseline;
+        private final AuthorizationSnapshot candidate;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        PartitionTask(AuthorizationSnapshot baseline, AuthorizationSnapshot candidate,
+                      LocalDateTime start, LocalDateTime end) {
+            this.baseline = baseline;
+            this.candidate = candidate;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected SimulationTally compute() {
+            long partitions = (Duration.between(start, end).toMillis() + partition.toMillis() - 1) / partition.toMillis();
+            if (partitions <= 1) {
+                SimulationTally tally = new SimulationTally(sampleSize);
+                scanSource.scan(start, end, scan -> replay(scan, baseline, candidate, tally));
+                tally.partitionDone();
+                return tally;
+            }
+            LocalDateTime middle = start.plus(partition.multipliedBy(partitions / 2));
+            PartitionTask left = new PartitionTask(baseline, candidate, start, middle);
+            PartitionTask right = new PartitionTask(baseline, candidate, middle, end);
+            left.fork();
+            SimulationTally rightTally = right.compute();
+            return left.join().merge(rightTally);
+        }
+    }
+}
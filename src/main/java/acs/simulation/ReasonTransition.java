@@ -0,0 +1,9 @@
+package acs.simulation;
+
+import acs.domain.ReasonCode;
+
+/**
+ * 判断原因从 from 变为 to 的刷卡数
+ */
+public record ReasonTransition(ReasonCode from, ReasonCode to, long count) {
+}
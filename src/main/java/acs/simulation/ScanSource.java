@@ -0,0 +1,13 @@
+package acs.simulation;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+/**
+ * 历史刷卡的来源，按时间分区读取（同一个分区只在一个线程上读取，不同分区可并行）
+ */
+public interface ScanSource {
+
+    /** 逐条读取 [start, end) 内的刷卡（顺序不限） */
+    void scan(LocalDateTime start, LocalDateTime end, Consumer<HistoricalScan> consumer);
+}
@@ -0,0 +1,84 @@
+package acs.simulation;
+
+import acs.cache.AuthorizationSnapshot;
+import acs.domain.AccessSchedule;
+import acs.domain.BadgeStatus;
+
+/**
+ * 拟议的授权变更（与 AdminService 中影响访问判断的操作一一对应），只作用于模拟用的授权快照
+ */
+public sealed interface SimulatedChange {
+
+    void applyTo(AuthorizationSnapshot.Builder snapshot);
+
+    record SetBadgeStatus(String badgeId, BadgeStatus status) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.setBadgeStatus(badgeId, status);
+        }
+    }
+
+    record AssignEmployeeToGroup(String employeeId, String groupId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.assignEmployeeToGroup(employeeId, groupId);
+        }
+    }
+
+    record RemoveEmployeeFromGroup(String employeeId, String groupId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.removeEmployeeFromGroup(employeeId, groupId);
+        }
+    }
+
+    record GrantGroupAccess(String groupId, String resourceId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.grantGroupAccess(groupId, resourceId);
+        }
+    }
+
+    record RevokeGroupAccess(String groupId, String resourceId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.revokeGroupAccess(groupId, resourceId);
+        }
+    }
+
+    record SetGroupParent(String groupId, String parentGroupId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.setGroupParent(groupId, parentGroupId);
+        }
+    }
+
+    record SetResourceParent(String resourceId, String parentResourceId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.setResourceParent(resourceId, parentResourceId);
+        }
+    }
+
+    /** 新增或替换时间表（时间段、假日与有效期取自未保存的实体） */
+    record DefineSchedule(AccessSchedule schedule) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.defineSchedule(schedule);
+        }
+    }
+
+    record AttachSchedule(String groupId, String resourceId, String scheduleId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.attachSchedule(groupId, resourceId, scheduleId);
+        }
+    }
+
+    record DetachSchedule(String groupId, String resourceId) implements SimulatedChange {
+        @Override
+        public void applyTo(AuthorizationSnapshot.Builder snapshot) {
+            snapshot.detachSchedule(groupId, resourceId);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package acs.simulation;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 模拟结果：同一批历史刷卡分别在当前授权与变更后授权下回放，两者判断结果的差异
+ *
+ * - scannedLogs：窗口内读取的日志数；replayedScans：可回放的进入刷卡数（离开、非法请求与系统错误不回放）
+ * - baselineMismatches：当前授权下的回放结果与当时记录的结果不同的刷卡数（窗口内已发生的授权变化）
+ * - byResource / byGroup 按变化总数降序；一次刷卡计入员工在变更前后所属的每个组
+ * - sampleLogIds：部分发生变化的日志ID，便于逐条核对
+ */
+public record SimulationReport(LocalDateTime from, LocalDateTime to, long scannedLogs, long replayedScans,
+                               long changedScans, long baselineMismatches, Map<String, DecisionDiff> byResource,
+                               Map<String, DecisionDiff> byGroup, List<ReasonTransition> byReason,
+                               List<Long> sampleLogIds, int partitions, long elapsedMillis) {
+}
@@ -0,0 +1,117 @@
+package acs.simulation;
+
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一个时间分区的模拟计数（只在一个线程上累加，分区之间合并）
+ */
+final class SimulationTally {
+
+    private static final int REASONS = ReasonCode.values().length;
+
+    private final int sampleSize;
+    private long scannedLogs;
+    private long replayedScans;
+    private long changedScans;
+    private long baselineMismatches;
+    private final Map<String, long[]> byResource = new HashMap<>();
+    private final Map<String, long[]> byGroup = new HashMap<>();
+    private final long[] transitions = new long[REASONS * REASONS];
+    private final List<Long> sampleLogIds = new ArrayList<>();
+    private int partitions;
+
+    SimulationTally(int sampleSize) {
+        this.sampleSize = sampleSize;
+    }
+
+    void scanned() {
+        scannedLogs++;
+    }
+
+    void replayed(boolean matchesRecorded) {
+        replayedScans++;
+        if (!matchesRecorded) {
+            baselineMismatches++;
+        }
+    }
+
+    void partitionDone() {
+        partitions++;
+    }
+
+    // 一次判断结果变化的刷卡
+    void changed(HistoricalScan scan, ReasonCode baseline, ReasonCode candidate, List<String> groupIds) {
+        changedScans++;
+        int kind = baseline == ReasonCode.ALLOW ? 0 : candidate == ReasonCode.ALLOW ? 1 : 2;
+        byResource.computeIfAbsent(scan.resourceId(), key -> new long[3])[kind]++;
+        for (String groupId : groupIds) {
+            byGroup.computeIfAbsent(groupId, key -> new long[3])[kind]++;
+        }
+        transitions[baseline.ordinal() * REASONS + candidate.ordinal()]++;
+        if (sampleLogIds.size() < sampleSize && scan.id() != null) {
+            sampleLogIds.add(scan.id());
+        }
+    }
+
+    SimulationTally merge(SimulationTally other) {
+        scannedLogs += other.scannedLogs;
+        replayedScans += other.replayedScans;
+        changedScans += other.changedScans;
+        baselineMismatches += other.baselineMismatches;
+        partitions += other.partitions;
+        mergeCounts(byResource, other.byResource);
+        mergeCounts(byGroup, other.byGroup);
+        for (int i = 0; i < transitions.length; i++) {
+            transitions[i] += other.transitions[i];
+        }
+        for (Long id : other.sampleLogIds) {
+            if (sampleLogIds.size() >= sampleSize) {
+                break;
+            }
+            sampleLogIds.add(id);
+        }
+        return this;
+    }
+
+    SimulationReport toReport(LocalDateTime from, LocalDateTime to, long elapsedMillis) {
+        ReasonCode[] reasons = ReasonCode.values();
+        List<ReasonTransition> byReason = new ArrayList<>();
+        for (int i = 0; i < transitions.length; i++) {
+            if (transitions[i] > 0) {
+                byReason.add(new ReasonTransition(reasons[i / REASONS], reasons[i % REASONS], transitions[i]));
+            }
+        }
+        byReason.sort(Comparator.comparingLong(ReasonTransition::count).reversed());
+        return new SimulationReport(from, to, scannedLogs, replayedScans, changedScans, baselineMismatches,
+                toDiffs(byResource), toDiffs(byGroup), byReason, List.copyOf(sampleLogIds), partitions, elapsedMillis);
+    }
+
+    private static void mergeCounts(Map<String, long[]> target, Map<String, long[]> source) {
+        source.forEach((key, counts) -> {
+            long[] existing = target.computeIfAbsent(key, k -> new long[3]);
+            for (int i = 0; i < 3; i++) {
+                existing[i] += counts[i];
+            }
+        });
+    }
+
+    // 按变化总数降序
+    private static Map<String, DecisionDiff> toDiffs(Map<String, long[]> counts) {
+        Map<String, DecisionDiff> diffs = new LinkedHashMap<>();
+        counts.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(),
+                        new DecisionDiff(entry.getValue()[0], entry.getValue()[1], entry.getValue()[2])))
+                .sorted(Comparator.comparingLong((Map.Entry<String, DecisionDiff> entry) -> entry.getValue().total())
+                        .reversed().thenComparing(Map.Entry::getKey))
+                .forEach(entry -> diffs.put(entry.getKey(), entry.getValue()));
+        return diffs;
+    }
+}
@@ -0,0 +1,11 @@
+package acs.stats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 直方图：从 from 起每个长度为 bucket 的桶内的访问次数
+ */
+public record AccessHistogram(Instant from, Duration bucket, List<Long> counts) {
+}
@@ -0,0 +1,136 @@
+package acs.stats;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.stats.sketch.CardinalityEstimate;
+import acs.stats.sketch.CountMinSketch;
+import acs.stats.sketch.FrequencyEstimate;
+import acs.stats.sketch.HyperLogLog;
+import acs.stats.sketch.SpaceSaving;
+import acs.stats.sketch.TopK;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * AccessSketches 按天维护访问草图（DaySketches），与日志缓存同步更新
+ *
+ * - 启动时由缓存中的日志重建，此后随每批回放写入的日志更新
+ * - 多天的查询合并各天的草图，耗时与天数和草图尺寸有关，与日志数量无关
+ * - 保留 acs.stats.sketch.retention-days 天
+ * - 其他节点导出的某天草图可以合并进来：按（节点, 日期）保存，同一节点同一天再次合并时替换而不是累加，
+ *   查询时与本节点的草图一起合并
+ */
+@Component
+public class AccessSketches {
+
+    private final LocalCacheManager cacheManager;
+    private final SketchSettings settings;
+    private final int retentionDays;
+
+    private final ConcurrentSkipListMap<LocalDate, DaySketches> days = new ConcurrentSkipListMap<>();
+    // 其他节点导出的草图：日期 -> 节点ID -> 草图
+    private final ConcurrentSkipListMap<LocalDate, Map<String, DaySketches>> remoteDays = new ConcurrentSkipListMap<>();
+
+    public AccessSketches(LocalCacheManager cacheManager,
+                          @Value("${acs.stats.sketch.top-capacity:256}") int topCapacity,
+                          @Value("${acs.stats.sketch.count-min-width:2048}") int countMinWidth,
+                          @Value("${acs.stats.sketch.count-min-depth:4}") int countMinDepth,
+                          @Value("${acs.stats.sketch.precision:14}") int precision,
+                          @Value("${acs.stats.sketch.resource-precision:10}") int resourcePrecision,
+                          @Value("${acs.stats.sketch.retention-days:35}") int retentionDays) {
+        this.cacheManager = cacheManager;
+        this.settings = new SketchSettings(topCapacity, countMinWidth, countMinDepth, precision, resourcePrecision);
+        this.retentionDays = retentionDays;
+    }
+
+    // 由缓存中的日志重建
+    @PostConstruct
+    public void rebuild() {
+        days.clear();
+        record(cacheManager.getLogs());
+        System.out.println("访问草图重建完成 - 天数: " + days.size());
+    }
+
+    public void record(Collection<LogEntry> logs) {
+        LocalDate oldest = LocalDate.now().minusDays(retentionDays - 1L);
+        for (LogEntry log : logs) {
+            if (log.getTimestamp() == null || log.getTimestamp().toLocalDate().isBefore(oldest)) {
+                continue;
+            }
+            days.computeIfAbsent(log.getTimestamp().toLocalDate(), day -> new DaySketches(settings)).add(log);
+        }
+        days.headMap(oldest).clear();
+        remoteDays.headMap(oldest).clear();
+    }
+
+    public SketchSettings getSettings() {
+        return settings;
+    }
+
+    /** 该天草图的序列化结果（没有数据时返回空草图） */
+    public byte[] export(LocalDate day) {
+        DaySketches sketches = days.get(day);
+        return (sketches != null ? sketches : new DaySketches(settings)).toBytes();
+    }
+
+    /** 合并其他节点导出的某天草图（替换该节点该天之前合并的草图） */
+    public void merge(String nodeId, LocalDate day, byte[] exported) {
+        if (day.isBefore(LocalDate.now().minusDays(retentionDays - 1L))) {
+            return;
+        }
+        remoteDays.computeIfAbsent(day, d -> new ConcurrentHashMap<>()).put(nodeId, DaySketches.fromBytes(settings, exported));
+    }
+
+    public TopK top(DaySketches.Item item, boolean deniedOnly, LocalDate from, LocalDate to, int k) {
+        SpaceSaving merged = new SpaceSaving(settings.topCapacity());
+        range(from, to).forEach(day -> day.mergeTopInto(merged, item, deniedOnly));
+        return merged.top(k);
+    }
+
+    public FrequencyEstimate badgeCount(String badgeId, boolean deniedOnly, LocalDate from, LocalDate to) {
+        CountMinSketch merged = new CountMinSketch(settings.countMinWidth(), settings.countMinDepth());
+        range(from, to).forEach(day -> day.mergeBadgeCountsInto(merged, deniedOnly));
+        return merged.estimate(badgeId);
+    }
+
+    public CardinalityEstimate distinctBadges(String resourceId, LocalDate from, LocalDate to) {
+        HyperLogLog merged = new HyperLogLog(resourceId == null ? settings.precision() : settings.resourcePrecision());
+        range(from, to).forEach(day -> day.mergeDistinctBadgesInto(merged, resourceId));
+        return new CardinalityEstimate(merged.estimate(), merged.relativeStandardError());
+    }
+
+    public Map<ReasonCode, Long> reasonCounts(LocalDate from, LocalDate to) {
+        long[] counts = new long[ReasonCode.values().length];
+        range(from, to).forEach(day -> day.addReasonCountsTo(counts));
+        Map<ReasonCode, Long> result = new EnumMap<>(ReasonCode.class);
+        for (ReasonCode reasonCode : ReasonCode.values()) {
+            if (counts[reasonCode.ordinal()] > 0) {
+                result.put(reasonCode, counts[reasonCode.ordinal()]);
+            }
+        }
+        return result;
+    }
+
+    /** 最早仍保留草图的一天 */
+    public LocalDate oldestRetainedDay(LocalDate today) {
+        return today.minusDays(retentionDays - 1L);
+    }
+
+    // 范围内本节点与其他节点的各天草图
+    private List<DaySketches> range(LocalDate from, LocalDate to) {
+        List<DaySketches> sketches = new ArrayList<>(days.subMap(from, true, to, true).values());
+        remoteDays.subMap(from, true, to, true).values().forEach(byNode -> sketches.addAll(byNode.values()));
+        return sketches;
+    }
+}
@@ -0,0 +1,12 @@
+package acs.stats;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一个时间桶内某个决策 / 原因的访问次数
+ */
+public record AccessStat(LocalDateTime bucketStart, AccessDecision decision, ReasonCode reasonCode, long count) {
+}
@@ -0,0 +1,73 @@
+package acs.stats;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.LogEntry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * AccessStatsRollup 增量维护访问统计汇总
+ *
+ * - 每批访问日志写入数据库时，在同一事务内累加汇总（见 LogJournalReplayer），
+ *   回放去重后的日志只计一次
+ * - 分钟桶保留 acs.stats.minute-retention-days 天，小时桶保留 acs.stats.hour-retention-days 天，天桶一直保留；
+ *   汇总不随访问日志过期而删除
+ */
+@Component
+public class AccessStatsRollup {
+
+    public static final int DEFAULT_MINUTE_RETENTION_DAYS = 7;
+
+    private final AccessStatsStore store;
+    private final LocalCacheManager cacheManager;
+    private final int minuteRetentionDays;
+    private final int hourRetentionDays;
+
+    public AccessStatsRollup(JdbcTemplate jdbcTemplate,
+                             LocalCacheManager cacheManager,
+                             @Value("${acs.stats.minute-retention-days:" + DEFAULT_MINUTE_RETENTION_DAYS + "}") int minuteRetentionDays,
+                             @Value("${acs.stats.hour-retention-days:400}") int hourRetentionDays) {
+        this.store = new AccessStatsStore(jdbcTemplate);
+        this.cacheManager = cacheManager;
+        this.minuteRetentionDays = minuteRetentionDays;
+        this.hourRetentionDays = hourRetentionDays;
+    }
+
+    /** 累加一批已写入数据库的访问日志 */
+    public void record(Collection<LogEntry> logs) {
+        if (logs.isEmpty()) {
+            return;
+        }
+        store.add(RollupAggregator.aggregate(logs, cacheManager::groupIdsOf, minuteRetainedSince(LocalDateTime.now())));
+    }
+
+    public List<AccessStat> query(RollupGranularity granularity, StatDimension dimension, String dimensionId,
+                                  LocalDateTime from, LocalDateTime to) {
+        return store.query(granularity, dimension, dimensionId, from, to);
+    }
+
+    /** 分钟桶最早保留到的时间 */
+    public LocalDateTime minuteRetainedSince(LocalDateTime now) {
+        return RollupGranularity.DAY.truncate(now).minusDays(minuteRetentionDays);
+    }
+
+    /** 小时桶最早保留到的时间 */
+    public LocalDateTime hourRetainedSince(LocalDateTime now) {
+        return RollupGranularity.DAY.truncate(now).minusDays(hourRetentionDays);
+    }
+
+    /**
+     * 删除过期的分钟桶与小时桶
+     *
+     * @return 删除的行数
+     */
+    public int purgeExpired(LocalDateTime now) {
+        return store.purge(RollupGranularity.MINUTE, minuteRetainedSince(now))
+                + store.purge(RollupGranularity.HOUR, hourRetainedSince(now));
+    }
+}
@@ -0,0 +1,78 @@
+package acs.stats;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * access_stats 汇总表的读写
+ *
+ * 主键 (granularity, dimension, dimension_id, bucket_start, decision, reason_code)：
+ * 按维度查询一段时间是一次主键范围扫描；增量以 INSERT ... ON DUPLICATE KEY UPDATE 累加。
+ */
+public class AccessStatsStore {
+
+    private static final String UPSERT = "INSERT INTO access_stats "
+            + "(granularity, dimension, dimension_id, bucket_start, decision, reason_code, access_count) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?) "
+            + "ON DUPLICATE KEY UPDATE access_count = access_count + VALUES(access_count)";
+
+    // 固定的累加顺序，并发累加时按相同顺序加锁
+    private static final Comparator<RollupKey> KEY_ORDER = Comparator
+            .comparing(RollupKey::granularity)
+            .thenComparing(RollupKey::dimension)
+            .thenComparing(RollupKey::dimensionId)
+            .thenComparing(RollupKey::bucketStart)
+            .thenComparing(RollupKey::decision)
+            .thenComparing(RollupKey::reasonCode);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccessStatsStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** 累加一批增量（参与调用方的事务） */
+    public void add(Map<RollupKey, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        List<RollupKey> keys = new ArrayList<>(deltas.keySet());
+        keys.sort(KEY_ORDER);
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (RollupKey key : keys) {
+            rows.add(new Object[]{key.granularity().name(), key.dimension().name(), key.dimensionId(),
+                    Timestamp.valueOf(key.bucketStart()), key.decision().name(), key.reasonCode().name(),
+                    deltas.get(key)});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+
+    /**
+     * 查询 [from, to) 内的桶（按桶起点升序）
+     */
+    public List<AccessStat> query(RollupGranularity granularity, StatDimension dimension, String dimensionId,
+                                  LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query("SELECT bucket_start, decision, reason_code, access_count FROM access_stats "
+                        + "WHERE granularity = ? AND dimension = ? AND dimension_id = ? "
+                        + "AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start",
+                (rs, rowNum) -> new AccessStat(rs.getTimestamp("bucket_start").toLocalDateTime(),
+                        AccessDecision.valueOf(rs.getString("decision")),
+                        ReasonCode.valueOf(rs.getString("reason_code")),
+                        rs.getLong("access_count")),
+                granularity.name(), dimension.name(), dimensionId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    /** 删除某粒度早于 before 的桶 */
+    public int purge(RollupGranularity granularity, LocalDateTime before) {
+        return jdbcTemplate.update("DELETE FROM access_stats WHERE granularity = ? AND bucket_start < ?",
+                granularity.name(), Timestamp.valueOf(before));
+    }
+}
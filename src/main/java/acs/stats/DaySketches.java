@@ -0,0 +1,223 @@
+package acs.stats;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.stats.sketch.CountMinSketch;
+import acs.stats.sketch.HyperLogLog;
+import acs.stats.sketch.SpaceSaving;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一天的访问草图：
+ * - 高频徽章 / 资源（全部与被拒绝的，Space-Saving）
+ * - 徽章次数（全部与被拒绝的，Count-Min）
+ * - 各原因的次数（取值很少，精确计数）
+ * - 不同徽章数（全部与每个资源，HyperLogLog）
+ *
+ * 同一配置下的草图可以合并（不同时间桶、不同节点），并可序列化在节点之间传递；
+ * 原因次数按（原因名, 次数）序列化，节点之间的 ReasonCode 版本不同也不会错位（未知的原因忽略）。
+ */
+public final class DaySketches {
+
+    /** 高频项的对象 */
+    public enum Item {
+        BADGE,
+        RESOURCE
+    }
+
+    private final SketchSettings settings;
+    private final SpaceSaving badges;
+    private final SpaceSaving deniedBadges;
+    private final SpaceSaving resources;
+    private final SpaceSaving deniedResources;
+    private final CountMinSketch badgeCounts;
+    private final CountMinSketch deniedBadgeCounts;
+    private final long[] reasonCounts = new long[ReasonCode.values().length];
+    private final HyperLogLog distinctBadges;
+    private final Map<String, HyperLogLog> distinctBadgesByResource = new HashMap<>();
+
+    public DaySketches(SketchSettings settings) {
+        this.settings = settings;
+        this.badges = new SpaceSaving(settings.topCapacity());
+        this.deniedBadges = new SpaceSaving(settings.topCapacity());
+        this.resources = new SpaceSaving(settings.topCapacity());
+        this.deniedResources = new SpaceSaving(settings.topCapacity());
+        this.badgeCounts = new CountMinSketch(settings.countMinWidth(), settings.countMinDepth());
+        this.deniedBadgeCounts = new CountMinSketch(settings.countMinWidth(), settings.countMinDepth());
+        this.distinctBadges = new HyperLogLog(settings.precision());
+    }
+
+    public synchronized void add(LogEntry log) {
+        boolean denied = log.getDecision() == AccessDecision.DENY;
+        if (log.getBadgeId() != null) {
+            badges.add(log.getBadgeId(), 1);
+            badgeCounts.add(log.getBadgeId(), 1);
+            distinctBadges.add(log.getBadgeId());
+            if (denied) {
+                deniedBadges.add(log.getBadgeId(), 1);
+                deniedBadgeCounts.add(log.getBadgeId(), 1);
+            }
+        }
+        if (log.getResourceId() != null) {
+            resources.add(log.getResourceId(), 1);
+            if (denied) {
+                deniedResources.add(log.getResourceId(), 1);
+            }
+            if (log.getBadgeId() != null) {
+                distinctBadgesByResource.computeIfAbsent(log.getResourceId(),
+                        id -> new HyperLogLog(settings.resourcePrecision())).add(log.getBadgeId());
+            }
+        }
+        if (log.getReasonCode() != null) {
+            reasonCounts[log.getReasonCode().ordinal()]++;
+        }
+    }
+
+    /** 合并另一天 / 另一节点的草图（配置须相同） */
+    public void merge(DaySketches other) {
+        if (!other.settings.equals(settings)) {
+            throw new IllegalArgumentException("草图配置不同，不能合并");
+        }
+        DaySketches snapshot = other.copy();
+        synchronized (this) {
+            badges.merge(snapshot.badges);
+            deniedBadges.merge(snapshot.deniedBadges);
+            resources.merge(snapshot.resources);
+            deniedResources.merge(snapshot.deniedResources);
+            badgeCounts.merge(snapshot.badgeCounts);
+            deniedBadgeCounts.merge(snapshot.deniedBadgeCounts);
+            for (int i = 0; i < reasonCounts.length; i++) {
+                reasonCounts[i] += snapshot.reasonCounts[i];
+            }
+            distinctBadges.merge(snapshot.distinctBadges);
+            snapshot.distinctBadgesByResource.forEach((resourceId, sketch) -> distinctBadgesByResource.merge(
+                    resourceId, sketch, (mine, theirs) -> {
+                        mine.merge(theirs);
+                        return mine;
+                    }));
+        }
+    }
+
+    synchronized void mergeTopInto(SpaceSaving target, Item item, boolean deniedOnly) {
+        target.merge(item == Item.BADGE ? (deniedOnly ? deniedBadges : badges)
+                : (deniedOnly ? deniedResources : resources));
+    }
+
+    synchronized void mergeBadgeCountsInto(CountMinSketch target, boolean deniedOnly) {
+        target.merge(deniedOnly ? deniedBadgeCounts : badgeCounts);
+    }
+
+    // resourceId 为 null 时合并全部徽章
+    synchronized void mergeDistinctBadgesInto(HyperLogLog target, String resourceId) {
+        HyperLogLog sketch = resourceId == null ? distinctBadges : distinctBadgesByResource.get(resourceId);
+        if (sketch != null) {
+            target.merge(sketch);
+        }
+    }
+
+    synchronized void addReasonCountsTo(long[] target) {
+        for (int i = 0; i < reasonCounts.length; i++) {
+            target[i] += reasonCounts[i];
+        }
+    }
+
+    public synchronized DaySketches copy() {
+        DaySketches copy = new DaySketches(settings);
+        copy.badges.merge(badges);
+        copy.deniedBadges.merge(deniedBadges);
+        copy.resources.merge(resources);
+        copy.deniedResources.merge(deniedResources);
+        copy.badgeCounts.merge(badgeCounts);
+        copy.deniedBadgeCounts.merge(deniedBadgeCounts);
+        System.arraycopy(reasonCounts, 0, copy.reasonCounts, 0, reasonCounts.length);
+        copy.distinctBadges.merge(distinctBadges);
+        distinctBadgesByResource.forEach((resourceId, sketch) -> copy.distinctBadgesByResource.put(resourceId, sketch.copy()));
+        return copy;
+    }
+
+    /** 序列化（用于在节点之间传递） */
+    public synchronized byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            badges.write(out);
+            deniedBadges.write(out);
+            resources.write(out);
+            deniedResources.write(out);
+            badgeCounts.write(out);
+            deniedBadgeCounts.write(out);
+            ReasonCode[] codes = ReasonCode.values();
+            int nonZero = 0;
+            for (long count : reasonCounts) {
+                if (count > 0) {
+                    nonZero++;
+                }
+            }
+            out.writeInt(nonZero);
+            for (int i = 0; i < reasonCounts.length; i++) {
+                if (reasonCounts[i] > 0) {
+                    out.writeUTF(codes[i].name());
+                    out.writeLong(reasonCounts[i]);
+                }
+            }
+            distinctBadges.write(out);
+            out.writeInt(distinctBadgesByResource.size());
+            for (Map.Entry<String, HyperLogLog> entry : distinctBadgesByResource.entrySet()) {
+                out.writeUTF(entry.getKey());
+                entry.getValue().write(out);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static DaySketches fromBytes(SketchSettings settings, byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            DaySketches sketches = new DaySketches(settings);
+            sketches.badges.merge(SpaceSaving.read(in));
+            sketches.deniedBadges.merge(SpaceSaving.read(in));
+            sketches.resources.merge(SpaceSaving.read(in));
+            sketches.deniedResources.merge(SpaceSaving.read(in));
+            sketches.badgeCounts.merge(CountMinSketch.read(in));
+            sketches.deniedBadgeCounts.merge(CountMinSketch.read(in));
+            int reasons = in.readInt();
+            for (int i = 0; i < reasons; i++) {
+                String name = in.readUTF();
+                long count = in.readLong();
+                ReasonCode reasonCode = reasonCodeOf(name);
+                if (reasonCode != null) {
+                    sketches.reasonCounts[reasonCode.ordinal()] += count;
+                }
+            }
+            sketches.distinctBadges.merge(HyperLogLog.read(in));
+            int resourceCount = in.readInt();
+            for (int i = 0; i < resourceCount; i++) {
+                sketches.distinctBadgesByResource.put(in.readUTF(), HyperLogLog.read(in));
+            }
+            return sketches;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // 导出节点的版本较新时可能有本节点不认识的原因
+    private static ReasonCode reasonCodeOf(String name) {
+        try {
+            return ReasonCode.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package acs.stats;
+
+import acs.domain.LogEntry;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 把一批访问日志折叠为汇总增量：每条日志按分钟 / 小时 / 天三个粒度，
+ * 分别计入 ALL、所访问的资源、员工所属的每个组
+ */
+public final class RollupAggregator {
+
+    private RollupAggregator() {
+    }
+
+    /**
+     * @param groupsOfEmployee 员工ID -> 所属组ID
+     * @param minuteSince      早于该时间的日志不再生成分钟桶（分钟桶只保留最近几天）
+     */
+    public static Map<RollupKey, Long> aggregate(Collection<LogEntry> logs,
+                                                 Function<String, List<String>> groupsOfEmployee,
+                                                 LocalDateTime minuteSince) {
+        Map<RollupKey, Long> deltas = new HashMap<>();
+        for (LogEntry log : logs) {
+            if (log.getTimestamp() == null || log.getDecision() == null || log.getReasonCode() == null) {
+                continue;
+            }
+            List<String> groups = log.getEmployeeId() != null ? groupsOfEmployee.apply(log.getEmployeeId()) : List.of();
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                if (granularity == RollupGranularity.MINUTE && log.getTimestamp().isBefore(minuteSince)) {
+                    continue;
+                }
+                LocalDateTime bucket = granularity.truncate(log.getTimestamp());
+                add(deltas, log, granularity, bucket, StatDimension.ALL, StatDimension.ALL_ID);
+                if (log.getResourceId() != null) {
+                    add(deltas, log, granularity, bucket, StatDimension.RESOURCE, log.getResourceId());
+                }
+                for (String groupId : groups) {
+                    add(deltas, log, granularity, bucket, StatDimension.GROUP, groupId);
+                }
+            }
+        }
+        return deltas;
+    }
+
+    private static void add(Map<RollupKey, Long> deltas, LogEntry log, RollupGranularity granularity,
+                            LocalDateTime bucket, StatDimension dimension, String dimensionId) {
+        deltas.merge(new RollupKey(granularity, bucket, dimension, dimensionId, log.getDecision(), log.getReasonCode()),
+                1L, Long::sum);
+    }
+}
@@ -0,0 +1,50 @@
+package acs.stats;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * 汇总桶的粒度
+ */
+public enum RollupGranularity {
+    MINUTE(ChronoUnit.MINUTES),
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    /** 时间所在桶的起点 */
+    public LocalDateTime truncate(LocalDateTime time) {
+        return time.truncatedTo(unit);
+    }
+
+    /** 下一个桶的起点 */
+    public LocalDateTime next(LocalDateTime bucketStart) {
+        return bucketStart.plus(1, unit);
+    }
+
+    /** [from, to) 覆盖的桶数 */
+    public long buckets(LocalDateTime from, LocalDateTime to) {
+        return unit.between(truncate(from), to.minusNanos(1).truncatedTo(unit)) + 1;
+    }
+
+    /** 不早于 time 的第一个桶起点 */
+    public LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime start = truncate(time);
+        return start.equals(time) ? start : next(start);
+    }
+
+    /** 更细一级的粒度（MINUTE 返回自身） */
+    public RollupGranularity finer() {
+        return this == DAY ? HOUR : MINUTE;
+    }
+
+    /** 更粗一级的粒度（DAY 返回自身） */
+    public RollupGranularity coarser() {
+        return this == MINUTE ? HOUR : DAY;
+    }
+}
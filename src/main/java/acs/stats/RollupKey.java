@@ -0,0 +1,13 @@
+package acs.stats;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 汇总表的一行（不含计数）
+ */
+public record RollupKey(RollupGranularity granularity, LocalDateTime bucketStart, StatDimension dimension,
+                        String dimensionId, AccessDecision decision, ReasonCode reasonCode) {
+}
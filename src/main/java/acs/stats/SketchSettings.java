@@ -0,0 +1,14 @@
+package acs.stats;
+
+/**
+ * 草图尺寸：只有尺寸相同的草图才能合并
+ *
+ * @param topCapacity        高频项跟踪的项数
+ * @param countMinWidth      Count-Min 每行的计数器数（高估上界 e / width × 总数）
+ * @param countMinDepth      Count-Min 行数（上界成立的概率 1 - e^-depth）
+ * @param precision          全部徽章去重的 HyperLogLog 精度
+ * @param resourcePrecision  每个资源徽章去重的 HyperLogLog 精度
+ */
+public record SketchSettings(int topCapacity, int countMinWidth, int countMinDepth, int precision,
+                             int resourcePrecision) {
+}
@@ -0,0 +1,13 @@
+package acs.stats;
+
+/**
+ * 汇总维度：每条日志计入 ALL，以及所访问的资源、员工当前所属的每个组
+ */
+public enum StatDimension {
+    ALL,
+    RESOURCE,
+    GROUP;
+
+    /** ALL 维度的 dimension_id */
+    public static final String ALL_ID = "*";
+}
@@ -0,0 +1,9 @@
+package acs.stats;
+
+import java.util.List;
+
+/**
+ * 时间序列查询结果：实际使用的粒度，以及按桶起点升序的各桶计数
+ */
+public record StatSeries(RollupGranularity granularity, List<AccessStat> buckets) {
+}
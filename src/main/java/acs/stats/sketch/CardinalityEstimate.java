@@ -0,0 +1,7 @@
+package acs.stats.sketch;
+
+/**
+ * 基数估计及其相对标准误差（约 68% 的情况下误差不超过 estimate × relativeStandardError）
+ */
+public record CardinalityEstimate(long estimate, double relativeStandardError) {
+}
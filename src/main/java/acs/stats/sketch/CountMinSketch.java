@@ -0,0 +1,90 @@
+package acs.stats.sketch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Count-Min 频率估计：depth 行 × width 列计数器
+ *
+ * 估计值不小于真实值；以 1 - e^-depth 的概率，高估不超过 (e / width) × 总数。
+ * 合并为逐计数器相加（同尺寸）。
+ */
+public final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final long[] table;
+    private long total;
+
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("Count-Min 的宽度与深度必须为正数");
+        }
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+    }
+
+    public void add(String item, long count) {
+        long hash = Hashing.hash64(item);
+        for (int row = 0; row < depth; row++) {
+            table[row * width + column(hash, row)] += count;
+        }
+        total += count;
+    }
+
+    public FrequencyEstimate estimate(String item) {
+        long hash = Hashing.hash64(item);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, table[row * width + column(hash, row)]);
+        }
+        return new FrequencyEstimate(estimate, (long) Math.ceil(Math.E / width * total), 1 - Math.exp(-depth));
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void merge(CountMinSketch other) {
+        if (other.width != width || other.depth != depth) {
+            throw new IllegalArgumentException("Count-Min 尺寸不同，不能合并");
+        }
+        for (int i = 0; i < table.length; i++) {
+            table[i] += other.table[i];
+        }
+        total += other.total;
+    }
+
+    public CountMinSketch copy() {
+        CountMinSketch copy = new CountMinSketch(width, depth);
+        copy.merge(this);
+        return copy;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(width);
+        out.writeInt(depth);
+        out.writeLong(total);
+        for (long value : table) {
+            out.writeLong(value);
+        }
+    }
+
+    public static CountMinSketch read(DataInputStream in) throws IOException {
+        CountMinSketch sketch = new CountMinSketch(in.readInt(), in.readInt());
+        sketch.total = in.readLong();
+        for (int i = 0; i < sketch.table.length; i++) {
+            sketch.table[i] = in.readLong();
+        }
+        return sketch;
+    }
+
+    // 由一个 64 位哈希派生各行的列（h1 + row × h2）
+    private int column(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return Math.floorMod(h1 + row * h2, width);
+    }
+}
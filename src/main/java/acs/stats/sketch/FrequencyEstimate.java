@@ -0,0 +1,7 @@
+package acs.stats.sketch;
+
+/**
+ * 频率估计：真实值在 [count - maxOverestimate, count] 内的概率不低于 confidence
+ */
+public record FrequencyEstimate(long count, long maxOverestimate, double confidence) {
+}
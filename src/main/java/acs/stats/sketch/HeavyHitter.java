@@ -0,0 +1,7 @@
+package acs.stats.sketch;
+
+/**
+ * 高频项：真实次数在 [count - error, count] 内
+ */
+public record HeavyHitter(String item, long count, long error) {
+}
@@ -0,0 +1,202 @@
+package acs.stats.sketch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving 高频项：最多跟踪 capacity 项，计数器保存在按计数排列的最小堆中，每次更新 O(log capacity)
+ *
+ * - 已跟踪的项计数加一；否则替换计数最小的项，新计数 = 最小计数 + 1，误差 = 最小计数
+ * - 每项的真实次数在 [count - error, count] 内；未跟踪项的真实次数不超过 untrackedMax()
+ * - 合并（Agarwal 等的可合并摘要）：一方未跟踪的项按该方的 untrackedMax 计入计数与误差，保留计数最大的 capacity 项
+ */
+public final class SpaceSaving {
+
+    private final int capacity;
+    private final String[] items;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> positions = new HashMap<>();
+    private int size;
+    private long total;
+    // 被淘汰 / 合并时丢弃的项的计数上界
+    private long floor;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Space-Saving 的容量必须为正数");
+        }
+        this.capacity = capacity;
+        this.items = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+    }
+
+    public void add(String item, long count) {
+        total += count;
+        Integer position = positions.get(item);
+        if (position != null) {
+            counts[position] += count;
+            siftDown(position);
+            return;
+        }
+        if (size < capacity) {
+            set(size, item, count, 0);
+            size++;
+            siftUp(size - 1);
+            return;
+        }
+        long min = counts[0];
+        positions.remove(items[0]);
+        floor = Math.max(floor, min);
+        set(0, item, min + count, min);
+        siftDown(0);
+    }
+
+    /** 未跟踪项的真实次数上界 */
+    public long untrackedMax() {
+        return size == capacity ? Math.max(floor, counts[0]) : floor;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public TopK top(int k) {
+        List<HeavyHitter> hitters = entries();
+        return new TopK(List.copyOf(hitters.subList(0, Math.min(k, hitters.size()))), total, untrackedMax());
+    }
+
+    /** 把 other 合并进来（容量取本摘要的容量） */
+    public void merge(SpaceSaving other) {
+        Map<String, long[]> merged = new HashMap<>();
+        long thisMissing = untrackedMax();
+        long otherMissing = other.untrackedMax();
+        for (int i = 0; i < size; i++) {
+            merged.put(items[i], new long[]{counts[i] + otherMissing, errors[i] + otherMissing});
+        }
+        for (int i = 0; i < other.size; i++) {
+            long[] entry = merged.get(other.items[i]);
+            if (entry == null) {
+                merged.put(other.items[i], new long[]{other.counts[i] + thisMissing, other.errors[i] + thisMissing});
+            } else {
+                // 双方都跟踪：去掉上面按 other 未跟踪计入的部分
+                entry[0] += other.counts[i] - otherMissing;
+                entry[1] += other.errors[i] - otherMissing;
+            }
+        }
+        List<Map.Entry<String, long[]>> sorted = new ArrayList<>(merged.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+        long newFloor = thisMissing + otherMissing;
+        for (int i = capacity; i < sorted.size(); i++) {
+            newFloor = Math.max(newFloor, sorted.get(i).getValue()[0]);
+        }
+
+        positions.clear();
+        size = 0;
+        for (int i = 0; i < Math.min(capacity, sorted.size()); i++) {
+            set(size, sorted.get(i).getKey(), sorted.get(i).getValue()[0], sorted.get(i).getValue()[1]);
+            size++;
+            siftUp(size - 1);
+        }
+        floor = newFloor;
+        total += other.total;
+    }
+
+    public SpaceSaving copy() {
+        SpaceSaving copy = new SpaceSaving(capacity);
+        for (int i = 0; i < size; i++) {
+            copy.set(i, items[i], counts[i], errors[i]);
+        }
+        copy.size = size;
+        copy.total = total;
+        copy.floor = floor;
+        return copy;
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(total);
+        out.writeLong(floor);
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeUTF(items[i]);
+            out.writeLong(counts[i]);
+            out.writeLong(errors[i]);
+        }
+    }
+
+    public static SpaceSaving read(DataInputStream in) throws IOException {
+        SpaceSaving sketch = new SpaceSaving(in.readInt());
+        sketch.total = in.readLong();
+        sketch.floor = in.readLong();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            sketch.set(i, in.readUTF(), in.readLong(), in.readLong());
+            sketch.size++;
+            sketch.siftUp(i);
+        }
+        return sketch;
+    }
+
+    private List<HeavyHitter> entries() {
+        List<HeavyHitter> hitters = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            hitters.add(new HeavyHitter(items[i], counts[i], errors[i]));
+        }
+        hitters.sort(Comparator.comparingLong(HeavyHitter::count).reversed().thenComparing(HeavyHitter::item));
+        return hitters;
+    }
+
+    private void set(int position, String item, long count, long error) {
+        items[position] = item;
+        counts[position] = count;
+        errors[position] = error;
+        positions.put(item, position);
+    }
+
+    private void siftUp(int position) {
+        while (position > 0) {
+            int parent = (position - 1) / 2;
+            if (counts[parent] <= counts[position]) {
+                return;
+            }
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int smallest = position;
+            for (int child = 2 * position + 1; child <= 2 * position + 2 && child < size; child++) {
+                if (counts[child] < counts[smallest]) {
+                    smallest = child;
+                }
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(position, smallest);
+            position = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String item = items[a];
+        long count = counts[a];
+        long error = errors[a];
+        set(a, items[b], counts[b], errors[b]);
+        set(b, item, count, error);
+    }
+}
@@ -0,0 +1,11 @@
+package acs.stats.sketch;
+
+import java.util.List;
+
+/**
+ * 前 K 个高频项（按 count 降序）及统计的事件总数
+ *
+ * 未列出的项真实次数都不超过 untrackedMax。
+ */
+public record TopK(List<HeavyHitter> items, long total, long untrackedMax) {
+}
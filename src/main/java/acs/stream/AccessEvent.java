@@ -0,0 +1,21 @@
+package acs.stream;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 推送给订阅者的访问事件，sequence 在本节点内单调递增（用于断点续传）
+ */
+public record AccessEvent(long sequence, String eventId, LocalDateTime timestamp, String badgeId, String employeeId,
+                          String resourceId, AccessDecision decision, ReasonCode reasonCode,
+                          AccessDirection direction) {
+
+    static AccessEvent of(long sequence, LogEntry log) {
+        return new AccessEvent(sequence, log.getEventId(), log.getTimestamp(), log.getBadgeId(), log.getEmployeeId(),
+                log.getResourceId(), log.getDecision(), log.getReasonCode(), log.getDirection());
+    }
+}
@@ -0,0 +1,332 @@
+package acs.stream;
+
+import acs.domain.LogEntry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * AccessEventBroadcaster 把访问日志实时推送给订阅者
+ *
+ * - publish 只把日志放入有界队列（满时丢弃并计数），刷卡路径上的开销与订阅者数量无关
+ * - 单个分发线程分配序号、写入补发环形缓冲区，并按过滤条件放入各订阅者的有界缓冲区
+ * - 发送线程池逐个订阅者发送，慢订阅者按 SlowConsumerPolicy 处理，不影响其他订阅者
+ * - 单次发送超过 sendTimeoutMillis（客户端 TCP 卡住）时断开该订阅者，并在其返回前为线程池补充一个线程
+ * - 事件ID为 “启动纪元-序号”，重连时带上最后收到的ID可补发环形缓冲区内的事件；
+ *   纪元不同（服务已重启）时先发送 reset，早于环形缓冲区时先发送 gap 说明缺失数量
+ */
+@Component
+public class AccessEventBroadcaster {
+
+    private final StreamProperties properties;
+    private final BlockingQueue<LogEntry> queue;
+    private final AccessEvent[] ring;
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong subscriptionIds = new AtomicLong();
+    private final AtomicLong droppedAtDispatch = new AtomicLong();
+    private final Object ringLock = new Object();
+
+    // 当前订阅者快照，只在 ringLock 内替换
+    private volatile Subscription[] subscriptions = new Subscription[0];
+    private Executor senders;
+    private long nextSequence = 1;
+    private volatile long publishedEvents;
+    private volatile boolean running;
+    private Thread dispatcher;
+    private ScheduledExecutorService sendWatchdog;
+
+    @Autowired
+    public AccessEventBroadcaster(StreamProperties properties) {
+        this(properties, null);
+    }
+
+    // 测试时注入发送线程（如在调用线程上直接发送）
+    AccessEventBroadcaster(StreamProperties properties, Executor senders) {
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getDispatchQueueCapacity()));
+        this.ring = new AccessEvent[Math.max(1, properties.getReplayCapacity())];
+        this.senders = senders;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (senders == null) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            senders = Executors.newFixedThreadPool(Math.max(1, properties.getSenderThreads()), runnable -> {
+                Thread thread = new Thread(runnable, "access-event-sender-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        running = true;
+        dispatcher = new Thread(this::run, "access-event-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        long sendTimeout = properties.getSendTimeoutMillis();
+        if (sendTimeout > 0) {
+            sendWatchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "access-event-send-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = Math.max(10, sendTimeout / 4);
+            sendWatchdog.scheduleWithFixedDelay(() -> expireStalledSends(System.nanoTime()),
+                    period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (dispatcher != null) {
+            dispatcher.interrupt();
+        }
+        if (sendWatchdog != null) {
+            sendWatchdog.shutdownNow();
+        }
+        Subscription[] closing;
+        synchronized (ringLock) {
+            closing = subscriptions;
+            subscriptions = new Subscription[0];
+        }
+        for (Subscription subscription : closing) {
+            subscription.close();
+        }
+        if (senders instanceof ExecutorService executor) {
+            executor.shutdownNow();
+        }
+    }
+
+    /** 发布一个访问事件（不阻塞） */
+    public void publish(LogEntry log) {
+        if (!queue.offer(log)) {
+            droppedAtDispatch.incrementAndGet();
+        }
+    }
+
+    /**
+     * 建立订阅
+     *
+     * @param lastEventId 重连时客户端最后收到的事件ID（首次订阅为 null）
+     * @throws IllegalStateException 订阅者数量已达上限
+     */
+    public Subscription subscribe(AccessEventFilter filter, SlowConsumerPolicy policy, String lastEventId,
+                                  EventChannel channel) {
+        Subscription subscription = new Subscription(subscriptionIds.incrementAndGet(),
+                filter != null ? filter : AccessEventFilter.ALL,
+                policy != null ? policy : properties.getDefaultPolicy(),
+                channel, properties.getBufferSize(), properties.getSampleEvery(), epoch);
+        // 在环形缓冲区锁内取补发内容并登记：此后分发的事件一定经由缓冲区送达，不重不漏
+        synchronized (ringLock) {
+            if (subscriptions.length >= properties.getMaxSubscribers()) {
+                throw new IllegalStateException("订阅者数量已达上限: " + properties.getMaxSubscribers());
+            }
+            prepareReplay(subscription, lastEventId);
+            Subscription[] added = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+            added[subscriptions.length] = subscription;
+            subscriptions = added;
+        }
+        if (subscription.schedule()) {
+            senders.execute(() -> drain(subscription));
+        }
+        return subscription;
+    }
+
+    public void unsubscribe(Subscription subscription) {
+        remove(subscription);
+        subscription.close();
+    }
+
+    private void remove(Subscription subscription) {
+        synchronized (ringLock) {
+            subscriptions = Arrays.stream(subscriptions)
+                    .filter(existing -> existing != subscription)
+                    .toArray(Subscription[]::new);
+        }
+    }
+
+    // 调用时已持有 ringLock
+    private void prepareReplay(Subscription subscription, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            subscription.prepare(List.of(), null, null);
+            return;
+        }
+        long latest = nextSequence - 1;
+        long oldest = Math.max(1, nextSequence - ring.length);
+        long resumeAfter;
+        String control = null;
+        Object controlData = null;
+        long[] parsed = parseEventId(lastEventId);
+        if (parsed == null || parsed[0] != epoch || parsed[1] > latest) {
+            // 服务已重启或ID无法识别：补发环形缓冲区内全部事件
+            control = Subscription.RESET;
+            controlData = Map.of("lastEventId", lastEventId);
+            resumeAfter = oldest - 1;
+        } else if (parsed[1] < oldest - 1) {
+            control = Subscription.GAP;
+            controlData = Map.of("missed", oldest - 1 - parsed[1]);
+            resumeAfter = oldest - 1;
+        } else {
+            resumeAfter = parsed[1];
+        }
+        List<AccessEvent> replay = new ArrayList<>();
+        for (long sequence = resumeAfter + 1; sequence <= latest; sequence++) {
+            AccessEvent event = ring[(int) (sequence % ring.length)];
+            if (subscription.matches(event)) {
+                replay.add(event);
+            }
+        }
+        subscription.prepare(replay, control, controlData);
+    }
+
+    // “纪元-序号”，格式不对时返回 null
+    private static long[] parseEventId(String eventId) {
+        int dash = eventId.indexOf('-');
+        if (dash <= 0) {
+            return null;
+        }
+        try {
+            return new long[]{Long.parseLong(eventId.substring(0, dash).trim()),
+                    Long.parseLong(eventId.substring(dash + 1).trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                dispatch(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                System.err.println("访问事件分发失败: " + e.getMessage());
+            }
+        }
+    }
+
+    // 在当前线程上分发队列中已有的事件（测试用）
+    int dispatchPending() {
+        int dispatched = 0;
+        LogEntry log;
+        while ((log = queue.poll()) != null) {
+            dispatch(log);
+            dispatched++;
+        }
+        return dispatched;
+    }
+
+    // 分发一个事件（分发线程）
+    private void dispatch(LogEntry log) {
+        AccessEvent event;
+        Subscription[] targets;
+        synchronized (ringLock) {
+            event = AccessEvent.of(nextSequence, log);
+            ring[(int) (nextSequence % ring.length)] = event;
+            nextSequence++;
+            targets = subscriptions;
+        }
+        for (Subscription subscription : targets) {
+            if (subscription.matches(event) && subscription.enqueue(event)) {
+                senders.execute(() -> drain(subscription));
+            }
+        }
+        publishedEvents++;
+    }
+
+    // 发送一批后若还有积压则重新排队，避免一个订阅者长期占用发送线程
+    private void drain(Subscription subscription) {
+        try {
+            if (subscription.drain(Math.max(1, properties.getSendBatch()))) {
+                senders.execute(() -> drain(subscription));
+            } else if (subscription.isClosed()) {
+                unsubscribe(subscription);
+            }
+        } catch (IOException | RuntimeException e) {
+            // 连接已断开
+            unsubscribe(subscription);
+        } finally {
+            if (subscription.releaseAborted()) {
+                // 超时断开的发送终于返回，收回补充的线程
+                resizeSenders(-1);
+            }
+        }
+    }
+
+    /**
+     * 断开单次发送超过期限的订阅者（检查线程）
+     *
+     * 卡住的发送线程被中断，但阻塞的 servlet 写不一定响应中断，因此在它返回前为线程池补充一个线程，
+     * 其他订阅者照常发送。
+     *
+     * @return 本次断开的订阅者数
+     */
+    int expireStalledSends(long nowNanos) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getSendTimeoutMillis());
+        if (timeoutNanos <= 0) {
+            return 0;
+        }
+        int expired = 0;
+        for (Subscription subscription : subscriptions) {
+            if (subscription.abortStalledSend(nowNanos, timeoutNanos)) {
+                remove(subscription);
+                resizeSenders(1);
+                expired++;
+            }
+        }
+        return expired;
+    }
+
+    // 调整发送线程数（仅对线程池生效）；先扩最大值再扩核心数，收缩时相反
+    private synchronized void resizeSenders(int delta) {
+        if (!(senders instanceof ThreadPoolExecutor pool) || pool.isShutdown()) {
+            return;
+        }
+        if (delta > 0) {
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+        } else {
+            pool.setCorePoolSize(pool.getCorePoolSize() + delta);
+            pool.setMaximumPoolSize(pool.getMaximumPoolSize() + delta);
+        }
+    }
+
+    public int getSubscribers() {
+        return subscriptions.length;
+    }
+
+    /** 已分发的事件数 */
+    public long getPublishedEvents() {
+        return publishedEvents;
+    }
+
+    /** 分发队列满而未推送的事件数 */
+    public long getDroppedEvents() {
+        return droppedAtDispatch.get();
+    }
+
+    /** 当前事件ID（尚无事件时序号为 0） */
+    public String getLatestEventId() {
+        synchronized (ringLock) {
+            return Subscription.eventId(epoch, nextSequence - 1);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package acs.stream;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+
+import java.util.Set;
+
+/**
+ * 订阅的服务端过滤条件，各项为空表示不限，多项之间为“且”
+ */
+public record AccessEventFilter(Set<String> resourceIds, Set<String> badgeIds, Set<AccessDecision> decisions,
+                                Set<ReasonCode> reasonCodes) {
+
+    public static final AccessEventFilter ALL = new AccessEventFilter(Set.of(), Set.of(), Set.of(), Set.of());
+
+    public AccessEventFilter {
+        resourceIds = resourceIds != null ? Set.copyOf(resourceIds) : Set.of();
+        badgeIds = badgeIds != null ? Set.copyOf(badgeIds) : Set.of();
+        decisions = decisions != null ? Set.copyOf(decisions) : Set.of();
+        reasonCodes = reasonCodes != null ? Set.copyOf(reasonCodes) : Set.of();
+    }
+
+    public boolean matches(AccessEvent event) {
+        return (resourceIds.isEmpty() || resourceIds.contains(event.resourceId()))
+                && (badgeIds.isEmpty() || badgeIds.contains(event.badgeId()))
+                && (decisions.isEmpty() || decisions.contains(event.decision()))
+                && (reasonCodes.isEmpty() || reasonCodes.contains(event.reasonCode()));
+    }
+}
@@ -0,0 +1,13 @@
+package acs.stream;
+
+import java.io.IOException;
+
+/**
+ * 订阅者的发送通道（SSE 连接等），send 可能阻塞，只在发送线程上调用
+ */
+public interface EventChannel {
+
+    void send(String id, String name, Object data) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,13 @@
+package acs.stream;
+
+/**
+ * 订阅者缓冲区积压时的处理方式
+ */
+public enum SlowConsumerPolicy {
+    /** 缓冲区满时丢弃新事件，恢复发送时先发送 gap 事件说明丢弃数量 */
+    DROP,
+    /** 缓冲区过半后只保留每 sample-every 个事件中的一个，满时丢弃最旧的 */
+    SAMPLE,
+    /** 缓冲区满时断开，客户端带 Last-Event-ID 重连后从断点续传 */
+    DISCONNECT
+}
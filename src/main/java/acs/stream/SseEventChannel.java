@@ -0,0 +1,31 @@
+package acs.stream;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * 基于 Server-Sent Events 的发送通道
+ */
+public class SseEventChannel implements EventChannel {
+
+    private final SseEmitter emitter;
+
+    public SseEventChannel(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    @Override
+    public void send(String id, String name, Object data) throws IOException {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().name(name).data(data);
+        if (id != null) {
+            event.id(id);
+        }
+        emitter.send(event);
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
@@ -0,0 +1,113 @@
+package acs.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 访问事件推送配置，例如：
+ *   acs.stream.buffer-size=256
+ *   acs.stream.default-policy=DROP
+ */
+@Component
+@ConfigurationProperties(prefix = "acs.stream")
+public class StreamProperties {
+
+    // 断点续传可回溯的最近事件数
+    private int replayCapacity = 100_000;
+    // 每个订阅者的缓冲事件数
+    private int bufferSize = 256;
+    private int maxSubscribers = 2000;
+    // 向订阅者发送的线程数（发送可能阻塞，与刷卡线程隔离）
+    private int senderThreads = 4;
+    // 每个订阅者单次连续发送的最多事件数，之后让出发送线程
+    private int sendBatch = 64;
+    private int sampleEvery = 10;
+    // 待分发事件队列容量（满时丢弃并计数，不阻塞刷卡）
+    private int dispatchQueueCapacity = 100_000;
+    private SlowConsumerPolicy defaultPolicy = SlowConsumerPolicy.DROP;
+    // SSE 连接超时（0 表示不超时）
+    private long timeoutMillis = 0;
+    // 单次发送的期限，超过时断开该订阅者并补充一个发送线程（0 表示不检查）
+    private long sendTimeoutMillis = 10_000;
+
+    // Getter和Setter（配置绑定）
+    public int getReplayCapacity() {
+        return replayCapacity;
+    }
+
+    public void setReplayCapacity(int replayCapacity) {
+        this.replayCapacity = replayCapacity;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    public int getMaxSubscribers() {
+        return maxSubscribers;
+    }
+
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public int getSenderThreads() {
+        return senderThreads;
+    }
+
+    public void setSenderThreads(int senderThreads) {
+        this.senderThreads = senderThreads;
+    }
+
+    public int getSendBatch() {
+        return sendBatch;
+    }
+
+    public void setSendBatch(int sendBatch) {
+        this.sendBatch = sendBatch;
+    }
+
+    public int getSampleEvery() {
+        return sampleEvery;
+    }
+
+    public void setSampleEvery(int sampleEvery) {
+        this.sampleEvery = sampleEvery;
+    }
+
+    public int getDispatchQueueCapacity() {
+        return dispatchQueueCapacity;
+    }
+
+    public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+        this.dispatchQueueCapacity = dispatchQueueCapacity;
+    }
+
+    public SlowConsumerPolicy getDefaultPolicy() {
+        return defaultPolicy;
+    }
+
+    public void setDefaultPolicy(SlowConsumerPolicy defaultPolicy) {
+        this.defaultPolicy = defaultPolicy;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getSendTimeoutMillis() {
+        return sendTimeoutMillis;
+    }
+
+    public void setSendTimeoutMillis(long sendTimeoutMillis) {
+        this.sendTimeoutMillis = sendTimeoutMillis;
+    }
+}
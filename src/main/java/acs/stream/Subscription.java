@@ -0,0 +1,291 @@
+package acs.stream;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 一个订阅者：有界缓冲区 + 断点续传的补发列表
+ *
+ * enqueue 在分发线程上调用，drain 在发送线程上调用；同一订阅同一时刻最多一个发送任务（scheduled）。
+ * gap / reset / overflow 等控制事件不带 id，不影响客户端的 Last-Event-ID。
+ * 单次发送超过期限时由检查线程断开（abortStalledSend），卡住的发送返回后再关闭通道。
+ */
+public class Subscription {
+
+    static final String ACCESS = "access";
+    static final String GAP = "gap";
+    static final String RESET = "reset";
+    static final String OVERFLOW = "overflow";
+
+    private final long id;
+    private final AccessEventFilter filter;
+    private final SlowConsumerPolicy policy;
+    private final EventChannel channel;
+    private final int bufferSize;
+    private final int sampleEvery;
+    private final long epoch;
+
+    private final Deque<AccessEvent> buffer = new ArrayDeque<>();
+    private final Deque<Object[]> controls = new ArrayDeque<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicBoolean channelClosed = new AtomicBoolean(false);
+    // 正在进行的发送：发送线程与开始时间（纳秒），只在 sendLock 内读写
+    private final Object sendLock = new Object();
+    private Thread sendingThread;
+    private long sendStartedNanos;
+    private boolean aborted;
+    private boolean abortReleased;
+    private List<AccessEvent> replay = List.of();
+    private int replayIndex;
+    private long droppedSinceSent;
+    private long sampleCounter;
+    private boolean overflowed;
+    private volatile boolean closed;
+
+    private volatile long sentEvents;
+    private volatile long droppedEvents;
+    private volatile long lastSentSequence;
+
+    Subscription(long id, AccessEventFilter filter, SlowConsumerPolicy policy, EventChannel channel,
+                 int bufferSize, int sampleEvery, long epoch) {
+        this.id = id;
+        this.filter = filter;
+        this.policy = policy;
+        this.channel = channel;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.epoch = epoch;
+    }
+
+    // 订阅建立时（分发线程尚未看到该订阅）设置补发内容
+    synchronized void prepare(List<AccessEvent> replayEvents, String controlName, Object controlData) {
+        if (controlName != null) {
+            controls.add(new Object[]{controlName, controlData});
+        }
+        this.replay = replayEvents;
+        this.replayIndex = 0;
+    }
+
+    boolean matches(AccessEvent event) {
+        return filter.matches(event);
+    }
+
+    /**
+     * 放入一个事件（分发线程，不阻塞）
+     *
+     * @return 是否需要为该订阅安排发送任务
+     */
+    boolean enqueue(AccessEvent event) {
+        synchronized (this) {
+            if (closed || overflowed) {
+                return false;
+            }
+            boolean full = buffer.size() >= bufferSize;
+            switch (policy) {
+                case DROP -> {
+                    if (full) {
+                        drop();
+                        return false;
+                    }
+                }
+                case SAMPLE -> {
+                    // 缓冲区过半后降采样，满时丢弃最旧的
+                    if (buffer.size() >= bufferSize / 2 && ++sampleCounter % sampleEvery != 0) {
+                        drop();
+                        return false;
+                    }
+                    if (full) {
+                        buffer.pollFirst();
+                        drop();
+                    }
+                }
+                case DISCONNECT -> {
+                    if (full) {
+                        overflowed = true;
+                        droppedEvents++;
+                        return scheduled.compareAndSet(false, true);
+                    }
+                }
+            }
+            buffer.addLast(event);
+        }
+        return scheduled.compareAndSet(false, true);
+    }
+
+    // 调用时已持有锁
+    private void drop() {
+        droppedSinceSent++;
+        droppedEvents++;
+    }
+
+    // 安排发送任务（订阅建立后有补发内容时）
+    boolean schedule() {
+        synchronized (this) {
+            if (closed || (controls.isEmpty() && replayIndex >= replay.size() && buffer.isEmpty())) {
+                return false;
+            }
+        }
+        return scheduled.compareAndSet(false, true);
+    }
+
+    /**
+     * 发送最多 batch 个事件（发送线程）
+     *
+     * @return 是否还有待发送的事件（需要重新安排）
+     * @throws IOException 连接已断开
+     */
+    boolean drain(int batch) throws IOException {
+        for (int sent = 0; sent < batch; sent++) {
+            String name;
+            Object data;
+            AccessEvent event = null;
+            synchronized (this) {
+                if (closed) {
+                    return false;
+                }
+                Object[] control = controls.pollFirst();
+                if (control != null) {
+                    name = (String) control[0];
+                    data = control[1];
+                } else if (replayIndex < replay.size()) {
+                    event = replay.get(replayIndex++);
+                    name = ACCESS;
+                    data = event;
+                } else if (droppedSinceSent > 0) {
+                    name = GAP;
+                    data = Map.of("dropped", droppedSinceSent);
+                    droppedSinceSent = 0;
+                } else if (overflowed) {
+                    // 断开，客户端从最后收到的事件续传
+                    name = OVERFLOW;
+                    data = Map.of("lastEventId", lastSentSequence > 0 ? eventId(epoch, lastSentSequence) : "");
+                    closed = true;
+                } else {
+                    event = buffer.pollFirst();
+                    if (event == null) {
+                        scheduled.set(false);
+                        return false;
+                    }
+                    name = ACCESS;
+                    data = event;
+                }
+            }
+            beginSend();
+            try {
+                channel.send(event != null ? eventId(epoch, event.sequence()) : null, name, data);
+            } finally {
+                endSend();
+            }
+            if (event != null) {
+                lastSentSequence = event.sequence();
+                sentEvents++;
+            }
+            if (OVERFLOW.equals(name)) {
+                closeChannel();
+                return false;
+            }
+        }
+        synchronized (this) {
+            if (!closed && controls.isEmpty() && replayIndex >= replay.size() && droppedSinceSent == 0
+                    && !overflowed && buffer.isEmpty()) {
+                scheduled.set(false);
+                return false;
+            }
+            return !closed;
+        }
+    }
+
+    private void beginSend() {
+        synchronized (sendLock) {
+            sendingThread = Thread.currentThread();
+            sendStartedNanos = System.nanoTime();
+        }
+    }
+
+    private void endSend() {
+        synchronized (sendLock) {
+            sendingThread = null;
+        }
+    }
+
+    /**
+     * 正在进行的发送已超过期限时断开订阅（检查线程）
+     *
+     * 只标记关闭并中断发送线程，不在此关闭通道：SseEmitter 的 complete 与卡住的 send 争用同一把锁。
+     *
+     * @return 是否已断开
+     */
+    boolean abortStalledSend(long nowNanos, long timeoutNanos) {
+        synchronized (sendLock) {
+            if (sendingThread == null || aborted || nowNanos - sendStartedNanos < timeoutNanos) {
+                return false;
+            }
+            aborted = true;
+            // 在锁内中断，保证中断的是仍卡在这次发送上的线程
+            sendingThread.interrupt();
+        }
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+        }
+        return true;
+    }
+
+    /** 因发送超时被断开且卡住的发送已返回时返回 true（只返回一次） */
+    boolean releaseAborted() {
+        synchronized (sendLock) {
+            if (!aborted || abortReleased || sendingThread != null) {
+                return false;
+            }
+            abortReleased = true;
+            return true;
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+            buffer.clear();
+        }
+        closeChannel();
+    }
+
+    private void closeChannel() {
+        if (channelClosed.compareAndSet(false, true)) {
+            channel.close();
+        }
+    }
+
+    static String eventId(long epoch, long sequence) {
+        return epoch + "-" + sequence;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public SlowConsumerPolicy getPolicy() {
+        return policy;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public long getSentEvents() {
+        return sentEvents;
+    }
+
+    /** 因缓冲区满或降采样而未发送的事件数 */
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    public synchronized int getBuffered() {
+        return buffer.size();
+    }
+}
@@ -0,0 +1,250 @@
+package acs.trace;
+
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * DecisionTracer 记录访问判断路径上各阶段的耗时
+ *
+ * - begin / mark / end 只在当前线程上操作：阶段首尾相接，每个阶段只调用一次 System.nanoTime
+ * - 耗时写入当前线程自己的直方图（不加锁、不分配对象），查询时汇总所有线程
+ * - 整个请求超过 slowThreshold 时，把该请求的全部阶段复制为一条 SlowTrace，写入固定大小的环形缓冲区（覆盖最旧的）
+ * - 关闭时所有方法直接返回；嵌套的 begin / end（例如包装了另一个服务）只按最外层计时
+ */
+@Component
+public class DecisionTracer {
+
+    static final int MAX_STAGES = 64;
+    private static final int MAX_SPANS = 64;
+
+    private final boolean enabled;
+    private final long slowThresholdNanos;
+    private final AtomicReferenceArray<SlowTrace> slowTraces;
+    private final AtomicLong slowCount = new AtomicLong();
+
+    // 阶段ID -> 名称（TraceStage 在前，检查阶段按注册顺序在后）
+    private final List<String> stageNames = new CopyOnWriteArrayList<>();
+    private final Queue<ThreadState> threads = new ConcurrentLinkedQueue<>();
+    // 已结束线程的直方图合并到这里
+    private final StageHistogram[] retired = new StageHistogram[MAX_STAGES];
+    private final ThreadLocal<ThreadState> state = ThreadLocal.withInitial(this::register);
+
+    public DecisionTracer(@Value("${acs.trace.enabled:true}") boolean enabled,
+                          @Value("${acs.trace.slow-threshold-micros:5000}") long slowThresholdMicros,
+                          @Value("${acs.trace.slow-capacity:256}") int slowCapacity) {
+        if (slowThresholdMicros < 0 || slowCapacity <= 0) {
+            throw new IllegalArgumentException("慢请求阈值不能为负数，环形缓冲区容量必须大于 0");
+        }
+        this.enabled = enabled;
+        this.slowThresholdNanos = Math.multiplyExact(slowThresholdMicros, 1_000L);
+        this.slowTraces = new AtomicReferenceArray<>(slowCapacity);
+        for (TraceStage stage : TraceStage.values()) {
+            stageNames.add(stage.name());
+        }
+    }
+
+    /** 不记录任何数据的实例（测试与决策回放使用） */
+    public static DecisionTracer disabled() {
+        return new DecisionTracer(false, 0, 1);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 注册一个阶段（同名返回同一个ID），应在启动时调用
+     *
+     * @return 阶段ID
+     */
+    public synchronized int stage(String name) {
+        int existing = stageNames.indexOf(name);
+        if (existing >= 0) {
+            return existing;
+        }
+        if (stageNames.size() >= MAX_STAGES) {
+            throw new IllegalStateException("计时阶段过多: " + name);
+        }
+        stageNames.add(name);
+        return stageNames.size() - 1;
+    }
+
+    /** 开始跟踪当前线程上的一次请求 */
+    public void begin() {
+        if (enabled) {
+            state.get().begin(System.nanoTime());
+        }
+    }
+
+    /** 当前阶段结束（不在请求中时忽略） */
+    public void mark(TraceStage stage) {
+        mark(stage.ordinal());
+    }
+
+    public void mark(int stage) {
+        if (enabled) {
+            ThreadState current = state.get();
+            if (current.depth > 0) {
+                current.mark(stage, System.nanoTime());
+            }
+        }
+    }
+
+    /** 结束当前线程上的请求：记录总耗时，超过阈值时保留完整记录 */
+    public void end(AccessRequest request, AccessResult result) {
+        if (!enabled) {
+            return;
+        }
+        ThreadState current = state.get();
+        if (current.depth == 0 || --current.depth > 0) {
+            return;
+        }
+        long total = System.nanoTime() - current.start;
+        current.histogram(TraceStage.TOTAL.ordinal()).record(total);
+        if (total >= slowThresholdNanos) {
+            capture(current, request, result, total);
+        }
+    }
+
+    /** 记录不属于单个请求的阶段耗时（例如日志回放） */
+    public void record(TraceStage stage, long nanos) {
+        if (enabled) {
+            state.get().histogram(stage.ordinal()).record(nanos);
+        }
+    }
+
+    /** 各阶段的耗时分布（按阶段ID顺序） */
+    public List<StageLatency> stages() {
+        retireDeadThreads();
+        List<StageLatency> latencies = new ArrayList<>(stageNames.size());
+        for (int stage = 0; stage < stageNames.size(); stage++) {
+            List<StageHistogram> histograms = new ArrayList<>();
+            for (ThreadState thread : threads) {
+                StageHistogram histogram = thread.histograms[stage];
+                if (histogram != null) {
+                    histograms.add(histogram);
+                }
+            }
+            synchronized (retired) {
+                if (retired[stage] != null) {
+                    histograms.add(retired[stage]);
+                }
+                latencies.add(StageHistogram.summarize(stageNames.get(stage), histograms));
+            }
+        }
+        return latencies;
+    }
+
+    /** 最近的慢请求，最新的在前 */
+    public List<SlowTrace> slowTraces() {
+        long count = slowCount.get();
+        int capacity = slowTraces.length();
+        List<SlowTrace> traces = new ArrayList<>();
+        for (long i = count - 1; i >= Math.max(0, count - capacity); i--) {
+            SlowTrace trace = slowTraces.get((int) (i % capacity));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    private void capture(ThreadState current, AccessRequest request, AccessResult result, long total) {
+        List<TraceSpan> spans = new ArrayList<>(current.spans);
+        long previous = current.start;
+        for (int i = 0; i < current.spans; i++) {
+            long end = current.spanEnds[i];
+            spans.add(new TraceSpan(stageNames.get(current.spanStages[i]), end - previous, end - current.start));
+            previous = end;
+        }
+        SlowTrace trace = new SlowTrace(Instant.now(),
+                request != null ? request.getBadgeId() : null, request != null ? request.getResourceId() : null,
+                request != null ? request.getDirection() : null,
+                result != null ? result.getDecision() : null, result != null ? result.getReasonCode() : null,
+                total, List.copyOf(spans));
+        long slot = slowCount.getAndIncrement();
+        slowTraces.set((int) (slot % slowTraces.length()), trace);
+    }
+
+    private ThreadState register() {
+        retireDeadThreads();
+        ThreadState created = new ThreadState(Thread.currentThread());
+        threads.add(created);
+        return created;
+    }
+
+    // 已结束线程不会再写入，合并后移除（线程池回收线程时注册表不会无限增长）；
+    // 可能有多个调用方同时清理，只有实际移除成功的一方合并，避免重复计数
+    private void retireDeadThreads() {
+        for (ThreadState thread : threads) {
+            if (thread.owner.isAlive() || !threads.remove(thread)) {
+                continue;
+            }
+            synchronized (retired) {
+                for (int stage = 0; stage < MAX_STAGES; stage++) {
+                    if (thread.histograms[stage] != null) {
+                        if (retired[stage] == null) {
+                            retired[stage] = new StageHistogram();
+                        }
+                        retired[stage].merge(thread.histograms[stage]);
+                    }
+                }
+            }
+        }
+    }
+
+    // 一个线程的跟踪状态，只由所属线程写入
+    private static final class ThreadState {
+
+        final Thread owner;
+        final StageHistogram[] histograms = new StageHistogram[MAX_STAGES];
+        final int[] spanStages = new int[MAX_SPANS];
+        final long[] spanEnds = new long[MAX_SPANS];
+        int spans;
+        int depth;
+        long start;
+        long last;
+
+        ThreadState(Thread owner) {
+            this.owner = owner;
+        }
+
+        void begin(long now) {
+            if (depth++ == 0) {
+                start = now;
+                last = now;
+                spans = 0;
+            }
+        }
+
+        void mark(int stage, long now) {
+            histogram(stage).record(now - last);
+            if (spans < MAX_SPANS) {
+                spanStages[spans] = stage;
+                spanEnds[spans] = now;
+                spans++;
+            }
+            last = now;
+        }
+
+        StageHistogram histogram(int stage) {
+            StageHistogram histogram = histograms[stage];
+            if (histogram == null) {
+                histogram = new StageHistogram();
+                histograms[stage] = histogram;
+            }
+            return histogram;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package acs.trace;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.ReasonCode;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 耗时超过阈值的一次请求的完整阶段记录
+ */
+public record SlowTrace(Instant capturedAt, String badgeId, String resourceId, AccessDirection direction,
+                        AccessDecision decision, ReasonCode reasonCode, long totalNanos, List<TraceSpan> spans) {
+}
@@ -0,0 +1,93 @@
+package acs.trace;
+
+import java.util.List;
+
+/**
+ * 单线程写入的对数线性直方图：每个 2 的幂区间 16 个桶（相对误差约 6%），超过 2^40 纳秒的值计入最后一个区间
+ *
+ * 每个线程每个阶段一份，写入不加锁；汇总时直接读取各线程的计数，读到的是近似的瞬时值。
+ * 比回放报告用的直方图精度低、占用内存小（约 5KB），适合按线程 × 阶段分配。
+ */
+final class StageHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    void record(long nanos) {
+        long value = Math.min(Math.max(0, nanos), MAX_VALUE);
+        counts[bucketOf(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    // 合并另一个直方图（调用方保证 other 不再被写入）
+    void merge(StageHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /** 汇总多个线程的直方图 */
+    static StageLatency summarize(String stage, List<StageHistogram> histograms) {
+        long[] merged = new long[BUCKETS];
+        long count = 0;
+        long sum = 0;
+        long max = 0;
+        for (StageHistogram histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                merged[i] += histogram.counts[i];
+            }
+            count += histogram.count;
+            sum += histogram.sum;
+            max = Math.max(max, histogram.max);
+        }
+        if (count == 0) {
+            return new StageLatency(stage, 0, 0, 0, 0, 0, 0);
+        }
+        return new StageLatency(stage, count, sum / count, percentile(merged, count, max, 0.50),
+                percentile(merged, count, max, 0.90), percentile(merged, count, max, 0.99), max);
+    }
+
+    // 第 q 分位所在桶的下界（不超过最大值）
+    private static long percentile(long[] counts, long count, long max, double q) {
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) {
+                return Math.min(lowerBound(bucket), max);
+            }
+        }
+        return max;
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int group = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS + 1;
+        return group * SUB_BUCKETS + (int) (value >>> (group - 1)) - SUB_BUCKETS;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int group = bucket / SUB_BUCKETS;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << (group - 1);
+    }
+}
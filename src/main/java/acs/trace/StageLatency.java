@@ -0,0 +1,8 @@
+package acs.trace;
+
+/**
+ * 一个阶段的耗时分布（纳秒；分位数为直方图桶下界，相对误差约 6%）
+ */
+public record StageLatency(String stage, long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos,
+                           long maxNanos) {
+}
@@ -0,0 +1,9 @@
+package acs.trace;
+
+/**
+ * 慢请求中的一个阶段
+ *
+ * @param offsetNanos 阶段结束时距请求开始的时间
+ */
+public record TraceSpan(String stage, long nanos, long offsetNanos) {
+}
@@ -0,0 +1,23 @@
+package acs.trace;
+
+/**
+ * 访问判断路径上固定的计时阶段（检查阶段由 DecisionPipeline 按名称另行注册）
+ *
+ * 同一请求内的阶段首尾相接：每个阶段的耗时是从上一个阶段结束到本阶段结束的时间。
+ */
+public enum TraceStage {
+    /** 整个请求（processAccess / releaseAccess） */
+    TOTAL,
+    /** 检查通过后的占用、租约与容量处理（被检查拒绝时接近 0） */
+    COMMIT,
+    /** 写入本地日志（LogJournal.append，含落盘） */
+    JOURNAL_APPEND,
+    /** 交给异常检测 */
+    ANOMALY_OFFER,
+    /** 交给实时推送 */
+    EVENT_PUBLISH,
+    /** 日志回放：一批日志写入数据库（异步，不属于单个请求） */
+    LOG_DB_BATCH,
+    /** 日志回放：写入本地缓存的有序日志（异步，不属于单个请求） */
+    LOG_CACHE_UPDATE
+}
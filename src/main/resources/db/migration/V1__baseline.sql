@@ -0,0 +1,151 @@
+-- V1 基线：迁移机制引入前手工执行的 access_control_db.sql（不含分区与复合索引，由后续版本完成）
+-- 已有数据库（存在 access_logs 且没有 schema_history）不执行本脚本，直接记为基线
+
+-- 1. 先创建无循环依赖的基础表：权限组表
+CREATE TABLE IF NOT EXISTS group_permissions (
+    group_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    parent_group_id VARCHAR(50), -- 父组（子组继承父组授权）
+    FOREIGN KEY (parent_group_id) REFERENCES group_permissions(group_id) ON DELETE SET NULL
+);
+
+-- 2. 资源表（无外键依赖，优先创建）
+CREATE TABLE IF NOT EXISTS resources (
+    resource_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    resource_name VARCHAR(100) NOT NULL,
+    resource_type ENUM('PENDING','BUILDING', 'FLOOR', 'DOOR', 'PRINTER', 'COMPUTER', 'ROOM', 'OTHER') NOT NULL,
+    resource_state ENUM('PENDING','AVAILABLE', 'OCCUPIED', 'LOCKED', 'OFFLINE') NOT NULL,
+    parent_id VARCHAR(50), -- 所属区域（对区域的授权覆盖其子树）
+    capacity INT, -- 容量上限（同时在内人数），NULL 表示不限
+    lease_holder VARCHAR(50), -- 共享资源的当前占用者（员工ID，异步写回）
+    lease_expires_at DATETIME, -- 占用租约到期时间
+    FOREIGN KEY (parent_id) REFERENCES resources(resource_id) ON DELETE SET NULL
+);
+
+-- 3. 先创建 employees 表（无外键，后续追加 badge_id 外键）
+CREATE TABLE IF NOT EXISTS employees (
+    employee_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    employee_name VARCHAR(100) NOT NULL,
+    badge_id VARCHAR(50) -- 先不建外键
+);
+
+-- 4. 创建 badges 表（引用 employees 的外键，此时 employees 已存在）
+CREATE TABLE IF NOT EXISTS badges (
+    badge_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    status ENUM('ACTIVE', 'DISABLED', 'LOST') NOT NULL,
+    employee_id VARCHAR(50),
+    FOREIGN KEY (employee_id) REFERENCES employees(employee_id) ON DELETE SET NULL
+);
+
+-- 5. 给 employees 表追加 badge_id 外键（解决循环依赖）
+ALTER TABLE employees 
+ADD CONSTRAINT fk_employee_badge 
+FOREIGN KEY (badge_id) REFERENCES badges(badge_id) ON DELETE CASCADE;
+
+-- 6. 员工-组关联表（多对多，引用已存在的 group_permissions）
+CREATE TABLE IF NOT EXISTS employee_groups (
+    employee_id VARCHAR(50) NOT NULL,
+    group_id VARCHAR(50) NOT NULL,
+    PRIMARY KEY (employee_id, group_id),
+    FOREIGN KEY (employee_id) REFERENCES employees(employee_id) ON DELETE CASCADE,
+    FOREIGN KEY (group_id) REFERENCES group_permissions(group_id) ON DELETE CASCADE
+);
+
+-- 7. 组-资源关联表（多对多，引用已存在的 group_permissions）
+CREATE TABLE IF NOT EXISTS group_resources (
+    group_id VARCHAR(50) NOT NULL,
+    resource_id VARCHAR(50) NOT NULL,
+    PRIMARY KEY (group_id, resource_id),
+    FOREIGN KEY (group_id) REFERENCES group_permissions(group_id) ON DELETE CASCADE,
+    FOREIGN KEY (resource_id) REFERENCES resources(resource_id) ON DELETE CASCADE
+);
+
+-- 8. 访问日志表（按天分区由 V2 完成；分区表的主键、唯一键必须包含分区列，且不支持外键，
+--    因此 badge_id / employee_id / resource_id 不建外键）
+CREATE TABLE IF NOT EXISTS access_logs (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    timestamp DATETIME NOT NULL,
+    event_id VARCHAR(36), -- 刷卡事件ID，本地日志回放时去重（早期日志为空）
+    badge_id VARCHAR(50),
+    employee_id VARCHAR(50),
+    resource_id VARCHAR(50),
+    decision ENUM('PENDING', 'ALLOW', 'DENY') NOT NULL,
+    reason_code ENUM(
+        'PENDING',
+        'ALLOW', 
+        'BADGE_NOT_FOUND', 
+        'BADGE_INACTIVE', 
+        'EMPLOYEE_NOT_FOUND', 
+        'RESOURCE_NOT_FOUND', 
+        'RESOURCE_LOCKED', 
+        'RESOURCE_OCCUPIED', 
+        'CAPACITY_EXCEEDED',
+        'NO_PERMISSION', 
+        'OUTSIDE_SCHEDULE',
+        'INVALID_REQUEST', 
+        'SYSTEM_ERROR'
+    ) NOT NULL,
+    direction ENUM('ENTRY', 'EXIT'), -- 刷卡方向（早期日志为空）
+    PRIMARY KEY (id, timestamp),
+    UNIQUE KEY uk_log_event (event_id, timestamp) -- 分区表的唯一键必须包含分区列
+);
+
+-- 9. 访问时间表
+CREATE TABLE IF NOT EXISTS access_schedules (
+    schedule_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    valid_from DATE,
+    valid_until DATE
+);
+
+-- 10. 时间表的每周时间段（end_time 不晚于 start_time 表示跨越午夜）
+CREATE TABLE IF NOT EXISTS schedule_windows (
+    schedule_id VARCHAR(50) NOT NULL,
+    day_of_week ENUM('MONDAY', 'TUESDAY', 'WEDNESDAY', 'THURSDAY', 'FRIDAY', 'SATURDAY', 'SUNDAY') NOT NULL,
+    start_time TIME NOT NULL,
+    end_time TIME NOT NULL,
+    FOREIGN KEY (schedule_id) REFERENCES access_schedules(schedule_id) ON DELETE CASCADE
+);
+
+-- 11. 时间表的节假日
+CREATE TABLE IF NOT EXISTS schedule_holidays (
+    schedule_id VARCHAR(50) NOT NULL,
+    holiday_date DATE NOT NULL,
+    PRIMARY KEY (schedule_id, holiday_date),
+    FOREIGN KEY (schedule_id) REFERENCES access_schedules(schedule_id) ON DELETE CASCADE
+);
+
+-- 12. 授权（组-资源）所挂的时间表
+CREATE TABLE IF NOT EXISTS group_resource_schedules (
+    group_id VARCHAR(50) NOT NULL,
+    resource_id VARCHAR(50) NOT NULL,
+    schedule_id VARCHAR(50) NOT NULL,
+    PRIMARY KEY (group_id, resource_id),
+    FOREIGN KEY (group_id, resource_id) REFERENCES group_resources(group_id, resource_id) ON DELETE CASCADE,
+    FOREIGN KEY (schedule_id) REFERENCES access_schedules(schedule_id)
+);
+
+-- 13. 紧急封锁（行存在即生效，解除即删除）
+CREATE TABLE IF NOT EXISTS lockdowns (
+    lockdown_id VARCHAR(50) NOT NULL PRIMARY KEY,
+    scope ENUM('ALL', 'TYPE', 'ZONE') NOT NULL,
+    target VARCHAR(50), -- TYPE：资源类型；ZONE：区域资源ID
+    activated_at DATETIME NOT NULL
+);
+
+-- 14. 日志清理任务的检查点（分块删除中断后从 cursor_id 继续）
+CREATE TABLE IF NOT EXISTS log_retention_checkpoints (
+    job_name VARCHAR(50) NOT NULL PRIMARY KEY,
+    cursor_id BIGINT NOT NULL,
+    run_started_at DATETIME NOT NULL,
+    completed_at DATETIME, -- 为空表示上一次运行未完成
+    deleted_count BIGINT NOT NULL
+);
+
+-- 创建索引（仅保留非主键的有效索引）
+CREATE INDEX idx_group_id ON group_permissions(group_id); 
+CREATE INDEX idx_log_badge ON access_logs(badge_id);
+CREATE INDEX idx_log_employee ON access_logs(employee_id);
+CREATE INDEX idx_log_resource ON access_logs(resource_id);
+CREATE INDEX idx_log_timestamp ON access_logs(timestamp);
+CREATE INDEX idx_log_decision ON access_logs(decision);
@@ -0,0 +1,15 @@
+-- 访问统计汇总：分钟 / 小时 / 天桶，按全部（*）、资源、组汇总，由 AccessStatsRollup 随日志写入累加
+-- 主键以维度开头，仪表盘按维度查询一段时间是一次主键范围扫描
+CREATE TABLE IF NOT EXISTS access_stats (
+    granularity VARCHAR(6) NOT NULL,    -- MINUTE / HOUR / DAY
+    dimension VARCHAR(8) NOT NULL,      -- ALL / RESOURCE / GROUP
+    dimension_id VARCHAR(50) NOT NULL,
+    bucket_start DATETIME NOT NULL,
+    decision VARCHAR(10) NOT NULL,
+    reason_code VARCHAR(30) NOT NULL,
+    access_count BIGINT NOT NULL,
+    PRIMARY KEY (granularity, dimension, dimension_id, bucket_start, decision, reason_code)
+);
+
+-- 过期分钟桶 / 小时桶按粒度与时间清理
+CREATE INDEX idx_stats_granularity_bucket ON access_stats(granularity, bucket_start);
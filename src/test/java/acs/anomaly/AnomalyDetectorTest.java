@@ -0,0 +1,139 @@
+package acs.anomaly;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnomalyDetectorTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 9, 0);
+    private final List<AnomalyAlert> alerts = new ArrayList<>();
+
+    private AnomalyDetector detector(AnomalyProperties properties) {
+        return new AnomalyDetector(properties, List.of(alerts::add));
+    }
+
+    private static LogEntry denied(LocalDateTime time, String badgeId, String resourceId, ReasonCode reasonCode) {
+        return new LogEntry(time, badgeId, "E001", resourceId, AccessDecision.DENY, reasonCode);
+    }
+
+    @Test
+    void deniedAtFiveDoorsWithinMinute_shouldAlertOnce() {
+        AnomalyDetector detector = detector(new AnomalyProperties());
+
+        for (int door = 1; door <= 4; door++) {
+            detector.process(denied(base.plusSeconds(door * 10), "B001", "D" + door, ReasonCode.NO_PERMISSION));
+        }
+        // 同一扇门重复被拒不增加不同门数
+        detector.process(denied(base.plusSeconds(45), "B001", "D4", ReasonCode.NO_PERMISSION));
+        assertTrue(alerts.isEmpty());
+
+        detector.process(denied(base.plusSeconds(50), "B001", "D5", ReasonCode.NO_PERMISSION));
+        detector.process(denied(base.plusSeconds(55), "B001", "D6", ReasonCode.NO_PERMISSION));
+
+        assertEquals(1, alerts.size());  // 静默期内不重复告警
+        assertEquals("denied-at-many-doors", alerts.get(0).rule());
+        assertEquals("B001", alerts.get(0).key());
+        assertEquals(5, alerts.get(0).observed());
+    }
+
+    @Test
+    void doorsSpreadBeyondWindow_shouldNotAlert() {
+        AnomalyDetector detector = detector(new AnomalyProperties());
+
+        for (int door = 1; door <= 8; door++) {
+            detector.process(denied(base.plusSeconds(door * 20L), "B001", "D" + door, ReasonCode.NO_PERMISSION));
+        }
+
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void unknownBadgeBurstOnOneReader_shouldAlert() {
+        AnomalyDetector detector = detector(new AnomalyProperties());
+
+        for (int i = 0; i < 10; i++) {
+            detector.process(denied(base.plusSeconds(i), "X" + i, "R001", ReasonCode.BADGE_NOT_FOUND));
+            detector.process(denied(base.plusSeconds(i), "Y" + i, "R002", ReasonCode.NO_PERMISSION));
+        }
+
+        assertEquals(1, alerts.size());
+        assertEquals("unknown-badge-burst", alerts.get(0).rule());
+        assertEquals("R001", alerts.get(0).key());
+    }
+
+    @Test
+    void tumblingWindow_shouldResetAtWindowBoundary() {
+        AnomalyProperties properties = new AnomalyProperties();
+        AnomalyRule rule = new AnomalyRule("reader-errors", List.of(AnomalyRule.KeyField.RESOURCE,
+                AnomalyRule.KeyField.REASON_CODE), AccessDecision.DENY, null, AnomalyRule.Measure.COUNT, 3, 60);
+        rule.setWindow(AnomalyRule.WindowType.TUMBLING);
+        properties.setRules(List.of(rule));
+        AnomalyDetector detector = detector(properties);
+
+        // 09:00:58、09:00:59 与 09:01:00 分属两个窗口
+        detector.process(denied(base.plusSeconds(58), "B1", "R001", ReasonCode.BADGE_INACTIVE));
+        detector.process(denied(base.plusSeconds(59), "B2", "R001", ReasonCode.BADGE_INACTIVE));
+        detector.process(denied(base.plusSeconds(60), "B3", "R001", ReasonCode.BADGE_INACTIVE));
+        assertTrue(alerts.isEmpty());
+
+        detector.process(denied(base.plusSeconds(61), "B4", "R001", ReasonCode.BADGE_INACTIVE));
+        detector.process(denied(base.plusSeconds(62), "B5", "R001", ReasonCode.BADGE_INACTIVE));
+        assertEquals(1, alerts.size());
+        assertEquals("R001|BADGE_INACTIVE", alerts.get(0).key());
+    }
+
+    @Test
+    void keyState_shouldBeBoundedAndSwept() {
+        AnomalyProperties properties = new AnomalyProperties();
+        properties.setMaxKeysPerRule(100);
+        AnomalyDetector detector = detector(properties);
+
+        for (int i = 0; i < 1000; i++) {
+            detector.process(denied(base.plusSeconds(i % 60), "B" + i, "R" + i, ReasonCode.NO_PERMISSION));
+        }
+        // 两条规则各最多 100 个 key
+        assertEquals(100, detector.getActiveKeys());
+        assertEquals(900, detector.getEvictedKeys());
+
+        long afterWindow = base.plusMinutes(5).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        assertEquals(100, detector.sweep(afterWindow));
+        assertEquals(0, detector.getActiveKeys());
+    }
+
+    @Test
+    void offer_shouldDropInsteadOfBlockingWhenQueueIsFull() {
+        AnomalyProperties properties = new AnomalyProperties();
+        properties.setQueueCapacity(2);
+        AnomalyDetector detector = detector(properties);  // 未启动检测线程
+
+        for (int i = 0; i < 5; i++) {
+            detector.offer(denied(base, "B001", "R001", ReasonCode.NO_PERMISSION));
+        }
+
+        assertEquals(3, detector.getDroppedEvents());
+    }
+
+    @Test
+    void failingSink_shouldNotStopDetection() {
+        List<AnomalyAlert> received = new ArrayList<>();
+        AnomalyDetector detector = new AnomalyDetector(new AnomalyProperties(), List.of(alert -> {
+            throw new IllegalStateException("sink down");
+        }, received::add));
+
+        for (int door = 1; door <= 5; door++) {
+            detector.process(denied(base.plusSeconds(door), "B001", "D" + door, ReasonCode.NO_PERMISSION));
+        }
+
+        assertEquals(1, received.size());
+        assertEquals(1, detector.getAlerts());
+    }
+}
@@ -0,0 +1,113 @@
+package acs.cache;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessCountIndexTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 8, 0);
+
+    private static LogEntry log(LocalDateTime time, String resourceId, AccessDecision decision, ReasonCode reasonCode) {
+        return new LogEntry(time, "B001", "E001", resourceId, decision, reasonCode);
+    }
+
+    @Test
+    void count_shouldMatchScanForArbitraryRanges() {
+        Random random = new Random(42);
+        AccessCountIndex index = new AccessCountIndex();
+        List<LogEntry> logs = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            // 大部分按时间到达，少量乱序
+            int minute = random.nextInt(10) == 0 ? random.nextInt(i + 1) : i;
+            boolean denied = random.nextInt(4) == 0;
+            LogEntry log = log(base.plusMinutes(minute).plusSeconds(random.nextInt(60)), "R" + random.nextInt(3),
+                    denied ? AccessDecision.DENY : AccessDecision.ALLOW,
+                    denied ? ReasonCode.BADGE_INACTIVE : ReasonCode.ALLOW);
+            logs.add(log);
+            index.add(log);
+        }
+        // 删除一部分后压缩
+        for (int i = 0; i < logs.size(); i += 3) {
+            index.remove(logs.get(i));
+        }
+        List<LogEntry> remaining = new ArrayList<>();
+        for (int i = 0; i < logs.size(); i++) {
+            if (i % 3 != 0) {
+                remaining.add(logs.get(i));
+            }
+        }
+        index.compact();
+
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(2100) - 50);
+            LocalDateTime to = from.plusMinutes(random.nextInt(600) + 1);
+            String resourceId = random.nextBoolean() ? null : "R" + random.nextInt(3);
+            assertEquals(scan(remaining, resourceId, AccessDecision.DENY, from, to),
+                    index.count(resourceId, AccessDecision.DENY, from, to));
+            assertEquals(scan(remaining, resourceId, AccessDecision.ALLOW, from, to),
+                    index.count(resourceId, ReasonCode.ALLOW, from, to));
+        }
+    }
+
+    @Test
+    void count_shouldRoundToMinutes() {
+        AccessCountIndex index = new AccessCountIndex();
+        index.add(log(base.withMinute(12).withSecond(30), "D1", AccessDecision.DENY, ReasonCode.NO_PERMISSION));
+        index.add(log(base.withHour(9).withMinute(47).withSecond(10), "D1", AccessDecision.DENY, ReasonCode.NO_PERMISSION));
+        index.add(log(base.withHour(9).withMinute(48), "D1", AccessDecision.DENY, ReasonCode.NO_PERMISSION));
+
+        // 08:12 到 09:47：开始向下、结束向上取整到分钟
+        assertEquals(1, index.count("D1", AccessDecision.DENY, base.withMinute(12).withSecond(45),
+                base.withHour(9).withMinute(47)));
+        assertEquals(2, index.count("D1", AccessDecision.DENY, base.withMinute(12),
+                base.withHour(9).withMinute(47).withSecond(1)));
+        assertEquals(3, index.count(null, ReasonCode.NO_PERMISSION, base, base.plusHours(2)));
+        assertEquals(0, index.count("D2", AccessDecision.DENY, base, base.plusHours(2)));
+        assertEquals(0, index.count("D1", AccessDecision.ALLOW, base, base.plusHours(2)));
+    }
+
+    @Test
+    void histogram_shouldCountPerBucket() {
+        AccessCountIndex index = new AccessCountIndex();
+        for (int minute : new int[]{0, 5, 14, 15, 44, 61}) {
+            index.add(log(base.plusMinutes(minute), "D1", AccessDecision.ALLOW, ReasonCode.ALLOW));
+        }
+
+        assertArrayEquals(new long[]{3, 1, 1, 0, 1}, index.histogram("D1", AccessDecision.ALLOW, base, 15, 5));
+        assertArrayEquals(new long[3], index.histogram("D1", AccessDecision.DENY, base, 15, 3));
+    }
+
+    @Test
+    void compact_shouldDropEmptyCounters() {
+        AccessCountIndex index = new AccessCountIndex();
+        LogEntry log = log(base, "D1", AccessDecision.ALLOW, ReasonCode.ALLOW);
+        index.add(log);
+        index.remove(log);
+        index.compact();
+
+        assertEquals(0, index.count("D1", AccessDecision.ALLOW, base, base.plusDays(1)));
+        index.add(log);
+        assertEquals(1, index.count("D1", AccessDecision.ALLOW, base, base.plusDays(1)));
+    }
+
+    private static long scan(List<LogEntry> logs, String resourceId, AccessDecision decision,
+                             LocalDateTime from, LocalDateTime to) {
+        int fromMinute = AccessCountIndex.minuteOf(from);
+        int toMinute = AccessCountIndex.minuteOf(to);
+        return logs.stream()
+                .filter(log -> resourceId == null || resourceId.equals(log.getResourceId()))
+                .filter(log -> log.getDecision() == decision)
+                .filter(log -> AccessCountIndex.minuteOf(log.getTimestamp()) >= fromMinute
+                        && AccessCountIndex.minuteOf(log.getTimestamp()) < toMinute)
+                .count();
+    }
+}
@@ -0,0 +1,84 @@
+package acs.cache;
+
+import acs.domain.Badge;
+import acs.domain.BadgeStatus;
+import acs.domain.Employee;
+import acs.domain.Group;
+import acs.domain.Resource;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 测试数据：创建资源 / 组 / 员工（及徽章）实体并写入 LocalCacheManager
+ *
+ * 实体按ID保留，测试修改后可再次 update 到缓存。
+ */
+public class CacheFixture {
+
+    private final LocalCacheManager cacheManager;
+    private final Map<String, Resource> resources = new HashMap<>();
+    private final Map<String, Group> groups = new HashMap<>();
+
+    public CacheFixture(LocalCacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    public Resource resource(String id, ResourceType type, ResourceState state, String parentId, Integer capacity) {
+        Resource resource = new Resource(id, id, type, state);
+        resource.setParentId(parentId);
+        resource.setCapacity(capacity);
+        resources.put(id, resource);
+        cacheManager.updateResource(resource);
+        return resource;
+    }
+
+    // 可用、不限容量的资源
+    public Resource resource(String id, ResourceType type, String parentId) {
+        return resource(id, type, ResourceState.AVAILABLE, parentId, null);
+    }
+
+    // 已有同ID的组时替换其父组与授权资源
+    public Group group(String id, String parentId, String... resourceIds) {
+        Group group = groups.computeIfAbsent(id, key -> new Group(key, key));
+        group.setParentGroupId(parentId);
+        group.getResources().clear();
+        for (String resourceId : resourceIds) {
+            group.getResources().add(resources.get(resourceId));
+        }
+        cacheManager.updateGroup(group);
+        return group;
+    }
+
+    // badgeId 为 null 时不绑定徽章
+    public Employee employee(String id, String badgeId, BadgeStatus status, String... groupIds) {
+        Employee employee = new Employee(id, "Name " + id);
+        for (String groupId : groupIds) {
+            employee.getGroups().add(groups.get(groupId));
+        }
+        if (badgeId == null) {
+            cacheManager.updateEmployee(employee);
+            return employee;
+        }
+        Badge badge = new Badge(badgeId, status);
+        badge.setEmployee(employee);
+        employee.setBadge(badge);
+        cacheManager.updateEmployee(employee);
+        cacheManager.updateBadge(badge);
+        return employee;
+    }
+
+    public Employee employee(String id, String badgeId, String... groupIds) {
+        return employee(id, badgeId, BadgeStatus.ACTIVE, groupIds);
+    }
+
+    public Resource getResource(String id) {
+        return resources.get(id);
+    }
+
+    public Group getGroup(String id) {
+        return groups.get(id);
+    }
+}
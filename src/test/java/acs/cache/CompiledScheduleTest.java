@@ -0,0 +1,64 @@
+package acs.cache;
+
+import acs.domain.AccessSchedule;
+import acs.domain.ScheduleWindow;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledScheduleTest {
+
+    // 2024-05-06 是周一
+    private final LocalDate monday = LocalDate.of(2024, 5, 6);
+
+    private AccessSchedule officeHours() {
+        AccessSchedule schedule = new AccessSchedule("S001", "Office Hours");
+        for (DayOfWeek day : new DayOfWeek[]{DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY}) {
+            schedule.getWindows().add(new ScheduleWindow(day, LocalTime.of(8, 0), LocalTime.of(18, 0)));
+        }
+        return schedule;
+    }
+
+    @Test
+    void weeklyWindow_shouldAllowOnlyInsideWindow() {
+        CompiledSchedule schedule = CompiledSchedule.compile(officeHours());
+
+        assertTrue(schedule.allows(monday.atTime(8, 0)));
+        assertTrue(schedule.allows(monday.atTime(17, 59)));
+        assertFalse(schedule.allows(monday.atTime(18, 0)));  // 右开
+        assertFalse(schedule.allows(monday.atTime(7, 59)));
+        assertFalse(schedule.allows(monday.plusDays(5).atTime(10, 0)));  // 周六
+    }
+
+    @Test
+    void overnightWindow_shouldWrapToNextDayAndWeek() {
+        AccessSchedule night = new AccessSchedule("S002", "Night Shift");
+        night.getWindows().add(new ScheduleWindow(DayOfWeek.SUNDAY, LocalTime.of(22, 0), LocalTime.of(6, 0)));
+        CompiledSchedule schedule = CompiledSchedule.compile(night);
+
+        assertTrue(schedule.allows(monday.minusDays(1).atTime(23, 30)));  // 周日晚
+        assertTrue(schedule.allows(monday.atTime(5, 59)));                // 跨到周一
+        assertFalse(schedule.allows(monday.atTime(6, 0)));
+    }
+
+    @Test
+    void holidaysAndValidity_shouldDenyWholeDay() {
+        AccessSchedule schedule = officeHours();
+        schedule.getHolidays().add(monday.plusDays(1));
+        schedule.setValidFrom(monday);
+        schedule.setValidUntil(monday.plusDays(30));
+        CompiledSchedule compiled = CompiledSchedule.compile(schedule);
+
+        assertTrue(compiled.allows(monday.atTime(9, 0)));
+        assertFalse(compiled.allows(monday.plusDays(1).atTime(9, 0)));   // 节假日
+        assertTrue(compiled.allows(monday.plusDays(2).atTime(9, 0)));
+        assertFalse(compiled.allows(monday.minusDays(7).atTime(9, 0)));  // 生效前
+        assertFalse(compiled.allows(LocalDateTime.of(monday.plusDays(35), LocalTime.of(9, 0))));  // 失效后
+    }
+}
@@ -2,6 +2,10 @@ package acs.cache;
 
 import acs.domain.*;
 import acs.repository.*;
+import acs.service.LogCleanupService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -40,6 +44,10 @@ public class LocalCacheManagerIntegrationTest {
     private ResourceRepository resourceRepository;
     @Autowired
     private AccessLogRepository accessLogRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private LogCleanupService logCleanupService;
 
     // 测试数据
     private Badge testBadge;
@@ -132,7 +140,7 @@ public class LocalCacheManagerIntegrationTest {
         assertEquals(2, cacheManager.getLogs().size());
 
         // 验证 2：缓存数据与数据库数据内容一致（精准匹配）
-        Badge cacheBadge = cacheManager.getBadge(testBadge.getBadgeId());
+        CachedBadge cacheBadge = cacheManager.getBadge(testBadge.getBadgeId());
         Badge dbBadge = badgeRepository.findById(testBadge.getBadgeId()).orElse(null);
         assertNotNull(dbBadge);
         assertEquals(dbBadge.getBadgeId(), cacheBadge.getBadgeId());
@@ -154,7 +162,7 @@ public class LocalCacheManagerIntegrationTest {
         cacheManager.updateBadge(updatedBadge);
 
         // 步骤 2：验证缓存已更新
-        Badge cacheBadge = cacheManager.getBadge(badgeId);
+        CachedBadge cacheBadge = cacheManager.getBadge(badgeId);
         assertNotNull(cacheBadge);
         assertEquals(BadgeStatus.DISABLED,cacheBadge.getStatus());
 
@@ -175,17 +183,16 @@ public class LocalCacheManagerIntegrationTest {
 
         // 步骤 1：添加一条过期日志到缓存和数据库
         LogEntry expiredLog = new LogEntry();
-        expiredLog.setTimestamp(sevenDaysAgo.minusHours(1)); // 超过7天，属于过期
+        expiredLog.setTimestamp(sevenDaysAgo.minusDays(1)); // 整天早于截止时间（按天分区的保留粒度），属于过期
         accessLogRepository.save(expiredLog); // 写入数据库
         cacheManager.updateLog(expiredLog); // 写入缓存
         assertEquals(3, accessLogRepository.count());
         assertEquals(3, cacheManager.getLogs().size());
 
-        // 步骤 2：执行过期日志清理（业务方法应同步清理缓存和数据库）
-        int deletedCount = cacheManager.clearExpiredLogs(sevenDaysAgo);
+        // 步骤 2：执行过期日志清理（清理任务按保留策略分块删除，缓存同步移除）
+        logCleanupService.cleanExpiredLogs(LocalDateTime.now());
 
         // 步骤 3：验证缓存中过期日志已被清理
-        assertEquals(1, deletedCount);
         assertEquals(2, cacheManager.getLogs().size());
 
         // 步骤 4：验证真实数据库中过期日志已被清理（核心验证）
@@ -193,4 +200,64 @@ public class LocalCacheManagerIntegrationTest {
         assertEquals(2, remainingDbLogs.size());
         assertFalse(remainingDbLogs.stream().anyMatch(log -> log.getId() == 3L), "真实数据库中过期日志未被清理");
     }
-}
\ No newline at end of file
+
+    /**
+     * 测试 4：全量加载的SQL条数 - 与组织规模无关（无 N+1 懒加载查询）
+     */
+    @Test
+    void refreshAllCache_ShouldIssueConstantNumberOfQueriesRegardlessOfSize() {
+        seedOrganization("S", 3);
+        long smallOrgQueries = countQueries(() -> cacheManager.refreshAllCache());
+
+        seedOrganization("L", 30);
+        long largeOrgQueries = countQueries(() -> cacheManager.refreshAllCache());
+
+        assertEquals(smallOrgQueries, largeOrgQueries, "缓存全量加载的SQL条数不应随数据量增长");
+
+        // 关系已扁平化进缓存：员工通过所属组获得资源权限
+        CachedEmployee employee = cacheManager.getEmployee("L-EMP-0");
+        LocalDateTime now = LocalDateTime.now();
+        assertEquals(ReasonCode.ALLOW, cacheManager.checkPermission(employee, cacheManager.getResource("L-RES-0"), now));
+        assertEquals(ReasonCode.NO_PERMISSION, cacheManager.checkPermission(employee, cacheManager.getResource("S-RES-0"), now));
+
+        // 清理本测试建立的关联关系（员工-组、组-资源），不影响其他测试的数据清理顺序
+        accessLogRepository.deleteAll();
+        employeeRepository.deleteAll();
+        groupRepository.deleteAll();
+    }
+
+    // 统计一次操作执行的SQL语句数量
+    private long countQueries(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // 生成一个规模为 size 的组织：每个员工有徽章、属于两个组，每个组可访问两个资源，每个员工一条日志
+    private void seedOrganization(String prefix, int size) {
+        List<Group> groups = new ArrayList<>();
+        List<Resource> resources = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            resources.add(resourceRepository.save(
+                    new Resource(prefix + "-RES-" + i, "Resource " + i, ResourceType.DOOR, ResourceState.AVAILABLE)));
+        }
+        for (int i = 0; i < size; i++) {
+            Group group = new Group(prefix + "-GRP-" + i, "Group " + i);
+            group.getResources().add(resources.get(i));
+            group.getResources().add(resources.get((i + 1) % size));
+            groups.add(groupRepository.save(group));
+        }
+        for (int i = 0; i < size; i++) {
+            Badge badge = badgeRepository.save(new Badge(prefix + "-BD-" + i, BadgeStatus.ACTIVE));
+            Employee employee = new Employee(prefix + "-EMP-" + i, "Employee " + i);
+            employee.setBadge(badge);
+            employee.getGroups().add(groups.get(i));
+            employee.getGroups().add(groups.get((i + 1) % size));
+            employeeRepository.save(employee);
+            accessLogRepository.save(new LogEntry(LocalDateTime.now().minusMinutes(i), badge, employee,
+                    resources.get(i), AccessDecision.ALLOW, ReasonCode.ALLOW));
+        }
+    }
+}
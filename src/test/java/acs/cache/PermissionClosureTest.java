@@ -0,0 +1,163 @@
+package acs.cache;
+
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PermissionClosureTest {
+
+    private OrdinalTable<CachedGroup> groups;
+    private OrdinalTable<CachedResource> resources;
+    private PermissionClosure closure;
+
+    // 资源层级：BLD -> F1 -> R101 -> D101；另有独立的 D999
+    @BeforeEach
+    void setUp() {
+        groups = new OrdinalTable<>();
+        resources = new OrdinalTable<>();
+        addResource("BLD", null, ResourceType.BUILDING);
+        addResource("F1", "BLD", ResourceType.FLOOR);
+        addResource("R101", "F1", ResourceType.ROOM);
+        addResource("D101", "R101", ResourceType.DOOR);
+        addResource("D999", null, ResourceType.DOOR);
+        closure = new PermissionClosure(groups, resources);
+    }
+
+    private CachedResource addResource(String id, String parentId, ResourceType type) {
+        int ordinal = resources.assign(id);
+        int parentOrdinal = parentId != null ? resources.assign(parentId) : CachedResource.NO_PARENT;
+        CachedResource resource = new CachedResource(ordinal, id, id, type, ResourceState.AVAILABLE, parentOrdinal);
+        resources.set(ordinal, resource);
+        return resource;
+    }
+
+    private CachedGroup addGroup(String id, String parentId, String... resourceIds) {
+        int ordinal = groups.assign(id);
+        int[] resourceOrdinals = new int[resourceIds.length];
+        int[] scheduleOrdinals = new int[resourceIds.length];
+        for (int i = 0; i < resourceIds.length; i++) {
+            resourceOrdinals[i] = resources.ordinalOf(resourceIds[i]);
+            scheduleOrdinals[i] = CachedGroup.NO_SCHEDULE;
+        }
+        int parentOrdinal = parentId != null ? groups.assign(parentId) : CachedGroup.NO_PARENT;
+        CachedGroup group = new CachedGroup(ordinal, id, id, resourceOrdinals, scheduleOrdinals, parentOrdinal);
+        groups.set(ordinal, group);
+        return group;
+    }
+
+    private boolean granted(String groupId, String resourceId) {
+        return closure.of(groups.ordinalOf(groupId)).lookup(resources.ordinalOf(resourceId)) != null;
+    }
+
+    @Test
+    void grantOnZone_shouldCoverWholeSubtree() {
+        addGroup("G_FLOOR", null, "F1");
+        closure.rebuild();
+
+        assertTrue(granted("G_FLOOR", "F1"));
+        assertTrue(granted("G_FLOOR", "R101"));
+        assertTrue(granted("G_FLOOR", "D101"));
+        assertFalse(granted("G_FLOOR", "BLD"));   // 不向上扩展
+        assertFalse(granted("G_FLOOR", "D999"));
+    }
+
+    @Test
+    void childGroup_shouldInheritParentGrants() {
+        addGroup("G_PARENT", null, "D999");
+        addGroup("G_CHILD", "G_PARENT", "R101");
+        closure.rebuild();
+
+        assertTrue(granted("G_CHILD", "D999"));
+        assertTrue(granted("G_CHILD", "D101"));
+        assertFalse(granted("G_PARENT", "D101"));  // 不向父组扩展
+    }
+
+    @Test
+    void scheduledGrant_shouldBeOverriddenByUnrestrictedGrant() {
+        int f1 = resources.ordinalOf("F1");
+        int d101 = resources.ordinalOf("D101");
+        int g = groups.assign("G");
+        groups.set(g, new CachedGroup(g, "G", "G", new int[]{f1}, new int[]{7}, CachedGroup.NO_PARENT));
+        int child = groups.assign("G_CHILD");
+        groups.set(child, new CachedGroup(child, "G_CHILD", "G_CHILD", new int[]{d101},
+                new int[]{CachedGroup.NO_SCHEDULE}, g));
+        closure.rebuild();
+
+        assertArrayEquals(new int[]{7}, closure.of(g).lookup(d101));
+        assertSame(EffectiveGrants.ALWAYS, closure.of(child).lookup(d101));
+        assertArrayEquals(new int[]{7}, closure.of(child).lookup(resources.ordinalOf("R101")));
+    }
+
+    @Test
+    void groupChange_shouldRecomputeOnlyItsSubtree() {
+        addGroup("G_ROOT", null);
+        addGroup("G_CHILD", "G_ROOT");
+        addGroup("G_GRANDCHILD", "G_CHILD");
+        for (int i = 0; i < 10; i++) {
+            addGroup("G_OTHER" + i, null, "D999");
+        }
+        closure.rebuild();
+        long before = closure.recomputedGroups();
+
+        CachedGroup previous = groups.get(groups.ordinalOf("G_CHILD"));
+        CachedGroup current = addGroup("G_CHILD", "G_ROOT", "BLD");
+        closure.groupChanged(previous, current);
+
+        assertEquals(2, closure.recomputedGroups() - before);  // 只有 G_CHILD 与 G_GRANDCHILD
+        assertTrue(granted("G_GRANDCHILD", "D101"));
+        assertFalse(granted("G_ROOT", "D101"));
+    }
+
+    @Test
+    void resourceMove_shouldUpdateAffectedGroups() {
+        addGroup("G_FLOOR", null, "F1");
+        addGroup("G_OTHER", null, "D999");
+        closure.rebuild();
+        long before = closure.recomputedGroups();
+
+        // D999 移入房间 R101
+        CachedResource previous = resources.get(resources.ordinalOf("D999"));
+        CachedResource current = addResource("D999", "R101", ResourceType.DOOR);
+        closure.resourceChanged(previous, current);
+
+        assertTrue(granted("G_FLOOR", "D999"));
+        assertTrue(granted("G_OTHER", "D999"));
+        assertEquals(2, closure.recomputedGroups() - before);
+
+        // 删除房间 R101 后，其子树不再通过楼层授权可达
+        CachedResource room = resources.get(resources.ordinalOf("R101"));
+        resources.remove("R101");
+        closure.resourceChanged(room, null);
+        assertFalse(granted("G_FLOOR", "R101"));
+    }
+
+    @Test
+    void groupsGranting_shouldFollowIncrementalChanges() {
+        addGroup("G_FLOOR", null, "F1");
+        addGroup("G_CHILD", "G_FLOOR");
+        addGroup("G_OTHER", null, "D999");
+        closure.rebuild();
+        int floor = groups.ordinalOf("G_FLOOR");
+        int child = groups.ordinalOf("G_CHILD");
+        int other = groups.ordinalOf("G_OTHER");
+        int d101 = resources.ordinalOf("D101");
+
+        assertEquals(BitSet.valueOf(new long[]{(1L << floor) | (1L << child)}), closure.groupsGranting(d101));
+
+        // G_OTHER 获得房间授权
+        CachedGroup previous = groups.get(other);
+        closure.groupChanged(previous, addGroup("G_OTHER", null, "D999", "R101"));
+        assertTrue(closure.groupsGranting(d101).get(other));
+
+        // 撤销楼层授权：子组的继承授权一并消失
+        previous = groups.get(floor);
+        closure.groupChanged(previous, addGroup("G_FLOOR", null));
+        assertEquals(BitSet.valueOf(new long[]{1L << other}), closure.groupsGranting(d101));
+        assertTrue(closure.groupsGranting(resources.ordinalOf("BLD")).isEmpty());
+    }
+}
@@ -0,0 +1,147 @@
+package acs.datasource;
+
+import acs.resilience.Workload;
+import acs.resilience.WorkloadContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaRoutingTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    private final ReplicaProperties properties = new ReplicaProperties();
+    private ReplicaRouting routing;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        properties.setMaxLagMillis(5000);
+        routing = new ReplicaRouting(properties);
+        routing.route(primary, replica);
+        dataSource = new ReadWriteRoutingDataSource(primary, replica, routing);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyQuery_withFreshReplica_shouldUseReplica() throws Exception {
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing.onReplicaBeat(System.currentTimeMillis());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Routed<Connection> routed = WorkloadContext.call(Workload.QUERY,
+                () -> ReplicaRouting.track(this::connect));
+
+        assertSame(replicaConnection, routed.result());
+        assertEquals(DataSourceRoute.REPLICA, routed.route());
+        assertEquals(1, routing.getServed(DataSourceRoute.REPLICA));
+    }
+
+    @Test
+    void writesAndDecisions_shouldStayOnPrimary() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        routing.onReplicaBeat(System.currentTimeMillis());
+
+        // 读写事务
+        Routed<Connection> write = WorkloadContext.call(Workload.QUERY, () -> ReplicaRouting.track(this::connect));
+        assertEquals(DataSourceRoute.PRIMARY, write.route());
+
+        // 刷卡路径的只读事务
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        Routed<Connection> decision = WorkloadContext.call(Workload.DECISION, () -> ReplicaRouting.track(this::connect));
+        assertEquals(DataSourceRoute.PRIMARY, decision.route());
+
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void staleOrUnknownReplica_shouldFallBackToPrimary() {
+        long now = System.currentTimeMillis();
+
+        assertEquals(-1, routing.getLagMillis(now));
+        assertEquals(DataSourceRoute.PRIMARY, routing.select(true, Workload.QUERY, now));
+
+        routing.onReplicaBeat(now - 6000);
+        assertEquals(6000, routing.getLagMillis(now));
+        assertEquals(DataSourceRoute.PRIMARY, routing.select(true, Workload.QUERY, now));
+
+        routing.onReplicaBeat(now - 1000);
+        assertEquals(DataSourceRoute.REPLICA, routing.select(true, Workload.QUERY, now));
+        assertEquals(DataSourceRoute.REPLICA, routing.select(true, Workload.ADMIN, now));
+        assertEquals(DataSourceRoute.PRIMARY, routing.select(true, Workload.MAINTENANCE, now));
+    }
+
+    @Test
+    void replicaConnectionFailure_shouldFallBackAndMarkUnusable() throws Exception {
+        when(replica.getConnection()).thenThrow(new SQLTransientConnectionException("副本宕机"));
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        routing.onReplicaBeat(System.currentTimeMillis());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        Routed<Connection> routed = WorkloadContext.call(Workload.QUERY, () -> ReplicaRouting.track(this::connect));
+
+        assertSame(primaryConnection, routed.result());
+        assertEquals(DataSourceRoute.PRIMARY, routed.route());
+        assertFalse(routing.isReplicaUsable(System.currentTimeMillis()));
+        assertEquals("副本宕机", routing.getLastReplicaError());
+    }
+
+    @Test
+    void lazyProxy_shouldRouteAtFirstStatement() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing.onReplicaBeat(System.currentTimeMillis());
+        DataSource proxy = routing.route(primary, replica);
+
+        // 事务开始时先取得连接，之后才标记只读；真正的连接在第一条语句时才选择
+        Connection connection = WorkloadContext.call(Workload.QUERY, () -> {
+            try {
+                Connection c = proxy.getConnection();
+                TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+                c.createStatement();
+                return c;
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        verify(replicaConnection).createStatement();
+        verify(primaryConnection, never()).createStatement();
+        connection.close();
+    }
+
+    private Connection connect() {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
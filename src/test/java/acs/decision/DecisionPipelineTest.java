@@ -0,0 +1,202 @@
+package acs.decision;
+
+import acs.cache.CacheFixture;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDirection;
+import acs.domain.AccessRequest;
+import acs.domain.Badge;
+import acs.domain.BadgeStatus;
+import acs.domain.ReasonCode;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import acs.lockdown.LockdownManager;
+import acs.repository.AccessLogRepository;
+import acs.repository.AccessScheduleRepository;
+import acs.repository.BadgeRepository;
+import acs.repository.EmployeeRepository;
+import acs.repository.GroupRepository;
+import acs.repository.LockdownRepository;
+import acs.repository.ResourceRepository;
+import acs.trace.DecisionTracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DecisionPipelineTest {
+
+    @Mock
+    private BadgeRepository badgeRepository;
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private GroupRepository groupRepository;
+    @Mock
+    private ResourceRepository resourceRepository;
+    @Mock
+    private AccessScheduleRepository scheduleRepository;
+    @Mock
+    private AccessLogRepository accessLogRepository;
+    @Mock
+    private LockdownRepository lockdownRepository;
+
+    private final Instant now = Instant.parse("2024-05-06T10:00:00Z");
+    private LocalCacheManager cacheManager;
+    private LockdownManager lockdownManager;
+
+    // 资源：OPEN、LOCKED（锁定）；组 G_OPEN 授权两者
+    // 徽章：B1 正常（G_OPEN），B2 无授权，B3 已禁用（G_OPEN），B4 未绑定员工
+    @BeforeEach
+    void setUp() {
+        cacheManager = new LocalCacheManager(badgeRepository, employeeRepository, groupRepository,
+                resourceRepository, scheduleRepository, accessLogRepository);
+        lockdownManager = new LockdownManager(cacheManager, lockdownRepository);
+        CacheFixture fixture = new CacheFixture(cacheManager);
+        fixture.resource("OPEN", ResourceType.DOOR, ResourceState.AVAILABLE, null, null);
+        fixture.resource("LOCKED", ResourceType.DOOR, ResourceState.LOCKED, null, null);
+        fixture.group("G_OPEN", null, "OPEN", "LOCKED");
+        fixture.employee("E1", "B1", "G_OPEN");
+        fixture.employee("E2", "B2");
+        fixture.employee("E3", "B3", BadgeStatus.DISABLED, "G_OPEN");
+        cacheManager.updateBadge(new Badge("B4", BadgeStatus.ACTIVE));
+    }
+
+    private ReasonCode decide(DecisionPipeline pipeline, String badgeId, String resourceId, AccessDirection direction) {
+        AccessRequest request = new AccessRequest(badgeId, resourceId, now);
+        request.setDirection(direction);
+        Denial denial = pipeline.evaluate(new DecisionContext(request, cacheManager));
+        return denial != null ? denial.reasonCode() : ReasonCode.ALLOW;
+    }
+
+    // 所有徽章 × 资源 × 方向的判断结果
+    private List<ReasonCode> decideAll(DecisionPipeline pipeline) {
+        List<ReasonCode> reasons = new ArrayList<>();
+        for (String badgeId : new String[]{"B1", "B2", "B3", "B4", "B9", " "}) {
+            for (String resourceId : new String[]{"OPEN", "LOCKED", "NOWHERE"}) {
+                for (AccessDirection direction : AccessDirection.values()) {
+                    reasons.add(decide(pipeline, badgeId, resourceId, direction));
+                }
+            }
+        }
+        return reasons;
+    }
+
+    @Test
+    void defaultOrder_shouldFollowReasonPrecedence() {
+        DecisionPipeline pipeline = new DecisionPipeline(cacheManager, lockdownManager);
+
+        assertEquals(List.of("REQUEST", "BADGE", "BADGE_STATUS", "EMPLOYEE", "RESOURCE", "PERMISSION",
+                "RESOURCE_LOCKED"), pipeline.order());
+        assertEquals(ReasonCode.ALLOW, decide(pipeline, "B1", "OPEN", AccessDirection.ENTRY));
+        assertEquals(ReasonCode.NO_PERMISSION, decide(pipeline, "B2", "OPEN", AccessDirection.ENTRY));
+        // 禁用徽章访问锁定资源：两个检查都会拒绝，徽章状态优先
+        assertEquals(ReasonCode.BADGE_INACTIVE, decide(pipeline, "B3", "LOCKED", AccessDirection.ENTRY));
+        assertEquals(ReasonCode.EMPLOYEE_NOT_FOUND, decide(pipeline, "B4", "NOWHERE", AccessDirection.ENTRY));
+        assertEquals(ReasonCode.INVALID_REQUEST, decide(pipeline, " ", "LOCKED", AccessDirection.ENTRY));
+        // 离开不检查权限与锁定
+        assertEquals(ReasonCode.ALLOW, decide(pipeline, "B2", "LOCKED", AccessDirection.EXIT));
+    }
+
+    @Test
+    void reorder_shouldPutCheapSelectiveStageFirstWithoutChangingReasons() {
+        DecisionPipeline reference = new DecisionPipeline(cacheManager, lockdownManager);
+        List<ReasonCode> expected = decideAll(reference);
+
+        DecisionPipeline pipeline = new DecisionPipeline(cacheManager, lockdownManager, DecisionTracer.disabled(),
+                List.of(), true, 100, 1);
+        assertFalse(pipeline.reorder(100), "样本不足时不调整");
+        // 大部分请求访问锁定资源：锁定检查拒绝率最高
+        for (int i = 0; i < 200; i++) {
+            decide(pipeline, "B1", "LOCKED", AccessDirection.ENTRY);
+            decide(pipeline, "B1", "OPEN", AccessDirection.ENTRY);
+        }
+        assertTrue(pipeline.reorder(100));
+        assertEquals("RESOURCE_LOCKED", pipeline.order().get(0));
+
+        assertEquals(expected, decideAll(pipeline));
+        assertEquals(ReasonCode.BADGE_INACTIVE, decide(pipeline, "B3", "LOCKED", AccessDirection.ENTRY));
+
+        StageStats locked = pipeline.stats().stream()
+                .filter(stats -> stats.name().equals("RESOURCE_LOCKED")).findFirst().orElseThrow();
+        StageStats status = pipeline.stats().stream()
+                .filter(stats -> stats.name().equals("BADGE_STATUS")).findFirst().orElseThrow();
+        assertEquals(0, locked.position());
+        // 最后一次：锁定检查先拒绝，但最终原因由徽章状态决定
+        assertTrue(locked.denies() > locked.decisive());
+        assertTrue(status.decisive() > 0);
+        assertTrue(locked.timedSamples() > 0 && locked.meanNanos() > 0);
+    }
+
+    @Test
+    void plugins_shouldRunAtTheirPrecedence() {
+        List<String> seen = new ArrayList<>();
+        AccessCheck flood = new AccessCheck() {
+            @Override
+            public String name() {
+                return "ANTI_FLOOD";
+            }
+
+            @Override
+            public int precedence() {
+                return 650;
+            }
+
+            @Override
+            public String denyMessage() {
+                return "刷卡过于频繁";
+            }
+
+            @Override
+            public ReasonCode check(DecisionContext context) {
+                seen.add(context.request().getBadgeId());
+                return "B1".equals(context.request().getBadgeId()) ? ReasonCode.SYSTEM_ERROR : null;
+            }
+        };
+        DecisionPipeline pipeline = new DecisionPipeline(cacheManager, lockdownManager, DecisionTracer.disabled(),
+                List.of(flood), false, 0, 1);
+
+        Denial denial = pipeline.evaluate(new DecisionContext(new AccessRequest("B1", "OPEN", now), cacheManager));
+        assertEquals(ReasonCode.SYSTEM_ERROR, denial.reasonCode());
+        assertEquals("刷卡过于频繁", denial.message());
+        // 权限（600）优先于插件（650），插件优先于锁定（700）
+        assertEquals(ReasonCode.NO_PERMISSION, decide(pipeline, "B2", "OPEN", AccessDirection.ENTRY));
+        assertEquals(ReasonCode.SYSTEM_ERROR, decide(pipeline, "B1", "LOCKED", AccessDirection.ENTRY));
+        // 离开时不执行
+        seen.clear();
+        assertEquals(ReasonCode.ALLOW, decide(pipeline, "B1", "OPEN", AccessDirection.EXIT));
+        assertTrue(seen.isEmpty());
+
+        AccessCheck clash = new AccessCheck() {
+            @Override
+            public String name() {
+                return "CLASH";
+            }
+
+            @Override
+            public int precedence() {
+                return BuiltinCheck.PERMISSION.precedence();
+            }
+
+            @Override
+            public String denyMessage() {
+                return "";
+            }
+
+            @Override
+            public ReasonCode check(DecisionContext context) {
+                return null;
+            }
+        };
+        assertThrows(IllegalStateException.class,
+                () -> new DecisionPipeline(cacheManager, lockdownManager, DecisionTracer.disabled(), List.of(clash),
+                        false, 0, 1));
+    }
+}
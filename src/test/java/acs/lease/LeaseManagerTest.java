@@ -0,0 +1,125 @@
+package acs.lease;
+
+import acs.domain.ResourceState;
+import acs.repository.ResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LeaseManagerTest {
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    private LeaseManager leaseManager;
+
+    @BeforeEach
+    void setUp() {
+        leaseManager = new LeaseManager(resourceRepository, 30);
+    }
+
+    @Test
+    void concurrentScans_onFreeResource_shouldGrantExactlyOne() throws Exception {
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 200; round++) {
+                String resourceId = "R" + round;
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    String holderId = "E" + t;
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return leaseManager.tryAcquire(resourceId, holderId);
+                    }));
+                }
+                start.countDown();
+
+                int granted = 0;
+                for (Future<Boolean> result : results) {
+                    if (result.get(10, TimeUnit.SECONDS)) {
+                        granted++;
+                    }
+                }
+                assertEquals(1, granted, "第 " + round + " 轮");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void holderRescan_shouldRenew_othersDenied() {
+        long now = System.currentTimeMillis();
+
+        assertTrue(leaseManager.tryAcquire("R001", "E001", now));
+        assertFalse(leaseManager.tryAcquire("R001", "E002", now + 1000));
+        assertTrue(leaseManager.tryAcquire("R001", "E001", now + 2000));  // 续期
+        assertEquals("E001", leaseManager.holderOf("R001"));
+    }
+
+    @Test
+    void release_onlyByHolder() {
+        assertTrue(leaseManager.tryAcquire("R001", "E001"));
+
+        assertFalse(leaseManager.release("R001", "E002"));
+        assertTrue(leaseManager.release("R001", "E001"));
+        assertNull(leaseManager.holderOf("R001"));
+        assertTrue(leaseManager.tryAcquire("R001", "E002"));
+    }
+
+    @Test
+    void expiredLease_shouldBeRemovedByTimerWheel() {
+        long now = System.currentTimeMillis();
+        assertTrue(leaseManager.tryAcquire("R001", "E001", now));
+
+        leaseManager.expireLeases(now + 29 * 60_000);
+        assertEquals("E001", leaseManager.holderOf("R001"));
+
+        leaseManager.expireLeases(now + 30 * 60_000 + 1000);
+        assertTrue(leaseManager.tryAcquire("R001", "E002", now + 30 * 60_000 + 1000));
+    }
+
+    @Test
+    void renewedLease_shouldNotBeExpiredByStaleWheelEntry() {
+        long now = System.currentTimeMillis();
+        assertTrue(leaseManager.tryAcquire("R001", "E001", now));
+        assertTrue(leaseManager.tryAcquire("R001", "E001", now + 20 * 60_000));  // 续期到 now + 50 分钟
+
+        leaseManager.expireLeases(now + 31 * 60_000);  // 旧条目到期，但已被替换
+
+        assertFalse(leaseManager.tryAcquire("R001", "E002", now + 31 * 60_000));
+    }
+
+    @Test
+    void flush_shouldPersistLatestStateOnce() {
+        assertTrue(leaseManager.tryAcquire("R001", "E001"));
+        assertTrue(leaseManager.tryAcquire("R001", "E001"));
+        assertTrue(leaseManager.release("R001", "E001"));
+
+        leaseManager.flushLeaseStates();
+
+        // 多次变化合并为一次写，按写回时的状态（已释放）持久化
+        verify(resourceRepository, times(1)).updateLease(eq("R001"), eq(ResourceState.AVAILABLE), isNull(), isNull());
+        verify(resourceRepository, never()).updateLease(any(), eq(ResourceState.OCCUPIED), any(), any());
+        assertEquals(0, leaseManager.pendingWrites());
+    }
+}
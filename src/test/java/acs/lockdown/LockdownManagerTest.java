@@ -0,0 +1,138 @@
+package acs.lockdown;
+
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.Lockdown;
+import acs.domain.LockdownScope;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import acs.repository.LockdownRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LockdownManagerTest {
+
+    @Mock
+    private LocalCacheManager cacheManager;
+
+    @Mock
+    private LockdownRepository lockdownRepository;
+
+    private LockdownManager lockdownManager;
+
+    private final CachedResource door = new CachedResource(0, "D001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
+    private final CachedResource printer = new CachedResource(1, "P001", "Printer", ResourceType.PRINTER, ResourceState.AVAILABLE);
+    private final CachedResource roomInZone = new CachedResource(2, "R001", "Room", ResourceType.ROOM, ResourceState.AVAILABLE, 3);
+
+    @BeforeEach
+    void setUp() {
+        lockdownManager = new LockdownManager(cacheManager, lockdownRepository);
+    }
+
+    @Test
+    void activateAll_shouldLockEveryResourceWithOneWrite() {
+        String id = lockdownManager.activate(LockdownScope.ALL, null);
+
+        assertTrue(lockdownManager.isLocked(door));
+        assertTrue(lockdownManager.isLocked(printer));
+        verify(lockdownRepository, times(1)).save(any(Lockdown.class));
+
+        lockdownManager.deactivate(id);
+        assertFalse(lockdownManager.isLocked(door));
+        verify(lockdownRepository).deleteById(id);
+    }
+
+    @Test
+    void activateByType_shouldLockOnlyThatType() {
+        lockdownManager.activate(LockdownScope.TYPE, "PRINTER");
+
+        assertTrue(lockdownManager.isLocked(printer));
+        assertFalse(lockdownManager.isLocked(door));
+    }
+
+    @Test
+    void activateByZone_shouldLockZoneSubtree() {
+        BitSet zone = new BitSet();
+        zone.set(2);
+        zone.set(3);
+        when(cacheManager.resourceSubtree("F1")).thenReturn(zone);
+
+        lockdownManager.activate(LockdownScope.ZONE, "F1");
+
+        assertTrue(lockdownManager.isLocked(roomInZone));
+        assertFalse(lockdownManager.isLocked(door));
+    }
+
+    @Test
+    void refresh_shouldApplyRemoteLockdownAndRecordLag() {
+        Lockdown remote = new Lockdown("L1", LockdownScope.ALL, null, LocalDateTime.now().minusNanos(200_000_000));
+        when(lockdownRepository.findAll()).thenReturn(List.of(remote));
+
+        lockdownManager.refresh();
+
+        assertTrue(lockdownManager.isLocked(door));
+        assertTrue(lockdownManager.lastPropagationLagMillis() >= 200);
+
+        // 其他节点解除
+        when(lockdownRepository.findAll()).thenReturn(List.of());
+        lockdownManager.refresh();
+        assertFalse(lockdownManager.isLocked(door));
+    }
+
+    @Test
+    void topologyChange_shouldReexpandZones() {
+        BitSet before = new BitSet();
+        before.set(3);
+        BitSet after = new BitSet();
+        after.set(2);
+        after.set(3);
+        when(cacheManager.resourceSubtree("F1")).thenReturn(before, after);
+        when(cacheManager.resourceTopologyVersion()).thenReturn(1L, 2L);
+
+        lockdownManager.activate(LockdownScope.ZONE, "F1");
+        // 资源层级变化后（房间移入封锁区域），下一次判断重新展开区域
+        assertTrue(lockdownManager.isLocked(roomInZone));
+    }
+
+    @Test
+    void isLocked_shouldNotWaitForSlowRefreshQuery() throws Exception {
+        BitSet zone = new BitSet();
+        zone.set(2);
+        when(cacheManager.resourceSubtree("F1")).thenReturn(zone);
+        when(cacheManager.resourceTopologyVersion()).thenReturn(1L, 2L);
+        lockdownManager.activate(LockdownScope.ZONE, "F1");
+
+        // 轮询查询卡在数据库上
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(lockdownRepository.findAll()).thenAnswer(invocation -> {
+            querying.countDown();
+            release.await();
+            return lockdownManager.activeLockdowns();
+        });
+        Thread poller = new Thread(lockdownManager::refresh);
+        poller.start();
+        assertTrue(querying.await(5, TimeUnit.SECONDS));
+
+        // 资源层级变化后的扫卡判断不等待查询
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertTrue(lockdownManager.isLocked(roomInZone)));
+
+        release.countDown();
+        poller.join();
+    }
+}
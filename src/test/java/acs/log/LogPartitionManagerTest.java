@@ -0,0 +1,97 @@
+package acs.log;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LogPartitionManagerTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private LogPartitionManager partitionManager;
+
+    private final LocalDate today = LocalDate.of(2024, 5, 6);
+
+    @BeforeEach
+    void setUp() {
+        partitionManager = new LogPartitionManager(jdbcTemplate, 2);
+    }
+
+    // 模拟 information_schema.PARTITIONS 的查询结果
+    @SuppressWarnings("unchecked")
+    private void partitions(LogPartitionManager.LogPartition... partitions) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(List.of(partitions));
+    }
+
+    private LogPartitionManager.LogPartition day(LocalDate day) {
+        return new LogPartitionManager.LogPartition("p" + day.toString().replace("-", ""), day.plusDays(1));
+    }
+
+    @Test
+    void toDays_shouldMatchMysql() {
+        // MySQL: SELECT TO_DAYS('2024-05-06') = 739377
+        assertEquals(739377, LogPartitionManager.toDays(today));
+        assertEquals(today, LogPartitionManager.toUpperBound("739377"));
+        assertNull(LogPartitionManager.toUpperBound("MAXVALUE"));
+    }
+
+    @Test
+    void createFuturePartitions_shouldSplitMaxPartition() {
+        partitions(day(today.minusDays(1)), day(today), new LogPartitionManager.LogPartition("pmax", null));
+
+        int created = partitionManager.createFuturePartitions(today);
+
+        assertEquals(2, created);
+        verify(jdbcTemplate).execute("ALTER TABLE access_logs REORGANIZE PARTITION pmax INTO ("
+                + "PARTITION p20240507 VALUES LESS THAN (739379), "
+                + "PARTITION p20240508 VALUES LESS THAN (739380), "
+                + "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+
+    @Test
+    void createFuturePartitions_upToDate_shouldDoNothing() {
+        partitions(day(today), day(today.plusDays(1)), day(today.plusDays(2)),
+                new LogPartitionManager.LogPartition("pmax", null));
+
+        assertEquals(0, partitionManager.createFuturePartitions(today));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void dropExpired_shouldDropOnlyWholeExpiredDays() {
+        partitions(day(today.minusDays(9)), day(today.minusDays(8)), day(today.minusDays(7)),
+                day(today), new LogPartitionManager.LogPartition("pmax", null));
+
+        // 截止时间是 7 天前的中午：7 天前当天的分区仍有未过期的日志，保留
+        long dropped = partitionManager.dropExpired(today.minusDays(7).atTime(12, 0));
+
+        assertEquals(2, dropped);
+        verify(jdbcTemplate).execute("ALTER TABLE access_logs DROP PARTITION p20240427, p20240428");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dropExpired_unpartitioned_shouldLeaveRowsToRetentionJob() {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class)))
+                .thenThrow(new BadSqlGrammarException("query", "information_schema.PARTITIONS", new SQLException()));
+
+        assertEquals(0, partitionManager.dropExpired(today.atStartOfDay()));
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
@@ -0,0 +1,162 @@
+package acs.log;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.LogRetentionCheckpoint;
+import acs.domain.ReasonCode;
+import acs.log.archive.LogArchive;
+import acs.repository.AccessLogRepository;
+import acs.repository.LogRetentionCheckpointRepository;
+import acs.repository.LogRetentionRow;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LogRetentionJobTest {
+
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    @Mock
+    private LogRetentionCheckpointRepository checkpointRepository;
+
+    @Mock
+    private LocalCacheManager cacheManager;
+
+    @Mock
+    private LogArchive archive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LogRetentionPolicy policy;
+    private LogRetentionJob job;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 6, 0, 10);
+
+    @BeforeEach
+    void setUp() {
+        policy = new LogRetentionPolicy();
+        policy.setChunkSize(2);
+        policy.setPauseMillis(0);
+        policy.getDecisionDays().put(AccessDecision.DENY, 30);  // 拒绝记录保留更久
+        job = new LogRetentionJob(accessLogRepository, checkpointRepository, cacheManager, policy, archive, transactionManager);
+    }
+
+    private LogRetentionRow row(long id, int daysAgo, AccessDecision decision) {
+        return new LogRetentionRow(id, now.minusDays(daysAgo),
+                decision, decision == AccessDecision.ALLOW ? ReasonCode.ALLOW : ReasonCode.NO_PERMISSION);
+    }
+
+    @Test
+    void run_shouldDeleteByPolicyInChunksAndEvictCache() {
+        when(checkpointRepository.findById(LogRetentionJob.JOB_NAME)).thenReturn(Optional.empty());
+        when(accessLogRepository.findRetentionChunk(eq(0L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(1, 40, AccessDecision.DENY), row(2, 10, AccessDecision.DENY)));
+        // 4、5 是最近的日志（不在查询结果中）；6 是数据库中断后回放补写的旧日志，主键在新日志之后
+        when(accessLogRepository.findRetentionChunk(eq(2L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(3, 10, AccessDecision.ALLOW), row(6, 9, AccessDecision.ALLOW)));
+        when(accessLogRepository.findRetentionChunk(eq(6L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of());
+        when(accessLogRepository.deleteByIdIn(List.of(1L))).thenReturn(1);
+        when(accessLogRepository.deleteByIdIn(List.of(3L, 6L))).thenReturn(2);
+
+        long deleted = job.run(now);
+
+        assertEquals(3, deleted);
+        verify(cacheManager).evictLogs(List.of(1L));
+        verify(cacheManager).evictLogs(List.of(3L, 6L));
+        // 只读取早于最短保留期的日志，一直扫描到主键范围末尾
+        verify(accessLogRepository, times(3)).findRetentionChunk(anyLong(), eq(now.minusDays(policy.minDays())),
+                any(PageRequest.class));
+
+        LogRetentionProgress progress = job.progress();
+        assertFalse(progress.isRunning());
+        assertEquals(6, progress.getCursorId());
+        assertEquals(4, progress.getScannedRows());
+        assertEquals(2, progress.getChunks());
+    }
+
+    @Test
+    void run_afterCrash_shouldResumeFromCheckpoint() {
+        LogRetentionCheckpoint unfinished = new LogRetentionCheckpoint(LogRetentionJob.JOB_NAME, now.minusHours(1));
+        unfinished.setCursorId(100);
+        when(checkpointRepository.findById(LogRetentionJob.JOB_NAME)).thenReturn(Optional.of(unfinished));
+        when(accessLogRepository.findRetentionChunk(eq(100L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(101, 9, AccessDecision.ALLOW)));
+        when(accessLogRepository.deleteByIdIn(List.of(101L))).thenReturn(1);
+
+        assertEquals(1, job.run(now));
+        assertEquals(101, unfinished.getCursorId());
+        assertNotNull(unfinished.getCompletedAt());
+    }
+
+    @Test
+    void run_withArchive_shouldWriteSegmentBeforeDeleting() {
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.getSegmentRows()).thenReturn(50_000);
+        when(checkpointRepository.findById(LogRetentionJob.JOB_NAME)).thenReturn(Optional.empty());
+        when(accessLogRepository.findRetentionChunk(eq(0L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(1, 40, AccessDecision.DENY), row(2, 10, AccessDecision.ALLOW)));
+        when(accessLogRepository.findRetentionChunk(eq(2L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(3, 1, AccessDecision.ALLOW)));
+        LogEntry first = new LogEntry(now.minusDays(40), "B001", "E001", "R001", AccessDecision.DENY, ReasonCode.NO_PERMISSION);
+        LogEntry second = new LogEntry(now.minusDays(10), "B001", "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW);
+        when(accessLogRepository.findAllById(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(accessLogRepository.deleteByIdIn(List.of(1L, 2L))).thenReturn(2);
+
+        assertEquals(2, job.run(now));
+
+        // 同一次运行的过期日志写成一个段，段落盘之后才删除
+        InOrder order = inOrder(archive, accessLogRepository);
+        order.verify(archive).write(List.of(first, second));
+        order.verify(accessLogRepository).deleteByIdIn(List.of(1L, 2L));
+        verify(archive, times(1)).write(any());
+    }
+
+    @Test
+    void run_whenArchiveWriteFails_shouldNotDelete() {
+        when(archive.isEnabled()).thenReturn(true);
+        when(archive.getSegmentRows()).thenReturn(50_000);
+        when(checkpointRepository.findById(LogRetentionJob.JOB_NAME)).thenReturn(Optional.empty());
+        when(accessLogRepository.findRetentionChunk(eq(0L), any(LocalDateTime.class), any(PageRequest.class)))
+                .thenReturn(List.of(row(1, 40, AccessDecision.DENY)));
+        when(accessLogRepository.findAllById(List.of(1L))).thenReturn(
+                List.of(new LogEntry(now.minusDays(40), "B001", "E001", "R001", AccessDecision.DENY, ReasonCode.NO_PERMISSION)));
+        when(archive.write(any())).thenThrow(new UncheckedIOException(new IOException("disk full")));
+
+        assertThrows(UncheckedIOException.class, () -> job.run(now));
+        verify(accessLogRepository, never()).deleteByIdIn(any());
+        assertFalse(job.progress().isRunning());
+    }
+
+    @Test
+    void policy_reasonOverridesDecision() {
+        policy.getReasonDays().put(ReasonCode.SYSTEM_ERROR, 90);
+
+        assertEquals(90, policy.retentionDays(AccessDecision.DENY, ReasonCode.SYSTEM_ERROR));
+        assertEquals(30, policy.retentionDays(AccessDecision.DENY, ReasonCode.NO_PERMISSION));
+        assertEquals(7, policy.retentionDays(AccessDecision.ALLOW, ReasonCode.ALLOW));
+        assertEquals(7, policy.minDays());
+        assertEquals(90, policy.maxDays());
+    }
+}
@@ -0,0 +1,140 @@
+package acs.log.archive;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    private LogArchive archive;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        archive = new LogArchive(directory.toString(), true, 50_000, 365, 4);
+        archive.open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.close();
+    }
+
+    private LogEntry log(long id, LocalDateTime time, String badgeId, String resourceId, AccessDecision decision) {
+        LogEntry log = new LogEntry(time, badgeId, "E" + badgeId.substring(1), resourceId, decision,
+                decision == AccessDecision.ALLOW ? ReasonCode.ALLOW : ReasonCode.NO_PERMISSION);
+        log.setId(id);
+        log.setDirection(id % 2 == 0 ? AccessDirection.ENTRY : null);
+        return log;
+    }
+
+    // 一天内 1000 条日志，徽章 B000-B049，资源 R0-R9
+    private List<LogEntry> day(int dayOffset, long firstId) {
+        List<LogEntry> logs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            logs.add(log(firstId + i, base.plusDays(dayOffset).plusSeconds(i * 60L),
+                    String.format("B%03d", i % 50), "R" + (i % 10),
+                    i % 7 == 0 ? AccessDecision.DENY : AccessDecision.ALLOW));
+        }
+        return logs;
+    }
+
+    @Test
+    void writeThenScan_shouldRoundTripAllColumns() {
+        List<LogEntry> logs = day(0, 1);
+        archive.write(logs);
+
+        List<LogEntry> found = archive.query(ArchiveQuery.byBadge("B007", base, base.plusDays(1)));
+
+        List<LogEntry> expected = logs.stream().filter(log -> log.getBadgeId().equals("B007")).collect(Collectors.toList());
+        assertEquals(expected.size(), found.size());
+        for (int i = 0; i < expected.size(); i++) {
+            LogEntry want = expected.get(i);
+            LogEntry got = found.get(i);
+            assertEquals(want.getId(), got.getId());
+            assertEquals(want.getTimestamp(), got.getTimestamp());
+            assertEquals(want.getEmployeeId(), got.getEmployeeId());
+            assertEquals(want.getResourceId(), got.getResourceId());
+            assertEquals(want.getDecision(), got.getDecision());
+            assertEquals(want.getReasonCode(), got.getReasonCode());
+            assertEquals(want.getDirection(), got.getDirection());
+        }
+    }
+
+    @Test
+    void query_shouldRespectTimeRangeAndFilters() {
+        archive.write(day(0, 1));
+        archive.write(day(1, 1001));
+
+        // 第一天 08:00-08:59 的拒绝记录
+        List<LogEntry> denied = archive.query(ArchiveQuery.byDecision(AccessDecision.DENY, base, base.plusMinutes(59)));
+        assertEquals(9, denied.size());  // i = 0, 7, ..., 56
+        assertTrue(denied.stream().allMatch(log -> log.getDecision() == AccessDecision.DENY));
+
+        // 跨两个段，按时间升序
+        List<LogEntry> resource = archive.query(ArchiveQuery.byResource("R3", base, base.plusDays(2)));
+        assertEquals(200, resource.size());
+        for (int i = 1; i < resource.size(); i++) {
+            assertFalse(resource.get(i).getTimestamp().isBefore(resource.get(i - 1).getTimestamp()));
+        }
+    }
+
+    @Test
+    void segmentsThatCannotMatch_shouldBeSkippedByHeader() {
+        LogSegment segment = archive.write(day(0, 1));
+
+        assertFalse(segment.mightMatch(ArchiveQuery.byBadge("B001", base.plusDays(2), base.plusDays(3))));
+        assertFalse(segment.mightMatch(ArchiveQuery.byBadge("UNKNOWN-BADGE", base, base.plusDays(1))));
+        assertFalse(segment.mightMatch(ArchiveQuery.byResource("R99", base, base.plusDays(1))));
+        assertTrue(segment.mightMatch(ArchiveQuery.byResource("R9", base, base.plusDays(1))));
+        assertTrue(archive.query(ArchiveQuery.byBadge("UNKNOWN-BADGE", base, base.plusDays(1))).isEmpty());
+    }
+
+    @Test
+    void reopen_shouldLoadSealedSegmentsAndDiscardTempFiles() throws Exception {
+        archive.write(day(0, 1));
+        Path partial = Files.createFile(directory.resolve("segment-20240102-123.tmp"));
+        archive.close();
+
+        LogArchive reopened = new LogArchive(directory.toString(), true, 50_000, 365, 4);
+        reopened.open();
+        try {
+            assertEquals(1, reopened.getSegments().size());
+            assertEquals(1000, reopened.getSegments().get(0).getRowCount());
+            assertFalse(Files.exists(partial));
+            assertEquals(20, reopened.query(ArchiveQuery.byBadge("B010", base, base.plusDays(1))).size());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void dropExpired_shouldDeleteWholeSegmentsOlderThanCutoff() {
+        LogSegment old = archive.write(day(0, 1));
+        archive.write(day(10, 1001));
+
+        assertEquals(1, archive.dropExpired(base.plusDays(5)));
+
+        assertFalse(Files.exists(old.getPath()));
+        assertEquals(1, archive.getSegments().size());
+        assertTrue(archive.query(ArchiveQuery.byBadge("B001", base, base.plusDays(1))).isEmpty());
+    }
+}
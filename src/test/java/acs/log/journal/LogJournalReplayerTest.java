@@ -0,0 +1,124 @@
+package acs.log.journal;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.repository.AccessLogRepository;
+import acs.resilience.Bulkheads;
+import acs.resilience.WorkloadProperties;
+import acs.stats.AccessSketches;
+import acs.stats.AccessStatsRollup;
+import acs.trace.DecisionTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LogJournalReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    @Mock
+    private LocalCacheManager cacheManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private AccessStatsRollup statsRollup;
+
+    @Mock
+    private AccessSketches sketches;
+
+    private LogJournal journal;
+    private LogJournalReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        journal = new LogJournal(directory.toString(), 64 * 1024 * 1024, 1024, 5000, 16384);
+        journal.open();
+        replayer = new LogJournalReplayer(journal, accessLogRepository, cacheManager,
+                new Bulkheads(new WorkloadProperties()), statsRollup, sketches, DecisionTracer.disabled(), transactionManager,
+                500, 30_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    private LogEntry append(String badgeId) {
+        LogEntry entry = new LogEntry(LocalDateTime.of(2024, 5, 1, 9, 0), badgeId, "E001", "R001",
+                AccessDecision.ALLOW, ReasonCode.ALLOW);
+        journal.append(entry);
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void replay_shouldSkipEventsAlreadyInDatabase() {
+        LogEntry first = append("B001");
+        append("B002");
+        // 上次回放写入成功但检查点未提交
+        when(accessLogRepository.findExistingEventIds(anyCollection(), any(), any())).thenReturn(List.of(first.getEventId()));
+        when(accessLogRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(1, replayer.replay(0));
+
+        ArgumentCaptor<List<LogEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(accessLogRepository).saveAll(saved.capture());
+        assertEquals(List.of("B002"), saved.getValue().stream().map(LogEntry::getBadgeId).toList());
+        verify(cacheManager).cacheLogs(saved.getValue());
+        // 已存在的事件不重复计入统计
+        verify(statsRollup).record(saved.getValue());
+        assertEquals(1, replayer.getDuplicateRecords());
+        assertFalse(journal.hasBacklog());
+        // 按批次的时间范围去重（分区裁剪）
+        verify(accessLogRepository).findExistingEventIds(anyCollection(),
+                eq(first.getTimestamp()), eq(first.getTimestamp()));
+    }
+
+    @Test
+    void databaseOutage_shouldKeepRecordsAndRetryAfterBackoff() {
+        append("B001");
+        when(accessLogRepository.findExistingEventIds(anyCollection(), any(), any()))
+                .thenThrow(new DataAccessResourceFailureException("Communications link failure"))
+                .thenReturn(List.of());
+        when(accessLogRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        assertEquals(0, replayer.replay(1_000));
+        assertFalse(replayer.isDatabaseAvailable());
+        assertTrue(journal.hasBacklog());
+
+        // 数据库不可用期间刷卡照常写入本地日志
+        append("B002");
+
+        assertEquals(0, replayer.replay(1_100));  // 退避期内不重试
+        verify(accessLogRepository, times(1)).findExistingEventIds(anyCollection(), any(), any());
+
+        assertEquals(2, replayer.replay(2_000));
+        assertTrue(replayer.isDatabaseAvailable());
+        assertFalse(journal.hasBacklog());
+    }
+}
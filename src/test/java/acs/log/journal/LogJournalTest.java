@@ -0,0 +1,195 @@
+package acs.log.journal;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private LogJournal journal;
+
+    private final LocalDateTime now = LocalDateTime.of(2024, 5, 1, 9, 30, 15, 123_000_000);
+
+    @BeforeEach
+    void setUp() {
+        journal = open(64 * 1024 * 1024);
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    private LogJournal open(long segmentBytes) {
+        LogJournal opened = new LogJournal(directory.toString(), segmentBytes, 1024, 5000, 16384);
+        opened.open();
+        return opened;
+    }
+
+    private LogEntry entry(String badgeId) {
+        LogEntry entry = new LogEntry(now, badgeId, "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW);
+        entry.setDirection(AccessDirection.ENTRY);
+        return entry;
+    }
+
+    @Test
+    void appendThenRead_shouldRoundTripAllFields() {
+        LogEntry denied = new LogEntry(now, "B002", null, null, AccessDecision.DENY, ReasonCode.BADGE_NOT_FOUND);
+        journal.append(entry("B001"));
+        journal.append(denied);
+
+        JournalBatch batch = journal.read(journal.checkpoint(), 10);
+
+        assertEquals(2, batch.entries().size());
+        LogEntry first = batch.entries().get(0);
+        assertNotNull(first.getEventId());
+        assertEquals(now, first.getTimestamp());
+        assertEquals("B001", first.getBadgeId());
+        assertEquals("E001", first.getEmployeeId());
+        assertEquals(AccessDirection.ENTRY, first.getDirection());
+        LogEntry second = batch.entries().get(1);
+        assertEquals(denied.getEventId(), second.getEventId());
+        assertNull(second.getEmployeeId());
+        assertNull(second.getDirection());
+        assertEquals(ReasonCode.BADGE_NOT_FOUND, second.getReasonCode());
+
+        // 读到落盘位置后再读为空
+        assertTrue(journal.read(batch.next(), 10).entries().isEmpty());
+    }
+
+    @Test
+    void concurrentAppends_shouldBeGroupCommitted() throws Exception {
+        int threads = 16;
+        int perThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        journal.append(entry("B" + thread + "-" + i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Set<String> badges = new HashSet<>();
+        JournalPosition position = journal.checkpoint();
+        while (true) {
+            JournalBatch batch = journal.read(position, 1000);
+            if (batch.entries().isEmpty()) {
+                break;
+            }
+            batch.entries().forEach(entry -> badges.add(entry.getBadgeId()));
+            position = batch.next();
+        }
+        assertEquals(threads * perThread, badges.size());
+        assertEquals(threads * perThread, journal.appendedRecords());
+        // 多条记录合并为一次落盘
+        assertTrue(journal.syncs() < journal.appendedRecords(), "syncs=" + journal.syncs());
+    }
+
+    @Test
+    void reopen_shouldResumeFromCheckpointAndSkipTornTail() throws Exception {
+        journal.append(entry("B001"));
+        journal.append(entry("B002"));
+        JournalBatch first = journal.read(journal.checkpoint(), 1);
+        journal.commit(first.next());
+        journal.close();
+
+        // 模拟崩溃：段尾只写了一半的记录
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        journal = open(64 * 1024 * 1024);
+        journal.append(entry("B003"));
+
+        assertEquals(first.next(), journal.checkpoint());
+        List<String> badges = journal.read(journal.checkpoint(), 10).entries().stream()
+                .map(LogEntry::getBadgeId).collect(Collectors.toList());
+        assertEquals(List.of("B002", "B003"), badges);
+    }
+
+    @Test
+    void commit_shouldDeleteFullyReplayedSegments() throws Exception {
+        journal.close();
+        journal = open(1);  // 每批写入后切换新段
+        for (int i = 0; i < 5; i++) {
+            journal.append(entry("B00" + i));
+        }
+
+        JournalBatch batch = journal.read(journal.checkpoint(), 10);
+        assertEquals(5, batch.entries().size());
+        journal.commit(batch.next());
+
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.filter(file -> file.getFileName().toString().endsWith(".log")).count());
+        }
+        assertFalse(journal.hasBacklog());
+    }
+
+    @Test
+    void timedOutAppend_shouldBeCancelledAndNeverPersisted() {
+        // 写线程尚未启动：记录一直在队列中，等待超时
+        LogJournal idle = new LogJournal(directory.resolve("idle").toString(), 64 * 1024 * 1024, 1024, 50, 1);
+        IllegalStateException timeout = assertThrows(IllegalStateException.class, () -> idle.append(entry("B001")));
+        assertTrue(timeout.getMessage().contains("超时"));
+        // 队列有上限
+        IllegalStateException full = assertThrows(IllegalStateException.class, () -> idle.append(entry("B002")));
+        assertTrue(full.getMessage().contains("已满"));
+
+        idle.open();
+        try {
+            // 写线程跳过撤销的记录后队列才有空位；超时撤销的重试不会重复落盘
+            long deadline = System.currentTimeMillis() + 5000;
+            while (true) {
+                try {
+                    idle.append(entry("B003"));
+                    break;
+                } catch (IllegalStateException e) {
+                    if (System.currentTimeMillis() > deadline) {
+                        throw e;
+                    }
+                }
+            }
+            List<String> badges = idle.read(idle.checkpoint(), 10).entries().stream()
+                    .map(LogEntry::getBadgeId).collect(Collectors.toList());
+            assertEquals(List.of("B003"), badges);
+        } finally {
+            idle.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package acs.migration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 在嵌入式数据库（H2，MySQL 兼容模式）上执行全部迁移
+ */
+public class SchemaMigratorTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:migration-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void freshDatabase_shouldApplyAllVersionsOnce() {
+        SchemaMigrator migrator = migrator(List.of());
+        migrator.migrate();
+
+        assertEquals(7, migrator.getCurrentVersion());
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7), jdbcTemplate.queryForList(
+                "SELECT version FROM schema_history WHERE success = TRUE ORDER BY version", Integer.class));
+        MigrationContext context = context();
+        assertTrue(context.tableExists("access_logs"));
+        assertTrue(context.columnExists("resources", "lease_holder"));
+        assertTrue(context.indexExists("access_logs", "idx_log_resource_time"));
+        assertFalse(context.indexExists("access_logs", "idx_log_resource"));
+        assertTrue(context.tableExists("access_stats"));
+        // uk_log_event 已覆盖事件ID去重，不再重复建索引
+        assertFalse(context.indexExists("access_logs", "idx_log_event_time"));
+
+        // 再次启动不重复执行
+        SchemaMigrator again = migrator(List.of());
+        again.migrate();
+        assertEquals(7, again.getCurrentVersion());
+        assertEquals(7, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM schema_history", Integer.class));
+    }
+
+    @Test
+    void existingDatabaseWithoutHistory_shouldBaselineAndUpgrade() {
+        // 迁移机制引入前手工建的库：只有 V1 的结构
+        SqlMigration baseline = baselineScript();
+        baseline.migrate(context());
+        jdbcTemplate.update("INSERT INTO access_logs (timestamp, decision, reason_code) VALUES (NOW(), 'ALLOW', 'ALLOW')");
+
+        SchemaMigrator migrator = migrator(List.of());
+        migrator.migrate();
+
+        assertEquals("BASELINE", jdbcTemplate.queryForObject(
+                "SELECT type FROM schema_history WHERE version = 1", String.class));
+        assertEquals(7, migrator.getCurrentVersion());
+        assertTrue(context().indexExists("access_logs", "idx_log_badge_time"));
+        // 早期日志回填了事件ID
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM access_logs WHERE event_id IS NULL", Integer.class));
+        // 已有日志生成了统计汇总（三个粒度各一行）
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM access_stats WHERE dimension = 'ALL' AND access_count = 1", Integer.class));
+    }
+
+    @Test
+    void baselinedDatabaseWithoutEventKey_shouldGetEventIdIndex() {
+        // Hibernate 建的旧库：有 event_id 列，但没有 uk_log_event
+        baselineScript().migrate(context());
+        jdbcTemplate.execute("ALTER TABLE access_logs DROP CONSTRAINT uk_log_event");
+        assertFalse(context().indexLeadingWith("access_logs", "event_id"));
+
+        migrator(List.of()).migrate();
+
+        assertTrue(context().indexExists("access_logs", "idx_log_event_time"));
+        // 重复执行不再建索引
+        new LogEventIdIndexMigration().migrate(context());
+    }
+
+    @Test
+    void modifiedAppliedScript_shouldRefuseToStart() {
+        migrator(List.of()).migrate();
+        jdbcTemplate.update("UPDATE schema_history SET checksum = checksum + 1 WHERE version = 1");
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> migrator(List.of()).migrate());
+        assertTrue(e.getMessage().contains("V1"));
+    }
+
+    @Test
+    void failedMigration_shouldBeRecordedAndBlockNextStart() {
+        Migration broken = new TestMigration(8, context -> context.execute("ALTER TABLE no_such_table ADD x INT"));
+
+        assertThrows(IllegalStateException.class, () -> migrator(List.of(broken)).migrate());
+        assertFalse(jdbcTemplate.queryForObject(
+                "SELECT success FROM schema_history WHERE version = 8", Boolean.class));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> migrator(List.of(broken)).migrate());
+        assertTrue(e.getMessage().contains("上次执行失败"));
+    }
+
+    @Test
+    void duplicateVersions_shouldRefuseToStart() {
+        Migration duplicate = new TestMigration(3, context -> { });
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> migrator(List.of(duplicate)).migrate());
+        assertTrue(e.getMessage().contains("重复"));
+    }
+
+    @Test
+    void backfill_shouldUpdateInChunksAndBeResumable() {
+        migrator(List.of()).migrate();
+        for (int i = 0; i < 25; i++) {
+            jdbcTemplate.update("INSERT INTO access_logs (timestamp, decision, reason_code) VALUES (NOW(), 'ALLOW', 'ALLOW')");
+        }
+        MigrationContext context = new MigrationContext(jdbcTemplate, 10, 0);
+
+        assertEquals(25, context.backfill("access_logs", "id", "event_id = CONCAT('legacy-', id)", "event_id IS NULL"));
+        assertEquals(0, context.backfill("access_logs", "id", "event_id = CONCAT('legacy-', id)", "event_id IS NULL"));
+        Long id = jdbcTemplate.queryForObject("SELECT MIN(id) FROM access_logs", Long.class);
+        assertEquals("legacy-" + id, jdbcTemplate.queryForObject(
+                "SELECT event_id FROM access_logs WHERE id = ?", String.class, id));
+    }
+
+    @Test
+    void statements_shouldSplitOnSemicolonsOutsideQuotesAndDropComments() {
+        List<String> statements = SqlMigration.statements(
+                "-- 注释\nCREATE TABLE t (a ENUM('x;y', 'z')); -- 行尾注释\n\nINSERT INTO t VALUES ('x;y');\n");
+
+        assertEquals(List.of("CREATE TABLE t (a ENUM('x;y', 'z'))", "INSERT INTO t VALUES ('x;y')"), statements);
+    }
+
+    private SchemaMigrator migrator(List<Migration> extra) {
+        List<Migration> migrations = new ArrayList<>(List.of(new PartitionAccessLogsMigration(),
+                new CompositeLogIndexesMigration(), new BackfillLogEventIdsMigration(),
+                new BackfillAccessStatsMigration(), new LogEventIdIndexMigration()));
+        migrations.addAll(extra);
+        return new SchemaMigrator(dataSource, migrations, true, "classpath*:db/migration/V*__*.sql", 100, 0, 1);
+    }
+
+    private MigrationContext context() {
+        return new MigrationContext(jdbcTemplate, 100, 0);
+    }
+
+    private static SqlMigration baselineScript() {
+        return SqlMigration.load(new ClassPathResource("db/migration/V1__baseline.sql"));
+    }
+
+    private record TestMigration(int version, Consumer<MigrationContext> action) implements Migration {
+
+        @Override
+        public int getVersion() {
+            return version;
+        }
+
+        @Override
+        public String getDescription() {
+            return "test";
+        }
+
+        @Override
+        public void migrate(MigrationContext context) {
+            action.accept(context);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package acs.occupancy;
+
+import acs.cache.CachedResource;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import acs.log.journal.JournalBatch;
+import acs.log.journal.JournalPosition;
+import acs.log.journal.LogJournal;
+import acs.repository.AccessLogRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OccupancyTrackerTest {
+
+    @Mock
+    private LocalCacheManager cacheManager;
+
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    @Mock
+    private LogJournal journal;
+
+    private OccupancyTracker tracker;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new OccupancyTracker(cacheManager, accessLogRepository, journal, 24);
+    }
+
+    private LogEntry log(String badgeId, String resourceId, AccessDirection direction) {
+        return log(badgeId, resourceId, direction, LocalDateTime.now());
+    }
+
+    private LogEntry log(String badgeId, String resourceId, AccessDirection direction, LocalDateTime timestamp) {
+        LogEntry entry = new LogEntry(timestamp, badgeId, null, resourceId, AccessDecision.ALLOW, ReasonCode.ALLOW);
+        entry.setDirection(direction);
+        entry.setEventId(badgeId + "-" + direction + "-" + timestamp);
+        return entry;
+    }
+
+    // 本地日志中检查点之后的记录
+    private void journalTail(LogEntry... entries) {
+        JournalPosition checkpoint = new JournalPosition(1, 0);
+        JournalPosition end = new JournalPosition(1, 100);
+        when(journal.checkpoint()).thenReturn(checkpoint);
+        when(journal.read(eq(checkpoint), anyInt())).thenReturn(new JournalBatch(List.of(entries), end));
+        lenient().when(journal.read(eq(end), anyInt())).thenReturn(new JournalBatch(List.of(), end));
+    }
+
+    @Test
+    void enterAndExit_shouldCountDistinctBadges() {
+        assertTrue(tracker.enter("R001", "B001", CachedResource.UNLIMITED));
+        assertTrue(tracker.enter("R001", "B001", CachedResource.UNLIMITED));  // 重复进入不重复计数
+        assertTrue(tracker.enter("R001", "B002", CachedResource.UNLIMITED));
+        assertEquals(2, tracker.occupantsOf("R001"));
+
+        tracker.exit("R001", "B001");
+        tracker.exit("R001", "B003");  // 不在内，忽略
+        assertEquals(1, tracker.occupantsOf("R001"));
+        assertEquals(Set.of("B002"), tracker.badgesIn("R001"));
+    }
+
+    @Test
+    void enter_overCapacity_shouldDeny() {
+        assertTrue(tracker.enter("R001", "B001", 2));
+        assertTrue(tracker.enter("R001", "B002", 2));
+        assertFalse(tracker.enter("R001", "B003", 2));
+        assertTrue(tracker.enter("R001", "B002", 2));  // 已在内的徽章不受上限影响
+
+        tracker.exit("R001", "B001");
+        assertTrue(tracker.enter("R001", "B003", 2));
+        assertEquals(2, tracker.occupantsOf("R001"));
+    }
+
+    @Test
+    void reconcile_shouldReplayEntryAndExitLogs() {
+        when(accessLogRepository.findByDecisionAndDirectionIsNotNullAndTimestampAfterOrderByTimestampAsc(
+                eq(AccessDecision.ALLOW), any())).thenReturn(List.of(
+                log("B001", "R001", AccessDirection.ENTRY),
+                log("B002", "R001", AccessDirection.ENTRY),
+                log("B001", "R001", AccessDirection.EXIT),
+                log("B003", "R002", AccessDirection.ENTRY)));
+        journalTail();
+
+        tracker.reconcileFromLogs();
+
+        assertEquals(1, tracker.occupantsOf("R001"));
+        assertEquals(Set.of("B002"), tracker.badgesIn("R001"));
+        assertEquals(1, tracker.occupantsOf("R002"));
+    }
+
+    @Test
+    void reconcile_shouldApplyJournalTailNotYetInDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        LogEntry enteredEarlier = log("B001", "R001", AccessDirection.ENTRY, now.minusMinutes(30));
+        when(accessLogRepository.findByDecisionAndDirectionIsNotNullAndTimestampAfterOrderByTimestampAsc(
+                eq(AccessDecision.ALLOW), any())).thenReturn(List.of(enteredEarlier));
+        // 上次运行在数据库中断期间的刷卡：B001 离开、B002 进入；B001 的进入已回放过（检查点未提交）
+        journalTail(enteredEarlier,
+                log("B001", "R001", AccessDirection.EXIT, now.minusMinutes(10)),
+                log("B002", "R001", AccessDirection.ENTRY, now.minusMinutes(5)));
+
+        tracker.reconcileFromLogs();
+
+        assertEquals(Set.of("B002"), tracker.badgesIn("R001"));
+    }
+
+    @Test
+    void sweep_shouldExpireStalePresenceLikeReconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        when(accessLogRepository.findByDecisionAndDirectionIsNotNullAndTimestampAfterOrderByTimestampAsc(
+                eq(AccessDecision.ALLOW), any())).thenReturn(List.of(
+                log("B001", "R001", AccessDirection.ENTRY, now.minusHours(23)),
+                log("B003", "R001", AccessDirection.ENTRY, now.minusHours(23))));
+        journalTail();
+        tracker.reconcileFromLogs();
+        tracker.enter("R001", "B002", CachedResource.UNLIMITED);
+        tracker.enter("R001", "B003", CachedResource.UNLIMITED);  // 再次进入刷新时间
+        assertEquals(3, tracker.occupantsOf("R001"));
+
+        tracker.expireStale();  // 均未超过 24 小时
+        assertEquals(3, tracker.occupantsOf("R001"));
+
+        assertEquals(1, tracker.expireEnteredBefore(now.minusHours(1)));
+        assertEquals(2, tracker.occupantsOf("R001"));
+        assertEquals(Set.of("B002", "B003"), tracker.badgesIn("R001"));
+    }
+
+    @Test
+    void snapshot_shouldCoverAllResources() {
+        when(cacheManager.getResources()).thenReturn(List.of(
+                new CachedResource(0, "R001", "Room 1", ResourceType.ROOM, ResourceState.AVAILABLE, -1, 10),
+                new CachedResource(1, "R002", "Room 2", ResourceType.ROOM, ResourceState.AVAILABLE)));
+        tracker.enter("R001", "B001", 10);
+
+        List<OccupancySnapshot> snapshots = tracker.snapshot();
+
+        assertEquals(2, snapshots.size());
+        assertEquals(1, snapshots.get(0).getOccupants());
+        assertEquals(10, snapshots.get(0).getCapacity());
+        assertEquals(0, snapshots.get(1).getOccupants());
+    }
+}
@@ -0,0 +1,311 @@
+package acs.replay;
+
+import acs.cache.CacheFixture;
+import acs.cache.LocalCacheManager;
+import acs.decision.DecisionPipeline;
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import acs.domain.ReasonCode;
+import acs.domain.ResourceState;
+import acs.domain.ResourceType;
+import acs.lease.LeaseManager;
+import acs.lockdown.LockdownManager;
+import acs.log.journal.LogJournal;
+import acs.occupancy.OccupancyTracker;
+import acs.repository.AccessLogRepository;
+import acs.repository.AccessScheduleRepository;
+import acs.repository.BadgeRepository;
+import acs.repository.EmployeeRepository;
+import acs.repository.GroupRepository;
+import acs.repository.LockdownRepository;
+import acs.repository.ResourceRepository;
+import acs.service.AccessControlService;
+import acs.service.impl.AccessControlServiceImpl;
+import acs.trace.DecisionTracer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class DecisionReplayerTest {
+
+    @Mock
+    private BadgeRepository badgeRepository;
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private GroupRepository groupRepository;
+    @Mock
+    private ResourceRepository resourceRepository;
+    @Mock
+    private AccessScheduleRepository scheduleRepository;
+    @Mock
+    private AccessLogRepository accessLogRepository;
+    @Mock
+    private LockdownRepository lockdownRepository;
+    @Mock
+    private LogJournal journal;
+
+    private final Instant start = Instant.parse("2024-05-06T08:00:00Z");
+    private final DecisionReplayer replayer = new DecisionReplayer();
+    private LocalCacheManager cacheManager;
+    private CacheFixture fixture;
+
+    // 资源：LAB（容量 2）、DOOR、PRN（打印机，租约）；组：G_ALL 授权全部，G_DOOR 只授权 DOOR
+    // 员工：E1～E3 属于 G_ALL，E4 属于 G_DOOR
+    @BeforeEach
+    void setUp() {
+        cacheManager = new LocalCacheManager(badgeRepository, employeeRepository, groupRepository,
+                resourceRepository, scheduleRepository, accessLogRepository);
+        fixture = new CacheFixture(cacheManager);
+        fixture.resource("LAB", ResourceType.OTHER, ResourceState.AVAILABLE, null, 2);
+        fixture.resource("DOOR", ResourceType.DOOR, null);
+        fixture.resource("PRN", ResourceType.PRINTER, null);
+        fixture.group("G_ALL", null, "LAB", "DOOR", "PRN");
+        fixture.group("G_DOOR", null, "DOOR");
+        fixture.employee("E1", "B1", "G_ALL");
+        fixture.employee("E2", "B2", "G_ALL");
+        fixture.employee("E3", "B3", "G_ALL");
+        fixture.employee("E4", "B4", "G_DOOR");
+    }
+
+    // 运行时状态全新、不写日志的访问控制服务
+    private AccessControlService freshService() {
+        return new AccessControlServiceImpl(entry -> { }, cacheManager, new LeaseManager(resourceRepository, 30),
+                new OccupancyTracker(cacheManager, accessLogRepository, journal, 24),
+                new DecisionPipeline(cacheManager, new LockdownManager(cacheManager, lockdownRepository)),
+                DecisionTracer.disabled());
+    }
+
+    private byte[] syntheticTrace(int count) throws IOException {
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        try (TraceWriter writer = new TraceWriter(requests, new TraceHeader(cacheManager.authorizationFingerprint(), start))) {
+            new SyntheticTraceGenerator(42, List.of("B1", "B2", "B3", "B4"), List.of("LAB", "DOOR", "PRN"))
+                    .unknownRatio(0.05)
+                    .generate(start, count, Duration.ofSeconds(5), writer);
+        }
+        ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(requests.toByteArray()));
+             TraceWriter writer = new TraceWriter(recorded, reader.header())) {
+            assertEquals(count, replayer.recordExpectations(reader, freshService(), writer));
+        }
+        return recorded.toByteArray();
+    }
+
+    private static List<TraceRecord> readAll(byte[] trace) throws IOException {
+        List<TraceRecord> records = new ArrayList<>();
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(trace))) {
+            for (TraceRecord record = reader.next(); record != null; record = reader.next()) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    void trace_shouldRoundTripCompactly() throws IOException {
+        List<TraceRecord> written = List.of(
+                new TraceRecord(start, TraceOperation.PROCESS, "B1", "LAB", AccessDirection.ENTRY,
+                        AccessDecision.ALLOW, ReasonCode.ALLOW),
+                new TraceRecord(start.plusNanos(1_500_000), TraceOperation.RELEASE, "B1", "LAB",
+                        AccessDirection.ENTRY, AccessDecision.DENY, ReasonCode.INVALID_REQUEST),
+                // 时间可以回退（时钟调整），ID 可以为空
+                TraceRecord.request(start.minusSeconds(3), TraceOperation.PROCESS, null, "门禁-东",
+                        AccessDirection.EXIT));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TraceWriter writer = new TraceWriter(out, new TraceHeader(7L, start))) {
+            for (TraceRecord record : written) {
+                writer.write(record);
+            }
+        }
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(new TraceHeader(7L, start), reader.header());
+        }
+        assertEquals(written, readAll(out.toByteArray()));
+
+        // 字典编码后一条记录只占几个字节
+        byte[] trace = syntheticTrace(10_000);
+        assertEquals(10_000, readAll(trace).size());
+        assertTrue(trace.length < 10_000 * 10, "轨迹过大: " + trace.length);
+    }
+
+    @Test
+    void syntheticTrace_replayedOnFreshService_shouldBeIdentical() throws IOException {
+        byte[] trace = syntheticTrace(5_000);
+        // 合成轨迹覆盖了多种原因码（容量、租约、权限、未知徽章）
+        List<ReasonCode> reasons = readAll(trace).stream().map(TraceRecord::expectedReason).distinct().toList();
+        assertTrue(reasons.containsAll(List.of(ReasonCode.ALLOW, ReasonCode.CAPACITY_EXCEEDED,
+                ReasonCode.RESOURCE_OCCUPIED, ReasonCode.NO_PERMISSION, ReasonCode.BADGE_NOT_FOUND)),
+                reasons.toString());
+
+        ReplayReport report;
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(trace))) {
+            report = replayer.replay(reader, freshService(), ReplayOptions.fullSpeed()
+                    .withWarmup(1_000)
+                    .withTargetSnapshot(cacheManager.authorizationFingerprint()));
+        }
+
+        assertTrue(report.identical(), report.samples().toString());
+        assertEquals(5_000, report.replayed());
+        assertEquals(0, report.unchecked());
+        assertEquals(4_000, report.latency().count());
+        assertTrue(report.throughputPerSecond() > 0);
+        assertTrue(report.latency().p50Nanos() <= report.latency().p99Nanos());
+        assertTrue(report.latency().p99Nanos() <= report.latency().maxNanos());
+    }
+
+    @Test
+    void replay_afterGrantRevoked_shouldReportMismatchesAndSnapshotChange() throws IOException {
+        byte[] trace = syntheticTrace(2_000);
+        long recordedVersion = cacheManager.authorizationFingerprint();
+
+        // 内容相同的更新不改变快照版本
+        cacheManager.updateGroup(fixture.getGroup("G_DOOR"));
+        assertEquals(recordedVersion, cacheManager.authorizationFingerprint());
+
+        fixture.getGroup("G_ALL").getResources().remove(fixture.getResource("LAB"));
+        cacheManager.updateGroup(fixture.getGroup("G_ALL"));
+        long currentVersion = cacheManager.authorizationFingerprint();
+        assertNotEquals(recordedVersion, currentVersion);
+
+        ReplayReport report;
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(trace))) {
+            report = replayer.replay(reader, freshService(),
+                    ReplayOptions.fullSpeed().withTargetSnapshot(currentVersion));
+        }
+
+        assertFalse(report.snapshotMatches());
+        assertFalse(report.identical());
+        assertTrue(report.mismatches() > 0);
+        ReplayMismatch sample = report.samples().get(0);
+        assertEquals("LAB", sample.record().resourceId());
+        assertEquals(AccessDecision.DENY, sample.actualDecision());
+        assertEquals(ReasonCode.NO_PERMISSION, sample.actualReason());
+    }
+
+    @Test
+    void recordedPace_shouldFollowRecordedIntervals() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TraceWriter writer = new TraceWriter(out, new TraceHeader(0L, start))) {
+            for (int i = 0; i < 11; i++) {
+                writer.write(TraceRecord.request(start.plusMillis(20L * i), TraceOperation.PROCESS,
+                        "B4", "DOOR", AccessDirection.ENTRY));
+            }
+        }
+
+        ReplayReport report;
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(out.toByteArray()))) {
+            report = replayer.replay(reader, freshService(), ReplayOptions.recordedPace(2));
+        }
+
+        // 录制跨度 200ms，两倍速约 100ms
+        assertEquals(11, report.replayed());
+        assertEquals(11, report.unchecked());
+        assertTrue(report.elapsedNanos() >= 90_000_000L, "回放过快: " + report.elapsedNanos());
+        assertTrue(report.identical());
+    }
+
+    @Test
+    void recorder_shouldCaptureLiveTrafficForReplay() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TraceRecorder recorder = new TraceRecorder(freshService(),
+                new TraceWriter(out, new TraceHeader(cacheManager.authorizationFingerprint(), start)));
+        List<AccessResult> live = new ArrayList<>();
+        for (String badgeId : Arrays.asList("B1", "B2", "B3", "B4", "B9")) {
+            live.add(recorder.processAccess(new AccessRequest(badgeId, "LAB", start)));
+        }
+        AccessRequest exit = new AccessRequest("B1", "LAB", start.plusSeconds(60));
+        exit.setDirection(AccessDirection.EXIT);
+        recorder.processAccess(exit);
+        recorder.processAccess(new AccessRequest("B3", "LAB", start.plusSeconds(61)));
+
+        assertEquals(List.of(ReasonCode.ALLOW, ReasonCode.ALLOW, ReasonCode.CAPACITY_EXCEEDED,
+                ReasonCode.NO_PERMISSION, ReasonCode.BADGE_NOT_FOUND),
+                live.stream().map(AccessResult::getReasonCode).toList());
+        assertEquals(7, recorder.getRecorded());
+        assertEquals(0, recorder.getSkipped());
+        assertFalse(recorder.isFailed());
+        recorder.close();
+
+        ReplayReport report;
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(out.toByteArray()))) {
+            report = replayer.replay(reader, freshService(), ReplayOptions.fullSpeed());
+        }
+        assertEquals(7, report.replayed());
+        assertTrue(report.identical(), report.samples().toString());
+
+        // 在同一个服务（状态已变化）上回放：LAB 已满，结果不可重现
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(out.toByteArray()))) {
+            assertTrue(replayer.replay(reader, recorder, ReplayOptions.fullSpeed()).mismatches() > 0);
+        }
+    }
+
+    @Test
+    void reader_shouldRejectForeignFilesAndStopAtTruncatedRecord() throws IOException {
+        assertThrows(IllegalStateException.class,
+                () -> new TraceReader(new ByteArrayInputStream("ACSL....".getBytes())));
+        assertThrows(IllegalStateException.class, () -> new TraceReader(new ByteArrayInputStream(new byte[3])));
+
+        byte[] trace = syntheticTrace(10);
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(Arrays.copyOf(trace, trace.length - 1)))) {
+            int read = 0;
+            while (reader.next() != null) {
+                read++;
+            }
+            assertEquals(9, read);
+            assertTrue(reader.isTruncated());
+        }
+    }
+
+    @Test
+    void reader_shouldMapExpectationsByRecordedNames() throws IOException {
+        // 旧版本录制的轨迹：枚举顺序与当前不同，且含当前版本已删除的原因码
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(TraceWriter.MAGIC);
+        out.writeInt(TraceWriter.VERSION);
+        out.writeLong(7L);
+        out.writeLong(start.toEpochMilli());
+        out.writeByte(2);
+        out.writeUTF("DENY");
+        out.writeUTF("ALLOW");
+        out.writeByte(3);
+        out.writeUTF("RETIRED_REASON");
+        out.writeUTF("NO_PERMISSION");
+        out.writeUTF("ALLOW");
+        for (int expectation : new int[]{1 << 2, 2 << 2 | 1, 0}) {
+            out.writeByte(TraceWriter.FLAG_EXPECTED);
+            out.writeByte(0);   // 时间差 0
+            out.writeByte(0);   // 徽章 null
+            out.writeByte(0);   // 资源 null
+            out.writeByte(expectation);
+        }
+        out.flush();
+
+        try (TraceReader reader = new TraceReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            TraceRecord denied = reader.next();
+            assertEquals(AccessDecision.DENY, denied.expectedDecision());
+            assertEquals(ReasonCode.NO_PERMISSION, denied.expectedReason());
+            TraceRecord allowed = reader.next();
+            assertEquals(AccessDecision.ALLOW, allowed.expectedDecision());
+            assertEquals(ReasonCode.ALLOW, allowed.expectedReason());
+            assertThrows(IllegalStateException.class, reader::next);
+        }
+    }
+}
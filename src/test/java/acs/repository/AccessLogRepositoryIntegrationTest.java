@@ -0,0 +1,146 @@
+package acs.repository;
+
+import acs.domain.*;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * access_logs 的索引与查询条数回归测试
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class AccessLogRepositoryIntegrationTest {
+
+    @Autowired
+    private AccessLogRepository accessLogRepository;
+    @Autowired
+    private BadgeRepository badgeRepository;
+    @Autowired
+    private EmployeeRepository employeeRepository;
+    @Autowired
+    private ResourceRepository resourceRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private DataSource dataSource;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        accessLogRepository.deleteAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        accessLogRepository.deleteAll();
+        employeeRepository.deleteAll();
+        badgeRepository.deleteAll();
+        resourceRepository.deleteAll();
+    }
+
+    /**
+     * 按资源查询一周日志：一条SQL，不加载徽章、员工、资源实体（无论返回多少行）
+     */
+    @Test
+    void findByResource_ShouldIssueOneQueryWithoutLoadingAssociations() {
+        Resource door = resourceRepository.save(new Resource("IDX-RES", "Door", ResourceType.DOOR, ResourceState.AVAILABLE));
+        seedLogs(door, "A", 5);
+        long small = countQueries(() -> assertEquals(5, accessLogRepository
+                .findByResourceIdAndTimestampBetween("IDX-RES", now.minusWeeks(1), now).size()));
+
+        seedLogs(door, "B", 40);
+        Statistics statistics = statistics();
+        long large = countQueries(() -> {
+            List<LogEntry> logs = accessLogRepository.findByResourceIdAndTimestampBetween("IDX-RES", now.minusWeeks(1), now);
+            assertEquals(45, logs.size());
+            logs.forEach(log -> assertNotNull(log.getBadgeId()));
+        });
+
+        assertEquals(1, small);
+        assertEquals(small, large, "按资源查询日志的SQL条数不应随行数增长");
+        assertEquals(0, statistics.getEntityStatistics(Badge.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Employee.class.getName()).getLoadCount());
+        assertEquals(0, statistics.getEntityStatistics(Resource.class.getName()).getLoadCount());
+    }
+
+    /**
+     * 每个按ID查询都有以该ID列开头、时间列在后的复合索引（ID 等值 + 时间范围为一次索引范围扫描）
+     */
+    @Test
+    void accessLogs_ShouldHaveCompositeIdTimestampIndexes() throws Exception {
+        Map<String, List<String>> indexes = indexColumns("access_logs");
+
+        assertEquals(List.of("badge_id", "timestamp"), indexes.get("idx_log_badge_time"));
+        assertEquals(List.of("employee_id", "timestamp"), indexes.get("idx_log_employee_time"));
+        assertEquals(List.of("resource_id", "timestamp"), indexes.get("idx_log_resource_time"));
+        assertEquals(List.of("decision", "timestamp"), indexes.get("idx_log_decision_time"));
+    }
+
+    private void seedLogs(Resource resource, String prefix, int count) {
+        List<LogEntry> logs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Badge badge = badgeRepository.save(new Badge(prefix + "-IDX-BD-" + i, BadgeStatus.ACTIVE));
+            Employee employee = new Employee(prefix + "-IDX-EMP-" + i, "Employee " + i);
+            employee.setBadge(badge);
+            employeeRepository.save(employee);
+            logs.add(new LogEntry(now.minusHours(i + 1), badge, employee, resource, AccessDecision.ALLOW, ReasonCode.ALLOW));
+        }
+        accessLogRepository.saveAll(logs);
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // 统计一次操作执行的SQL语句数量
+    private long countQueries(Runnable action) {
+        Statistics statistics = statistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    // 索引名 -> 按顺序的列名（小写）
+    private Map<String, List<String>> indexColumns(String table) throws Exception {
+        Map<String, TreeMap<Short, String>> ordered = new TreeMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), null, name, false, false)) {
+                while (rs.next()) {
+                    String index = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (index != null && column != null) {
+                        ordered.computeIfAbsent(index.toLowerCase(Locale.ROOT), k -> new TreeMap<>())
+                                .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        }
+        Map<String, List<String>> result = new TreeMap<>();
+        ordered.forEach((index, columns) -> result.put(index, new ArrayList<>(columns.values())));
+        return result;
+    }
+}
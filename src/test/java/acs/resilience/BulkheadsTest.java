@@ -0,0 +1,105 @@
+package acs.resilience;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkheadsTest {
+
+    private final WorkloadProperties properties = new WorkloadProperties();
+    private Bulkheads bulkheads;
+
+    @AfterEach
+    void tearDown() {
+        bulkheads.shutdown();
+    }
+
+    @Test
+    void saturatedQueryPool_shouldNotDelayDecisions() throws Exception {
+        properties.getQuery().setThreads(1);
+        properties.getQuery().setQueueCapacity(1);
+        bulkheads = new Bulkheads(properties);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // 一个长查询占满线程，一个排队
+        bulkheads.submit(Workload.QUERY, () -> {
+            started.countDown();
+            await(release);
+            return null;
+        });
+        bulkheads.submit(Workload.QUERY, () -> null);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // 再提交立即拒绝，不阻塞调用方
+        assertThrows(WorkloadRejectedException.class, () -> bulkheads.submit(Workload.QUERY, () -> null));
+
+        // 刷卡路径照常执行，并以 DECISION 身份获取连接
+        long start = System.nanoTime();
+        Workload seen = bulkheads.call(Workload.DECISION, WorkloadContext::current);
+        assertEquals(Workload.DECISION, seen);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        assertEquals(Workload.ADMIN, WorkloadContext.current());
+
+        release.countDown();
+    }
+
+    @Test
+    void execute_shouldTimeOutWithoutBlockingForever() {
+        properties.getQuery().setTimeoutMillis(50);
+        bulkheads = new Bulkheads(properties);
+        CountDownLatch never = new CountDownLatch(1);
+
+        WorkloadRejectedException e = assertThrows(WorkloadRejectedException.class,
+                () -> bulkheads.execute(Workload.QUERY, () -> {
+                    await(never);
+                    return null;
+                }));
+        assertEquals(Workload.QUERY, e.getWorkload());
+    }
+
+    @Test
+    void databaseFailures_shouldOpenOnlyThatWorkload() {
+        properties.getMaintenance().setMinimumCalls(2);
+        bulkheads = new Bulkheads(properties);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(DataAccessResourceFailureException.class, () -> bulkheads.run(Workload.MAINTENANCE, () -> {
+                throw new DataAccessResourceFailureException("连接失败");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, bulkheads.state(Workload.MAINTENANCE));
+        assertThrows(WorkloadRejectedException.class, () -> bulkheads.run(Workload.MAINTENANCE, () -> { }));
+        assertEquals(CircuitBreaker.State.CLOSED, bulkheads.state(Workload.DECISION));
+        assertEquals("ok", bulkheads.call(Workload.DECISION, () -> "ok"));
+    }
+
+    @Test
+    void constraintViolations_shouldNotCountAsFailures() {
+        properties.getAdmin().setMinimumCalls(2);
+        bulkheads = new Bulkheads(properties);
+
+        for (int i = 0; i < 3; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> bulkheads.run(Workload.ADMIN, () -> {
+                throw new DataIntegrityViolationException("重复");
+            }));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, bulkheads.state(Workload.ADMIN));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package acs.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private WorkloadProperties.Limits limits() {
+        WorkloadProperties.Limits limits = new WorkloadProperties.Limits(2, 1, 10);
+        limits.setWindowSize(10);
+        limits.setMinimumCalls(4);
+        limits.setFailureRateThreshold(50);
+        limits.setSlowCallMillis(100);
+        limits.setSlowCallRateThreshold(80);
+        limits.setOpenMillis(1000);
+        return limits;
+    }
+
+    @Test
+    void failuresAboveThreshold_shouldOpenAndReject() {
+        CircuitBreaker breaker = new CircuitBreaker(Workload.QUERY, limits());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(0));
+            breaker.onResult(1, i % 2 == 0, 0);
+        }
+        // 未达到最小调用数，不熔断
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        assertTrue(breaker.tryAcquire(0));
+        breaker.onResult(1, true, 0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(500));
+        assertEquals(1, breaker.getRejectedCalls());
+    }
+
+    @Test
+    void slowCalls_shouldOpen() {
+        CircuitBreaker breaker = new CircuitBreaker(Workload.QUERY, limits());
+
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire(0);
+            breaker.onResult(200, false, 0);
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void halfOpen_shouldAllowSingleProbe() {
+        CircuitBreaker breaker = new CircuitBreaker(Workload.DECISION, limits());
+        for (int i = 0; i < 4; i++) {
+            breaker.tryAcquire(0);
+            breaker.onResult(1, true, 0);
+        }
+
+        assertTrue(breaker.tryAcquire(1000));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(1000));
+
+        // 试探失败：重新打开
+        breaker.onResult(1, true, 1000);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(1500));
+
+        // 试探成功：关闭
+        assertTrue(breaker.tryAcquire(2000));
+        breaker.onResult(1, false, 2000);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(2000));
+    }
+}
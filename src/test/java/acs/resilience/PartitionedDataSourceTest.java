@@ -0,0 +1,83 @@
+package acs.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PartitionedDataSourceTest {
+
+    @Mock
+    private DataSource target;
+
+    @Mock
+    private Connection connection;
+
+    private PartitionedDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        WorkloadProperties properties = new WorkloadProperties();
+        properties.getQuery().setConnections(2);
+        properties.getQuery().setConnectionTimeoutMillis(20);
+        when(target.getConnection()).thenReturn(connection);
+        dataSource = new PartitionedDataSource(target, () -> properties);
+    }
+
+    @Test
+    void exhaustedQueryQuota_shouldNotBlockDecisions() throws Exception {
+        Connection first = WorkloadContext.call(Workload.QUERY, this::connect);
+        Connection second = WorkloadContext.call(Workload.QUERY, this::connect);
+        assertEquals(2, dataSource.inUse(Workload.QUERY));
+
+        WorkloadContext.run(Workload.QUERY, () ->
+                assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection()));
+
+        Connection decision = WorkloadContext.call(Workload.DECISION, this::connect);
+        assertNotNull(decision);
+        assertEquals(1, dataSource.inUse(Workload.DECISION));
+
+        first.close();
+        second.close();
+        decision.close();
+        assertEquals(0, dataSource.inUse(Workload.QUERY));
+        assertEquals(0, dataSource.inUse(Workload.DECISION));
+    }
+
+    @Test
+    void close_shouldReleaseOnlyOnce() throws Exception {
+        Connection c = WorkloadContext.call(Workload.QUERY, this::connect);
+
+        c.close();
+        c.close();
+
+        assertEquals(0, dataSource.inUse(Workload.QUERY));
+        verify(connection, times(1)).close();
+    }
+
+    @Test
+    void untaggedThreads_shouldUseAdminQuota() throws Exception {
+        Connection c = dataSource.getConnection();
+
+        assertEquals(1, dataSource.inUse(Workload.ADMIN));
+        c.close();
+        assertEquals(0, dataSource.inUse(Workload.ADMIN));
+    }
+
+    private Connection connect() {
+        try {
+            return dataSource.getConnection();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
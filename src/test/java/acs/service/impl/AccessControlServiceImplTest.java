@@ -1,20 +1,34 @@
 package acs.service.impl;
 
+import acs.cache.CachedBadge;
+import acs.cache.CachedEmployee;
+import acs.cache.CachedResource;
 import acs.cache.LocalCacheManager;
+import acs.decision.DecisionPipeline;
 import acs.domain.*;
+import acs.lease.LeaseManager;
+import acs.lockdown.LockdownManager;
+import acs.log.journal.LogJournal;
 import acs.log.LogService;
+import acs.occupancy.OccupancyTracker;
+import acs.repository.AccessLogRepository;
+import acs.repository.ResourceRepository;
+import acs.trace.DecisionTracer;
+import acs.trace.SlowTrace;
+import acs.trace.TraceSpan;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
-import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -26,11 +40,35 @@ public class AccessControlServiceImplTest {
     @Mock
     private LocalCacheManager cacheManager;
 
-    @InjectMocks
+    @Mock
+    private LeaseManager leaseManager;
+
+    @Mock
+    private OccupancyTracker occupancyTracker;
+
+    @Mock
+    private LockdownManager lockdownManager;
+
+    @Mock
+    private ResourceRepository resourceRepository;
+
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    @Mock
+    private LogJournal journal;
+
     private AccessControlServiceImpl accessControlService;
 
     private final Instant testInstant = Instant.parse("2024-05-01T12:00:00Z");
 
+    // 检查阶段使用真实的判断流水线（按优先级顺序），依赖的缓存与封锁为 mock
+    @BeforeEach
+    void setUp() {
+        accessControlService = new AccessControlServiceImpl(logService, cacheManager, leaseManager, occupancyTracker,
+                new DecisionPipeline(cacheManager, lockdownManager), DecisionTracer.disabled());
+    }
+
     // 构建测试用访问请求
     private AccessRequest createAccessRequest(String badgeId, String resourceId) {
         AccessRequest request = new AccessRequest();
@@ -67,7 +105,7 @@ public class AccessControlServiceImplTest {
 
     @Test
     void processAccess_badgeInactive_shouldDeny() {
-        Badge badge = new Badge("B001", BadgeStatus.DISABLED); // 徽章未激活
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.DISABLED, null); // 徽章未激活
         when(cacheManager.getBadge("B001")).thenReturn(badge);
 
         AccessRequest request = createAccessRequest("B001", "R001");
@@ -79,8 +117,7 @@ public class AccessControlServiceImplTest {
 
     @Test
     void processAccess_employeeNotFound_shouldDeny() {
-        Badge badge = new Badge("B001", BadgeStatus.ACTIVE);
-        badge.setEmployee(new Employee("E001", "Test")); // 员工ID存在但缓存中无数据
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001"); // 员工ID存在但缓存中无数据
         when(cacheManager.getBadge("B001")).thenReturn(badge);
         when(cacheManager.getEmployee("E001")).thenReturn(null);
 
@@ -94,9 +131,8 @@ public class AccessControlServiceImplTest {
     @Test
     void processAccess_resourceNotFound_shouldDeny() {
         // 准备测试数据
-        Employee employee = new Employee("E001", "Test");
-        Badge badge = new Badge("B001", BadgeStatus.ACTIVE);
-        badge.setEmployee(employee);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
 
         when(cacheManager.getBadge("B001")).thenReturn(badge);
         when(cacheManager.getEmployee("E001")).thenReturn(employee);
@@ -112,15 +148,14 @@ public class AccessControlServiceImplTest {
     @Test
     void processAccess_noPermission_shouldDeny() {
         // 准备测试数据（员工组无资源权限）
-        Resource resource = new Resource("R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
-        Employee employee = new Employee("E001", "Test");
-        employee.setGroups(Collections.emptySet()); // 无组 -> 无权限
-        Badge badge = new Badge("B001", BadgeStatus.ACTIVE);
-        badge.setEmployee(employee);
+        CachedResource resource = new CachedResource(0, "R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]); // 无组 -> 无权限
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
 
         when(cacheManager.getBadge("B001")).thenReturn(badge);
         when(cacheManager.getEmployee("E001")).thenReturn(employee);
         when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.NO_PERMISSION);
 
         AccessRequest request = createAccessRequest("B001", "R001");
         AccessResult result = accessControlService.processAccess(request);
@@ -129,20 +164,36 @@ public class AccessControlServiceImplTest {
         assertEquals(ReasonCode.NO_PERMISSION, result.getReasonCode());
     }
 
+    @Test
+    void processAccess_outsideSchedule_shouldDeny() {
+        // 准备测试数据（有授权，但请求时间不在授权时间表内）
+        CachedResource resource = new CachedResource(0, "R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.OUTSIDE_SCHEDULE);
+
+        AccessRequest request = createAccessRequest("B001", "R001");
+        AccessResult result = accessControlService.processAccess(request);
+
+        assertEquals(AccessDecision.DENY, result.getDecision());
+        assertEquals(ReasonCode.OUTSIDE_SCHEDULE, result.getReasonCode());
+    }
+
     @Test
     void processAccess_resourceLocked_shouldDeny() {
         // 准备测试数据（资源锁定）
-        Resource resource = new Resource("R001", "Door", ResourceType.DOOR, ResourceState.LOCKED);
-        Group group = new Group("G001", "Admin");
-        group.setResources(Collections.singleton(resource));
-        Employee employee = new Employee("E001", "Test");
-        employee.setGroups(Collections.singleton(group));
-        Badge badge = new Badge("B001", BadgeStatus.ACTIVE);
-        badge.setEmployee(employee);
+        CachedResource resource = new CachedResource(0, "R001", "Door", ResourceType.DOOR, ResourceState.LOCKED);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
 
         when(cacheManager.getBadge("B001")).thenReturn(badge);
         when(cacheManager.getEmployee("E001")).thenReturn(employee);
         when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW); // 所属组有该资源权限
 
         AccessRequest request = createAccessRequest("B001", "R001");
         AccessResult result = accessControlService.processAccess(request);
@@ -154,17 +205,15 @@ public class AccessControlServiceImplTest {
     @Test
     void processAccess_allValid_shouldAllow() {
         // 准备测试数据（所有验证通过）
-        Resource resource = new Resource("R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
-        Group group = new Group("G001", "Admin");
-        group.setResources(Collections.singleton(resource));
-        Employee employee = new Employee("E001", "Test");
-        employee.setGroups(Collections.singleton(group));
-        Badge badge = new Badge("B001", BadgeStatus.ACTIVE);
-        badge.setEmployee(employee);
+        CachedResource resource = new CachedResource(0, "R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
 
         when(cacheManager.getBadge("B001")).thenReturn(badge);
         when(cacheManager.getEmployee("E001")).thenReturn(employee);
         when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW); // 所属组有该资源权限
+        when(occupancyTracker.enter("R001", "B001", CachedResource.UNLIMITED)).thenReturn(true);
 
         AccessRequest request = createAccessRequest("B001", "R001");
         AccessResult result = accessControlService.processAccess(request);
@@ -177,6 +226,165 @@ public class AccessControlServiceImplTest {
         verify(logService).record(logCaptor.capture());
         LogEntry recordedLog = logCaptor.getValue();
         assertEquals(AccessDecision.ALLOW, recordedLog.getDecision());
-        assertEquals(badge, recordedLog.getBadge());
+        assertEquals("B001", recordedLog.getBadgeId());
+    }
+
+    @Test
+    void processAccess_leasedPrinter_shouldDenyOthers() {
+        // 准备测试数据（打印机已被他人占用）
+        CachedResource resource = new CachedResource(0, "R001", "Printer", ResourceType.PRINTER, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW);
+        when(leaseManager.isLeasable(ResourceType.PRINTER)).thenReturn(true);
+        when(leaseManager.tryAcquire("R001", "E001")).thenReturn(false);
+
+        AccessResult result = accessControlService.processAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(AccessDecision.DENY, result.getDecision());
+        assertEquals(ReasonCode.RESOURCE_OCCUPIED, result.getReasonCode());
+    }
+
+    @Test
+    void releaseAccess_byHolder_shouldAllow() {
+        CachedResource resource = new CachedResource(0, "R001", "Printer", ResourceType.PRINTER, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(leaseManager.release("R001", "E001")).thenReturn(true);
+
+        AccessResult result = accessControlService.releaseAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(AccessDecision.ALLOW, result.getDecision());
+        verify(logService).record(any(LogEntry.class));
+    }
+
+    @Test
+    void processAccess_capacityReached_shouldDeny() {
+        CachedResource resource = new CachedResource(0, "R001", "Room", ResourceType.ROOM, ResourceState.AVAILABLE, -1, 1);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW);
+        when(occupancyTracker.enter("R001", "B001", 1)).thenReturn(false);
+
+        AccessResult result = accessControlService.processAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(AccessDecision.DENY, result.getDecision());
+        assertEquals(ReasonCode.CAPACITY_EXCEEDED, result.getReasonCode());
+    }
+
+    @Test
+    void processAccess_exit_shouldAllowWithoutPermissionCheck() {
+        CachedResource resource = new CachedResource(0, "R001", "Room", ResourceType.ROOM, ResourceState.LOCKED);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+
+        AccessRequest request = createAccessRequest("B001", "R001");
+        request.setDirection(AccessDirection.EXIT);
+        AccessResult result = accessControlService.processAccess(request);
+
+        assertEquals(AccessDecision.ALLOW, result.getDecision());
+        verify(occupancyTracker).exit("R001", "B001");
+        verify(cacheManager, never()).checkPermission(any(), any(), any());
+
+        ArgumentCaptor<LogEntry> logCaptor = ArgumentCaptor.forClass(LogEntry.class);
+        verify(logService).record(logCaptor.capture());
+        assertEquals(AccessDirection.EXIT, logCaptor.getValue().getDirection());
+    }
+
+    @Test
+    void processAccess_underLockdown_shouldDeny() {
+        CachedResource resource = new CachedResource(0, "R001", "Door", ResourceType.DOOR, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW);
+        when(lockdownManager.isLocked(resource)).thenReturn(true);  // 紧急封锁中
+
+        AccessResult result = accessControlService.processAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(AccessDecision.DENY, result.getDecision());
+        assertEquals(ReasonCode.RESOURCE_LOCKED, result.getReasonCode());
+    }
+
+    @Test
+    void processAccess_withTracing_shouldTimeEachStage() {
+        // 阈值 0：每个请求都保留完整阶段记录
+        DecisionTracer tracer = new DecisionTracer(true, 0, 4);
+        AccessControlServiceImpl traced = new AccessControlServiceImpl(logService, cacheManager, leaseManager,
+                occupancyTracker, new DecisionPipeline(cacheManager, lockdownManager, tracer), tracer);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.DISABLED, "E001");
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+
+        AccessResult result = traced.processAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(ReasonCode.BADGE_INACTIVE, result.getReasonCode());
+        SlowTrace trace = tracer.slowTraces().get(0);
+        assertEquals(ReasonCode.BADGE_INACTIVE, trace.reasonCode());
+        // 拒绝后短路：只执行到徽章状态检查，随后写日志
+        assertEquals(List.of("CHECK_REQUEST", "CHECK_BADGE", "CHECK_BADGE_STATUS", "COMMIT"),
+                trace.spans().stream().map(TraceSpan::stage).toList());
+        assertEquals(1, tracer.stages().stream()
+                .filter(latency -> latency.stage().equals("TOTAL")).findFirst().orElseThrow().count());
+    }
+
+    @Test
+    void processAccess_logFailure_shouldRollBackLeaseAndOccupancy() {
+        // 租约与人数都已获取，写日志时失败
+        CachedResource resource = new CachedResource(0, "R001", "Printer", ResourceType.PRINTER, ResourceState.AVAILABLE);
+        CachedEmployee employee = new CachedEmployee(0, "E001", "Test", "B001", new int[0]);
+        CachedBadge badge = new CachedBadge("B001", BadgeStatus.ACTIVE, "E001");
+
+        when(cacheManager.getBadge("B001")).thenReturn(badge);
+        when(cacheManager.getEmployee("E001")).thenReturn(employee);
+        when(cacheManager.getResource("R001")).thenReturn(resource);
+        when(cacheManager.checkPermission(eq(employee), eq(resource), any())).thenReturn(ReasonCode.ALLOW);
+        when(leaseManager.isLeasable(ResourceType.PRINTER)).thenReturn(true);
+        when(leaseManager.tryAcquire("R001", "E001")).thenReturn(true);
+        when(occupancyTracker.enter("R001", "B001", resource.getCapacity())).thenReturn(true);
+        doThrow(new IllegalStateException("日志追加超时")).doNothing().when(logService).record(any(LogEntry.class));
+
+        AccessResult result = accessControlService.processAccess(createAccessRequest("B001", "R001"));
+
+        assertEquals(ReasonCode.SYSTEM_ERROR, result.getReasonCode());
+        verify(occupancyTracker).exit("R001", "B001");
+        verify(leaseManager).release("R001", "E001");
+    }
+
+    @Test
+    void processAccess_roomWithCapacity_shouldAdmitSeveralBadges() {
+        // 真实的租约与在内人数：房间按容量计数，不是独占租约
+        AccessControlServiceImpl service = new AccessControlServiceImpl(logService, cacheManager,
+                new LeaseManager(resourceRepository, 30), new OccupancyTracker(cacheManager, accessLogRepository, journal, 24),
+                new DecisionPipeline(cacheManager, lockdownManager), DecisionTracer.disabled());
+        CachedResource room = new CachedResource(0, "R001", "Room", ResourceType.ROOM, ResourceState.AVAILABLE, CachedResource.NO_PARENT, 20);
+        when(cacheManager.getResource("R001")).thenReturn(room);
+        for (String id : List.of("1", "2")) {
+            CachedEmployee employee = new CachedEmployee(0, "E00" + id, "Test", "B00" + id, new int[0]);
+            when(cacheManager.getBadge("B00" + id)).thenReturn(new CachedBadge("B00" + id, BadgeStatus.ACTIVE, "E00" + id));
+            when(cacheManager.getEmployee("E00" + id)).thenReturn(employee);
+            when(cacheManager.checkPermission(eq(employee), eq(room), any())).thenReturn(ReasonCode.ALLOW);
+        }
+
+        assertEquals(ReasonCode.ALLOW, service.processAccess(createAccessRequest("B001", "R001")).getReasonCode());
+        assertEquals(ReasonCode.ALLOW, service.processAccess(createAccessRequest("B002", "R001")).getReasonCode());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package acs.service.impl;
+
+import acs.cache.AccessCountIndex;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.log.LogRetentionPolicy;
+import acs.stats.AccessHistogram;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AccessCountServiceImplTest {
+
+    @Mock
+    private LocalCacheManager cacheManager;
+
+    @Mock
+    private AccessCountIndex accessCounts;
+
+    private LogRetentionPolicy retentionPolicy;
+    private AccessCountServiceImpl accessCountService;
+
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.MINUTES);
+
+    @BeforeEach
+    void setUp() {
+        retentionPolicy = new LogRetentionPolicy();
+        retentionPolicy.getReasonDays().put(ReasonCode.SYSTEM_ERROR, 90);
+        accessCountService = new AccessCountServiceImpl(cacheManager, retentionPolicy, 1000);
+        lenient().when(cacheManager.getAccessCounts()).thenReturn(accessCounts);
+    }
+
+    @Test
+    void count_shouldReadIndex() {
+        Instant from = now.minus(95, ChronoUnit.MINUTES);
+        when(accessCounts.count("D1", AccessDecision.DENY, local(from), local(now))).thenReturn(4L);
+
+        assertEquals(4, accessCountService.count("D1", AccessDecision.DENY, from, now));
+    }
+
+    @Test
+    void count_beforeRetention_shouldBeRejected() {
+        Instant tenDaysAgo = now.minus(10, ChronoUnit.DAYS);
+
+        // 默认保留 7 天
+        assertThrows(IllegalArgumentException.class,
+                () -> accessCountService.count(null, AccessDecision.DENY, tenDaysAgo, now));
+        // SYSTEM_ERROR 保留 90 天
+        accessCountService.count(null, ReasonCode.SYSTEM_ERROR, tenDaysAgo, now);
+        verify(accessCounts).count(null, ReasonCode.SYSTEM_ERROR, local(tenDaysAgo), local(now));
+    }
+
+    @Test
+    void histogram_shouldCoverRangeWithWholeBuckets() {
+        Instant from = now.minus(100, ChronoUnit.MINUTES);
+        when(accessCounts.histogram(eq("D1"), eq(ReasonCode.ALLOW), any(), eq(15), eq(7)))
+                .thenReturn(new long[]{1, 2, 3, 4, 5, 6, 7});
+
+        AccessHistogram histogram = accessCountService.histogram("D1", ReasonCode.ALLOW, from, now,
+                Duration.ofMinutes(15));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), histogram.counts());
+        assertEquals(from, histogram.from());
+    }
+
+    @Test
+    void histogram_shouldRejectInvalidBuckets() {
+        Instant from = now.minus(1, ChronoUnit.DAYS);
+        assertThrows(IllegalArgumentException.class, () -> accessCountService.histogram(null, AccessDecision.ALLOW,
+                from, now, Duration.ofSeconds(30)));
+        // 1440 个桶超过上限
+        assertThrows(IllegalArgumentException.class, () -> accessCountService.histogram(null, AccessDecision.ALLOW,
+                from, now, Duration.ofMinutes(1)));
+    }
+
+    private static LocalDateTime local(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
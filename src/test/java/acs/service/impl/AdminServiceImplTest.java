@@ -2,6 +2,8 @@ package acs.service.impl;
 
 import acs.cache.LocalCacheManager;
 import acs.domain.*;
+import acs.lockdown.LockdownManager;
+import acs.repository.AccessScheduleRepository;
 import acs.repository.BadgeRepository;
 import acs.repository.EmployeeRepository;
 import acs.repository.GroupRepository;
@@ -33,9 +35,15 @@ public class AdminServiceImplTest {
     @Mock
     private ResourceRepository resourceRepository;
 
+    @Mock
+    private AccessScheduleRepository scheduleRepository;
+
     @Mock
     private LocalCacheManager cacheManager;
 
+    @Mock
+    private LockdownManager lockdownManager;
+
     @InjectMocks
     private AdminServiceImpl adminService;
 
@@ -155,4 +163,57 @@ public class AdminServiceImplTest {
         verify(cacheManager).updateGroup(group);
         verify(cacheManager).updateResource(resource);
     }
-}
\ No newline at end of file
+
+    @Test
+    void attachScheduleToGrant_success() {
+        String groupId = "G001";
+        String resourceId = "R001";
+        Group group = new Group(groupId, "Admin");
+        group.getResources().add(new Resource(resourceId, "Door", ResourceType.DOOR, ResourceState.AVAILABLE));
+
+        when(groupRepository.findById(groupId)).thenReturn(Optional.of(group));
+        when(scheduleRepository.existsById("S001")).thenReturn(true);
+
+        adminService.attachScheduleToGrant(groupId, resourceId, "S001");
+
+        assertEquals("S001", group.getResourceSchedules().get(resourceId));
+        verify(groupRepository).save(group);
+        verify(cacheManager).updateGroup(group);
+    }
+
+    @Test
+    void attachScheduleToGrant_withoutGrant_shouldThrow() {
+        Group group = new Group("G001", "Admin"); // 没有对 R001 的授权
+        when(groupRepository.findById("G001")).thenReturn(Optional.of(group));
+        when(scheduleRepository.existsById("S001")).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () ->
+            adminService.attachScheduleToGrant("G001", "R001", "S001")
+        );
+        verify(cacheManager, never()).updateGroup(any());
+    }
+
+    @Test
+    void setGroupParent_cycle_shouldThrow() {
+        Group parent = new Group("G001", "Staff");
+        Group child = new Group("G002", "Engineers");
+        child.setParentGroupId("G001");
+        when(groupRepository.findById("G001")).thenReturn(Optional.of(parent));
+        when(groupRepository.findById("G002")).thenReturn(Optional.of(child));
+
+        // G001 -> G002 -> G001 形成环
+        assertThrows(IllegalStateException.class, () ->
+            adminService.setGroupParent("G001", "G002")
+        );
+        assertNull(parent.getParentGroupId());
+        verify(cacheManager, never()).updateGroup(any());
+    }
+
+    @Test
+    void activateLockdown_unknownType_shouldThrow() {
+        assertThrows(IllegalArgumentException.class, () ->
+            adminService.activateLockdown(LockdownScope.TYPE, "ELEVATOR")
+        );
+        verify(lockdownManager, never()).activate(any(), any());
+    }
+}
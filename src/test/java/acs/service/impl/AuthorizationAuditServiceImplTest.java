@@ -0,0 +1,163 @@
+package acs.service.impl;
+
+import acs.audit.AccessAuditQuery;
+import acs.audit.AuditedEmployee;
+import acs.audit.EmployeePage;
+import acs.cache.CacheFixture;
+import acs.cache.LocalCacheManager;
+import acs.domain.ResourceType;
+import acs.repository.AccessLogRepository;
+import acs.repository.AccessScheduleRepository;
+import acs.repository.BadgeRepository;
+import acs.repository.EmployeeRepository;
+import acs.repository.GroupRepository;
+import acs.repository.ResourceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthorizationAuditServiceImplTest {
+
+    @Mock
+    private BadgeRepository badgeRepository;
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private GroupRepository groupRepository;
+    @Mock
+    private ResourceRepository resourceRepository;
+    @Mock
+    private AccessScheduleRepository scheduleRepository;
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    private LocalCacheManager cacheManager;
+    private AuthorizationAuditServiceImpl auditService;
+    private CacheFixture fixture;
+
+    // 资源层级：BLD -> F1 -> SERVER；另有独立的 LOBBY
+    // 组：G_FLOOR 授权 F1；G_LOBBY 授权 LOBBY；G_ADMIN（父组 G_LOBBY）授权 SERVER
+    @BeforeEach
+    void setUp() {
+        cacheManager = new LocalCacheManager(badgeRepository, employeeRepository, groupRepository,
+                resourceRepository, scheduleRepository, accessLogRepository);
+        auditService = new AuthorizationAuditServiceImpl(cacheManager, 1000);
+        fixture = new CacheFixture(cacheManager);
+        resource("BLD", null);
+        resource("F1", "BLD");
+        resource("SERVER", "F1");
+        resource("LOBBY", null);
+        group("G_FLOOR", null, "F1");
+        group("G_LOBBY", null, "LOBBY");
+        group("G_ADMIN", "G_LOBBY", "SERVER");
+        employee("E1", "G_FLOOR");
+        employee("E2", "G_LOBBY");
+        employee("E3", "G_ADMIN");
+        employee("E4", "G_LOBBY", "G_FLOOR");
+    }
+
+    private void resource(String id, String parentId) {
+        fixture.resource(id, ResourceType.OTHER, parentId);
+    }
+
+    private void group(String id, String parentId, String... resourceIds) {
+        fixture.group(id, parentId, resourceIds);
+    }
+
+    // 不绑定徽章的员工
+    private void employee(String id, String... groupIds) {
+        fixture.employee(id, null, groupIds);
+    }
+
+    private List<String> ids(EmployeePage page) {
+        return page.employees().stream().map(AuditedEmployee::employeeId).toList();
+    }
+
+    private List<String> whoCanAccess(AccessAuditQuery query) {
+        return ids(auditService.find(query, null, 1000));
+    }
+
+    @Test
+    void canAccess_shouldIncludeZoneAndInheritedGrants() {
+        // E1/E4 经楼层授权，E3 经 G_ADMIN 直接授权
+        assertEquals(List.of("E1", "E3", "E4"), whoCanAccess(AccessAuditQuery.canAccess("SERVER")));
+        // E3 继承父组 G_LOBBY 的授权
+        assertEquals(List.of("E2", "E3", "E4"), whoCanAccess(AccessAuditQuery.canAccess("LOBBY")));
+        assertTrue(whoCanAccess(AccessAuditQuery.canAccess("BLD")).isEmpty());
+
+        assertEquals(List.of("E1"), whoCanAccess(AccessAuditQuery.canAccessExcept("SERVER", "LOBBY")));
+        assertEquals(List.of("E3", "E4"),
+                whoCanAccess(new AccessAuditQuery(Set.of("SERVER", "LOBBY"), null, null)));
+        assertEquals(4, auditService.count(new AccessAuditQuery(null, Set.of("SERVER", "LOBBY"), null)));
+    }
+
+    @Test
+    void adminChanges_shouldUpdateIndexIncrementally() {
+        // 员工退出组、组撤销授权、员工删除
+        employee("E1");
+        assertEquals(List.of("E3", "E4"), whoCanAccess(AccessAuditQuery.canAccess("SERVER")));
+
+        group("G_FLOOR", null);
+        assertEquals(List.of("E3"), whoCanAccess(AccessAuditQuery.canAccess("SERVER")));
+
+        cacheManager.removeEmployee("E3");
+        assertEquals(0, auditService.count(AccessAuditQuery.canAccess("SERVER")));
+
+        // 授权整栋楼后新员工立即可见
+        group("G_FLOOR", null, "BLD");
+        employee("E5", "G_FLOOR");
+        assertEquals(List.of("E4", "E5"), whoCanAccess(AccessAuditQuery.canAccess("SERVER")));
+
+        // 删除组：成员失去该组授权，子组变为顶层组
+        cacheManager.removeGroup("G_LOBBY");
+        assertTrue(whoCanAccess(AccessAuditQuery.canAccess("LOBBY")).isEmpty());
+    }
+
+    @Test
+    void find_shouldPageWithStableCursor() {
+        for (int i = 0; i < 2500; i++) {
+            employee(String.format("P%04d", i), "G_LOBBY");
+        }
+
+        List<String> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            EmployeePage page = auditService.find(AccessAuditQuery.canAccess("LOBBY"), cursor, 1000);
+            assertEquals(2503, page.total());
+            collected.addAll(ids(page));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(2503, collected.size());
+        assertEquals(2503, Set.copyOf(collected).size());
+
+        List<AuditedEmployee> exported = new ArrayList<>();
+        auditService.export(AccessAuditQuery.canAccess("LOBBY"), exported::add);
+        assertEquals(2503, exported.size());
+        assertEquals("Name P0000", exported.get(3).employeeName());
+    }
+
+    @Test
+    void invalidQuery_shouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> auditService.count(AccessAuditQuery.canAccess("UNKNOWN")));
+        assertThrows(IllegalArgumentException.class,
+                () -> auditService.count(new AccessAuditQuery(null, null, Set.of("LOBBY"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> auditService.find(AccessAuditQuery.canAccess("LOBBY"), null, 1001));
+        assertThrows(IllegalArgumentException.class,
+                () -> auditService.find(AccessAuditQuery.canAccess("LOBBY"), "abc", 10));
+    }
+}
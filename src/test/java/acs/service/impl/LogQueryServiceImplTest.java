@@ -1,6 +1,7 @@
 package acs.service.impl;
 
 import acs.cache.LocalCacheManager;
+import acs.datasource.DataSourceRoute;
 import acs.domain.LogEntry;
 import acs.domain.Badge;
 import acs.domain.Employee;
@@ -8,10 +9,16 @@ import acs.domain.Resource;
 import acs.domain.ResourceState;
 import acs.domain.ResourceType;
 import acs.domain.AccessDecision;
+import acs.log.archive.ArchiveQuery;
+import acs.log.archive.LogArchive;
+import acs.repository.AccessLogRepository;
+import acs.resilience.Bulkheads;
+import acs.resilience.WorkloadProperties;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Instant;
@@ -22,6 +29,10 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,6 +41,15 @@ public class LogQueryServiceImplTest {
     @Mock
     private LocalCacheManager cacheManager;
 
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    @Mock
+    private LogArchive archive;
+
+    @Spy
+    private Bulkheads bulkheads = new Bulkheads(new WorkloadProperties());
+
     @InjectMocks
     private LogQueryServiceImpl logQueryService;
 
@@ -129,4 +149,44 @@ public class LogQueryServiceImplTest {
         assertEquals(2, result.size());
         assertTrue(result.containsAll(Arrays.asList(log1, log2)));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByBadge_shouldSpanCacheDatabaseAndArchive() {
+        LogEntry cached = withId(createLogEntry("B001", "E001", "R001", AccessDecision.ALLOW, baseTime), 30L);
+        LogEntry fromDb = withId(createLogEntry("B001", "E001", "R001", AccessDecision.ALLOW, baseTime.minusDays(10)), 20L);
+        LogEntry archived = withId(createLogEntry("B001", "E001", "R001", AccessDecision.DENY, baseTime.minusDays(100)), 10L);
+        LogEntry archivedTwice = withId(createLogEntry("B001", "E001", "R001", AccessDecision.ALLOW, baseTime.minusDays(10)), 20L);
+
+        when(cacheManager.getLogs()).thenReturn(List.of(cached));
+        when(cacheManager.oldestLogTimestamp()).thenReturn(baseTime.minusDays(1));
+        when(accessLogRepository.findByBadgeIdAndTimestampBetween(eq("B001"), any(), eq(baseTime.minusDays(1))))
+                .thenReturn(List.of(fromDb));
+        when(archive.query(any(ArchiveQuery.class))).thenReturn(List.of(archived, archivedTwice));
+
+        List<LogEntry> result = logQueryService.findByBadge("B001",
+                baseInstant.minus(365, ChronoUnit.DAYS), baseInstant.plus(1, ChronoUnit.HOURS));
+
+        // 按ID去重（清理中断导致数据库与归档重叠），按时间升序
+        assertEquals(List.of(archived, fromDb, cached), result);
+        // 未启用只读副本：数据库部分由主库提供
+        assertEquals(DataSourceRoute.PRIMARY, logQueryService.lastServedBy());
+    }
+
+    @Test
+    void findDenied_withinCachedRange_shouldNotQueryDatabase() {
+        LogEntry denied = createLogEntry("B001", "E001", "R001", AccessDecision.DENY, baseTime);
+        when(cacheManager.getLogs()).thenReturn(List.of(denied));
+        when(cacheManager.oldestLogTimestamp()).thenReturn(baseTime.minusDays(1));
+
+        List<LogEntry> result = logQueryService.findDenied(baseInstant, baseInstant.plus(1, ChronoUnit.HOURS));
+
+        assertEquals(List.of(denied), result);
+        verify(accessLogRepository, never()).findByDecisionAndTimestampBetween(any(), any(), any());
+        assertNull(logQueryService.lastServedBy());
+    }
+
+    private static LogEntry withId(LogEntry log, long id) {
+        log.setId(id);
+        return log;
+    }
+}
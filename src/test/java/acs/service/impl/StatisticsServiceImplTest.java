@@ -0,0 +1,109 @@
+package acs.service.impl;
+
+import acs.domain.AccessDecision;
+import acs.domain.ReasonCode;
+import acs.stats.AccessStat;
+import acs.stats.AccessStatsRollup;
+import acs.stats.RollupGranularity;
+import acs.stats.StatDimension;
+import acs.stats.StatSeries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StatisticsServiceImplTest {
+
+    @Mock
+    private AccessStatsRollup statsRollup;
+
+    private StatisticsServiceImpl statisticsService;
+
+    private final LocalDateTime today = LocalDateTime.now().toLocalDate().atStartOfDay();
+
+    @BeforeEach
+    void setUp() {
+        statisticsService = new StatisticsServiceImpl(statsRollup, 2500);
+        lenient().when(statsRollup.minuteRetainedSince(any())).thenReturn(today.minusDays(7));
+        lenient().when(statsRollup.hourRetainedSince(any())).thenReturn(today.minusDays(400));
+    }
+
+    private static Instant instant(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    @Test
+    void decisionTotals_shouldReadWholeDaysThenHourAndMinuteEdges() {
+        LocalDateTime from = today.minusDays(3).withHour(22).withMinute(45);
+        LocalDateTime to = today.withHour(1).withMinute(30);
+        when(statsRollup.query(any(), eq(StatDimension.RESOURCE), eq("R001"), any(), any())).thenReturn(List.of());
+        when(statsRollup.query(RollupGranularity.DAY, StatDimension.RESOURCE, "R001", today.minusDays(2), today))
+                .thenReturn(List.of(new AccessStat(today.minusDays(2), AccessDecision.ALLOW, ReasonCode.ALLOW, 100),
+                        new AccessStat(today.minusDays(1), AccessDecision.DENY, ReasonCode.BADGE_INACTIVE, 3)));
+        when(statsRollup.query(RollupGranularity.MINUTE, StatDimension.RESOURCE, "R001", from, from.withHour(23).withMinute(0)))
+                .thenReturn(List.of(new AccessStat(from, AccessDecision.ALLOW, ReasonCode.ALLOW, 5)));
+
+        Map<AccessDecision, Long> totals = statisticsService.decisionTotals(StatDimension.RESOURCE, "R001",
+                instant(from), instant(to));
+
+        assertEquals(Map.of(AccessDecision.ALLOW, 105L, AccessDecision.DENY, 3L), totals);
+        // 整天 + 22:45-23:00 分钟 + 23:00-24:00 小时 + 00:00-01:00 小时 + 01:00-01:30 分钟
+        verify(statsRollup).query(RollupGranularity.DAY, StatDimension.RESOURCE, "R001", today.minusDays(2), today);
+        verify(statsRollup).query(RollupGranularity.HOUR, StatDimension.RESOURCE, "R001", from.withHour(23).withMinute(0), today.minusDays(2));
+        verify(statsRollup).query(RollupGranularity.HOUR, StatDimension.RESOURCE, "R001", today, today.withHour(1));
+        verify(statsRollup).query(RollupGranularity.MINUTE, StatDimension.RESOURCE, "R001", today.withHour(1), to);
+        verify(statsRollup, times(5)).query(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void reasonTotals_beyondMinuteRetention_shouldRoundEdgeToWholeHour() {
+        LocalDateTime from = today.minusDays(90).withHour(10).withMinute(20);
+        when(statsRollup.query(any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        statisticsService.reasonTotals(StatDimension.ALL, StatDimension.ALL_ID, instant(from), instant(today));
+
+        // 90 天前的一端没有分钟桶：按 10:00 起的整小时读取
+        verify(statsRollup).query(RollupGranularity.HOUR, StatDimension.ALL, StatDimension.ALL_ID,
+                from.withMinute(0), today.minusDays(89));
+        verify(statsRollup, never()).query(eq(RollupGranularity.MINUTE), any(), any(), any(), any());
+    }
+
+    @Test
+    void series_shouldCoarsenWhenTooManyBuckets() {
+        when(statsRollup.query(any(), any(), any(), any(), any())).thenReturn(List.of());
+
+        // 3 天的分钟序列 4320 个桶超过上限，改为小时
+        StatSeries series = statisticsService.series(StatDimension.GROUP, "G1",
+                instant(today.minusDays(3)), instant(today), RollupGranularity.MINUTE);
+        assertEquals(RollupGranularity.HOUR, series.granularity());
+
+        // 30 天前的小时序列仍在保留期内
+        series = statisticsService.series(StatDimension.GROUP, "G1",
+                instant(today.minusDays(30)), instant(today.minusDays(29)), RollupGranularity.HOUR);
+        assertEquals(RollupGranularity.HOUR, series.granularity());
+
+        // 分钟桶已过期时改为小时
+        series = statisticsService.series(StatDimension.GROUP, "G1",
+                instant(today.minusDays(30)), instant(today.minusDays(30).plusHours(1)), RollupGranularity.MINUTE);
+        assertEquals(RollupGranularity.HOUR, series.granularity());
+    }
+
+    @Test
+    void emptyRange_shouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> statisticsService.decisionTotals(StatDimension.ALL,
+                StatDimension.ALL_ID, instant(today), instant(today)));
+    }
+}
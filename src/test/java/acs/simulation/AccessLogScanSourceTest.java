@@ -0,0 +1,78 @@
+package acs.simulation;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.log.archive.LogArchive;
+import acs.resilience.Bulkheads;
+import acs.resilience.WorkloadProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogScanSourceTest {
+
+    @TempDir
+    Path directory;
+
+    private LogArchive archive;
+    private JdbcTemplate jdbcTemplate;
+    private AccessLogScanSource source;
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @BeforeEach
+    void setUp() {
+        archive = new LogArchive(directory.toString(), true, 50_000, 365, 4);
+        archive.open();
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:scan-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE access_logs (id BIGINT NOT NULL, timestamp DATETIME NOT NULL, "
+                + "badge_id VARCHAR(50), resource_id VARCHAR(50), decision VARCHAR(10) NOT NULL, "
+                + "reason_code VARCHAR(30), direction VARCHAR(10), PRIMARY KEY (id, timestamp))");
+        source = new AccessLogScanSource(jdbcTemplate, archive, new Bulkheads(new WorkloadProperties()), 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.close();
+    }
+
+    private LogEntry log(long id) {
+        LogEntry log = new LogEntry(base.plusMinutes(id), "B" + id, "E" + id, "R1", AccessDecision.ALLOW, ReasonCode.ALLOW);
+        log.setId(id);
+        return log;
+    }
+
+    private void insert(long id) {
+        jdbcTemplate.update("INSERT INTO access_logs (id, timestamp, badge_id, resource_id, decision, reason_code) "
+                + "VALUES (?, ?, ?, 'R1', 'ALLOW', 'ALLOW')", id, Timestamp.valueOf(base.plusMinutes(id)), "B" + id);
+    }
+
+    @Test
+    void scan_shouldEmitEachLogOnceAcrossArchiveAndDatabase() {
+        // 清理中断两次：3 被归档两次；4 已归档但尚未从数据库删除
+        archive.write(List.of(log(1), log(2), log(3)));
+        archive.write(List.of(log(3), log(4)));
+        insert(4);
+        insert(5);
+        insert(90);  // 时间窗口之外
+
+        List<Long> ids = new ArrayList<>();
+        source.scan(base, base.plusMinutes(60), scan -> ids.add(scan.id()));
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids.stream().sorted().toList());
+    }
+}
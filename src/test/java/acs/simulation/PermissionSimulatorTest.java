@@ -0,0 +1,168 @@
+package acs.simulation;
+
+import acs.cache.CacheFixture;
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.AccessDirection;
+import acs.domain.AccessSchedule;
+import acs.domain.ReasonCode;
+import acs.domain.ResourceType;
+import acs.domain.ScheduleWindow;
+import acs.repository.AccessLogRepository;
+import acs.repository.AccessScheduleRepository;
+import acs.repository.BadgeRepository;
+import acs.repository.EmployeeRepository;
+import acs.repository.GroupRepository;
+import acs.repository.ResourceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PermissionSimulatorTest {
+
+    @Mock
+    private BadgeRepository badgeRepository;
+    @Mock
+    private EmployeeRepository employeeRepository;
+    @Mock
+    private GroupRepository groupRepository;
+    @Mock
+    private ResourceRepository resourceRepository;
+    @Mock
+    private AccessScheduleRepository scheduleRepository;
+    @Mock
+    private AccessLogRepository accessLogRepository;
+
+    // 2024-05-06 是星期一
+    private final LocalDateTime monday = LocalDateTime.of(2024, 5, 6, 0, 0);
+    private final List<HistoricalScan> history = new ArrayList<>();
+    private LocalCacheManager cacheManager;
+    private PermissionSimulator simulator;
+    private long nextLogId = 1;
+
+    // 资源：F1 -> SERVER，LOBBY；组：G_FLOOR 授权 F1，G_LOBBY 授权 LOBBY
+    // 员工：E1(B1) 属于 G_FLOOR，E2(B2) 属于 G_LOBBY 与 G_FLOOR
+    @BeforeEach
+    void setUp() {
+        cacheManager = new LocalCacheManager(badgeRepository, employeeRepository, groupRepository,
+                resourceRepository, scheduleRepository, accessLogRepository);
+        ScanSource source = (start, end, consumer) -> history.stream()
+                .filter(scan -> !scan.timestamp().isBefore(start) && scan.timestamp().isBefore(end))
+                .forEach(consumer);
+        simulator = new PermissionSimulator(cacheManager, source, 4, 24, 10);
+
+        CacheFixture fixture = new CacheFixture(cacheManager);
+        fixture.resource("F1", ResourceType.ROOM, null);
+        fixture.resource("SERVER", ResourceType.ROOM, "F1");
+        fixture.resource("LOBBY", ResourceType.ROOM, null);
+        fixture.group("G_FLOOR", null, "F1");
+        fixture.group("G_LOBBY", null, "LOBBY");
+        fixture.employee("E1", "B1", "G_FLOOR");
+        fixture.employee("E2", "B2", "G_LOBBY", "G_FLOOR");
+    }
+
+    @AfterEach
+    void tearDown() {
+        simulator.shutdown();
+    }
+
+    private void scan(LocalDateTime time, String badgeId, String resourceId, ReasonCode reasonCode,
+                      AccessDirection direction) {
+        AccessDecision decision = reasonCode == ReasonCode.ALLOW ? AccessDecision.ALLOW : AccessDecision.DENY;
+        history.add(new HistoricalScan(nextLogId++, time, badgeId, resourceId, decision, reasonCode, direction));
+    }
+
+    private SimulationReport simulate(SimulatedChange... changes) {
+        return simulator.simulate(List.of(changes), monday, monday.plusDays(30));
+    }
+
+    @Test
+    void revokeGrant_shouldReportNewlyDeniedScansByResourceGroupAndReason() {
+        for (int day = 0; day < 30; day++) {
+            scan(monday.plusDays(day).plusHours(10), "B1", "SERVER", ReasonCode.ALLOW, AccessDirection.ENTRY);
+            scan(monday.plusDays(day).plusHours(11), "B2", "SERVER", ReasonCode.ALLOW, AccessDirection.ENTRY);
+            scan(monday.plusDays(day).plusHours(12), "B2", "LOBBY", ReasonCode.ALLOW, AccessDirection.ENTRY);
+            // 离开不检查权限，不回放
+            scan(monday.plusDays(day).plusHours(13), "B1", "SERVER", ReasonCode.ALLOW, AccessDirection.EXIT);
+        }
+        // 当时被占用的刷卡：撤销后原因变为没有权限
+        scan(monday.plusHours(9), "B1", "SERVER", ReasonCode.RESOURCE_OCCUPIED, null);
+
+        SimulationReport report = simulate(new SimulatedChange.RemoveEmployeeFromGroup("E1", "G_FLOOR"));
+
+        assertEquals(121, report.scannedLogs());
+        assertEquals(91, report.replayedScans());
+        assertEquals(31, report.changedScans());
+        assertEquals(0, report.baselineMismatches());
+        assertEquals(30, report.partitions());
+        assertEquals(new DecisionDiff(30, 0, 1), report.byResource().get("SERVER"));
+        assertFalse(report.byResource().containsKey("LOBBY"));
+        assertEquals(new DecisionDiff(30, 0, 1), report.byGroup().get("G_FLOOR"));
+        assertEquals(List.of(new ReasonTransition(ReasonCode.ALLOW, ReasonCode.NO_PERMISSION, 30),
+                        new ReasonTransition(ReasonCode.RESOURCE_OCCUPIED, ReasonCode.NO_PERMISSION, 1)),
+                report.byReason());
+        assertEquals(10, report.sampleLogIds().size());
+
+        // 缓存中的授权不受模拟影响
+        assertEquals(ReasonCode.ALLOW, cacheManager.checkPermission(cacheManager.getEmployee("E1"),
+                cacheManager.getResource("SERVER"), monday));
+    }
+
+    @Test
+    void attachSchedule_shouldOnlyAffectScansOutsideWindows() {
+        AccessSchedule businessHours = new AccessSchedule("BUSINESS", "工作时间");
+        for (DayOfWeek day : List.of(DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY,
+                DayOfWeek.THURSDAY, DayOfWeek.FRIDAY)) {
+            businessHours.getWindows().add(new ScheduleWindow(day, LocalTime.of(9, 0), LocalTime.of(18, 0)));
+        }
+        for (int day = 0; day < 7; day++) {
+            scan(monday.plusDays(day).plusHours(10), "B2", "LOBBY", ReasonCode.ALLOW, AccessDirection.ENTRY);
+            scan(monday.plusDays(day).plusHours(22), "B2", "LOBBY", ReasonCode.ALLOW, AccessDirection.ENTRY);
+        }
+
+        SimulationReport report = simulate(new SimulatedChange.DefineSchedule(businessHours),
+                new SimulatedChange.AttachSchedule("G_LOBBY", "LOBBY", "BUSINESS"));
+
+        // 每晚 22 点 7 次 + 周末白天 2 次
+        assertEquals(9, report.changedScans());
+        assertEquals(List.of(new ReasonTransition(ReasonCode.ALLOW, ReasonCode.OUTSIDE_SCHEDULE, 9)),
+                report.byReason());
+        assertEquals(new DecisionDiff(9, 0, 0), report.byGroup().get("G_LOBBY"));
+    }
+
+    @Test
+    void grantAccess_shouldReportNewlyAllowedAndBaselineDrift() {
+        scan(monday.plusHours(10), "B1", "LOBBY", ReasonCode.NO_PERMISSION, AccessDirection.ENTRY);
+        // 当时被拒（那时还没有授权），当前授权下已允许
+        scan(monday.plusHours(11), "B2", "LOBBY", ReasonCode.NO_PERMISSION, AccessDirection.ENTRY);
+
+        SimulationReport report = simulate(new SimulatedChange.GrantGroupAccess("G_FLOOR", "LOBBY"));
+
+        assertEquals(1, report.changedScans());
+        assertEquals(new DecisionDiff(0, 1, 0), report.byResource().get("LOBBY"));
+        assertEquals(1, report.baselineMismatches());
+    }
+
+    @Test
+    void invalidChange_shouldThrow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> simulate(new SimulatedChange.RevokeGroupAccess("G_UNKNOWN", "LOBBY")));
+        assertThrows(IllegalStateException.class,
+                () -> simulate(new SimulatedChange.AttachSchedule("G_LOBBY", "SERVER", "BUSINESS")));
+        assertThrows(IllegalStateException.class, () -> simulate(
+                new SimulatedChange.SetGroupParent("G_LOBBY", "G_FLOOR"),
+                new SimulatedChange.SetGroupParent("G_FLOOR", "G_LOBBY")));
+    }
+}
@@ -0,0 +1,112 @@
+package acs.stats;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import acs.stats.sketch.CardinalityEstimate;
+import acs.stats.sketch.FrequencyEstimate;
+import acs.stats.sketch.TopK;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AccessSketchesTest {
+
+    private final LocalDate today = LocalDate.now();
+
+    private LocalCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = mock(LocalCacheManager.class);
+    }
+
+    private AccessSketches sketches() {
+        return new AccessSketches(cacheManager, 64, 1024, 4, 12, 10, 35);
+    }
+
+    private static LogEntry log(LocalDateTime time, String badgeId, String resourceId, boolean denied) {
+        return new LogEntry(time, badgeId, "E001", resourceId, denied ? AccessDecision.DENY : AccessDecision.ALLOW,
+                denied ? ReasonCode.NO_PERMISSION : ReasonCode.ALLOW);
+    }
+
+    // 一周内：B1 每天被拒 10 次，B2 每天被拒 3 次，200 个徽章各允许访问 D1 一次
+    private List<LogEntry> week() {
+        List<LogEntry> logs = new ArrayList<>();
+        for (int day = 0; day < 7; day++) {
+            LocalDateTime time = today.minusDays(day).atTime(9, 0);
+            for (int i = 0; i < 10; i++) {
+                logs.add(log(time.plusMinutes(i), "B1", "D" + (i % 3), true));
+            }
+            for (int i = 0; i < 3; i++) {
+                logs.add(log(time.plusMinutes(i), "B2", "D1", true));
+            }
+            for (int i = 0; i < 200; i++) {
+                logs.add(log(time.plusSeconds(i), "A" + i, "D1", false));
+            }
+        }
+        return logs;
+    }
+
+    @Test
+    void rebuild_shouldAnswerWeeklyQuestionsFromCachedLogs() {
+        when(cacheManager.getLogs()).thenReturn(week());
+        AccessSketches sketches = sketches();
+        sketches.rebuild();
+
+        TopK denied = sketches.top(DaySketches.Item.BADGE, true, today.minusDays(6), today, 2);
+        assertEquals(List.of("B1", "B2"), denied.items().stream().map(h -> h.item()).toList());
+        assertEquals(70, denied.items().get(0).count());
+        assertEquals(91, denied.total());
+
+        FrequencyEstimate b2 = sketches.badgeCount("B2", true, today.minusDays(6), today);
+        assertTrue(b2.count() >= 21 && b2.count() <= 21 + b2.maxOverestimate());
+
+        CardinalityEstimate distinct = sketches.distinctBadges("D1", today, today);
+        assertEquals(202, distinct.estimate(), 202 * 4 * distinct.relativeStandardError());
+
+        assertEquals(1400L, sketches.reasonCounts(today.minusDays(6), today).get(ReasonCode.ALLOW));
+        assertEquals(200L, sketches.reasonCounts(today, today).get(ReasonCode.ALLOW));
+    }
+
+    @Test
+    void exportedDays_shouldMergeAcrossNodes() {
+        AccessSketches nodeA = sketches();
+        AccessSketches nodeB = sketches();
+        LocalDateTime time = today.atTime(10, 0);
+        for (int i = 0; i < 50; i++) {
+            nodeA.record(List.of(log(time, "B" + i, "D1", false)));
+            nodeB.record(List.of(log(time, "B" + (i + 25), "D1", i < 5)));
+        }
+
+        nodeA.merge("node-b", today, nodeB.export(today));
+        // 同一节点同一天重复导入（例如重试）替换而不是累加
+        nodeA.merge("node-b", today, nodeB.export(today));
+
+        CardinalityEstimate distinct = nodeA.distinctBadges("D1", today, today);
+        assertEquals(75, distinct.estimate(), 75 * 4 * distinct.relativeStandardError());
+        assertEquals(100, nodeA.top(DaySketches.Item.RESOURCE, false, today, today, 1).items().get(0).count());
+        assertEquals(5, nodeA.top(DaySketches.Item.BADGE, true, today, today, 10).total());
+        assertEquals(5L, nodeA.reasonCounts(today, today).get(ReasonCode.NO_PERMISSION));
+        assertEquals(95L, nodeA.reasonCounts(today, today).get(ReasonCode.ALLOW));
+    }
+
+    @Test
+    void record_shouldDropDaysBeyondRetention() {
+        AccessSketches sketches = sketches();
+
+        sketches.record(List.of(log(today.minusDays(40).atTime(9, 0), "B1", "D1", false),
+                log(today.atTime(9, 0), "B1", "D1", false)));
+
+        assertEquals(1, sketches.top(DaySketches.Item.BADGE, false, today.minusDays(60), today, 1).total());
+    }
+}
@@ -0,0 +1,103 @@
+package acs.stats;
+
+import acs.cache.LocalCacheManager;
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在嵌入式数据库（H2，MySQL 兼容模式）上累加与查询汇总
+ */
+public class AccessStatsRollupTest {
+
+    private final LocalDateTime now = LocalDateTime.now().withSecond(30).withNano(0);
+
+    private JdbcTemplate jdbcTemplate;
+    private LocalCacheManager cacheManager;
+    private AccessStatsRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:stats-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V5__access_stats.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        cacheManager = mock(LocalCacheManager.class);
+        rollup = new AccessStatsRollup(jdbcTemplate, cacheManager, 7, 400);
+    }
+
+    private static LogEntry log(LocalDateTime time, String employeeId, String resourceId, AccessDecision decision,
+                                ReasonCode reasonCode) {
+        return new LogEntry(time, "B001", employeeId, resourceId, decision, reasonCode);
+    }
+
+    @Test
+    void aggregate_shouldCountEachLogPerGranularityAndDimension() {
+        LogEntry allowed = log(now, "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW);
+        LogEntry denied = log(now, "E001", "R001", AccessDecision.DENY, ReasonCode.BADGE_INACTIVE);
+
+        Map<RollupKey, Long> deltas = RollupAggregator.aggregate(List.of(allowed, allowed, denied),
+                employeeId -> List.of("G1", "G2"), now.minusDays(1));
+
+        // 2 种决策 × 3 个粒度 × (ALL + 资源 + 2 个组)
+        assertEquals(24, deltas.size());
+        assertEquals(2L, deltas.get(new RollupKey(RollupGranularity.HOUR, now.withMinute(0).withSecond(0),
+                StatDimension.GROUP, "G2", AccessDecision.ALLOW, ReasonCode.ALLOW)));
+        assertEquals(1L, deltas.get(new RollupKey(RollupGranularity.MINUTE, now.withSecond(0),
+                StatDimension.RESOURCE, "R001", AccessDecision.DENY, ReasonCode.BADGE_INACTIVE)));
+    }
+
+    @Test
+    void aggregate_shouldSkipMinuteBucketsBeforeRetention() {
+        LogEntry old = log(now.minusDays(30), "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW);
+
+        Map<RollupKey, Long> deltas = RollupAggregator.aggregate(List.of(old), employeeId -> List.of(), now.minusDays(7));
+
+        assertTrue(deltas.keySet().stream().noneMatch(key -> key.granularity() == RollupGranularity.MINUTE));
+        assertEquals(4, deltas.size());
+    }
+
+    @Test
+    void record_shouldAccumulateAcrossBatches() {
+        when(cacheManager.groupIdsOf("E001")).thenReturn(List.of("G1"));
+
+        rollup.record(List.of(log(now, "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW)));
+        rollup.record(List.of(log(now.plusSeconds(10), "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW),
+                log(now, "E001", "R001", AccessDecision.DENY, ReasonCode.RESOURCE_LOCKED)));
+
+        List<AccessStat> stats = rollup.query(RollupGranularity.DAY, StatDimension.GROUP, "G1",
+                now.toLocalDate().atStartOfDay(), now.toLocalDate().plusDays(1).atStartOfDay());
+        assertEquals(List.of(
+                new AccessStat(now.toLocalDate().atStartOfDay(), AccessDecision.ALLOW, ReasonCode.ALLOW, 2),
+                new AccessStat(now.toLocalDate().atStartOfDay(), AccessDecision.DENY, ReasonCode.RESOURCE_LOCKED, 1)),
+                stats.stream().sorted((a, b) -> a.decision().compareTo(b.decision())).toList());
+    }
+
+    @Test
+    void purgeExpired_shouldKeepDayBuckets() {
+        AccessStatsStore store = new AccessStatsStore(jdbcTemplate);
+        LocalDateTime longAgo = now.minusDays(500);
+        store.add(RollupAggregator.aggregate(List.of(log(longAgo, "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW)),
+                employeeId -> List.of(), longAgo));
+
+        assertEquals(4, rollup.purgeExpired(now));  // 分钟桶与小时桶各 2 行（ALL + 资源）
+
+        assertEquals(List.of("DAY"), jdbcTemplate.queryForList(
+                "SELECT DISTINCT granularity FROM access_stats", String.class));
+    }
+}
@@ -0,0 +1,41 @@
+package acs.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HyperLogLogTest {
+
+    @Test
+    void estimate_shouldBeWithinErrorBound() {
+        for (int distinct : new int[]{10, 1000, 100_000}) {
+            HyperLogLog sketch = new HyperLogLog(12);
+            for (int i = 0; i < distinct; i++) {
+                sketch.add("B" + i);
+                sketch.add("B" + i);  // 重复不计
+            }
+            // 4 倍标准误差
+            assertEquals(distinct, sketch.estimate(), distinct * 4 * sketch.relativeStandardError() + 1);
+        }
+    }
+
+    @Test
+    void merge_shouldEqualUnionOfStreams() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        HyperLogLog union = new HyperLogLog(12);
+        for (int i = 0; i < 20_000; i++) {
+            first.add("B" + i);
+            union.add("B" + i);
+        }
+        for (int i = 10_000; i < 30_000; i++) {
+            second.add("B" + i);
+            union.add("B" + i);
+        }
+
+        first.merge(second);
+
+        assertEquals(union.estimate(), first.estimate());
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new HyperLogLog(10)));
+    }
+}
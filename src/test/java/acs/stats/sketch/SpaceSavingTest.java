@@ -0,0 +1,84 @@
+package acs.stats.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpaceSavingTest {
+
+    // Zipf 分布的徽章流：少数徽章占大部分访问
+    private static Map<String, Long> stream(SpaceSaving sketch, long seed, int events) {
+        Random random = new Random(seed);
+        Map<String, Long> exact = new HashMap<>();
+        for (int i = 0; i < events; i++) {
+            String badge = "B" + (int) Math.floor(Math.pow(random.nextDouble(), 3) * 5000);
+            sketch.add(badge, 1);
+            exact.merge(badge, 1L, Long::sum);
+        }
+        return exact;
+    }
+
+    @Test
+    void top_shouldBoundTrueCountsAndFindHeavyHitters() {
+        SpaceSaving sketch = new SpaceSaving(100);
+        Map<String, Long> exact = stream(sketch, 1, 50_000);
+
+        TopK top = sketch.top(20);
+
+        assertEquals(20, top.items().size());
+        assertEquals(50_000, top.total());
+        for (HeavyHitter hitter : top.items()) {
+            long trueCount = exact.get(hitter.item());
+            assertTrue(trueCount <= hitter.count() && trueCount >= hitter.count() - hitter.error(), hitter.toString());
+        }
+        // 真实前 5 名都在结果中
+        exact.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(5)
+                .forEach(entry -> assertTrue(top.items().stream().anyMatch(h -> h.item().equals(entry.getKey()))));
+        // 未跟踪项不超过上界
+        exact.forEach((badge, count) -> {
+            if (top.items().stream().noneMatch(h -> h.item().equals(badge)) && count > top.untrackedMax()) {
+                assertTrue(sketch.top(100).items().stream().anyMatch(h -> h.item().equals(badge)), badge);
+            }
+        });
+    }
+
+    @Test
+    void merge_shouldKeepBoundsAcrossSummaries() {
+        SpaceSaving first = new SpaceSaving(100);
+        SpaceSaving second = new SpaceSaving(100);
+        Map<String, Long> exact = stream(first, 2, 30_000);
+        stream(second, 3, 30_000).forEach((badge, count) -> exact.merge(badge, count, Long::sum));
+
+        SpaceSaving merged = new SpaceSaving(100);
+        merged.merge(first);
+        merged.merge(second);
+        TopK top = merged.top(100);
+
+        assertEquals(60_000, top.total());
+        for (HeavyHitter hitter : top.items()) {
+            long trueCount = exact.get(hitter.item());
+            assertTrue(trueCount <= hitter.count() && trueCount >= hitter.count() - hitter.error(), hitter.toString());
+        }
+        exact.forEach((badge, count) -> {
+            if (top.items().stream().noneMatch(h -> h.item().equals(badge))) {
+                assertTrue(count <= top.untrackedMax(), badge);
+            }
+        });
+    }
+
+    @Test
+    void smallStream_shouldBeExact() {
+        SpaceSaving sketch = new SpaceSaving(10);
+        for (String badge : List.of("B1", "B2", "B1", "B3", "B1", "B2")) {
+            sketch.add(badge, 1);
+        }
+
+        assertEquals(List.of(new HeavyHitter("B1", 3, 0), new HeavyHitter("B2", 2, 0)), sketch.top(2).items());
+        assertEquals(0, sketch.untrackedMax());
+    }
+}
@@ -0,0 +1,294 @@
+package acs.stream;
+
+import acs.domain.AccessDecision;
+import acs.domain.LogEntry;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessEventBroadcasterTest {
+
+    private final LocalDateTime base = LocalDateTime.of(2024, 5, 1, 9, 0);
+    // 手动执行的发送任务：不执行即模拟慢订阅者
+    private final Deque<Runnable> senderTasks = new ArrayDeque<>();
+
+    private AccessEventBroadcaster broadcaster(int bufferSize, int replayCapacity) {
+        StreamProperties properties = new StreamProperties();
+        properties.setBufferSize(bufferSize);
+        properties.setReplayCapacity(replayCapacity);
+        properties.setSampleEvery(2);
+        return new AccessEventBroadcaster(properties, senderTasks::add);
+    }
+
+    private void runSenders() {
+        Runnable task;
+        while ((task = senderTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void publish(AccessEventBroadcaster broadcaster, int count, String resourceId, AccessDecision decision) {
+        for (int i = 0; i < count; i++) {
+            broadcaster.publish(new LogEntry(base.plusSeconds(i), "B" + i, "E001", resourceId, decision,
+                    decision == AccessDecision.DENY ? ReasonCode.NO_PERMISSION : ReasonCode.ALLOW));
+        }
+        broadcaster.dispatchPending();
+    }
+
+    @Test
+    void filter_shouldOnlyDeliverMatchingEvents() {
+        AccessEventBroadcaster broadcaster = broadcaster(100, 1000);
+        RecordingChannel denied = new RecordingChannel();
+        RecordingChannel all = new RecordingChannel();
+        broadcaster.subscribe(new AccessEventFilter(Set.of("R001"), null, Set.of(AccessDecision.DENY), null),
+                null, null, denied);
+        broadcaster.subscribe(AccessEventFilter.ALL, null, null, all);
+
+        publish(broadcaster, 3, "R001", AccessDecision.DENY);
+        publish(broadcaster, 2, "R002", AccessDecision.DENY);
+        publish(broadcaster, 4, "R001", AccessDecision.ALLOW);
+        runSenders();
+
+        assertEquals(3, denied.events().size());
+        assertTrue(denied.events().stream().allMatch(event -> "R001".equals(event.resourceId())));
+        assertEquals(9, all.events().size());
+    }
+
+    @Test
+    void dropPolicy_shouldKeepOldestAndReportGap() {
+        AccessEventBroadcaster broadcaster = broadcaster(4, 1000);
+        RecordingChannel slow = new RecordingChannel();
+        Subscription subscription = broadcaster.subscribe(AccessEventFilter.ALL, SlowConsumerPolicy.DROP, null, slow);
+
+        publish(broadcaster, 10, "R001", AccessDecision.ALLOW);
+        runSenders();
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), slow.sequences());
+        assertEquals(Map.of("dropped", 6L), slow.controlData(Subscription.GAP));
+        assertEquals(6, subscription.getDroppedEvents());
+        assertFalse(subscription.isClosed());
+    }
+
+    @Test
+    void samplePolicy_shouldThinOutWhenBacklogged() {
+        AccessEventBroadcaster broadcaster = broadcaster(4, 1000);
+        RecordingChannel slow = new RecordingChannel();
+        broadcaster.subscribe(AccessEventFilter.ALL, SlowConsumerPolicy.SAMPLE, null, slow);
+
+        publish(broadcaster, 10, "R001", AccessDecision.ALLOW);
+        runSenders();
+
+        // 前两个（未过半）全部保留，之后每两个保留一个，满时丢弃最旧的；最新事件一定送达
+        List<Long> sequences = slow.sequences();
+        assertEquals(4, sequences.size());
+        assertEquals(10L, sequences.get(sequences.size() - 1));
+        assertNotNull(slow.controlData(Subscription.GAP));
+    }
+
+    @Test
+    void disconnectPolicy_thenResume_shouldDeliverEverythingOnce() {
+        AccessEventBroadcaster broadcaster = broadcaster(4, 1000);
+        RecordingChannel first = new RecordingChannel();
+        Subscription subscription = broadcaster.subscribe(AccessEventFilter.ALL, SlowConsumerPolicy.DISCONNECT,
+                null, first);
+
+        publish(broadcaster, 2, "R001", AccessDecision.ALLOW);
+        runSenders();
+        publish(broadcaster, 8, "R001", AccessDecision.ALLOW);
+        runSenders();
+
+        assertTrue(subscription.isClosed());
+        assertTrue(first.closed);
+        assertEquals(0, broadcaster.getSubscribers());
+        assertEquals(List.of(1L, 2L), first.sequences());
+        String lastEventId = first.ids.get(first.ids.size() - 1);
+        assertEquals(Map.of("lastEventId", lastEventId), first.controlData(Subscription.OVERFLOW));
+
+        // 重连后补发断点之后的事件，并继续接收新事件
+        RecordingChannel resumed = new RecordingChannel();
+        broadcaster.subscribe(AccessEventFilter.ALL, SlowConsumerPolicy.DISCONNECT, lastEventId, resumed);
+        publish(broadcaster, 1, "R001", AccessDecision.ALLOW);
+        runSenders();
+
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L, 11L), resumed.sequences());
+    }
+
+    @Test
+    void resumeOlderThanReplayBuffer_shouldReportMissedEvents() {
+        AccessEventBroadcaster broadcaster = broadcaster(100, 5);
+        publish(broadcaster, 20, "R001", AccessDecision.ALLOW);
+        String staleId = broadcaster.getLatestEventId().replaceAll("-20$", "-3");
+
+        RecordingChannel channel = new RecordingChannel();
+        broadcaster.subscribe(AccessEventFilter.ALL, null, staleId, channel);
+        runSenders();
+
+        assertEquals(Map.of("missed", 12L), channel.controlData(Subscription.GAP));
+        assertEquals(List.of(16L, 17L, 18L, 19L, 20L), channel.sequences());
+
+        // 其他纪元（服务已重启）的ID：先 reset 再补发环形缓冲区
+        RecordingChannel restarted = new RecordingChannel();
+        broadcaster.subscribe(AccessEventFilter.ALL, null, "1-7", restarted);
+        runSenders();
+        assertNotNull(restarted.controlData(Subscription.RESET));
+        assertEquals(List.of(16L, 17L, 18L, 19L, 20L), restarted.sequences());
+    }
+
+    @Test
+    void publish_shouldNotDependOnSubscribers() {
+        StreamProperties properties = new StreamProperties();
+        properties.setDispatchQueueCapacity(3);
+        AccessEventBroadcaster broadcaster = new AccessEventBroadcaster(properties, senderTasks::add);
+        for (int i = 0; i < 1000; i++) {
+            broadcaster.subscribe(AccessEventFilter.ALL, null, null, new RecordingChannel());
+        }
+
+        // 分发线程未运行：发布只入队，队列满时丢弃计数，不等待任何订阅者
+        for (int i = 0; i < 5; i++) {
+            broadcaster.publish(new LogEntry(base, "B001", "E001", "R001", AccessDecision.ALLOW, ReasonCode.ALLOW));
+        }
+        assertEquals(2, broadcaster.getDroppedEvents());
+        assertTrue(senderTasks.isEmpty());
+
+        assertEquals(3, broadcaster.dispatchPending());
+        assertEquals(1000, senderTasks.size());
+    }
+
+    @Test
+    void subscribe_beyondLimit_shouldThrow() {
+        StreamProperties properties = new StreamProperties();
+        properties.setMaxSubscribers(1);
+        AccessEventBroadcaster broadcaster = new AccessEventBroadcaster(properties, senderTasks::add);
+        broadcaster.subscribe(null, null, null, new RecordingChannel());
+
+        assertThrows(IllegalStateException.class,
+                () -> broadcaster.subscribe(null, null, null, new RecordingChannel()));
+    }
+
+    @Test
+    void stalledSend_shouldDisconnectSubscriberAndKeepOthersFlowing() throws Exception {
+        ThreadPoolExecutor pool = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
+        try {
+            StreamProperties properties = new StreamProperties();
+            properties.setSendTimeoutMillis(200);
+            AccessEventBroadcaster broadcaster = new AccessEventBroadcaster(properties, pool);
+            StalledChannel stalled = new StalledChannel();
+            Subscription stuck = broadcaster.subscribe(AccessEventFilter.ALL, null, null, stalled);
+            CountDownLatch delivered = new CountDownLatch(1);
+            broadcaster.subscribe(AccessEventFilter.ALL, null, null, new EventChannel() {
+                @Override
+                public void send(String id, String name, Object data) {
+                    delivered.countDown();
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+
+            // 唯一的发送线程卡在第一个订阅者的写上
+            publish(broadcaster, 1, "R001", AccessDecision.ALLOW);
+            assertTrue(stalled.entered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, broadcaster.expireStalledSends(System.nanoTime()));
+
+            Thread.sleep(300);
+            assertEquals(1, broadcaster.expireStalledSends(System.nanoTime()));
+            assertTrue(stuck.isClosed());
+            assertEquals(1, broadcaster.getSubscribers());
+            assertTrue(stalled.interrupted.await(5, TimeUnit.SECONDS));
+            // 补充的线程让其他订阅者继续收到事件
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(2, pool.getCorePoolSize());
+
+            // 卡住的写返回后关闭通道并收回补充的线程
+            stalled.release.countDown();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((!stalled.closed || pool.getCorePoolSize() != 1) && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(stalled.closed);
+            assertEquals(1, pool.getCorePoolSize());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // 模拟对端不读数据的连接：写阻塞且不响应中断，直到 release
+    private static class StalledChannel implements EventChannel {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        volatile boolean closed;
+
+        @Override
+        public void send(String id, String name, Object data) {
+            entered.countDown();
+            while (true) {
+                try {
+                    release.await();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class RecordingChannel implements EventChannel {
+        final List<String> ids = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        final List<Object> data = new ArrayList<>();
+        boolean closed;
+
+        @Override
+        public void send(String id, String name, Object payload) {
+            if (id != null) {
+                ids.add(id);
+            }
+            names.add(name);
+            data.add(payload);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        List<AccessEvent> events() {
+            List<AccessEvent> events = new ArrayList<>();
+            for (Object payload : data) {
+                if (payload instanceof AccessEvent event) {
+                    events.add(event);
+                }
+            }
+            return events;
+        }
+
+        List<Long> sequences() {
+            return events().stream().map(AccessEvent::sequence).toList();
+        }
+
+        Object controlData(String name) {
+            int index = names.indexOf(name);
+            return index < 0 ? null : data.get(index);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package acs.trace;
+
+import acs.domain.AccessDecision;
+import acs.domain.AccessRequest;
+import acs.domain.AccessResult;
+import acs.domain.ReasonCode;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DecisionTracerTest {
+
+    private final AccessRequest request = new AccessRequest("B001", "R001", Instant.parse("2024-05-01T12:00:00Z"));
+    private final AccessResult allow = new AccessResult(AccessDecision.ALLOW, ReasonCode.ALLOW, "允许访问");
+
+    private static StageLatency stage(DecisionTracer tracer, String name) {
+        return tracer.stages().stream().filter(latency -> latency.stage().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    void stages_shouldBeContiguousAndAggregatedAcrossThreads() throws InterruptedException {
+        DecisionTracer tracer = new DecisionTracer(true, 1_000_000, 16);
+        int check = tracer.stage("CHECK_BADGE");
+        assertEquals(check, tracer.stage("CHECK_BADGE"));
+
+        Runnable request = () -> {
+            for (int i = 0; i < 100; i++) {
+                tracer.begin();
+                tracer.mark(check);
+                tracer.mark(TraceStage.COMMIT);
+                tracer.mark(TraceStage.JOURNAL_APPEND);
+                tracer.end(this.request, allow);
+            }
+        };
+        Thread other = new Thread(request);
+        other.start();
+        request.run();
+        other.join();
+        tracer.record(TraceStage.LOG_DB_BATCH, 2_000_000);
+
+        // 已结束线程的直方图仍然计入
+        assertEquals(200, stage(tracer, "TOTAL").count());
+        assertEquals(200, stage(tracer, "CHECK_BADGE").count());
+        assertEquals(200, stage(tracer, "JOURNAL_APPEND").count());
+        assertEquals(0, stage(tracer, "ANOMALY_OFFER").count());
+        StageLatency batch = stage(tracer, "LOG_DB_BATCH");
+        assertEquals(1, batch.count());
+        assertEquals(2_000_000, batch.maxNanos());
+        // 分位数误差约 6%
+        assertTrue(batch.p50Nanos() > 1_850_000 && batch.p50Nanos() <= 2_000_000, String.valueOf(batch.p50Nanos()));
+        // 阈值 1 秒：没有慢请求
+        assertTrue(tracer.slowTraces().isEmpty());
+        // 不在请求中的 mark 被忽略
+        tracer.mark(TraceStage.COMMIT);
+        assertEquals(200, stage(tracer, "COMMIT").count());
+    }
+
+    @Test
+    void slowRequests_shouldKeepFullTraceInBoundedRing() {
+        DecisionTracer tracer = new DecisionTracer(true, 1_000, 2);
+        for (int i = 0; i < 3; i++) {
+            tracer.begin();
+            tracer.mark(TraceStage.COMMIT);
+            // 嵌套的请求（包装了另一个服务）只按最外层计时
+            tracer.begin();
+            LockSupport.parkNanos(2_000_000);
+            tracer.mark(TraceStage.JOURNAL_APPEND);
+            tracer.end(request, allow);
+            tracer.end(new AccessRequest("B00" + i, "R001", request.getTimestamp()), allow);
+        }
+
+        List<SlowTrace> slow = tracer.slowTraces();
+        assertEquals(2, slow.size());
+        assertEquals("B002", slow.get(0).badgeId());
+        assertEquals("B001", slow.get(1).badgeId());
+        SlowTrace trace = slow.get(0);
+        assertEquals(ReasonCode.ALLOW, trace.reasonCode());
+        assertEquals(List.of("COMMIT", "JOURNAL_APPEND"), trace.spans().stream().map(TraceSpan::stage).toList());
+        TraceSpan append = trace.spans().get(1);
+        assertTrue(append.nanos() >= 2_000_000);
+        assertEquals(append.offsetNanos(), trace.spans().get(0).nanos() + append.nanos());
+        assertTrue(trace.totalNanos() >= append.offsetNanos());
+        assertEquals(3, stage(tracer, "TOTAL").count());
+    }
+
+    @Test
+    void disabled_shouldRecordNothing() {
+        DecisionTracer tracer = DecisionTracer.disabled();
+        tracer.begin();
+        tracer.mark(TraceStage.COMMIT);
+        tracer.end(request, allow);
+        tracer.record(TraceStage.LOG_DB_BATCH, 10);
+
+        assertTrue(tracer.stages().stream().allMatch(latency -> latency.count() == 0));
+        assertTrue(tracer.slowTraces().isEmpty());
+    }
+}